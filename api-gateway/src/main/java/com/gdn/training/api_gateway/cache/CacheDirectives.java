@@ -0,0 +1,62 @@
+package com.gdn.training.api_gateway.cache;
+
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * The {@code Cache-Control} directives the response cache acts on. Ages are in seconds, -1 when absent.
+ */
+record CacheDirectives(boolean noStore, boolean noCache, boolean isPrivate, long maxAge, long sMaxAge) {
+
+    static final CacheDirectives NONE = new CacheDirectives(false, false, false, -1, -1);
+
+    static CacheDirectives parse(Collection<String> headerValues) {
+        if (headerValues == null || headerValues.isEmpty()) {
+            return NONE;
+        }
+        boolean noStore = false;
+        boolean noCache = false;
+        boolean isPrivate = false;
+        long maxAge = -1;
+        long sMaxAge = -1;
+        for (String headerValue : headerValues) {
+            for (String directive : headerValue.split(",")) {
+                String name = directive;
+                String argument = null;
+                int equals = directive.indexOf('=');
+                if (equals >= 0) {
+                    name = directive.substring(0, equals);
+                    argument = directive.substring(equals + 1).trim();
+                }
+                switch (name.trim().toLowerCase(Locale.ROOT)) {
+                    case "no-store" -> noStore = true;
+                    case "no-cache" -> noCache = true;
+                    case "private" -> isPrivate = true;
+                    case "max-age" -> maxAge = seconds(argument);
+                    case "s-maxage" -> sMaxAge = seconds(argument);
+                    default -> {
+                        // Other directives do not change how a shared cache stores or serves the response.
+                    }
+                }
+            }
+        }
+        return new CacheDirectives(noStore, noCache, isPrivate, maxAge, sMaxAge);
+    }
+
+    /**
+     * Delta-seconds as sent; an unparseable value counts as already stale, as RFC 9111 asks.
+     */
+    private static long seconds(String argument) {
+        if (argument == null) {
+            return 0;
+        }
+        String value = argument.startsWith("\"") && argument.endsWith("\"") && argument.length() > 1
+                ? argument.substring(1, argument.length() - 1)
+                : argument;
+        try {
+            return Math.max(0, Long.parseLong(value));
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+}
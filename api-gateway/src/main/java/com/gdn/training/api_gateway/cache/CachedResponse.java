@@ -0,0 +1,165 @@
+package com.gdn.training.api_gateway.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * A stored upstream response. Bodies the upstream sent unencoded are kept gzip-compressed when that makes them
+ * smaller; {@link #body(boolean)} hands them out compressed to clients that accept gzip and inflates them for the
+ * rest.
+ */
+final class CachedResponse {
+
+    // Gzip's header and trailer alone are 18 bytes; below this, compression rarely pays for itself.
+    private static final int COMPRESSION_THRESHOLD = 256;
+    // Key, object headers and bookkeeping, so that tiny responses still count against the budget.
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private final String variantKey;
+    private final int status;
+    private final HttpHeaders headers;
+    private final List<String> vary;
+    private final String etag;
+    private final byte[] body;
+    private final boolean gzipped;
+    private final int contentLength;
+    private final long storedAt;
+    private final long freshUntil;
+    private final long retainNanos;
+
+    private CachedResponse(String variantKey, int status, HttpHeaders headers, List<String> vary, byte[] body,
+                           boolean gzipped, int contentLength, long storedAt, long freshNanos, long staleNanos) {
+        this.variantKey = variantKey;
+        this.status = status;
+        this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+        this.vary = vary;
+        this.etag = headers.getETag();
+        this.body = body;
+        this.gzipped = gzipped;
+        this.contentLength = contentLength;
+        this.storedAt = storedAt;
+        this.freshUntil = storedAt + freshNanos;
+        this.retainNanos = freshNanos + (etag != null ? staleNanos : 0);
+    }
+
+    /**
+     * @param headers     the end-to-end headers to replay, without {@code Content-Length}
+     * @param freshNanos  freshness lifetime from the response's directives or the configured default
+     * @param staleNanos  how long past its freshness the entry is kept for revalidation when it has an ETag
+     */
+    static CachedResponse of(String variantKey, int status, HttpHeaders headers, List<String> vary, byte[] body,
+                             long storedAt, long freshNanos, long staleNanos) {
+        boolean compressible = body.length >= COMPRESSION_THRESHOLD
+                && !headers.containsKey(HttpHeaders.CONTENT_ENCODING);
+        byte[] stored = body;
+        boolean gzipped = false;
+        if (compressible) {
+            byte[] compressed = gzip(body);
+            if (compressed.length < body.length) {
+                stored = compressed;
+                gzipped = true;
+            }
+        }
+        return new CachedResponse(variantKey, status, headers, vary, stored, gzipped, body.length, storedAt,
+                freshNanos, staleNanos);
+    }
+
+    /**
+     * This response with the headers of a {@code 304} that revalidated it merged in and a new freshness lifetime.
+     */
+    CachedResponse revalidated(HttpHeaders notModified, long now, long freshNanos, long staleNanos) {
+        HttpHeaders merged = new HttpHeaders();
+        merged.putAll(headers);
+        merged.putAll(notModified);
+        return new CachedResponse(variantKey, status, merged, vary, body, gzipped, contentLength, now, freshNanos,
+                staleNanos);
+    }
+
+    String variantKey() {
+        return variantKey;
+    }
+
+    int status() {
+        return status;
+    }
+
+    HttpHeaders headers() {
+        return headers;
+    }
+
+    /**
+     * Request header names the upstream said the response varies by, lower-cased.
+     */
+    List<String> vary() {
+        return vary;
+    }
+
+    String etag() {
+        return etag;
+    }
+
+    boolean gzipped() {
+        return gzipped;
+    }
+
+    /**
+     * Size of the body as the upstream sent it.
+     */
+    int contentLength() {
+        return contentLength;
+    }
+
+    boolean isFresh(long now) {
+        return now - freshUntil < 0;
+    }
+
+    long ageSeconds(long now) {
+        return Math.max(0, (now - storedAt) / 1_000_000_000L);
+    }
+
+    long retainNanos() {
+        return retainNanos;
+    }
+
+    int weight() {
+        int headerBytes = 0;
+        for (var header : headers.entrySet()) {
+            for (String value : header.getValue()) {
+                headerBytes += header.getKey().length() + value.length();
+            }
+        }
+        return ENTRY_OVERHEAD + variantKey.length() + headerBytes + body.length;
+    }
+
+    /**
+     * The body to send: still compressed when {@code gzip} is requested and the entry is stored compressed,
+     * otherwise as the upstream sent it.
+     */
+    byte[] body(boolean gzip) {
+        if (!gzipped || gzip) {
+            return body;
+        }
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cached body is not valid gzip", ex);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 2);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(body);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return compressed.toByteArray();
+    }
+}
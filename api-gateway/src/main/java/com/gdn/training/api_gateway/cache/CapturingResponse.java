@@ -0,0 +1,345 @@
+package com.gdn.training.api_gateway.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Holds back the upstream response so the cache can decide what to do with it once it is complete: store it, serve
+ * a cached body instead (after a revalidation answered {@code 304}) or simply send it on.
+ * <p>
+ * Bodies larger than the capture limit, errors and redirects are not cacheable; the wrapper then replays what it
+ * holds onto the real response and passes everything after it straight through.
+ */
+final class CapturingResponse extends HttpServletResponseWrapper {
+
+    private final int limit;
+    private final HttpHeaders headers = new HttpHeaders();
+    private final List<Cookie> cookies = new ArrayList<>();
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private int status = SC_OK;
+    private boolean passingThrough;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    CapturingResponse(HttpServletResponse response, int limit) {
+        super(response);
+        this.limit = limit;
+    }
+
+    /**
+     * Whether the whole response is still held here, i.e. nothing has reached the client yet.
+     */
+    boolean captured() {
+        return !passingThrough;
+    }
+
+    HttpHeaders capturedHeaders() {
+        return headers;
+    }
+
+    boolean setsCookies() {
+        return !cookies.isEmpty() || headers.containsKey(HttpHeaders.SET_COOKIE);
+    }
+
+    byte[] capturedBody() {
+        if (writer != null) {
+            writer.flush();
+        }
+        return body.toByteArray();
+    }
+
+    /**
+     * Sends whatever is still held to the client.
+     */
+    void release() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        passThrough();
+    }
+
+    private void passThrough() throws IOException {
+        if (passingThrough) {
+            return;
+        }
+        passingThrough = true;
+        HttpServletResponse response = (HttpServletResponse) getResponse();
+        response.setStatus(status);
+        headers.forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        cookies.forEach(response::addCookie);
+        if (body.size() > 0) {
+            body.writeTo(response.getOutputStream());
+            body.reset();
+        }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() has already been called");
+        }
+        if (outputStream == null) {
+            outputStream = new CapturingOutputStream();
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (outputStream != null && writer == null) {
+            throw new IllegalStateException("getOutputStream() has already been called");
+        }
+        if (writer == null) {
+            outputStream = new CapturingOutputStream();
+            writer = new PrintWriter(new OutputStreamWriter(outputStream, charset()));
+        }
+        return writer;
+    }
+
+    private Charset charset() {
+        String contentType = headers.getFirst(HttpHeaders.CONTENT_TYPE);
+        if (contentType != null) {
+            Charset charset = MediaType.parseMediaType(contentType).getCharset();
+            if (charset != null) {
+                return charset;
+            }
+        }
+        return StandardCharsets.ISO_8859_1;
+    }
+
+    @Override
+    public void setStatus(int sc) {
+        if (passingThrough) {
+            super.setStatus(sc);
+        } else {
+            status = sc;
+        }
+    }
+
+    @Override
+    public int getStatus() {
+        return passingThrough ? super.getStatus() : status;
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        status = sc;
+        passThrough();
+        super.sendError(sc);
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        status = sc;
+        passThrough();
+        super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        passThrough();
+        super.sendRedirect(location);
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (passingThrough) {
+            super.setHeader(name, value);
+        } else {
+            headers.set(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (passingThrough) {
+            super.addHeader(name, value);
+        } else {
+            headers.add(name, value);
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        setHeader(name, String.valueOf(value));
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        addHeader(name, String.valueOf(value));
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        if (passingThrough) {
+            super.setDateHeader(name, date);
+        } else {
+            headers.setDate(name, date);
+        }
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        if (passingThrough) {
+            super.addDateHeader(name, date);
+        } else {
+            HttpHeaders formatted = new HttpHeaders();
+            formatted.setDate(name, date);
+            headers.add(name, formatted.getFirst(name));
+        }
+    }
+
+    @Override
+    public boolean containsHeader(String name) {
+        return passingThrough ? super.containsHeader(name) : headers.containsKey(name);
+    }
+
+    @Override
+    public String getHeader(String name) {
+        return passingThrough ? super.getHeader(name) : headers.getFirst(name);
+    }
+
+    @Override
+    public Collection<String> getHeaders(String name) {
+        if (passingThrough) {
+            return super.getHeaders(name);
+        }
+        List<String> values = headers.get(name);
+        return values != null ? List.copyOf(values) : List.of();
+    }
+
+    @Override
+    public Collection<String> getHeaderNames() {
+        return passingThrough ? super.getHeaderNames() : List.copyOf(headers.keySet());
+    }
+
+    @Override
+    public void setContentType(String type) {
+        if (passingThrough) {
+            super.setContentType(type);
+        } else if (type != null) {
+            headers.set(HttpHeaders.CONTENT_TYPE, type);
+        }
+    }
+
+    @Override
+    public String getContentType() {
+        return passingThrough ? super.getContentType() : headers.getFirst(HttpHeaders.CONTENT_TYPE);
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        if (passingThrough) {
+            super.setContentLengthLong(len);
+        } else {
+            headers.setContentLength(len);
+        }
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+        if (passingThrough) {
+            super.addCookie(cookie);
+        } else {
+            cookies.add(cookie);
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (passingThrough) {
+            super.flushBuffer();
+        }
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return passingThrough && super.isCommitted();
+    }
+
+    @Override
+    public void reset() {
+        if (passingThrough) {
+            super.reset();
+            return;
+        }
+        status = SC_OK;
+        headers.clear();
+        cookies.clear();
+        body.reset();
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (passingThrough) {
+            super.resetBuffer();
+        } else {
+            body.reset();
+        }
+    }
+
+    private final class CapturingOutputStream extends ServletOutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!passingThrough && body.size() + 1 > limit) {
+                passThrough();
+            }
+            if (passingThrough) {
+                getResponse().getOutputStream().write(b);
+            } else {
+                body.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (!passingThrough && body.size() + len > limit) {
+                passThrough();
+            }
+            if (passingThrough) {
+                getResponse().getOutputStream().write(b, off, len);
+            } else {
+                body.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (passingThrough) {
+                getResponse().getOutputStream().flush();
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            throw new UnsupportedOperationException("Captured responses are written synchronously");
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package com.gdn.training.api_gateway.cache;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.server.mvc.config.GatewayMvcProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.gdn.training.api_gateway.config.GatewayRoutes;
+import com.gdn.training.api_gateway.config.ResponseCacheProperties;
+import com.gdn.training.api_gateway.security.AccessTokenResolver;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Shared in-memory cache of anonymous {@code GET} responses on the configured gateway routes.
+ * <p>
+ * Entries live in a Caffeine cache weighed by their stored size, so the {@code max-size} budget is enforced with
+ * W-TinyLFU eviction. Responses are looked up in two steps, as HTTP caches do for {@code Vary}: the method and URI
+ * give the header names the resource varies by, and those headers' values from the request select the stored
+ * variant. Concurrent misses for the same variant share one upstream call through {@link #join}.
+ */
+@Component
+public class ResponseCache {
+
+    static final String CACHE_NAME = "gateway.responses";
+
+    // Hop-by-hop headers describe the upstream connection, and the length is recomputed per representation.
+    private static final Set<String> UNSTORED_HEADERS = Set.of("connection", "keep-alive", "proxy-connection",
+            "transfer-encoding", "te", "trailer", "upgrade", "content-length", "age");
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final ResponseCacheProperties properties;
+    private final List<PathPattern> patterns;
+    private final AccessTokenResolver accessTokenResolver;
+    private final Ticker ticker;
+    private final Cache<String, CachedResponse> entries;
+    private final Cache<String, List<String>> varyByResource;
+    private final ConcurrentMap<String, CompletableFuture<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Map<Outcome, Counter> outcomes = new EnumMap<>(Outcome.class);
+    private final Counter bytesSaved;
+
+    @Autowired
+    public ResponseCache(ResponseCacheProperties properties, ObjectProvider<GatewayMvcProperties> gatewayProperties,
+                         AccessTokenResolver accessTokenResolver, MeterRegistry meterRegistry) {
+        this(properties, gatewayProperties.getIfAvailable(), accessTokenResolver, meterRegistry,
+                Ticker.systemTicker());
+    }
+
+    ResponseCache(ResponseCacheProperties properties, GatewayMvcProperties gateway,
+                  AccessTokenResolver accessTokenResolver, MeterRegistry meterRegistry, Ticker ticker) {
+        this.properties = properties;
+        this.patterns = patterns(properties, gateway);
+        this.accessTokenResolver = accessTokenResolver;
+        this.ticker = ticker;
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxSize().toBytes())
+                .weigher((String key, CachedResponse entry) -> entry.weight())
+                .expireAfter(new RetainUntilStale())
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        // A stale Vary list only costs a miss, so this index is bounded by count alone.
+        this.varyByResource = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, properties.getMaxSize().toBytes() / 1_024))
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, CACHE_NAME);
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, Counter.builder("gateway.response.cache.requests")
+                    .description("Cacheable requests by how the response cache answered them")
+                    .tag("result", outcome.tag)
+                    .register(meterRegistry));
+        }
+        this.bytesSaved = Counter.builder("gateway.response.cache.bytes.saved")
+                .description("Response body bytes served without transferring them from the upstream service")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    private static List<PathPattern> patterns(ResponseCacheProperties properties, GatewayMvcProperties gateway) {
+        List<PathPattern> patterns = new ArrayList<>();
+        for (String routeId : properties.getRouteIds()) {
+            if (!StringUtils.hasText(routeId)) {
+                continue;
+            }
+            List<String> paths = GatewayRoutes.pathPatterns(gateway, routeId.trim());
+            if (paths.isEmpty() && properties.isEnabled()) {
+                throw new IllegalStateException(
+                        "Response cache references route '" + routeId + "', which has no Path predicate");
+            }
+            paths.stream().map(PathPatternParser.defaultInstance::parse).forEach(patterns::add);
+        }
+        return List.copyOf(patterns);
+    }
+
+    /**
+     * Whether the request may be answered from, and its response stored in, this shared cache: an anonymous
+     * {@code GET} on one of the cached routes. A request is anonymous when it carries neither an
+     * {@code Authorization} header nor an access token that {@link AccessTokenResolver} would authenticate, such as
+     * the {@code ACCESS_TOKEN} cookie.
+     */
+    public boolean appliesTo(HttpServletRequest request) {
+        if (!properties.isEnabled()
+                || patterns.isEmpty()
+                || !HttpMethod.GET.matches(request.getMethod())
+                || request.getHeader(HttpHeaders.AUTHORIZATION) != null
+                || accessTokenResolver.resolve(request) != null) {
+            return false;
+        }
+        PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        for (PathPattern pattern : patterns) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String resourceKey(HttpServletRequest request) {
+        String query = request.getQueryString();
+        return query == null ? request.getRequestURI() : request.getRequestURI() + '?' + query;
+    }
+
+    /**
+     * The stored variant matching the request, fresh or stale, or {@code null}.
+     */
+    CachedResponse lookup(String resourceKey, HttpServletRequest request) {
+        List<String> vary = varyByResource.getIfPresent(resourceKey);
+        return vary == null ? null : entries.getIfPresent(variantKey(resourceKey, vary, request));
+    }
+
+    /**
+     * The key identical requests coalesce on: the variant key when the resource's {@code Vary} is known, else just
+     * the resource, in which case waiters check {@link #matches} before sharing the response.
+     */
+    String coalescingKey(String resourceKey, HttpServletRequest request) {
+        List<String> vary = varyByResource.getIfPresent(resourceKey);
+        return vary == null ? resourceKey : variantKey(resourceKey, vary, request);
+    }
+
+    boolean matches(CachedResponse entry, String resourceKey, HttpServletRequest request) {
+        return entry.variantKey().equals(variantKey(resourceKey, entry.vary(), request));
+    }
+
+    private static String variantKey(String resourceKey, List<String> vary, HttpServletRequest request) {
+        if (vary.isEmpty()) {
+            return resourceKey;
+        }
+        StringBuilder key = new StringBuilder(resourceKey);
+        for (String name : vary) {
+            key.append('\n').append(name).append(':');
+            Enumeration<String> values = request.getHeaders(name);
+            while (values != null && values.hasMoreElements()) {
+                key.append(values.nextElement()).append(',');
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Registers the caller as the one fetching {@code key} from upstream, or hands it the fetch already running.
+     */
+    Fetch join(String key) {
+        CompletableFuture<CachedResponse> fetch = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> running = inFlight.putIfAbsent(key, fetch);
+        return running == null ? new Fetch(key, fetch, true) : new Fetch(key, running, false);
+    }
+
+    /**
+     * Stores a captured {@code 200} response when its directives allow a shared cache to, and returns the entry.
+     * Returns {@code null} for responses that must not be stored.
+     */
+    CachedResponse store(String resourceKey, HttpServletRequest request, CapturingResponse response) {
+        if (!response.captured() || response.getStatus() != HttpStatus.OK.value() || response.setsCookies()) {
+            return null;
+        }
+        HttpHeaders headers = response.capturedHeaders();
+        CacheDirectives directives = CacheDirectives.parse(headers.get(HttpHeaders.CACHE_CONTROL));
+        List<String> vary = vary(headers);
+        if (directives.noStore() || directives.isPrivate() || vary == null) {
+            return null;
+        }
+        long freshNanos = freshNanos(directives);
+        if (freshNanos <= 0 && headers.getETag() == null) {
+            return null;
+        }
+        HttpHeaders stored = new HttpHeaders();
+        headers.forEach((name, values) -> {
+            if (!UNSTORED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                stored.put(name, List.copyOf(values));
+            }
+        });
+        CachedResponse entry = CachedResponse.of(variantKey(resourceKey, vary, request), response.getStatus(),
+                stored, vary, response.capturedBody(), ticker.read(), freshNanos,
+                properties.getStaleRetention().toNanos());
+        varyByResource.put(resourceKey, vary);
+        entries.put(entry.variantKey(), entry);
+        return entry;
+    }
+
+    /**
+     * Refreshes a stale entry the upstream confirmed with {@code 304 Not Modified}.
+     */
+    CachedResponse revalidate(CachedResponse stale, CapturingResponse notModified) {
+        HttpHeaders headers = new HttpHeaders();
+        notModified.capturedHeaders().forEach((name, values) -> {
+            if (!UNSTORED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                headers.put(name, values);
+            }
+        });
+        List<String> cacheControl = headers.containsKey(HttpHeaders.CACHE_CONTROL)
+                ? headers.get(HttpHeaders.CACHE_CONTROL)
+                : stale.headers().get(HttpHeaders.CACHE_CONTROL);
+        long freshNanos = freshNanos(CacheDirectives.parse(cacheControl));
+        CachedResponse entry = stale.revalidated(headers, ticker.read(), freshNanos,
+                properties.getStaleRetention().toNanos());
+        entries.put(entry.variantKey(), entry);
+        return entry;
+    }
+
+    private long freshNanos(CacheDirectives directives) {
+        if (directives.noCache()) {
+            return 0;
+        }
+        if (directives.sMaxAge() >= 0) {
+            return directives.sMaxAge() * NANOS_PER_SECOND;
+        }
+        if (directives.maxAge() >= 0) {
+            return directives.maxAge() * NANOS_PER_SECOND;
+        }
+        return properties.getDefaultTtl().toNanos();
+    }
+
+    /**
+     * The lower-cased header names the response varies by, or {@code null} for {@code Vary: *}.
+     */
+    private static List<String> vary(HttpHeaders headers) {
+        List<String> values = headers.get(HttpHeaders.VARY);
+        if (values == null) {
+            return List.of();
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (String value : values) {
+            for (String name : value.split(",")) {
+                String trimmed = name.trim().toLowerCase(Locale.ROOT);
+                if (trimmed.equals("*")) {
+                    return null;
+                }
+                if (!trimmed.isEmpty()) {
+                    names.add(trimmed);
+                }
+            }
+        }
+        return List.copyOf(names);
+    }
+
+    long now() {
+        return ticker.read();
+    }
+
+    long coalesceTimeoutMillis() {
+        return properties.getCoalesceTimeout().toMillis();
+    }
+
+    int maxEntrySize() {
+        return (int) Math.min(Integer.MAX_VALUE - 8, properties.getMaxEntrySize().toBytes());
+    }
+
+    void record(Outcome outcome, CachedResponse entry) {
+        outcomes.get(outcome).increment();
+        if (entry != null && outcome.servedFromCache) {
+            bytesSaved.increment(entry.contentLength());
+        }
+    }
+
+    public Status status() {
+        entries.cleanUp();
+        long hits = count(Outcome.HIT) + count(Outcome.COALESCED);
+        long revalidated = count(Outcome.REVALIDATED);
+        long misses = count(Outcome.MISS);
+        long lookups = hits + revalidated + misses;
+        return new Status(
+                properties.isEnabled(),
+                entries.estimatedSize(),
+                entries.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L),
+                properties.getMaxSize().toBytes(),
+                hits,
+                revalidated,
+                misses,
+                count(Outcome.BYPASS),
+                lookups == 0 ? 0.0 : (double) hits / lookups,
+                (long) bytesSaved.count(),
+                entries.stats().evictionCount());
+    }
+
+    private long count(Outcome outcome) {
+        return (long) outcomes.get(outcome).count();
+    }
+
+    enum Outcome {
+        /**
+         * Served a fresh entry without calling upstream.
+         */
+        HIT("hit", true),
+        /**
+         * Waited for an identical in-flight miss and served its response.
+         */
+        COALESCED("coalesced", true),
+        /**
+         * Revalidated a stale entry; upstream answered {@code 304} and the body came from the cache.
+         */
+        REVALIDATED("revalidated", true),
+        MISS("miss", false),
+        /**
+         * The request asked not to be served from the cache.
+         */
+        BYPASS("bypass", false);
+
+        private final String tag;
+        private final boolean servedFromCache;
+
+        Outcome(String tag, boolean servedFromCache) {
+            this.tag = tag;
+            this.servedFromCache = servedFromCache;
+        }
+    }
+
+    /**
+     * An upstream fetch other identical requests can wait on. The leader must {@link #complete} it.
+     */
+    final class Fetch {
+
+        private final String key;
+        private final CompletableFuture<CachedResponse> result;
+        private final boolean leader;
+
+        private Fetch(String key, CompletableFuture<CachedResponse> result, boolean leader) {
+            this.key = key;
+            this.result = result;
+            this.leader = leader;
+        }
+
+        boolean leader() {
+            return leader;
+        }
+
+        CompletableFuture<CachedResponse> result() {
+            return result;
+        }
+
+        /**
+         * Publishes the stored entry, or {@code null} when the response was not cacheable, to the waiters.
+         */
+        void complete(CachedResponse entry) {
+            inFlight.remove(key, result);
+            result.complete(entry);
+        }
+    }
+
+    public record Status(
+            boolean enabled,
+            long entries,
+            long sizeBytes,
+            long maxSizeBytes,
+            long hits,
+            long revalidations,
+            long misses,
+            long bypasses,
+            double hitRatio,
+            long bytesSaved,
+            long evictions
+    ) {
+    }
+
+    /**
+     * Keeps entries for their freshness lifetime plus, when they can be revalidated, the stale retention.
+     */
+    private static final class RetainUntilStale implements Expiry<String, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedResponse value, long currentTime) {
+            return value.retainNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedResponse value, long currentTime, long currentDuration) {
+            return value.retainNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedResponse value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
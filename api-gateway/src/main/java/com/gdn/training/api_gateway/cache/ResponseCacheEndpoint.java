@@ -0,0 +1,24 @@
+package com.gdn.training.api_gateway.cache;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@code /actuator/responsecache}: size of the gateway response cache against its budget, hit ratio and the body
+ * bytes it has saved the upstream services.
+ */
+@Component
+@Endpoint(id = "responsecache")
+@RequiredArgsConstructor
+public class ResponseCacheEndpoint {
+
+    private final ResponseCache responseCache;
+
+    @ReadOperation
+    public ResponseCache.Status status() {
+        return responseCache.status();
+    }
+}
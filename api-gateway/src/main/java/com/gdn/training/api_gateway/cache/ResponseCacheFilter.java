@@ -0,0 +1,294 @@
+package com.gdn.training.api_gateway.cache;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.gdn.training.api_gateway.cache.ResponseCache.Outcome;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Answers cacheable requests (see {@link ResponseCache#appliesTo}) from the {@link ResponseCache} and stores what
+ * the upstream route returns for them. Runs after rate limiting, so cached responses still count against the
+ * caller's budget.
+ * <p>
+ * A fresh entry is served directly; a stale one with an {@code ETag} is revalidated with {@code If-None-Match} and
+ * served again when the upstream answers {@code 304}. Requests that find nothing usable coalesce per variant, so a
+ * burst of identical misses makes a single upstream call. Clients see the outcome in the {@code X-Cache} header.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    private static final String ALREADY_FILTERED_ATTRIBUTE =
+            ResponseCacheFilter.class.getName() + ALREADY_FILTERED_SUFFIX;
+    private static final String GZIP = "gzip";
+    // What a 304 carries, per RFC 9110 section 15.4.5.
+    private static final List<String> NOT_MODIFIED_HEADERS = List.of(HttpHeaders.CACHE_CONTROL,
+            HttpHeaders.CONTENT_LOCATION, HttpHeaders.DATE, HttpHeaders.EXPIRES, HttpHeaders.VARY);
+
+    private final ResponseCache responseCache;
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        if (!responseCache.appliesTo(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        CacheDirectives requested =
+                CacheDirectives.parse(Collections.list(request.getHeaders(HttpHeaders.CACHE_CONTROL)));
+        if (requested.noStore()) {
+            responseCache.record(Outcome.BYPASS, null);
+            filterChain.doFilter(request, response);
+            return;
+        }
+        boolean pragmaNoCache = request.getHeader(HttpHeaders.CACHE_CONTROL) == null
+                && "no-cache".equalsIgnoreCase(request.getHeader(HttpHeaders.PRAGMA));
+        boolean mayServeStored = !requested.noCache() && requested.maxAge() != 0 && !pragmaNoCache;
+
+        String resourceKey = ResponseCache.resourceKey(request);
+        CachedResponse stored = responseCache.lookup(resourceKey, request);
+        if (stored != null && mayServeStored && stored.isFresh(responseCache.now())) {
+            serve(stored, request, response, Outcome.HIT);
+            return;
+        }
+
+        ResponseCache.Fetch fetch = null;
+        if (mayServeStored) {
+            fetch = responseCache.join(responseCache.coalescingKey(resourceKey, request));
+            if (!fetch.leader()) {
+                CachedResponse shared = await(fetch);
+                if (shared != null && responseCache.matches(shared, resourceKey, request)) {
+                    serve(shared, request, response, Outcome.COALESCED);
+                    return;
+                }
+                fetch = null;
+            }
+        }
+        fetch(resourceKey, stored, request, response, filterChain, fetch);
+    }
+
+    /**
+     * Calls upstream, revalidating {@code stored} when it has an ETag, and stores a cacheable response.
+     */
+    private void fetch(
+            String resourceKey,
+            CachedResponse stored,
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain,
+            ResponseCache.Fetch fetch
+    ) throws ServletException, IOException {
+        CachedResponse entry = null;
+        try {
+            boolean revalidating = stored != null && stored.etag() != null && !isConditional(request);
+            HttpServletRequest upstreamRequest =
+                    revalidating ? new RevalidationRequest(request, stored.etag()) : request;
+            CapturingResponse capture = new CapturingResponse(response, responseCache.maxEntrySize());
+            response.setHeader(CACHE_STATUS_HEADER, Outcome.MISS.name());
+
+            filterChain.doFilter(upstreamRequest, capture);
+
+            if (revalidating && capture.captured() && capture.getStatus() == HttpServletResponse.SC_NOT_MODIFIED) {
+                entry = responseCache.revalidate(stored, capture);
+                publish(fetch, entry);
+                serve(entry, request, response, Outcome.REVALIDATED);
+                return;
+            }
+            entry = responseCache.store(resourceKey, request, capture);
+            publish(fetch, entry);
+            responseCache.record(Outcome.MISS, entry);
+            capture.release();
+        } finally {
+            publish(fetch, entry);
+        }
+    }
+
+    /**
+     * Hands the outcome to coalesced waiters as early as possible; completing twice is harmless.
+     */
+    private static void publish(ResponseCache.Fetch fetch, CachedResponse entry) {
+        if (fetch != null) {
+            fetch.complete(entry);
+        }
+    }
+
+    private CachedResponse await(ResponseCache.Fetch fetch) {
+        try {
+            return fetch.result().get(responseCache.coalesceTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException ex) {
+            log.debug("Coalesced fetch did not produce a response, calling upstream", ex);
+            return null;
+        }
+    }
+
+    private void serve(
+            CachedResponse entry,
+            HttpServletRequest request,
+            HttpServletResponse response,
+            Outcome outcome
+    ) throws IOException {
+        responseCache.record(outcome, entry);
+        boolean gzip = entry.gzipped() && acceptsGzip(request);
+        // The compressed representation is a different byte sequence, so it may only claim weak equality.
+        String etag = gzip && entry.etag() != null && !entry.etag().startsWith("W/")
+                ? "W/" + entry.etag()
+                : entry.etag();
+        String age = String.valueOf(entry.ageSeconds(responseCache.now()));
+
+        if (entry.etag() != null && matchesIfNoneMatch(request, entry.etag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            for (String name : NOT_MODIFIED_HEADERS) {
+                List<String> values = entry.headers().get(name);
+                if (values != null) {
+                    values.forEach(value -> response.addHeader(name, value));
+                }
+            }
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setHeader(HttpHeaders.AGE, age);
+            response.setHeader(CACHE_STATUS_HEADER, outcome.name());
+            return;
+        }
+
+        response.setStatus(entry.status());
+        entry.headers().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        response.setHeader(HttpHeaders.AGE, age);
+        response.setHeader(CACHE_STATUS_HEADER, outcome.name());
+        if (entry.gzipped()) {
+            if (!entry.vary().contains("accept-encoding")) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+            if (gzip) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+                response.setHeader(HttpHeaders.ETAG, etag);
+            }
+        }
+        byte[] body = entry.body(gzip);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    @Override
+    protected String getAlreadyFilteredAttributeName() {
+        return ALREADY_FILTERED_ATTRIBUTE;
+    }
+
+    private static boolean isConditional(HttpServletRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    /**
+     * Weak comparison, as {@code If-None-Match} requires.
+     */
+    private static boolean matchesIfNoneMatch(HttpServletRequest request, String etag) {
+        Enumeration<String> headers = request.getHeaders(HttpHeaders.IF_NONE_MATCH);
+        String opaque = opaqueTag(etag);
+        while (headers != null && headers.hasMoreElements()) {
+            for (String candidate : headers.nextElement().split(",")) {
+                String trimmed = candidate.trim();
+                if (trimmed.equals("*") || opaqueTag(trimmed).equals(opaque)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String opaqueTag(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        Enumeration<String> headers = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        while (headers != null && headers.hasMoreElements()) {
+            for (String coding : headers.nextElement().split(",")) {
+                String[] parts = coding.split(";");
+                String name = parts[0].trim().toLowerCase(Locale.ROOT);
+                if ((name.equals(GZIP) || name.equals("x-gzip") || name.equals("*")) && !rejected(parts)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether the coding's parameters carry {@code q=0}.
+     */
+    private static boolean rejected(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) <= 0;
+                } catch (NumberFormatException ex) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The client's request with the stored ETag as {@code If-None-Match}, so the upstream can answer {@code 304}.
+     */
+    private static final class RevalidationRequest extends HttpServletRequestWrapper {
+
+        private final String etag;
+
+        private RevalidationRequest(HttpServletRequest request, String etag) {
+            super(request);
+            this.etag = etag;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return HttpHeaders.IF_NONE_MATCH.equalsIgnoreCase(name) ? etag : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return HttpHeaders.IF_NONE_MATCH.equalsIgnoreCase(name)
+                    ? Collections.enumeration(List.of(etag))
+                    : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            Set<String> names = new LinkedHashSet<>(Collections.list(super.getHeaderNames()));
+            names.add(HttpHeaders.IF_NONE_MATCH);
+            return Collections.enumeration(names);
+        }
+    }
+}
@@ -1,12 +1,11 @@
 package com.gdn.training.api_gateway.client;
 
-import java.time.Duration;
-
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestClientResponseException;
@@ -17,35 +16,52 @@ import com.gdn.training.api_gateway.config.ServiceClientsProperties;
 import com.gdn.training.api_gateway.dto.LoginRequest;
 import com.gdn.training.api_gateway.dto.RegisterRequest;
 import com.gdn.training.api_gateway.dto.UserInfoDTO;
+import com.gdn.training.api_gateway.metrics.StageLatency;
 import com.gdn.training.common.model.BaseResponse;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 
 @Component
 @Slf4j
 public class MemberClient {
+    private static final String CLIENT_NAME = "member";
+
     private final RestTemplate restTemplate;
+    private final HttpComponentsClientHttpRequestFactory requestFactory;
     private final ServiceClientsProperties serviceClientsProperties;
-
-    public MemberClient(RestTemplateBuilder builder, ServiceClientsProperties serviceClientsProperties) {
+    private final StageLatency stageLatency;
+
+    public MemberClient(
+            RestTemplateBuilder builder,
+            ServiceClientsProperties serviceClientsProperties,
+            MeterRegistry meterRegistry,
+            StageLatency stageLatency
+    ) {
         this.serviceClientsProperties = serviceClientsProperties;
-        ServiceClientConfig config = serviceClientsProperties.getRequired("member");
-        
+        this.stageLatency = stageLatency;
+        ServiceClientConfig config = serviceClientsProperties.getRequired(CLIENT_NAME);
+
+        this.requestFactory = PooledHttpClients.requestFactory(CLIENT_NAME, config, meterRegistry);
+        // Requests are made against endpoint paths under the root URI, so http.client.requests is tagged per endpoint.
         this.restTemplate = builder
-                .connectTimeout(Duration.ofMillis(config.getConnectTimeout()))
-                .readTimeout(Duration.ofMillis(config.getReadTimeout()))
+                .rootUri(config.getBaseUrl())
                 .build();
+        // Set after building: the builder would re-apply spring.http.client settings to the factory reflectively,
+        // and the gateway's "don't follow redirects" default cannot be set on the pooled Apache factory that way.
+        this.restTemplate.setRequestFactory(requestFactory);
     }
 
     public UserInfoDTO validateCredentials(LoginRequest request) {
-        ServiceClientConfig config = serviceClientsProperties.getRequired("member");
-        String url = config.getBaseUrl() + config.getEndpoints().get("validate-credentials");
+        ServiceClientConfig config = serviceClientsProperties.getRequired(CLIENT_NAME);
+        String url = config.getEndpoints().get("validate-credentials");
         log.debug("Calling Member Service validate-credentials endpoint at {} for {}", url, request.getEmail());
         try {
-            ResponseEntity<BaseResponse<UserInfoDTO>> response = restTemplate.exchange(
+            ResponseEntity<BaseResponse<UserInfoDTO>> response = post(
+                    "validate-credentials",
                     url,
-                    HttpMethod.POST,
-                    new HttpEntity<>(request),
+                    request,
                     new ParameterizedTypeReference<>() {}
             );
 
@@ -74,14 +90,14 @@ public class MemberClient {
     }
 
     public void register(RegisterRequest request) {
-        ServiceClientConfig config = serviceClientsProperties.getRequired("member");
-        String url = config.getBaseUrl() + config.getEndpoints().get("register");
+        ServiceClientConfig config = serviceClientsProperties.getRequired(CLIENT_NAME);
+        String url = config.getEndpoints().get("register");
         log.debug("Calling Member Service register endpoint at {} for {}", url, request.getEmail());
         try {
-            ResponseEntity<BaseResponse<Void>> response = restTemplate.exchange(
+            ResponseEntity<BaseResponse<Void>> response = post(
+                    "register",
                     url,
-                    HttpMethod.POST,
-                    new HttpEntity<>(request),
+                    request,
                     new ParameterizedTypeReference<>() {}
             );
 
@@ -108,5 +124,29 @@ public class MemberClient {
         }
     }
 
+    /**
+     * Posts to a member service endpoint, recording the call as the {@code member_client} stage with the endpoint
+     * name as its route.
+     */
+    private <T> ResponseEntity<T> post(String endpoint, String url, Object body, ParameterizedTypeReference<T> type) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            ResponseEntity<T> response = restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<>(body), type);
+            outcome = "success";
+            return response;
+        } catch (RestClientResponseException ex) {
+            if (ex.getStatusCode().is4xxClientError()) {
+                outcome = "rejected";
+            }
+            throw ex;
+        } finally {
+            stageLatency.record(StageLatency.Stage.MEMBER_CLIENT, endpoint, outcome, System.nanoTime() - start);
+        }
+    }
 
+    @PreDestroy
+    void close() throws Exception {
+        requestFactory.destroy();
+    }
 }
@@ -0,0 +1,105 @@
+package com.gdn.training.api_gateway.client;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import com.gdn.training.api_gateway.config.ServiceClientConfig;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+
+/**
+ * Builds keep-alive HTTP transports for downstream service clients.
+ * <p>
+ * Each client gets its own Apache HttpClient 5 connection pool, sized, timed out and aged per
+ * {@link ServiceClientConfig}. HttpClient 5 guards its pool with {@code ReentrantLock}s, so callers waiting for a
+ * connection on virtual threads unmount instead of pinning their carrier. Pool state is published as
+ * {@code httpcomponents.httpclient.pool.*} gauges and the time spent waiting for a connection as the
+ * {@code httpcomponents.httpclient.pool.lease} timer, all tagged {@code httpclient=<client name>}.
+ */
+final class PooledHttpClients {
+
+    private PooledHttpClients() {
+    }
+
+    static HttpComponentsClientHttpRequestFactory requestFactory(
+            String name,
+            ServiceClientConfig config,
+            MeterRegistry meterRegistry
+    ) {
+        Timer leaseTimer = Timer.builder("httpcomponents.httpclient.pool.lease")
+                .description("Time spent waiting for a pooled connection")
+                .tag("httpclient", name)
+                .register(meterRegistry);
+
+        PoolingHttpClientConnectionManager connectionManager = new LeaseTimingConnectionManager(leaseTimer);
+        connectionManager.setMaxTotal(config.getMaxConnectionsPerRoute());
+        connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(config.getConnectTimeout()))
+                .setSocketTimeout(Timeout.ofMilliseconds(config.getReadTimeout()))
+                .setTimeToLive(TimeValue.ofMilliseconds(config.getConnectionTimeToLive()))
+                .build());
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, name).bindTo(meterRegistry);
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(config.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.ofMilliseconds(config.getReadTimeout()))
+                        .build())
+                .evictIdleConnections(TimeValue.ofMilliseconds(config.getMaxIdleTime()))
+                .evictExpiredConnections()
+                .build();
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    /**
+     * Records how long each lease waits for the pool to hand out a connection.
+     */
+    private static final class LeaseTimingConnectionManager extends PoolingHttpClientConnectionManager {
+
+        private final Timer leaseTimer;
+
+        private LeaseTimingConnectionManager(Timer leaseTimer) {
+            this.leaseTimer = leaseTimer;
+        }
+
+        @Override
+        public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+            LeaseRequest lease = super.lease(id, route, requestTimeout, state);
+            return new LeaseRequest() {
+
+                @Override
+                public ConnectionEndpoint get(Timeout timeout)
+                        throws InterruptedException, ExecutionException, TimeoutException {
+                    long start = System.nanoTime();
+                    try {
+                        return lease.get(timeout);
+                    } finally {
+                        leaseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return lease.cancel();
+                }
+            };
+        }
+    }
+}
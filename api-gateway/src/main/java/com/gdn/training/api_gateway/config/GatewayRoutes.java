@@ -0,0 +1,62 @@
+package com.gdn.training.api_gateway.config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.cloud.gateway.server.mvc.config.GatewayMvcProperties;
+import org.springframework.cloud.gateway.server.mvc.config.PredicateProperties;
+import org.springframework.cloud.gateway.server.mvc.config.RouteProperties;
+import org.springframework.util.StringUtils;
+
+/**
+ * Lookups on the {@code spring.cloud.gateway.server.webmvc} route table for features configured by route id.
+ */
+public final class GatewayRoutes {
+
+    private GatewayRoutes() {
+    }
+
+    /**
+     * Ids of every configured route, in declaration order.
+     */
+    public static Set<String> routeIds(GatewayMvcProperties gateway) {
+        Set<String> ids = new LinkedHashSet<>();
+        if (gateway != null) {
+            gateway.getRoutes().stream().map(RouteProperties::getId).filter(StringUtils::hasText).forEach(ids::add);
+            ids.addAll(gateway.getRoutesMap().keySet());
+        }
+        return ids;
+    }
+
+    /**
+     * The {@code Path} predicate patterns of the route with the given id, or an empty list when the route does not
+     * exist, has no {@code Path} predicate or the gateway is not configured.
+     */
+    public static List<String> pathPatterns(GatewayMvcProperties gateway, String routeId) {
+        if (gateway == null) {
+            return List.of();
+        }
+        List<RouteProperties> routes = new ArrayList<>();
+        gateway.getRoutes().stream().filter(route -> routeId.equals(route.getId())).forEach(routes::add);
+        // Routes declared as a map are identified by their key.
+        RouteProperties mapped = gateway.getRoutesMap().get(routeId);
+        if (mapped != null) {
+            routes.add(mapped);
+        }
+        List<String> paths = new ArrayList<>();
+        for (RouteProperties route : routes) {
+            for (PredicateProperties predicate : route.getPredicates()) {
+                if ("Path".equalsIgnoreCase(predicate.getName())) {
+                    for (String path : predicate.getArgs().values()) {
+                        if (StringUtils.hasText(path)) {
+                            paths.add(path.trim());
+                        }
+                    }
+                }
+            }
+        }
+        return paths;
+    }
+}
@@ -1,7 +1,10 @@
 package com.gdn.training.api_gateway.config;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
@@ -17,9 +20,170 @@ public class RateLimiterProperties {
 
     private long requestsPerMinute = 60;
 
+    /**
+     * Route, method and role specific limits, evaluated in declaration order. Requests matching none of them are
+     * limited by {@link #requestsPerMinute}.
+     */
+    private List<Policy> policies = new ArrayList<>();
+
+    /**
+     * Whether every request is decided in Redis ({@code exact}) or counted locally and synced in batches ({@code hybrid}).
+     */
+    private Mode mode = Mode.EXACT;
+
+    /**
+     * Counting strategy evaluated by the Redis limiter script in {@code exact} mode. Hybrid mode always counts fixed windows.
+     */
+    private Algorithm algorithm = Algorithm.FIXED_WINDOW;
+
+    private Hybrid hybrid = new Hybrid();
+
+    private Fallback fallback = new Fallback();
+
+    private Anonymous anonymous = new Anonymous();
+
+    /**
+     * Upper bound on keys remembered as blocked by Redis, whose requests are then refused without a Redis call until
+     * the block ends; the least recently used are evicted first.
+     */
+    private long maxBlockedKeys = 100_000;
+
     /**
      * Optional set of paths that are exempt from rate limiting checks. Supports Ant-style patterns.
      */
     private List<String> ignoredPaths = new ArrayList<>();
-}
 
+    public enum Mode {
+        EXACT,
+        HYBRID
+    }
+
+    public enum Algorithm {
+        /**
+         * One counter per key that resets every minute. Cheapest, but allows up to twice the limit across a window edge.
+         */
+        FIXED_WINDOW,
+        /**
+         * Timestamp log per key; exact over any rolling minute at the cost of one sorted-set entry per request.
+         */
+        SLIDING_WINDOW_LOG,
+        /**
+         * GCRA token bucket; smooth refill at the configured rate with a burst of up to the full limit.
+         */
+        TOKEN_BUCKET
+    }
+
+    @Data
+    public static class Policy {
+
+        /**
+         * Identifies the policy in the {@code X-RateLimit-Policy} header and in its Redis keys; each policy has its
+         * own budget.
+         */
+        private String name;
+
+        /**
+         * Gateway route whose {@code Path} predicates the policy applies to. Combined with {@link #paths}.
+         */
+        private String routeId;
+
+        /**
+         * Path patterns the policy applies to. With neither paths nor a route the policy matches every path.
+         */
+        private List<String> paths = new ArrayList<>();
+
+        /**
+         * HTTP methods the policy applies to; empty matches every method.
+         */
+        private List<String> methods = new ArrayList<>();
+
+        /**
+         * JWT roles (for example {@code ROLE_USER}) or {@code ANONYMOUS} for unauthenticated callers; empty matches
+         * every caller.
+         */
+        private List<String> roles = new ArrayList<>();
+
+        private long limit = 60;
+
+        private Duration window = Duration.ofMinutes(1);
+
+        /**
+         * Tokens a matching request consumes.
+         */
+        private int cost = 1;
+
+        /**
+         * Cost of a request carrying the given query parameter, for example {@code query-costs.query=5}. The highest
+         * matching cost wins.
+         */
+        private Map<String, Integer> queryCosts = new LinkedHashMap<>();
+    }
+
+    @Data
+    public static class Hybrid {
+
+        /**
+         * How often all locally counted hits are pushed to Redis and the global totals pulled back.
+         */
+        private Duration syncInterval = Duration.ofMillis(100);
+
+        /**
+         * Hits a key may accumulate locally before the instance syncs it inline. Bounds the overshoot of the global
+         * limit to roughly this many requests per additional gateway instance.
+         */
+        private int maxUnsyncedHits = 20;
+
+        /**
+         * Upper bound on keys counted locally; the least recently used are evicted first, dropping any hits they had
+         * not synced yet.
+         */
+        private long maxKeys = 100_000;
+    }
+
+    @Data
+    public static class Anonymous {
+
+        /**
+         * Addresses or CIDR ranges of the proxies in front of the gateway. {@code X-Forwarded-For} entries are only
+         * believed as far back as they were appended by one of these; with none configured the header is ignored and
+         * the connection's peer address is the client.
+         */
+        private List<String> trustedProxies = new ArrayList<>();
+
+        /**
+         * IPv4 prefix anonymous callers are grouped by; 32 gives every address its own budget.
+         */
+        private int ipv4PrefixLength = 32;
+
+        /**
+         * IPv6 prefix anonymous callers are grouped by; 64 is the smallest block usually assigned to one subscriber.
+         */
+        private int ipv6PrefixLength = 64;
+
+        /**
+         * Budgets the {@code ANON_CLIENT_ID} cookie spreads callers behind one address over, so browsers sharing a NAT
+         * address do not share one budget. A client minting its own cookies gains at most this many budgets per
+         * address; 0 ignores the cookie.
+         */
+        private int clientsPerAddress = 8;
+    }
+
+    @Data
+    public static class Fallback {
+
+        /**
+         * Consecutive Redis failures after which the limiter stops calling Redis and decides in memory.
+         */
+        private int failureThreshold = 3;
+
+        /**
+         * How often Redis is pinged while the in-memory fallback is active.
+         */
+        private Duration probeInterval = Duration.ofSeconds(2);
+
+        /**
+         * Upper bound on keys tracked by the in-memory fallback; the least recently used are evicted first.
+         */
+        private long maxKeys = 10_000;
+    }
+}
@@ -0,0 +1,25 @@
+package com.gdn.training.api_gateway.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "security.jwt.refresh")
+public class RefreshTokenProperties {
+
+    /**
+     * Lifetime of a login session. Rotating a refresh token does not extend it, so a session always ends this long
+     * after the login that started it.
+     */
+    private Duration ttl = Duration.ofDays(7);
+
+    /**
+     * Path of the refresh token cookie, so browsers only send it to the auth endpoints.
+     */
+    private String cookiePath = "/auth";
+}
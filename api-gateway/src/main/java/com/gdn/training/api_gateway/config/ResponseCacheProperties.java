@@ -0,0 +1,50 @@
+package com.gdn.training.api_gateway.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import lombok.Data;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.response-cache")
+public class ResponseCacheProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Gateway routes whose anonymous {@code GET} responses may be cached, matched by their {@code Path} predicates.
+     */
+    private List<String> routeIds = new ArrayList<>();
+
+    /**
+     * Budget for all cached bodies (compressed) and headers. The least valuable entries are evicted first.
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Responses with a larger body are proxied but not cached.
+     */
+    private DataSize maxEntrySize = DataSize.ofMegabytes(1);
+
+    /**
+     * Freshness lifetime of responses that carry no {@code max-age} or {@code s-maxage}; zero caches only responses
+     * that declare their own.
+     */
+    private Duration defaultTtl = Duration.ZERO;
+
+    /**
+     * How long an expired response with an {@code ETag} is kept so it can be revalidated instead of refetched.
+     */
+    private Duration staleRetention = Duration.ofMinutes(10);
+
+    /**
+     * How long a request waits for an identical in-flight miss before going upstream itself.
+     */
+    private Duration coalesceTimeout = Duration.ofSeconds(5);
+}
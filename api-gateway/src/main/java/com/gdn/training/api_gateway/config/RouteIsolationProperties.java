@@ -0,0 +1,101 @@
+package com.gdn.training.api_gateway.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.isolation")
+public class RouteIsolationProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Circuit breaker and bulkhead settings by gateway route id. Routes without an entry use the defaults of
+     * {@link Route}.
+     */
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    @Data
+    public static class Route {
+
+        /**
+         * Requests the route may have in flight at once; further requests are rejected instead of queueing.
+         */
+        private int maxConcurrentCalls = 100;
+
+        /**
+         * How long a request may wait for a free slot before it is rejected.
+         */
+        private Duration maxWait = Duration.ZERO;
+
+        /**
+         * Percentage of failed or slow calls in the sliding window at which the circuit opens.
+         */
+        private int failureRateThreshold = 50;
+
+        /**
+         * Calls taking longer than this count as failures even when they succeed.
+         */
+        private Duration slowCallDuration = Duration.ofSeconds(5);
+
+        /**
+         * Number of most recent calls the failure rate is computed over.
+         */
+        private int slidingWindowSize = 20;
+
+        /**
+         * Calls the window must hold before the failure rate is evaluated.
+         */
+        private int minimumCalls = 10;
+
+        /**
+         * How long an open circuit rejects every call before letting probe calls through.
+         */
+        private Duration openDuration = Duration.ofSeconds(10);
+
+        /**
+         * Probe calls let through after {@link #openDuration}; all must succeed to close the circuit again.
+         */
+        private int halfOpenCalls = 3;
+
+        /**
+         * Concurrency limit learnt from the route's latency, kept between {@code min-limit} and
+         * {@link #maxConcurrentCalls}.
+         */
+        private Adaptive adaptive = new Adaptive();
+    }
+
+    @Data
+    public static class Adaptive {
+
+        private boolean enabled = false;
+
+        /**
+         * Limit the route starts from before any latency has been observed.
+         */
+        private int initialLimit = 20;
+
+        /**
+         * The limit never drops below this, so a route always gets some traffic to measure.
+         */
+        private int minLimit = 2;
+
+        /**
+         * How far recent latency may rise above the baseline before the limit shrinks, as a ratio.
+         */
+        private double rttTolerance = 1.5;
+
+        /**
+         * Fraction of each computed increase applied to the limit; lower values grow more slowly but oscillate less.
+         * Decreases always apply in full.
+         */
+        private double smoothing = 0.2;
+    }
+}
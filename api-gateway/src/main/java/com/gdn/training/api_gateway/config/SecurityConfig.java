@@ -5,8 +5,11 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import com.gdn.training.api_gateway.cache.ResponseCacheFilter;
+import com.gdn.training.api_gateway.resilience.RouteIsolationFilter;
 import com.gdn.training.api_gateway.security.JwtAuthenticationFilter;
 import com.gdn.training.api_gateway.security.RateLimitingFilter;
 
@@ -19,6 +22,8 @@ public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final RateLimitingFilter rateLimitingFilter;
+    private final ResponseCacheFilter responseCacheFilter;
+    private final RouteIsolationFilter routeIsolationFilter;
     private final SecurityProperties securityProperties;
 
     @Bean
@@ -31,6 +36,11 @@ public class SecurityConfig {
                         session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
                 .authorizeHttpRequests(auth -> {
+                    // Actuator endpoints show other users' traffic and can reset gateway state; only health is open.
+                    auth.requestMatchers("/actuator/health", "/actuator/health/**").permitAll();
+                    auth.requestMatchers("/actuator/**").hasRole("ADMIN");
+                    // The services' own actuators are for the internal network, never proxied.
+                    auth.requestMatchers("/*/actuator/**").denyAll();
                     String[] publicPaths = securityProperties.getPublicPaths().toArray(new String[0]);
                     if (publicPaths.length > 0) {
                         auth.requestMatchers(publicPaths).permitAll();
@@ -39,6 +49,9 @@ public class SecurityConfig {
                 })
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
                 .addFilterAfter(rateLimitingFilter, JwtAuthenticationFilter.class)
+                .addFilterAfter(responseCacheFilter, RateLimitingFilter.class)
+                // Only requests that passed authorization take a bulkhead permit and feed the route's latency samples.
+                .addFilterAfter(routeIsolationFilter, AuthorizationFilter.class)
                 .exceptionHandling(ex -> ex
                         .authenticationEntryPoint((request, response, authException) -> {
                             try {
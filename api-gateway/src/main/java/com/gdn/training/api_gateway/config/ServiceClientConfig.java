@@ -14,4 +14,20 @@ public class ServiceClientConfig {
 
     private long connectTimeout = 5000;
     private long readTimeout = 10000;
+
+    /**
+     * Pooled connections kept to the service; callers beyond this wait up to {@link #connectionRequestTimeout}.
+     */
+    private int maxConnectionsPerRoute = 50;
+    private long connectionRequestTimeout = 2000;
+
+    /**
+     * Idle connections are closed after this long, before the service or a load balancer drops them.
+     */
+    private long maxIdleTime = 30000;
+
+    /**
+     * Connections are retired after this long even when busy, so DNS and load-balancer changes are picked up.
+     */
+    private long connectionTimeToLive = 300000;
 }
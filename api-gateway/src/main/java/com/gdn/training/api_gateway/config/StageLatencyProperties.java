@@ -0,0 +1,27 @@
+package com.gdn.training.api_gateway.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.latency")
+public class StageLatencyProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Length of a histogram window. Snapshots cover the last complete window plus the current one, so they describe
+     * between one and two windows of traffic.
+     */
+    private Duration window = Duration.ofMinutes(1);
+
+    /**
+     * Decimal digits of precision kept for every recorded value; 2 means percentiles are within 1%.
+     */
+    private int significantDigits = 2;
+}
@@ -1,12 +1,17 @@
 package com.gdn.training.api_gateway.controller;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Map;
+import java.util.Optional;
 
 import io.jsonwebtoken.Claims;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.CookieValue;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -15,10 +20,12 @@ import org.springframework.web.bind.annotation.RestController;
 import com.gdn.training.api_gateway.client.MemberClient;
 import com.gdn.training.api_gateway.dto.LoginRequest;
 import com.gdn.training.api_gateway.dto.LoginResponse;
+import com.gdn.training.api_gateway.dto.RefreshRequest;
 import com.gdn.training.api_gateway.dto.RegisterRequest;
 import com.gdn.training.api_gateway.dto.UserInfoDTO;
 import com.gdn.training.api_gateway.security.AccessTokenResolver;
 import com.gdn.training.api_gateway.security.JwtService;
+import com.gdn.training.api_gateway.security.RefreshTokenService;
 import com.gdn.training.api_gateway.security.TokenBlacklistService;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -33,6 +40,7 @@ import lombok.extern.slf4j.Slf4j;
 public class AuthController {
 
     private static final String ACCESS_TOKEN_COOKIE = "ACCESS_TOKEN";
+    private static final String REFRESH_TOKEN_COOKIE = "REFRESH_TOKEN";
     private static final String COOKIE_PATH_ROOT = "/";
     private static final String SAME_SITE_STRICT = "Strict";
 
@@ -40,6 +48,7 @@ public class AuthController {
     private final JwtService jwtService;
     private final AccessTokenResolver accessTokenResolver;
     private final TokenBlacklistService tokenBlacklistService;
+    private final RefreshTokenService refreshTokenService;
 
     @PostMapping("/register")
     public ResponseEntity<Map<String, String>> register(@Valid @RequestBody RegisterRequest request) {
@@ -55,55 +64,112 @@ public class AuthController {
         log.info("Login attempt started for {}", request.getEmail());
         UserInfoDTO userInfo = memberClient.validateCredentials(request);
 
-        String token = jwtService.generateToken(
-                userInfo.getId().toString(),
-                Map.of(
-                        "email", userInfo.getEmail(),
-                        "role", userInfo.getRole()
-                )
+        String subject = userInfo.getId().toString();
+        Map<String, Object> claims = Map.of(
+                "email", userInfo.getEmail(),
+                "role", userInfo.getRole()
         );
+        String token = jwtService.generateToken(subject, claims);
 
-        ResponseCookie cookie = ResponseCookie.from(ACCESS_TOKEN_COOKIE, token)
-                .httpOnly(true)
-                .secure(true)
-                .sameSite(SAME_SITE_STRICT)
-                .path(COOKIE_PATH_ROOT)
-                .maxAge(jwtService.getExpirationSeconds())
-                .build();
-
-        LoginResponse response = new LoginResponse(token);
+        String refreshToken = null;
+        try {
+            refreshToken = refreshTokenService.issue(subject, claims);
+        } catch (IllegalStateException ex) {
+            log.warn("Login for {} continues without a refresh token: {}", userInfo.getEmail(), ex.getMessage());
+        }
 
         log.info("Login succeeded for {}", userInfo.getEmail());
-        return ResponseEntity.ok()
-                .header(HttpHeaders.SET_COOKIE, cookie.toString())
-                .body(response);
+        return tokenResponse(token, refreshToken);
     }
 
+    /**
+     * Trades a refresh token, from the {@code REFRESH_TOKEN} cookie or the request body, for a new access token and
+     * the next refresh token. Only Redis is involved; the member service is not called.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<LoginResponse> refresh(
+            @CookieValue(name = REFRESH_TOKEN_COOKIE, required = false) String refreshCookie,
+            @RequestBody(required = false) RefreshRequest request) {
+        Optional<RefreshTokenService.Session> session =
+                refreshTokenService.rotate(resolveRefreshToken(refreshCookie, request));
+        if (session.isEmpty()) {
+            log.debug("Refresh rejected, the refresh token is unknown, expired or already used");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .header(HttpHeaders.SET_COOKIE, clearCookie(REFRESH_TOKEN_COOKIE, refreshCookiePath()).toString())
+                    .build();
+        }
+
+        String token = jwtService.generateToken(session.get().subject(), session.get().claims());
+        return tokenResponse(token, session.get().refreshToken());
+    }
+
+    /**
+     * Revokes every access token of the user issued so far by raising their revocation epoch, and deletes this
+     * client's refresh token family. The user's other clients keep their refresh tokens, so they get a new access
+     * token from {@code /auth/refresh} instead of logging in again.
+     */
     @PostMapping("/logout")
-    public ResponseEntity<Void> logout(HttpServletRequest request) {
+    public ResponseEntity<Void> logout(
+            HttpServletRequest request,
+            @CookieValue(name = REFRESH_TOKEN_COOKIE, required = false) String refreshCookie,
+            @RequestBody(required = false) RefreshRequest body) {
         String token = accessTokenResolver.resolve(request);
         if (StringUtils.hasText(token)) {
             try {
                 Claims claims = jwtService.parseToken(token);
-                tokenBlacklistService.blacklist(claims.getId(), jwtService.remainingTtl(claims));
-                log.debug("Token {} blacklisted until {}", claims.getId(), claims.getExpiration());
+                tokenBlacklistService.revokeIssuedBefore(claims.getSubject(), Instant.now());
+                log.debug("Access tokens of user {} issued until now revoked", claims.getSubject());
+            } catch (Exception ex) {
+                log.warn("Failed to revoke access token during logout: {}", ex.getMessage());
+            }
+        }
+        String refreshToken = resolveRefreshToken(refreshCookie, body);
+        if (StringUtils.hasText(refreshToken)) {
+            try {
+                refreshTokenService.revoke(refreshToken);
             } catch (Exception ex) {
-                log.warn("Failed to blacklist token during logout: {}", ex.getMessage());
+                log.warn("Failed to revoke refresh token during logout: {}", ex.getMessage());
             }
         }
 
-        ResponseCookie cookie = ResponseCookie.from(ACCESS_TOKEN_COOKIE, "")
+        log.info("Logout executed, authentication cookies cleared");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, clearCookie(ACCESS_TOKEN_COOKIE, COOKIE_PATH_ROOT).toString())
+                .header(HttpHeaders.SET_COOKIE, clearCookie(REFRESH_TOKEN_COOKIE, refreshCookiePath()).toString())
+                .build();
+    }
+
+    private ResponseEntity<LoginResponse> tokenResponse(String token, String refreshToken) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, cookie(ACCESS_TOKEN_COOKIE, token, COOKIE_PATH_ROOT,
+                        Duration.ofSeconds(jwtService.getExpirationSeconds())).toString());
+        if (refreshToken != null) {
+            response.header(HttpHeaders.SET_COOKIE, cookie(REFRESH_TOKEN_COOKIE, refreshToken, refreshCookiePath(),
+                    refreshTokenService.getTtl()).toString());
+        }
+        return response.body(new LoginResponse(token, refreshToken));
+    }
+
+    private static String resolveRefreshToken(String refreshCookie, RefreshRequest body) {
+        return body != null && StringUtils.hasText(body.getRefreshToken()) ? body.getRefreshToken() : refreshCookie;
+    }
+
+    private String refreshCookiePath() {
+        return refreshTokenService.getCookiePath();
+    }
+
+    private static ResponseCookie cookie(String name, String value, String path, Duration maxAge) {
+        return ResponseCookie.from(name, value)
                 .httpOnly(true)
                 .secure(true)
                 .sameSite(SAME_SITE_STRICT)
-                .path(COOKIE_PATH_ROOT)
-                .maxAge(0)
+                .path(path)
+                .maxAge(maxAge)
                 .build();
+    }
 
-        log.info("Logout executed, authentication cookie cleared");
-        return ResponseEntity.ok()
-                .header(HttpHeaders.SET_COOKIE, cookie.toString())
-                .build();
+    private static ResponseCookie clearCookie(String name, String path) {
+        return cookie(name, "", path, Duration.ZERO);
     }
 
 }
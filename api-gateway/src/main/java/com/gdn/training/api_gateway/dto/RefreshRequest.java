@@ -0,0 +1,8 @@
+package com.gdn.training.api_gateway.dto;
+
+import lombok.Data;
+
+@Data
+public class RefreshRequest {
+    private String refreshToken;
+}
@@ -0,0 +1,317 @@
+package com.gdn.training.api_gateway.metrics;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.PackedHistogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.server.mvc.config.GatewayMvcProperties;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.gdn.training.api_gateway.config.GatewayRoutes;
+import com.gdn.training.api_gateway.config.StageLatencyProperties;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Latency histograms for each stage of the gateway's request pipeline, per route and outcome.
+ * <p>
+ * Every series is an HdrHistogram {@link Recorder}: recording is wait-free and allocation-free, so the filters can
+ * time every request. Routes are resolved once per request, by prefix for the usual {@code /segment/**} predicates. Readers drain the recorders into windowed histograms under a lock the request path never
+ * touches. A window closes on the first snapshot taken after it is {@code gateway.latency.window} old; snapshots
+ * cover the last closed window plus the current one, and {@link #reset()} starts over.
+ */
+@Component
+public class StageLatency {
+
+    public static final String NO_ROUTE = "none";
+
+    public static final String ROUTE_ATTRIBUTE = StageLatency.class.getName() + ".route";
+
+    public enum Stage {
+        JWT("jwt"),
+        BLACKLIST("blacklist"),
+        RATE_LIMIT("rate_limit"),
+        MEMBER_CLIENT("member_client"),
+        PROXY("proxy");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    private static final double NANOS_PER_MICRO = 1_000.0;
+    // Longer durations are recorded as this; nothing in the gateway waits that long.
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int significantDigits;
+    private final LongSupplier nanoClock;
+    private final List<RoutePatterns> routes;
+    private final Map<Stage, Map<String, Map<String, Series>>> series = new EnumMap<>(Stage.class);
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long windowStart;
+    private long previousWindowStart = -1;
+
+    @Autowired
+    public StageLatency(StageLatencyProperties properties, ObjectProvider<GatewayMvcProperties> gatewayProperties) {
+        this(properties, gatewayProperties.getIfAvailable(), System::nanoTime);
+    }
+
+    StageLatency(StageLatencyProperties properties, GatewayMvcProperties gateway, LongSupplier nanoClock) {
+        this.enabled = properties.isEnabled();
+        this.windowNanos = Math.max(1, properties.getWindow().toNanos());
+        this.significantDigits = Math.clamp(properties.getSignificantDigits(), 1, 5);
+        this.nanoClock = nanoClock;
+        List<RoutePatterns> routes = new ArrayList<>();
+        for (String routeId : GatewayRoutes.routeIds(gateway)) {
+            List<String> paths = GatewayRoutes.pathPatterns(gateway, routeId);
+            if (!paths.isEmpty()) {
+                routes.add(RoutePatterns.of(routeId, paths));
+            }
+        }
+        this.routes = List.copyOf(routes);
+        for (Stage stage : Stage.values()) {
+            series.put(stage, new ConcurrentHashMap<>());
+        }
+        this.windowStart = nanoClock.getAsLong();
+    }
+
+    /**
+     * The id of the first gateway route whose path matches the request, or {@link #NO_ROUTE}. Memoised on the
+     * request so every stage shares one lookup.
+     */
+    public String routeOf(HttpServletRequest request) {
+        if (request.getAttribute(ROUTE_ATTRIBUTE) instanceof String route) {
+            return route;
+        }
+        String route = resolveRoute(request.getRequestURI());
+        request.setAttribute(ROUTE_ATTRIBUTE, route);
+        return route;
+    }
+
+    private String resolveRoute(String uri) {
+        if (uri == null) {
+            return NO_ROUTE;
+        }
+        PathContainer path = null;
+        for (RoutePatterns candidate : routes) {
+            if (candidate.matchesPrefix(uri)) {
+                return candidate.routeId();
+            }
+            if (!candidate.patterns().isEmpty()) {
+                if (path == null) {
+                    path = PathContainer.parsePath(uri);
+                }
+                if (candidate.matchesPattern(path)) {
+                    return candidate.routeId();
+                }
+            }
+        }
+        return NO_ROUTE;
+    }
+
+    public void record(Stage stage, String route, String outcome, long durationNanos) {
+        if (!enabled) {
+            return;
+        }
+        Map<String, Series> byOutcome = series.get(stage).get(route);
+        if (byOutcome == null) {
+            byOutcome = series.get(stage).computeIfAbsent(route, key -> new ConcurrentHashMap<>());
+        }
+        Series target = byOutcome.get(outcome);
+        if (target == null) {
+            target = byOutcome.computeIfAbsent(outcome, key -> new Series(significantDigits));
+        }
+        target.recorder.recordValue(Math.clamp(durationNanos, 0, HIGHEST_TRACKABLE_NANOS));
+    }
+
+    public Snapshot snapshot() {
+        lock.lock();
+        try {
+            long now = nanoClock.getAsLong();
+            if (now - windowStart >= windowNanos) {
+                forEachSeries(Series::rotate);
+                previousWindowStart = windowStart;
+                windowStart = now;
+            } else {
+                forEachSeries(Series::drain);
+            }
+            List<SeriesSnapshot> snapshots = new ArrayList<>();
+            series.forEach((stage, byRoute) -> byRoute.forEach((route, byOutcome) ->
+                    byOutcome.forEach((outcome, values) -> {
+                        SeriesSnapshot snapshot = values.snapshot(stage, route, outcome);
+                        if (snapshot.count() > 0) {
+                            snapshots.add(snapshot);
+                        }
+                    })));
+            snapshots.sort(Comparator.comparing(SeriesSnapshot::stage)
+                    .thenComparing(SeriesSnapshot::route)
+                    .thenComparing(SeriesSnapshot::outcome));
+            long since = previousWindowStart >= 0 ? previousWindowStart : windowStart;
+            Instant sinceInstant = Instant.now().minusNanos(now - since);
+            return new Snapshot(sinceInstant, List.copyOf(snapshots));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void reset() {
+        lock.lock();
+        try {
+            forEachSeries(Series::reset);
+            previousWindowStart = -1;
+            windowStart = nanoClock.getAsLong();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void forEachSeries(Consumer<Series> action) {
+        series.values().forEach(byRoute -> byRoute.values().forEach(byOutcome -> byOutcome.values().forEach(action)));
+    }
+
+    /**
+     * @param since start of the oldest window the percentiles cover
+     */
+    public record Snapshot(Instant since, List<SeriesSnapshot> series) {
+    }
+
+    public record SeriesSnapshot(
+            String stage,
+            String route,
+            String outcome,
+            long count,
+            double p50Micros,
+            double p99Micros,
+            double p999Micros,
+            double maxMicros
+    ) {
+    }
+
+    /**
+     * The {@code Path} patterns of one route. Patterns of the usual {@code /segment/**} form are checked as plain
+     * prefixes; anything else is matched as a {@link PathPattern} against the parsed path.
+     */
+    private record RoutePatterns(String routeId, List<String> prefixes, List<PathPattern> patterns) {
+
+        private static RoutePatterns of(String routeId, List<String> paths) {
+            List<String> prefixes = new ArrayList<>();
+            List<PathPattern> patterns = new ArrayList<>();
+            for (String path : paths) {
+                String prefix = path.endsWith("/**") ? path.substring(0, path.length() - 3) : null;
+                if (prefix != null && prefix.startsWith("/") && prefix.length() > 1 && isLiteral(prefix)) {
+                    prefixes.add(prefix);
+                } else {
+                    patterns.add(PathPatternParser.defaultInstance.parse(path));
+                }
+            }
+            return new RoutePatterns(routeId, List.copyOf(prefixes), List.copyOf(patterns));
+        }
+
+        private static boolean isLiteral(String path) {
+            for (int i = 0; i < path.length(); i++) {
+                char c = path.charAt(i);
+                if (c == '*' || c == '?' || c == '{' || c == '}') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean matchesPrefix(String path) {
+            for (String prefix : prefixes) {
+                if (path.startsWith(prefix)
+                        && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/')) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean matchesPattern(PathContainer path) {
+            for (PathPattern pattern : patterns) {
+                if (pattern.matches(path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * One recorder and its two windows. Only touched under {@link #lock}, apart from recording.
+     */
+    private static final class Series {
+
+        private final Recorder recorder;
+        private Histogram interval;
+        private AbstractHistogram current;
+        private AbstractHistogram previous;
+
+        private Series(int significantDigits) {
+            // A fixed range keeps recording to a few atomic increments, at about 30 KB per series at two digits.
+            // The windows are only written by readers, so they are packed to hold just the buckets in use.
+            this.recorder = new Recorder(1, HIGHEST_TRACKABLE_NANOS, significantDigits);
+            this.current = new PackedHistogram(significantDigits);
+            this.previous = new PackedHistogram(significantDigits);
+        }
+
+        private void drain() {
+            interval = recorder.getIntervalHistogram(interval);
+            current.add(interval);
+        }
+
+        private void rotate() {
+            drain();
+            AbstractHistogram closed = current;
+            previous.reset();
+            current = previous;
+            previous = closed;
+        }
+
+        private void reset() {
+            recorder.reset();
+            current.reset();
+            previous.reset();
+        }
+
+        private SeriesSnapshot snapshot(Stage stage, String route, String outcome) {
+            AbstractHistogram merged = current.copy();
+            merged.add(previous);
+            return new SeriesSnapshot(stage.tag(), route, outcome, merged.getTotalCount(),
+                    micros(merged.getValueAtPercentile(50)),
+                    micros(merged.getValueAtPercentile(99)),
+                    micros(merged.getValueAtPercentile(99.9)),
+                    micros(merged.getMaxValue()));
+        }
+
+        private static double micros(long nanos) {
+            return nanos / NANOS_PER_MICRO;
+        }
+    }
+}
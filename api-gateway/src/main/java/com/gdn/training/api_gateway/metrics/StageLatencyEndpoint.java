@@ -0,0 +1,30 @@
+package com.gdn.training.api_gateway.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@code /actuator/latency}: p50/p99/p999 per pipeline stage, route and outcome over the recent windows;
+ * {@code DELETE} clears them to start a fresh measurement.
+ */
+@Component
+@Endpoint(id = "latency")
+@RequiredArgsConstructor
+public class StageLatencyEndpoint {
+
+    private final StageLatency stageLatency;
+
+    @ReadOperation
+    public StageLatency.Snapshot snapshot() {
+        return stageLatency.snapshot();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        stageLatency.reset();
+    }
+}
@@ -0,0 +1,133 @@
+package com.gdn.training.api_gateway.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.gdn.training.api_gateway.config.RouteIsolationProperties;
+
+/**
+ * Learns how many requests a route can have in flight before they start queueing, from the round-trip times it
+ * observes, in the manner of a gradient limiter.
+ * <p>
+ * Every {@value #SAMPLES_PER_UPDATE} completed calls the average RTT of those calls (short RTT) is compared with a
+ * slow moving average of all RTTs (long RTT, the no-load baseline). While the short RTT stays within
+ * {@code rtt-tolerance} of the baseline the limit grows by about its square root; once requests start queueing
+ * downstream the short RTT rises and the limit shrinks in proportion, at most halving per update. Growth is smoothed,
+ * shrinking is not, so a slowdown is answered within one update. A window containing
+ * a failed call backs the limit off by {@value #BACKOFF_RATIO} regardless of latency, as AIMD does on loss.
+ * <p>
+ * The limit only grows while it is actually being used, so a quiet period cannot inflate it.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    static final int SAMPLES_PER_UPDATE = 10;
+    static final double BACKOFF_RATIO = 0.9;
+    // Calls the baseline RTT averages over; long enough to survive a slowdown of a few seconds at moderate traffic.
+    private static final int LONG_WINDOW = 600;
+    private static final double LONG_RTT_WEIGHT = 2.0 / (LONG_WINDOW + 1);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private double longRtt;
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowMaxInFlight;
+    private boolean windowDropped;
+
+    AdaptiveConcurrencyLimit(RouteIsolationProperties.Adaptive properties, int maxLimit) {
+        this.maxLimit = Math.max(1, maxLimit);
+        this.minLimit = Math.clamp(properties.getMinLimit(), 1, this.maxLimit);
+        this.rttTolerance = Math.max(1.0, properties.getRttTolerance());
+        this.smoothing = Math.clamp(properties.getSmoothing(), 0.01, 1.0);
+        this.estimatedLimit = Math.clamp(properties.getInitialLimit(), minLimit, this.maxLimit);
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Admits a call while fewer than the current limit are in flight. An admitted call must be followed by
+     * {@link #onComplete} or {@link #cancel}.
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back an admitted call that never reached the route, without taking a sample.
+     */
+    void cancel() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * @param rttNanos how long the call took
+     * @param dropped  whether it failed, which backs the limit off whatever its latency
+     */
+    void onComplete(long rttNanos, boolean dropped) {
+        int inFlightAtCompletion = inFlight.getAndDecrement();
+        lock.lock();
+        try {
+            windowSamples++;
+            windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtCompletion);
+            if (dropped) {
+                windowDropped = true;
+            } else {
+                windowRttSum += rttNanos;
+            }
+            if (windowSamples >= SAMPLES_PER_UPDATE) {
+                update();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update() {
+        if (windowDropped) {
+            estimatedLimit = estimatedLimit * BACKOFF_RATIO;
+        } else {
+            double shortRtt = (double) windowRttSum / windowSamples;
+            longRtt = longRtt == 0 ? shortRtt : longRtt + (shortRtt - longRtt) * LONG_RTT_WEIGHT;
+            // After a slowdown ends the baseline would take hundreds of calls to come back down; pull it along.
+            if (longRtt > 2 * shortRtt) {
+                longRtt = Math.max(shortRtt, longRtt * 0.95);
+            }
+            boolean applicationLimited = windowMaxInFlight < estimatedLimit / 2;
+            double gradient = Math.clamp(rttTolerance * longRtt / shortRtt, 0.5, 1.0);
+            double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            if (target < estimatedLimit) {
+                estimatedLimit = target;
+            } else if (!applicationLimited) {
+                estimatedLimit = estimatedLimit * (1 - smoothing) + target * smoothing;
+            }
+        }
+        estimatedLimit = Math.clamp(estimatedLimit, minLimit, maxLimit);
+        limit = (int) estimatedLimit;
+        windowRttSum = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+        windowDropped = false;
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+}
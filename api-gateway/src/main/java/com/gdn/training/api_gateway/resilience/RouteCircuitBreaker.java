@@ -0,0 +1,192 @@
+package com.gdn.training.api_gateway.resilience;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import com.gdn.training.api_gateway.config.RouteIsolationProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Count-based circuit breaker for one route. While closed it tracks the outcome of the last
+ * {@code sliding-window-size} calls and opens once the failure rate reaches the threshold. An open circuit rejects
+ * every call for {@code open-duration}, then lets {@code half-open-calls} probes through: if all succeed it closes,
+ * the first failure opens it again.
+ * <p>
+ * Guarded by a {@link ReentrantLock} rather than {@code synchronized} so virtual threads never pin their carrier.
+ */
+@Slf4j
+final class RouteCircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String routeId;
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier nanoClock;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Ring of the most recent outcomes while closed; true marks a failure.
+    private final boolean[] outcomes;
+    private int recorded;
+    private int next;
+    private int failures;
+
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    RouteCircuitBreaker(String routeId, RouteIsolationProperties.Route properties, LongSupplier nanoClock) {
+        this.routeId = routeId;
+        this.failureRateThreshold = Math.clamp(properties.getFailureRateThreshold(), 1, 100);
+        this.outcomes = new boolean[Math.max(1, properties.getSlidingWindowSize())];
+        this.minimumCalls = Math.clamp(properties.getMinimumCalls(), 1, outcomes.length);
+        this.openNanos = properties.getOpenDuration().toNanos();
+        this.halfOpenCalls = Math.max(1, properties.getHalfOpenCalls());
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Whether a call may proceed. A permitted call must be followed by {@link #record} or, if it never reaches the
+     * route, {@link #release}.
+     */
+    boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                if (nanoClock.getAsLong() - openedAt < openNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                halfOpenPermits = halfOpenCalls;
+                halfOpenSuccesses = 0;
+                log.info("Circuit for route {} is half-open, letting {} probe calls through", routeId, halfOpenCalls);
+            }
+            if (state == State.HALF_OPEN) {
+                if (halfOpenPermits == 0) {
+                    return false;
+                }
+                halfOpenPermits--;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the permit of a call that was allowed but never reached the route.
+     */
+    void release() {
+        if (state == State.CLOSED) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                halfOpenPermits++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void record(boolean failed) {
+        lock.lock();
+        try {
+            switch (state) {
+                case HALF_OPEN -> {
+                    if (failed) {
+                        open("a probe call failed");
+                    } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                        close();
+                    }
+                }
+                case CLOSED -> recordClosed(failed);
+                case OPEN -> {
+                    // A call admitted before the circuit opened; the window it belonged to is gone.
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordClosed(boolean failed) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+        if (recorded >= minimumCalls && failures * 100 >= failureRateThreshold * recorded) {
+            open(failures + " of the last " + recorded + " calls failed");
+        }
+    }
+
+    private void open(String reason) {
+        state = State.OPEN;
+        openedAt = nanoClock.getAsLong();
+        resetWindow();
+        log.warn("Circuit for route {} opened: {}", routeId, reason);
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        resetWindow();
+        log.info("Circuit for route {} closed again", routeId);
+    }
+
+    private void resetWindow() {
+        recorded = 0;
+        next = 0;
+        failures = 0;
+    }
+
+    State state() {
+        return state;
+    }
+
+    /**
+     * Nanoseconds until an open circuit lets probe calls through, or zero when it is not open.
+     */
+    long nanosUntilHalfOpen() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            return Math.max(0, openedAt + openNanos - nanoClock.getAsLong());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Failure percentage over the current window, or -1 while it holds fewer than {@code minimum-calls}.
+     */
+    float failureRate() {
+        lock.lock();
+        try {
+            return recorded < minimumCalls ? -1 : failures * 100f / recorded;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.gdn.training.api_gateway.resilience;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+
+import com.gdn.training.api_gateway.config.RouteIsolationProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Circuit breaker and bulkhead for the requests of one gateway route.
+ * <p>
+ * The bulkhead is a semaphore with {@code max-concurrent-calls} permits, so a slow upstream can hold at most that
+ * many request threads; everything beyond it is rejected after {@code max-wait} instead of piling up. With
+ * {@code adaptive.enabled} an {@link AdaptiveConcurrencyLimit} in front of the bulkhead sheds requests as soon as the
+ * route's latency shows them queueing, usually well before the static cap is reached.
+ */
+final class RouteGuard {
+
+    enum Rejection {
+        CIRCUIT_OPEN("circuit_open"),
+        BULKHEAD_FULL("bulkhead_full"),
+        LIMIT_EXCEEDED("limit_exceeded");
+
+        private final String tag;
+
+        Rejection(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final String routeId;
+    private final List<PathPattern> patterns;
+    private final RouteCircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final AdaptiveConcurrencyLimit adaptiveLimit;
+    private final int maxConcurrentCalls;
+    private final long maxWaitNanos;
+    private final long slowCallNanos;
+    private final Counter circuitOpenRejections;
+    private final Counter bulkheadRejections;
+    private final Counter limitRejections;
+    private final Counter successfulCalls;
+    private final Counter failedCalls;
+
+    RouteGuard(String routeId, List<PathPattern> patterns, RouteIsolationProperties.Route properties,
+               MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.routeId = routeId;
+        this.patterns = patterns;
+        this.circuitBreaker = new RouteCircuitBreaker(routeId, properties, nanoClock);
+        this.maxConcurrentCalls = Math.max(1, properties.getMaxConcurrentCalls());
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.maxWaitNanos = properties.getMaxWait().toNanos();
+        this.slowCallNanos = properties.getSlowCallDuration().toNanos();
+        this.adaptiveLimit = properties.getAdaptive().isEnabled()
+                ? new AdaptiveConcurrencyLimit(properties.getAdaptive(), maxConcurrentCalls)
+                : null;
+
+        Gauge.builder("gateway.route.circuit.state", circuitBreaker, breaker -> breaker.state().ordinal())
+                .description("Circuit state: 0 closed, 1 open, 2 half-open")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.route.bulkhead.active", bulkhead,
+                        semaphore -> maxConcurrentCalls - semaphore.availablePermits())
+                .description("Requests currently in flight to the route")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        if (adaptiveLimit != null) {
+            Gauge.builder("gateway.route.concurrency.limit", adaptiveLimit, AdaptiveConcurrencyLimit::limit)
+                    .description("Requests the route may currently have in flight, as learnt from its latency")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+        }
+        this.circuitOpenRejections = rejections(meterRegistry, Rejection.CIRCUIT_OPEN);
+        this.bulkheadRejections = rejections(meterRegistry, Rejection.BULKHEAD_FULL);
+        this.limitRejections = rejections(meterRegistry, Rejection.LIMIT_EXCEEDED);
+        this.successfulCalls = calls(meterRegistry, "success");
+        this.failedCalls = calls(meterRegistry, "failure");
+    }
+
+    private Counter rejections(MeterRegistry meterRegistry, Rejection rejection) {
+        return Counter.builder("gateway.route.rejections")
+                .description("Requests rejected without calling the route")
+                .tag("route", routeId)
+                .tag("reason", rejection.tag)
+                .register(meterRegistry);
+    }
+
+    private Counter calls(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("gateway.route.calls")
+                .description("Calls to the route by outcome as seen by its circuit breaker")
+                .tag("route", routeId)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    boolean matches(PathContainer path) {
+        for (PathPattern pattern : patterns) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Admits a call, or returns why it is rejected. An admitted call must be finished with {@link #complete}.
+     */
+    Rejection tryEnter() throws InterruptedException {
+        if (!circuitBreaker.tryAcquire()) {
+            circuitOpenRejections.increment();
+            return Rejection.CIRCUIT_OPEN;
+        }
+        if (adaptiveLimit != null && !adaptiveLimit.tryAcquire()) {
+            circuitBreaker.release();
+            limitRejections.increment();
+            return Rejection.LIMIT_EXCEEDED;
+        }
+        boolean admitted = maxWaitNanos <= 0
+                ? bulkhead.tryAcquire()
+                : bulkhead.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        if (!admitted) {
+            if (adaptiveLimit != null) {
+                adaptiveLimit.cancel();
+            }
+            circuitBreaker.release();
+            bulkheadRejections.increment();
+            return Rejection.BULKHEAD_FULL;
+        }
+        return null;
+    }
+
+    /**
+     * Frees the call's bulkhead slot and records its outcome; calls slower than {@code slow-call-duration} count as
+     * failures. The adaptive limit only backs off on real failures; slowness reaches it through the latency itself.
+     */
+    void complete(long durationNanos, boolean failed) {
+        bulkhead.release();
+        if (adaptiveLimit != null) {
+            adaptiveLimit.onComplete(durationNanos, failed);
+        }
+        boolean countsAsFailure = failed || durationNanos > slowCallNanos;
+        (countsAsFailure ? failedCalls : successfulCalls).increment();
+        circuitBreaker.record(countsAsFailure);
+    }
+
+    String routeId() {
+        return routeId;
+    }
+
+    long nanosUntilHalfOpen() {
+        return circuitBreaker.nanosUntilHalfOpen();
+    }
+
+    RouteIsolation.RouteStatus status() {
+        return new RouteIsolation.RouteStatus(
+                circuitBreaker.state().name(),
+                circuitBreaker.failureRate(),
+                maxConcurrentCalls - bulkhead.availablePermits(),
+                maxConcurrentCalls,
+                adaptiveLimit == null ? -1 : adaptiveLimit.limit(),
+                (long) circuitOpenRejections.count(),
+                (long) bulkheadRejections.count(),
+                (long) limitRejections.count());
+    }
+}
@@ -0,0 +1,100 @@
+package com.gdn.training.api_gateway.resilience;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.server.mvc.config.GatewayMvcProperties;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.gdn.training.api_gateway.config.GatewayRoutes;
+import com.gdn.training.api_gateway.config.RouteIsolationProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * One {@link RouteGuard} per gateway route with a {@code Path} predicate, configured from
+ * {@code gateway.isolation.routes.<route-id>}, so a slow or failing service only exhausts its own capacity.
+ */
+@Component
+public class RouteIsolation {
+
+    private final boolean enabled;
+    private final List<RouteGuard> guards;
+
+    @Autowired
+    public RouteIsolation(RouteIsolationProperties properties, ObjectProvider<GatewayMvcProperties> gatewayProperties,
+                          MeterRegistry meterRegistry) {
+        this(properties, gatewayProperties.getIfAvailable(), meterRegistry, System::nanoTime);
+    }
+
+    RouteIsolation(RouteIsolationProperties properties, GatewayMvcProperties gateway, MeterRegistry meterRegistry,
+                   LongSupplier nanoClock) {
+        this.enabled = properties.isEnabled();
+        Set<String> routeIds = GatewayRoutes.routeIds(gateway);
+        for (String configured : properties.getRoutes().keySet()) {
+            if (!routeIds.contains(configured)) {
+                throw new IllegalStateException("Isolation settings reference route '" + configured
+                        + "', which is not a gateway route");
+            }
+        }
+        List<RouteGuard> guards = new ArrayList<>();
+        for (String routeId : routeIds) {
+            List<String> paths = GatewayRoutes.pathPatterns(gateway, routeId);
+            if (paths.isEmpty()) {
+                continue;
+            }
+            RouteIsolationProperties.Route settings =
+                    properties.getRoutes().getOrDefault(routeId, new RouteIsolationProperties.Route());
+            guards.add(new RouteGuard(routeId, paths.stream().map(PathPatternParser.defaultInstance::parse).toList(),
+                    settings, meterRegistry, nanoClock));
+        }
+        this.guards = List.copyOf(guards);
+    }
+
+    /**
+     * The guard of the first route whose path matches, in route declaration order, or {@code null}.
+     */
+    RouteGuard guardFor(HttpServletRequest request) {
+        if (!enabled || guards.isEmpty()) {
+            return null;
+        }
+        PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        for (RouteGuard guard : guards) {
+            if (guard.matches(path)) {
+                return guard;
+            }
+        }
+        return null;
+    }
+
+    public Map<String, RouteStatus> status() {
+        Map<String, RouteStatus> status = new LinkedHashMap<>();
+        guards.forEach(guard -> status.put(guard.routeId(), guard.status()));
+        return status;
+    }
+
+    /**
+     * @param failureRate      failure percentage over the circuit's window, -1 until it holds enough calls
+     * @param concurrencyLimit current adaptive limit, -1 when the route does not use one
+     */
+    public record RouteStatus(
+            String circuitState,
+            float failureRate,
+            int activeCalls,
+            int maxConcurrentCalls,
+            int concurrencyLimit,
+            long circuitOpenRejections,
+            long bulkheadRejections,
+            long limitRejections
+    ) {
+    }
+}
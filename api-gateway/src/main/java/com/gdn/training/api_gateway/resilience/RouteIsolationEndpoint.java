@@ -0,0 +1,25 @@
+package com.gdn.training.api_gateway.resilience;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@code /actuator/routeisolation}: circuit state, in-flight calls and rejection counts per gateway route.
+ */
+@Component
+@Endpoint(id = "routeisolation")
+@RequiredArgsConstructor
+public class RouteIsolationEndpoint {
+
+    private final RouteIsolation routeIsolation;
+
+    @ReadOperation
+    public Map<String, RouteIsolation.RouteStatus> status() {
+        return routeIsolation.status();
+    }
+}
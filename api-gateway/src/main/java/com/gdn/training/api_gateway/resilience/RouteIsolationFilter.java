@@ -0,0 +1,122 @@
+package com.gdn.training.api_gateway.resilience;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gdn.training.api_gateway.metrics.StageLatency;
+import com.gdn.training.common.model.ErrorResponse;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Passes proxied requests through their route's {@link RouteGuard}. Requests to a route whose circuit is open, whose
+ * adaptive concurrency limit is reached or whose bulkhead is full fail fast with {@code 503} and an {@link ErrorResponse}; admitted requests count as failed
+ * when they throw or the route answers with a {@code 5xx}. The time spent proxying admitted requests is recorded as
+ * the {@code proxy} stage of {@link StageLatency}, by status class.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RouteIsolationFilter extends OncePerRequestFilter {
+
+    private static final String ALREADY_FILTERED_ATTRIBUTE =
+            RouteIsolationFilter.class.getName() + ALREADY_FILTERED_SUFFIX;
+    private static final String[] STATUS_CLASSES = {"1xx", "1xx", "2xx", "3xx", "4xx", "5xx"};
+
+    private final RouteIsolation routeIsolation;
+    private final ObjectMapper objectMapper;
+    private final StageLatency stageLatency;
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        RouteGuard guard = routeIsolation.guardFor(request);
+        if (guard == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RouteGuard.Rejection rejection;
+        try {
+            rejection = guard.tryEnter();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            rejection = RouteGuard.Rejection.BULKHEAD_FULL;
+        }
+        if (rejection != null) {
+            reject(guard, rejection, request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        String outcome = "error";
+        try {
+            filterChain.doFilter(request, response);
+            int status = response.getStatus();
+            failed = status >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+            outcome = status >= 100 && status < 600 ? STATUS_CLASSES[status / 100] : "error";
+        } finally {
+            long duration = System.nanoTime() - start;
+            guard.complete(duration, failed);
+            stageLatency.record(StageLatency.Stage.PROXY, guard.routeId(), outcome, duration);
+        }
+    }
+
+    private void reject(
+            RouteGuard guard,
+            RouteGuard.Rejection rejection,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        String message;
+        long retryAfterSeconds;
+        if (rejection == RouteGuard.Rejection.CIRCUIT_OPEN) {
+            message = "The " + guard.routeId() + " route is temporarily unavailable. Please try again shortly.";
+            retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(guard.nanosUntilHalfOpen() + 999_999_999L));
+        } else if (rejection == RouteGuard.Rejection.LIMIT_EXCEEDED) {
+            message = "The " + guard.routeId() + " route is overloaded. Please try again shortly.";
+            retryAfterSeconds = 1;
+        } else {
+            message = "The " + guard.routeId() + " route is at capacity. Please try again shortly.";
+            retryAfterSeconds = 1;
+        }
+        log.warn("Rejected {} {}: {} for route {}", request.getMethod(), request.getRequestURI(),
+                rejection, guard.routeId());
+
+        ErrorResponse body = ErrorResponse.builder()
+                .success(false)
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .error(HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase())
+                .message(message)
+                .path(request.getRequestURI())
+                .build();
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    @Override
+    protected String getAlreadyFilteredAttributeName() {
+        return ALREADY_FILTERED_ATTRIBUTE;
+    }
+}
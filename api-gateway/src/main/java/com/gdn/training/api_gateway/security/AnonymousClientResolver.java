@@ -0,0 +1,226 @@
+package com.gdn.training.api_gateway.security;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.gdn.training.api_gateway.config.RateLimiterProperties;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Rate-limit identity of an unauthenticated caller: the client's network, optionally refined by its
+ * {@code ANON_CLIENT_ID} cookie.
+ * <p>
+ * The client address is the connection's peer, or, when the peer is a trusted proxy, the nearest
+ * {@code X-Forwarded-For} hop that is not one. It is grouped by the configured IPv4 or IPv6 prefix, so the number of
+ * anonymous keys is bounded by the number of client networks rather than by the number of requests. A cookie only
+ * spreads callers of one network over a fixed number of budgets, so clients that drop or invent cookies cannot
+ * create keys of their own.
+ */
+@Component
+public class AnonymousClientResolver {
+
+    static final String FORWARDED_FOR = "X-Forwarded-For";
+    static final String UNKNOWN_NETWORK = "unknown";
+
+    private static final char CLIENT_SEPARATOR = '#';
+
+    private final List<Network> trustedProxies;
+    private final int ipv4PrefixLength;
+    private final int ipv6PrefixLength;
+    private final int clientsPerAddress;
+
+    public AnonymousClientResolver(RateLimiterProperties properties) {
+        RateLimiterProperties.Anonymous anonymous = properties.getAnonymous();
+        List<Network> proxies = new ArrayList<>();
+        for (String proxy : anonymous.getTrustedProxies()) {
+            proxies.add(Network.parse(proxy));
+        }
+        this.trustedProxies = List.copyOf(proxies);
+        this.ipv4PrefixLength = checkPrefix(anonymous.getIpv4PrefixLength(), 32, "ipv4-prefix-length");
+        this.ipv6PrefixLength = checkPrefix(anonymous.getIpv6PrefixLength(), 128, "ipv6-prefix-length");
+        this.clientsPerAddress = Math.max(0, anonymous.getClientsPerAddress());
+    }
+
+    private static int checkPrefix(int prefix, int max, String property) {
+        if (prefix < 0 || prefix > max) {
+            throw new IllegalArgumentException("rate-limiter.anonymous." + property + " must be between 0 and " + max);
+        }
+        return prefix;
+    }
+
+    /**
+     * The caller id for an anonymous request; {@code clientCookie} is the caller's {@code ANON_CLIENT_ID}, if any.
+     */
+    public String resolve(HttpServletRequest request, String clientCookie) {
+        InetAddress address = clientAddress(request);
+        String network = address == null ? UNKNOWN_NETWORK : networkOf(address);
+        if (clientsPerAddress == 0 || !StringUtils.hasText(clientCookie)) {
+            return network;
+        }
+        return network + CLIENT_SEPARATOR + Math.floorMod(clientCookie.hashCode(), clientsPerAddress);
+    }
+
+    InetAddress clientAddress(HttpServletRequest request) {
+        InetAddress client = parseAddress(request.getRemoteAddr());
+        if (client == null || !isTrusted(client)) {
+            return client;
+        }
+
+        List<String> hops = forwardedHops(request);
+        for (int i = hops.size() - 1; i >= 0; i--) {
+            InetAddress hop = parseAddress(hops.get(i));
+            if (hop == null) {
+                // Anything before a malformed entry was not written by a proxy we trust.
+                return client;
+            }
+            client = hop;
+            if (!isTrusted(hop)) {
+                return hop;
+            }
+        }
+        return client;
+    }
+
+    String networkOf(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        int prefix = bytes.length == 4 ? ipv4PrefixLength : ipv6PrefixLength;
+        if (prefix == bytes.length * 8) {
+            return address.getHostAddress();
+        }
+        Network.mask(bytes, prefix);
+        try {
+            return InetAddress.getByAddress(bytes).getHostAddress() + '/' + prefix;
+        } catch (UnknownHostException ex) {
+            throw new IllegalStateException("Masked address has an invalid length", ex);
+        }
+    }
+
+    private boolean isTrusted(InetAddress address) {
+        for (Network proxy : trustedProxies) {
+            if (proxy.contains(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> forwardedHops(HttpServletRequest request) {
+        Enumeration<String> headers = request.getHeaders(FORWARDED_FOR);
+        if (headers == null || !headers.hasMoreElements()) {
+            return Collections.emptyList();
+        }
+        List<String> hops = new ArrayList<>();
+        while (headers.hasMoreElements()) {
+            for (String hop : headers.nextElement().split(",")) {
+                hops.add(hop.trim());
+            }
+        }
+        return hops;
+    }
+
+    /**
+     * Parses an IP literal, with an optional port or IPv6 brackets as proxies sometimes write them. Anything that is
+     * not a literal is rejected before it reaches {@link InetAddress#getByName}, which would otherwise resolve it in
+     * DNS.
+     */
+    static InetAddress parseAddress(String value) {
+        if (!StringUtils.hasText(value)) {
+            return null;
+        }
+        String literal = value.trim();
+        if (literal.startsWith("[")) {
+            int end = literal.indexOf(']');
+            if (end < 0) {
+                return null;
+            }
+            literal = literal.substring(1, end);
+        } else if (literal.indexOf(':') == literal.lastIndexOf(':') && literal.indexOf('.') > 0) {
+            int port = literal.indexOf(':');
+            literal = port > 0 ? literal.substring(0, port) : literal;
+        }
+        if (!isIpLiteral(literal)) {
+            return null;
+        }
+        try {
+            return InetAddress.getByName(literal);
+        } catch (UnknownHostException ex) {
+            return null;
+        }
+    }
+
+    private static boolean isIpLiteral(String literal) {
+        if (literal.isEmpty()) {
+            return false;
+        }
+        if (literal.indexOf(':') >= 0) {
+            for (int i = 0; i < literal.length(); i++) {
+                char c = literal.charAt(i);
+                if (Character.digit(c, 16) < 0 && c != ':' && c != '.') {
+                    return false;
+                }
+            }
+            return true;
+        }
+        int dots = 0;
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            if (c == '.') {
+                dots++;
+            } else if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return dots == 3;
+    }
+
+    /**
+     * An address range in CIDR notation; a bare address is a range of one.
+     */
+    private record Network(byte[] address, int prefix) {
+
+        static Network parse(String cidr) {
+            String value = cidr.trim();
+            int slash = value.indexOf('/');
+            InetAddress address = parseAddress(slash < 0 ? value : value.substring(0, slash));
+            if (address == null) {
+                throw new IllegalArgumentException("Invalid trusted proxy '" + cidr + "', expected an IP or CIDR range");
+            }
+            byte[] bytes = address.getAddress();
+            int prefix = slash < 0 ? bytes.length * 8 : Integer.parseInt(value.substring(slash + 1));
+            if (prefix < 0 || prefix > bytes.length * 8) {
+                throw new IllegalArgumentException("Invalid prefix length in trusted proxy '" + cidr + "'");
+            }
+            mask(bytes, prefix);
+            return new Network(bytes, prefix);
+        }
+
+        boolean contains(InetAddress candidate) {
+            byte[] bytes = candidate.getAddress();
+            if (bytes.length != address.length) {
+                return false;
+            }
+            mask(bytes, prefix);
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] != address[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        static void mask(byte[] bytes, int prefix) {
+            for (int i = 0; i < bytes.length; i++) {
+                int bits = Math.max(0, Math.min(8, prefix - i * 8));
+                bytes[i] &= (byte) (0xFF << (8 - bits));
+            }
+        }
+    }
+}
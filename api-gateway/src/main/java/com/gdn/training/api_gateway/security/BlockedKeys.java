@@ -0,0 +1,54 @@
+package com.gdn.training.api_gateway.security;
+
+import java.time.Duration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * Keys Redis has just refused, remembered until the refusal ends so their requests are answered in memory. A client
+ * hammering the gateway past its limit then costs one map lookup per request instead of a Redis round trip.
+ * <p>
+ * The answer is exact: Redis reported how long the key cannot admit a request of the refused cost, and no other
+ * request can shorten that, so a request of at least that cost is refused locally for that long. Cheaper requests
+ * still go to Redis. Entries expire when their block ends and the cache is size-bounded, so a flood of distinct
+ * keys only evicts older blocks.
+ */
+final class BlockedKeys {
+
+    private final Cache<String, Block> blocks;
+
+    BlockedKeys(long maxKeys) {
+        this.blocks = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfter(Expiry.creating((String key, Block block) -> block.duration()))
+                .executor(Runnable::run)
+                .build();
+    }
+
+    /**
+     * Nanoseconds until {@code key} may admit a request of {@code cost} again, or {@code 0} when Redis has to decide.
+     */
+    long remainingNanos(String key, int cost) {
+        Block block = blocks.getIfPresent(key);
+        if (block == null || cost < block.cost()) {
+            return 0;
+        }
+        long remaining = block.untilNanos() - System.nanoTime();
+        return Math.max(0, remaining);
+    }
+
+    void block(String key, int cost, long nanos) {
+        if (nanos > 0) {
+            blocks.put(key, new Block(System.nanoTime() + nanos, cost, Duration.ofNanos(nanos)));
+        }
+    }
+
+    long trackedKeys() {
+        return blocks.estimatedSize();
+    }
+
+    private record Block(long untilNanos, int cost, Duration duration) {
+    }
+}
@@ -0,0 +1,251 @@
+package com.gdn.training.api_gateway.security;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import com.gdn.training.api_gateway.config.RateLimiterProperties;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fixed-window limiter that decides locally and reconciles with Redis in batches.
+ * <p>
+ * Admitted tokens (one per request unless a policy weighs requests) are counted per key in a {@link LongAdder}. A key is synced inline on its first hit in a window and
+ * whenever it has accumulated {@code maxUnsyncedHits} local hits; every {@code syncInterval} all keys with unsynced
+ * hits are synced together in one script call. A sync adds the local delta to the shared counter and pulls back the
+ * global total, so the only inaccuracy is the hits other instances have not synced yet: the limit can be overshot by
+ * at most about {@code maxUnsyncedHits} per additional instance. If Redis is unavailable, decisions continue from the
+ * last known total and the unsynced hits are retried on the next sync; once the {@link RedisCircuitBreaker} opens,
+ * no sync is attempted, so new keys and new windows start from zero without waiting for Redis.
+ * <p>
+ * At most {@code maxKeys} counters are kept, so a flood of distinct keys cannot grow the map within one window; the
+ * least recently used are evicted first, together with any hits they had not synced yet.
+ */
+@Slf4j
+final class HybridRateLimiter implements AutoCloseable {
+
+    private static final int SYNC_BATCH_SIZE = 500;
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisScript<List<Long>> syncScript;
+    private final int maxUnsyncedHits;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final ConcurrentMap<String, Counter> counters;
+    private final ScheduledExecutorService scheduler;
+
+    HybridRateLimiter(
+            StringRedisTemplate redisTemplate,
+            RedisScript<List<Long>> syncScript,
+            RateLimiterProperties.Hybrid properties,
+            RedisCircuitBreaker circuitBreaker
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.syncScript = syncScript;
+        this.maxUnsyncedHits = Math.max(1, properties.getMaxUnsyncedHits());
+        this.circuitBreaker = circuitBreaker;
+        this.counters = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, properties.getMaxKeys()))
+                .executor(Runnable::run)
+                .<String, Counter>build()
+                .asMap();
+
+        long intervalMillis = Math.max(1, properties.getSyncInterval().toMillis());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("rate-limit-sync")
+                .daemon()
+                .factory());
+        scheduler.scheduleWithFixedDelay(this::syncAll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    RateLimitResult consume(String key, RateLimitPolicy policy, int cost) {
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(key, ignored -> new Counter(key, policy));
+        }
+        long limit = policy.limit();
+        long now = System.nanoTime();
+
+        WindowState state = counter.state;
+        if (state.needsSync(now)) {
+            syncInline(counter, now);
+            state = counter.state;
+        }
+
+        long estimate = state.globalCount() + counter.unsynced(state);
+        long nanosToReset = state.endsAtNanos() - now;
+        if (estimate + cost > limit) {
+            return RateLimitResult.blocked(nanosToReset);
+        }
+
+        counter.admitted.add(cost);
+        if (counter.unsynced(state) >= maxUnsyncedHits && circuitBreaker.allowsRedis() && counter.lock.tryLock()) {
+            try {
+                sync(List.of(counter));
+            } finally {
+                counter.lock.unlock();
+            }
+        }
+        return RateLimitResult.allowed(limit - estimate - cost, nanosToReset);
+    }
+
+    /**
+     * Pushes every key with unsynced hits to Redis and refreshes its global total. Idle keys are left alone (their
+     * next burst is still capped by {@code maxUnsyncedHits}) and dropped once their window has ended.
+     */
+    void syncAll() {
+        if (!circuitBreaker.allowsRedis()) {
+            return;
+        }
+        long now = System.nanoTime();
+        List<Counter> batch = new ArrayList<>(Math.min(counters.size(), SYNC_BATCH_SIZE));
+        for (Counter counter : counters.values()) {
+            WindowState state = counter.state;
+            if (counter.unsynced(state) == 0) {
+                if (state.expired(now)) {
+                    counters.remove(counter.key, counter);
+                }
+                continue;
+            }
+            if (!counter.lock.tryLock()) {
+                continue;
+            }
+            batch.add(counter);
+            if (batch.size() == SYNC_BATCH_SIZE) {
+                syncAndUnlock(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            syncAndUnlock(batch);
+        }
+    }
+
+    long trackedKeys() {
+        return counters.size();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void syncInline(Counter counter, long now) {
+        counter.lock.lock();
+        try {
+            WindowState state = counter.state;
+            if (state.expired(now)) {
+                // Hits still unsynced from the finished window no longer matter; start the new window from zero.
+                counter.state = new WindowState(0, counter.admitted.sum(), now + counter.windowNanos, true);
+            }
+            if (!counter.state.needsSync(now)) {
+                return;
+            }
+            if (circuitBreaker.allowsRedis()) {
+                sync(List.of(counter));
+            } else {
+                counter.state = counter.state.withoutPendingSync();
+            }
+        } finally {
+            counter.lock.unlock();
+        }
+    }
+
+    private void syncAndUnlock(List<Counter> batch) {
+        try {
+            sync(batch);
+        } finally {
+            batch.forEach(counter -> counter.lock.unlock());
+        }
+    }
+
+    /**
+     * Syncs the given counters in one script call. Callers must hold each counter's lock.
+     */
+    private void sync(List<Counter> batch) {
+        List<String> keys = new ArrayList<>(batch.size());
+        long[] admitted = new long[batch.size()];
+        Object[] args = new Object[batch.size() * 2];
+        for (int i = 0; i < batch.size(); i++) {
+            Counter counter = batch.get(i);
+            keys.add(counter.key);
+            admitted[i] = counter.admitted.sum();
+            args[i * 2] = counter.windowMillis;
+            args[i * 2 + 1] = String.valueOf(admitted[i] - counter.state.flushed());
+        }
+
+        List<Long> reply;
+        try {
+            reply = redisTemplate.execute(syncScript, keys, args);
+        } catch (DataAccessException ex) {
+            log.warn("Unable to sync {} rate limit counters, deciding locally until the next sync: {}",
+                    batch.size(), ex.getMessage());
+            circuitBreaker.recordFailure(ex);
+            batch.forEach(counter -> counter.state = counter.state.withoutPendingSync());
+            return;
+        }
+        circuitBreaker.recordSuccess();
+        if (reply == null || reply.size() < batch.size() * 2) {
+            batch.forEach(counter -> counter.state = counter.state.withoutPendingSync());
+            return;
+        }
+
+        long now = System.nanoTime();
+        for (int i = 0; i < batch.size(); i++) {
+            long globalCount = reply.get(i * 2);
+            long resetNanos = TimeUnit.MILLISECONDS.toNanos(reply.get(i * 2 + 1));
+            batch.get(i).state = new WindowState(globalCount, admitted[i], now + resetNanos, false);
+        }
+    }
+
+    private static final class Counter {
+
+        private final String key;
+        private final long windowNanos;
+        private final String windowMillis;
+        private final LongAdder admitted = new LongAdder();
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile WindowState state = WindowState.UNSYNCED;
+
+        private Counter(String key, RateLimitPolicy policy) {
+            this.key = key;
+            this.windowNanos = policy.window().toNanos();
+            this.windowMillis = policy.windowArgument();
+        }
+
+        private long unsynced(WindowState state) {
+            return admitted.sum() - state.flushed();
+        }
+    }
+
+    /**
+     * What the instance last learned from Redis for one key: the global count, how many local hits that count
+     * already includes, and when the window ends. Replaced as a whole so readers never see a half-applied sync.
+     */
+    private record WindowState(long globalCount, long flushed, long endsAtNanos, boolean syncPending) {
+
+        private static final WindowState UNSYNCED = new WindowState(0, 0, System.nanoTime(), true);
+
+        private boolean expired(long now) {
+            return now - endsAtNanos >= 0;
+        }
+
+        private boolean needsSync(long now) {
+            return syncPending || expired(now);
+        }
+
+        private WindowState withoutPendingSync() {
+            return new WindowState(globalCount, flushed, endsAtNanos, false);
+        }
+    }
+}
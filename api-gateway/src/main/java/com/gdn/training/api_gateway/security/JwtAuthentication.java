@@ -0,0 +1,80 @@
+package com.gdn.training.api_gateway.security;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Authentication for a request carrying a verified JWT. Unlike {@code UsernamePasswordAuthenticationToken} it
+ * copies nothing per request: the authority list is an immutable singleton shared by every caller with the same
+ * role, and the role itself stays available without walking the authorities.
+ */
+public final class JwtAuthentication implements Authentication {
+
+    private static final List<GrantedAuthority> NO_AUTHORITIES = List.of();
+    // Roles come from signed tokens, so this holds one entry per role the member service issues.
+    private static final Map<String, List<GrantedAuthority>> AUTHORITIES_BY_ROLE = new ConcurrentHashMap<>();
+
+    private final String userId;
+    private final String role;
+    private final List<GrantedAuthority> authorities;
+
+    public JwtAuthentication(String userId, String role) {
+        this.userId = userId;
+        this.role = role;
+        this.authorities = role == null
+                ? NO_AUTHORITIES
+                : AUTHORITIES_BY_ROLE.computeIfAbsent(role, key -> List.of(new SimpleGrantedAuthority(key)));
+    }
+
+    public String role() {
+        return role;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public Object getCredentials() {
+        return null;
+    }
+
+    @Override
+    public Object getDetails() {
+        return null;
+    }
+
+    @Override
+    public String getPrincipal() {
+        return userId;
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return true;
+    }
+
+    @Override
+    public void setAuthenticated(boolean authenticated) {
+        if (!authenticated) {
+            throw new IllegalArgumentException("A verified JWT authentication cannot be marked unauthenticated");
+        }
+    }
+
+    @Override
+    public String getName() {
+        return userId;
+    }
+
+    @Override
+    public String toString() {
+        return "JwtAuthentication[userId=" + userId + ", role=" + role + "]";
+    }
+}
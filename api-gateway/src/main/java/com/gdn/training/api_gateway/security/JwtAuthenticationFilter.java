@@ -1,26 +1,18 @@
 package com.gdn.training.api_gateway.security;
 
 import java.io.IOException;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
 
 import jakarta.servlet.http.HttpServletRequestWrapper;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
-import org.springframework.util.PathMatcher;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import com.gdn.training.api_gateway.config.SecurityProperties;
+import com.gdn.training.api_gateway.metrics.StageLatency;
 
-import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -32,11 +24,15 @@ import lombok.RequiredArgsConstructor;
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtService jwtService;
-    private final SecurityProperties securityProperties;
+    static final String USER_ID_HEADER = "X-User-Id";
+    private static final String ALREADY_FILTERED_ATTRIBUTE =
+            JwtAuthenticationFilter.class.getName() + ALREADY_FILTERED_SUFFIX;
+
+    private final VerifiedClaimsCache verifiedClaimsCache;
+    private final PathClassifier pathClassifier;
     private final AccessTokenResolver accessTokenResolver;
     private final TokenBlacklistService tokenBlacklistService;
-    private final PathMatcher pathMatcher = new AntPathMatcher();
+    private final StageLatency stageLatency;
 
     @Override
     protected void doFilterInternal(
@@ -45,9 +41,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             FilterChain filterChain
     ) throws ServletException, IOException {
 
-        String path = request.getRequestURI();
-
-        if (isPublicPath(path)) {
+        if (pathClassifier.classify(request).publicPath()) {
             filterChain.doFilter(request, response);
             return;
         }
@@ -55,38 +49,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String token = accessTokenResolver.resolve(request);
 
         if (StringUtils.hasText(token)) {
+            String route = stageLatency.routeOf(request);
             try {
-                Claims claims = jwtService.parseToken(token);
+                VerifiedClaims claims = verify(token, route);
 
-                if (tokenBlacklistService.isBlacklisted(claims.getId())) {
-                    log.warn("Token blacklisted for jwtId={}", claims.getId());
+                if (isRevoked(claims, route)) {
+                    log.warn("Token revoked for jwtId={}, userId={}", claims.jwtId(), claims.subject());
                     SecurityContextHolder.clearContext();
                     filterChain.doFilter(request, response);
                     return;
                 }
 
-                String userId = claims.getSubject();
-                String role = (String) claims.get("role");
-
-                log.debug("Authenticated request. userId={}, role={}, path={}", userId, role, request.getRequestURI());
-
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(
-                                userId,
-                                null,
-                                role != null
-                                        ? List.of(new SimpleGrantedAuthority(role))
-                                        : List.of()
-                        );
-                authentication.setDetails(
-                        new WebAuthenticationDetailsSource().buildDetails(request)
-                );
-
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                String userId = claims.subject();
+                if (log.isDebugEnabled()) {
+                    log.debug("Authenticated request. userId={}, role={}, path={}",
+                            userId, claims.role(), request.getRequestURI());
+                }
 
-                HeaderMapRequestWrapper requestWrapper = new HeaderMapRequestWrapper(request);
-                requestWrapper.addHeader("X-User-Id", userId);
-                filterChain.doFilter(requestWrapper, response);
+                SecurityContextHolder.getContext().setAuthentication(new JwtAuthentication(userId, claims.role()));
+                filterChain.doFilter(new UserIdRequestWrapper(request, userId), response);
                 return;
 
             } catch (Exception ex) {
@@ -98,54 +79,129 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
-    private boolean isPublicPath(String path) {
-        if (securityProperties.getPublicPaths() == null) {
-            return false;
+    private VerifiedClaims verify(String token, String route) {
+        long start = System.nanoTime();
+        String outcome = "invalid";
+        try {
+            VerifiedClaims claims = verifiedClaimsCache.verify(token);
+            outcome = "valid";
+            return claims;
+        } finally {
+            stageLatency.record(StageLatency.Stage.JWT, route, outcome, System.nanoTime() - start);
         }
-        for (String pattern : securityProperties.getPublicPaths()) {
-            if (pathMatcher.match(pattern, path)) {
-                return true;
-            }
+    }
+
+    private boolean isRevoked(VerifiedClaims claims, String route) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            boolean revoked = tokenBlacklistService.isRevoked(claims);
+            outcome = revoked ? "revoked" : "valid";
+            return revoked;
+        } finally {
+            stageLatency.record(StageLatency.Stage.BLACKLIST, route, outcome, System.nanoTime() - start);
         }
-        return false;
     }
 
-    private static class HeaderMapRequestWrapper extends HttpServletRequestWrapper {
-        private final Map<String, String> headerMap = new HashMap<>();
+    @Override
+    protected String getAlreadyFilteredAttributeName() {
+        return ALREADY_FILTERED_ATTRIBUTE;
+    }
 
-        public HeaderMapRequestWrapper(HttpServletRequest request) {
+    /**
+     * Exposes the authenticated user id as {@code X-User-Id}, replacing any value the client sent. Holds just the
+     * one header instead of a map, and walks the wrapped request's headers lazily rather than copying them.
+     */
+    private static final class UserIdRequestWrapper extends HttpServletRequestWrapper {
+
+        private final String userId;
+
+        private UserIdRequestWrapper(HttpServletRequest request, String userId) {
             super(request);
+            this.userId = userId;
         }
 
-        public void addHeader(String name, String value) {
-            headerMap.put(name, value);
+        @Override
+        public String getHeader(String name) {
+            return USER_ID_HEADER.equalsIgnoreCase(name) ? userId : super.getHeader(name);
         }
 
         @Override
-        public String getHeader(String name) {
-            String headerValue = headerMap.get(name);
-            if (headerValue != null) {
-                return headerValue;
-            }
-            return super.getHeader(name);
+        public Enumeration<String> getHeaders(String name) {
+            return USER_ID_HEADER.equalsIgnoreCase(name)
+                    ? new SingleValueEnumeration(userId)
+                    : super.getHeaders(name);
         }
 
         @Override
-        public java.util.Enumeration<String> getHeaderNames() {
-            List<String> names = Collections.list(super.getHeaderNames());
-            for (String name : headerMap.keySet()) {
-                names.add(name);
+        public Enumeration<String> getHeaderNames() {
+            return new HeaderNamesWithUserId(super.getHeaderNames());
+        }
+    }
+
+    private static final class SingleValueEnumeration implements Enumeration<String> {
+
+        private String value;
+
+        private SingleValueEnumeration(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean hasMoreElements() {
+            return value != null;
+        }
+
+        @Override
+        public String nextElement() {
+            if (value == null) {
+                throw new NoSuchElementException();
             }
-            return Collections.enumeration(names);
+            String next = value;
+            value = null;
+            return next;
+        }
+    }
+
+    /**
+     * The wrapped request's header names without any client-sent {@code X-User-Id}, followed by {@code X-User-Id}.
+     */
+    private static final class HeaderNamesWithUserId implements Enumeration<String> {
+
+        private final Enumeration<String> names;
+        private String next;
+        private boolean userIdReturned;
+
+        private HeaderNamesWithUserId(Enumeration<String> names) {
+            this.names = names;
+            advance();
+        }
+
+        @Override
+        public boolean hasMoreElements() {
+            return next != null;
         }
 
         @Override
-        public java.util.Enumeration<String> getHeaders(String name) {
-            List<String> values = Collections.list(super.getHeaders(name));
-            if (headerMap.containsKey(name)) {
-                values.add(headerMap.get(name));
+        public String nextElement() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            String current = next;
+            advance();
+            return current;
+        }
+
+        private void advance() {
+            while (names != null && names.hasMoreElements()) {
+                String name = names.nextElement();
+                if (!USER_ID_HEADER.equalsIgnoreCase(name)) {
+                    next = name;
+                    return;
+                }
             }
-            return Collections.enumeration(values);
+            next = userIdReturned ? null : USER_ID_HEADER;
+            userIdReturned = true;
         }
     }
-}
\ No newline at end of file
+}
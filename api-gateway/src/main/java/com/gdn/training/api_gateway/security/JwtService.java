@@ -5,22 +5,41 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.Date;
 import java.util.Map;
+import java.util.ServiceLoader;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.io.Serializer;
 import io.jsonwebtoken.security.Keys;
 
+/**
+ * Issues and verifies gateway access tokens. The signing key, parser and JSON serializer are immutable and
+ * thread-safe, so they are built once here instead of on every call.
+ */
 @Service
 public class JwtService {
 
+    /**
+     * Issue time in epoch milliseconds. {@code iat} only has whole seconds, which cannot tell a token issued just
+     * after a logout from one issued just before it in the same second.
+     */
+    public static final String ISSUED_AT_MILLIS = "iat_ms";
+
+    private static final SignatureAlgorithm SIGNATURE_ALGORITHM = SignatureAlgorithm.HS256;
+
     private final Key signingKey;
     private final Duration tokenTtl;
+    private final long tokenTtlMillis;
+    private final JwtParser parser;
+    private final Serializer<Map<String, ?>> serializer;
 
     public JwtService(
             @Value("${security.jwt.secret-key}") String secret,
@@ -28,28 +47,30 @@ public class JwtService {
     ) {
         this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
         this.tokenTtl = Duration.ofMinutes(expirationMinutes);
+        this.tokenTtlMillis = tokenTtl.toMillis();
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.serializer = loadSerializer();
     }
 
     public String generateToken(String subject, Map<String, Object> claims) {
-        Instant now = Instant.now();
-        Instant expiry = now.plus(tokenTtl);
+        long now = System.currentTimeMillis();
 
         return Jwts.builder()
-                .setId(UUID.randomUUID().toString())
+                .serializeToJsonWith(serializer)
+                .setId(newTokenId())
                 .setSubject(subject)
                 .addClaims(claims)
-                .setIssuedAt(Date.from(now))
-                .setExpiration(Date.from(expiry))
-                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .claim(ISSUED_AT_MILLIS, now)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + tokenTtlMillis))
+                .signWith(signingKey, SIGNATURE_ALGORITHM)
                 .compact();
     }
 
     public Claims parseToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(signingKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
     public long getExpirationSeconds() {
@@ -65,4 +86,23 @@ public class JwtService {
         Duration remaining = Duration.between(Instant.now(), expiresAt);
         return remaining.isNegative() ? Duration.ZERO : remaining;
     }
-}
\ No newline at end of file
+
+    /**
+     * Random version 4 UUID for the {@code jti} claim. The token is signed, so the id only has to be unique,
+     * not unpredictable, which lets us skip the shared {@code SecureRandom} behind {@link UUID#randomUUID()}.
+     */
+    private static String newTokenId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = (random.nextLong() & 0xFFFFFFFFFFFF0FFFL) | 0x0000000000004000L;
+        long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Serializer<Map<String, ?>> loadSerializer() {
+        return ServiceLoader.load(Serializer.class, JwtService.class.getClassLoader())
+                .findFirst()
+                .map(serializer -> (Serializer<Map<String, ?>>) serializer)
+                .orElseThrow(() -> new IllegalStateException("No JWT JSON serializer found on the classpath"));
+    }
+}
@@ -0,0 +1,68 @@
+package com.gdn.training.api_gateway.security;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * In-memory token bucket used while Redis is unavailable. Each key gets a GCRA bucket (a single theoretical
+ * arrival time updated by CAS) with the same rate and burst as the Redis token-bucket script, using the window of the
+ * key's policy. Buckets live in a size-bounded Caffeine cache and expire once idle for their full window, by which
+ * point they would be full again anyway.
+ * <p>
+ * Limits are enforced per instance, so with several gateway instances the effective limit is multiplied until Redis
+ * is back.
+ */
+final class LocalTokenBucketLimiter {
+
+    private final Cache<String, Bucket> buckets;
+
+    LocalTokenBucketLimiter(long maxKeys) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfter(Expiry.accessing((String key, Bucket bucket) -> bucket.window))
+                .executor(Runnable::run)
+                .build();
+    }
+
+    RateLimitResult consume(String key, long limit, Duration window, int cost) {
+        Bucket bucket = buckets.get(key, ignored -> new Bucket(window));
+        long windowNanos = bucket.window.toNanos();
+        long interval = windowNanos / limit;
+
+        while (true) {
+            long now = System.nanoTime();
+            long current = bucket.theoreticalArrival.get();
+            long tat = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+            long newTat = tat + interval * cost;
+            long allowAt = newTat - windowNanos;
+            if (allowAt - now > 0) {
+                return RateLimitResult.blocked(allowAt - now);
+            }
+            if (bucket.theoreticalArrival.compareAndSet(current, newTat)) {
+                return RateLimitResult.allowed((windowNanos - (newTat - now)) / interval, newTat - now);
+            }
+        }
+    }
+
+    long trackedKeys() {
+        return buckets.estimatedSize();
+    }
+
+    /**
+     * A key's theoretical arrival time and the window it was created with; a key always belongs to one policy, so
+     * its window never changes.
+     */
+    private static final class Bucket {
+
+        private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+        private final Duration window;
+
+        private Bucket(Duration window) {
+            this.window = window;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.gdn.training.api_gateway.security;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.gdn.training.api_gateway.config.RateLimiterProperties;
+import com.gdn.training.api_gateway.config.SecurityProperties;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Classifies request paths against {@code security.public-paths} and {@code rate-limiter.ignored-paths}.
+ * <p>
+ * Patterns are compiled once into {@link PathPattern}s and bucketed by their first literal segment, so a lookup
+ * only evaluates the handful of patterns that can possibly match instead of the whole route table. The result is
+ * memoised on the request, letting every filter in the chain share a single lookup.
+ */
+@Component
+public class PathClassifier {
+
+    static final String REQUEST_ATTRIBUTE = PathClassifier.class.getName() + ".classification";
+
+    private static final int PUBLIC = 1;
+    private static final int RATE_LIMIT_EXEMPT = 1 << 1;
+    private static final int ALL = PUBLIC | RATE_LIMIT_EXEMPT;
+    private static final Rule[] NO_RULES = new Rule[0];
+
+    private final Map<String, Rule[]> rulesByFirstSegment;
+    private final Rule[] wildcardRules;
+
+    public PathClassifier(SecurityProperties securityProperties, RateLimiterProperties rateLimiterProperties) {
+        Map<String, Integer> flagsByPattern = new HashMap<>();
+        collect(flagsByPattern, securityProperties.getPublicPaths(), PUBLIC);
+        collect(flagsByPattern, rateLimiterProperties.getIgnoredPaths(), RATE_LIMIT_EXEMPT);
+
+        Map<String, List<Rule>> literalBuckets = new HashMap<>();
+        List<Rule> wildcardBucket = new ArrayList<>();
+        PathPatternParser parser = PathPatternParser.defaultInstance;
+        flagsByPattern.forEach((pattern, flags) -> {
+            Rule rule = new Rule(parser.parse(pattern), flags);
+            String firstSegment = literalFirstSegment(pattern);
+            if (firstSegment == null) {
+                wildcardBucket.add(rule);
+            } else {
+                literalBuckets.computeIfAbsent(firstSegment, key -> new ArrayList<>()).add(rule);
+            }
+        });
+
+        Map<String, Rule[]> compiled = new HashMap<>();
+        literalBuckets.forEach((segment, rules) -> compiled.put(segment, rules.toArray(NO_RULES)));
+        this.rulesByFirstSegment = Map.copyOf(compiled);
+        this.wildcardRules = wildcardBucket.toArray(NO_RULES);
+    }
+
+    public PathClassification classify(HttpServletRequest request) {
+        Object cached = request.getAttribute(REQUEST_ATTRIBUTE);
+        if (cached instanceof PathClassification classification) {
+            return classification;
+        }
+        PathClassification classification = classify(request.getRequestURI());
+        request.setAttribute(REQUEST_ATTRIBUTE, classification);
+        return classification;
+    }
+
+    public PathClassification classify(String path) {
+        if (path == null) {
+            return PathClassification.NONE;
+        }
+        Rule[] literalRules = rulesByFirstSegment.getOrDefault(firstSegment(path), NO_RULES);
+        if (literalRules.length == 0 && wildcardRules.length == 0) {
+            return PathClassification.NONE;
+        }
+
+        PathContainer container = PathContainer.parsePath(path);
+        int flags = match(literalRules, container, 0);
+        flags = match(wildcardRules, container, flags);
+        return PathClassification.of(flags);
+    }
+
+    private static int match(Rule[] rules, PathContainer container, int flags) {
+        for (Rule rule : rules) {
+            if (flags == ALL) {
+                return flags;
+            }
+            if ((flags & rule.flags()) != rule.flags() && rule.pattern().matches(container)) {
+                flags |= rule.flags();
+            }
+        }
+        return flags;
+    }
+
+    private static void collect(Map<String, Integer> flagsByPattern, Collection<String> patterns, int flag) {
+        if (patterns == null) {
+            return;
+        }
+        for (String pattern : patterns) {
+            if (StringUtils.hasText(pattern)) {
+                flagsByPattern.merge(pattern.trim(), flag, (left, right) -> left | right);
+            }
+        }
+    }
+
+    /**
+     * The first path segment of a pattern when it is a plain literal, or {@code null} when it contains a wildcard,
+     * a capture variable, or the pattern is the root itself, so that any first segment could match it. Shared with
+     * {@link RateLimitPolicyResolver}, which buckets its path patterns the same way.
+     */
+    static String literalFirstSegment(String pattern) {
+        String segment = firstSegment(pattern);
+        if (segment.isEmpty() || segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 || segment.indexOf('{') >= 0) {
+            return null;
+        }
+        return segment;
+    }
+
+    static String firstSegment(String path) {
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.substring(start) : path.substring(start, end);
+    }
+
+    private record Rule(PathPattern pattern, int flags) {
+    }
+
+    /**
+     * Outcome of a {@link PathClassifier} lookup. Only four combinations exist, so instances are shared.
+     */
+    public record PathClassification(boolean publicPath, boolean rateLimitExempt) {
+
+        static final PathClassification NONE = new PathClassification(false, false);
+
+        private static final PathClassification[] BY_FLAGS = {
+                NONE,
+                new PathClassification(true, false),
+                new PathClassification(false, true),
+                new PathClassification(true, true)
+        };
+
+        static PathClassification of(int flags) {
+            return BY_FLAGS[flags];
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.gdn.training.api_gateway.security;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.util.StringUtils;
+
+import com.gdn.training.api_gateway.config.RateLimiterProperties;
+
+/**
+ * A compiled rate-limit policy: its budget, window and request cost, plus the header values and script arguments
+ * derived from them, so nothing is formatted per request.
+ */
+public final class RateLimitPolicy {
+
+    static final String GLOBAL = "global";
+
+    private final String name;
+    private final String keyScope;
+    private final long limit;
+    private final Duration window;
+    private final int cost;
+    private final String[] costParameters;
+    private final int[] parameterCosts;
+    private final String limitArgument;
+    private final String windowArgument;
+    private final String policyHeader;
+
+    private RateLimitPolicy(String name, String keyScope, long limit, Duration window, int cost,
+                            Map<String, Integer> queryCosts) {
+        this.name = name;
+        this.keyScope = keyScope;
+        this.limit = Math.max(1, limit);
+        this.window = window == null || window.isZero() || window.isNegative() ? Duration.ofMinutes(1) : window;
+        this.cost = Math.max(1, cost);
+        this.costParameters = queryCosts.keySet().toArray(new String[0]);
+        this.parameterCosts = queryCosts.values().stream().mapToInt(value -> Math.max(1, value)).toArray();
+        this.limitArgument = String.valueOf(this.limit);
+        this.windowArgument = String.valueOf(this.window.toMillis());
+        this.policyHeader = name + ";w=" + this.window.toSeconds();
+    }
+
+    /**
+     * The policy applied when no configured policy matches. Its keys carry no scope, so they stay compatible with
+     * counters written before policies existed.
+     */
+    static RateLimitPolicy global(long requestsPerMinute) {
+        return new RateLimitPolicy(GLOBAL, "", requestsPerMinute, Duration.ofMinutes(1), 1, Map.of());
+    }
+
+    static RateLimitPolicy of(RateLimiterProperties.Policy properties) {
+        if (!StringUtils.hasText(properties.getName())) {
+            throw new IllegalStateException("Every rate-limiter policy needs a name");
+        }
+        String name = properties.getName().trim();
+        return new RateLimitPolicy(name, name + ":", properties.getLimit(), properties.getWindow(),
+                properties.getCost(), properties.getQueryCosts() == null ? Map.of() : properties.getQueryCosts());
+    }
+
+    /**
+     * Tokens consumed by a request with the given raw query string: the highest cost among the configured query
+     * parameters it carries, or the policy's base cost.
+     */
+    int costOf(String queryString) {
+        int result = cost;
+        if (queryString == null || costParameters.length == 0) {
+            return result;
+        }
+        for (int i = 0; i < costParameters.length; i++) {
+            if (parameterCosts[i] > result && hasParameter(queryString, costParameters[i])) {
+                result = parameterCosts[i];
+            }
+        }
+        return result;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public long limit() {
+        return limit;
+    }
+
+    public Duration window() {
+        return window;
+    }
+
+    String keyScope() {
+        return keyScope;
+    }
+
+    String limitArgument() {
+        return limitArgument;
+    }
+
+    String windowArgument() {
+        return windowArgument;
+    }
+
+    String policyHeader() {
+        return policyHeader;
+    }
+
+    private static boolean hasParameter(String queryString, String parameter) {
+        int from = 0;
+        while (from <= queryString.length()) {
+            int end = queryString.indexOf('&', from);
+            if (end < 0) {
+                end = queryString.length();
+            }
+            if (queryString.startsWith(parameter, from)) {
+                int next = from + parameter.length();
+                if (next == end || queryString.charAt(next) == '=') {
+                    return true;
+                }
+            }
+            from = end + 1;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,229 @@
+package com.gdn.training.api_gateway.security;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.server.mvc.config.GatewayMvcProperties;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.gdn.training.api_gateway.config.GatewayRoutes;
+import com.gdn.training.api_gateway.config.RateLimiterProperties;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Picks the {@link RateLimitPolicy} for a request from {@code rate-limiter.policies}.
+ * <p>
+ * Policies are compiled at startup into a table keyed by role, then HTTP method, then first path segment, whose
+ * cells hold only the policies that can apply, already in declaration order. Resolving a request is three map
+ * lookups followed by pattern checks on those few candidates; the first match wins and the global
+ * {@code requests-per-minute} policy applies when nothing matches.
+ */
+@Component
+public class RateLimitPolicyResolver {
+
+    public static final String ANONYMOUS = "ANONYMOUS";
+
+    private static final String OTHER = "";
+    private static final PathPattern[] ANY_PATH = new PathPattern[0];
+
+    private final RateLimitPolicy globalPolicy;
+    private final Map<String, Map<String, SegmentTable>> tablesByRole;
+
+    public RateLimitPolicyResolver(RateLimiterProperties properties,
+                                   ObjectProvider<GatewayMvcProperties> gatewayProperties) {
+        this.globalPolicy = RateLimitPolicy.global(properties.getRequestsPerMinute());
+
+        List<CompiledPolicy> policies = new ArrayList<>();
+        Set<String> roles = new LinkedHashSet<>();
+        Set<String> methods = new LinkedHashSet<>();
+        for (RateLimiterProperties.Policy policy : properties.getPolicies()) {
+            CompiledPolicy compiled = compile(policy, gatewayProperties.getIfAvailable());
+            policies.add(compiled);
+            roles.addAll(compiled.roles());
+            methods.addAll(compiled.methods());
+        }
+        roles.add(OTHER);
+        methods.add(OTHER);
+
+        Map<String, Map<String, SegmentTable>> byRole = new HashMap<>();
+        for (String role : roles) {
+            Map<String, SegmentTable> byMethod = new HashMap<>();
+            for (String method : methods) {
+                List<CompiledPolicy> applicable = policies.stream()
+                        .filter(policy -> selects(policy.roles(), role) && selects(policy.methods(), method))
+                        .toList();
+                byMethod.put(method, SegmentTable.of(applicable));
+            }
+            byRole.put(role, Map.copyOf(byMethod));
+        }
+        this.tablesByRole = Map.copyOf(byRole);
+    }
+
+    /**
+     * @param role the caller's role, or {@link #ANONYMOUS} for unauthenticated requests
+     */
+    public RateLimitPolicy resolve(HttpServletRequest request, String role) {
+        return resolve(request.getMethod(), request.getRequestURI(), role);
+    }
+
+    RateLimitPolicy resolve(String method, String path, String role) {
+        Map<String, SegmentTable> byMethod = tablesByRole.get(role == null ? OTHER : role);
+        if (byMethod == null) {
+            byMethod = tablesByRole.get(OTHER);
+        }
+        SegmentTable table = byMethod.get(method == null ? OTHER : method);
+        if (table == null) {
+            table = byMethod.get(OTHER);
+        }
+        Candidate[] candidates = table.candidates(path);
+        if (candidates.length == 0) {
+            return globalPolicy;
+        }
+
+        PathContainer container = null;
+        for (Candidate candidate : candidates) {
+            if (candidate.patterns().length == 0) {
+                return candidate.policy();
+            }
+            if (container == null) {
+                container = PathContainer.parsePath(path == null ? "/" : path);
+            }
+            for (PathPattern pattern : candidate.patterns()) {
+                if (pattern.matches(container)) {
+                    return candidate.policy();
+                }
+            }
+        }
+        return globalPolicy;
+    }
+
+    RateLimitPolicy globalPolicy() {
+        return globalPolicy;
+    }
+
+    private static CompiledPolicy compile(RateLimiterProperties.Policy policy, GatewayMvcProperties gateway) {
+        RateLimitPolicy compiled = RateLimitPolicy.of(policy);
+
+        Set<String> paths = new LinkedHashSet<>();
+        addAll(paths, policy.getPaths());
+        if (StringUtils.hasText(policy.getRouteId())) {
+            List<String> routePaths = GatewayRoutes.pathPatterns(gateway, policy.getRouteId().trim());
+            if (routePaths.isEmpty()) {
+                throw new IllegalStateException("Rate-limiter policy '" + compiled.name()
+                        + "' references route '" + policy.getRouteId() + "', which has no Path predicate");
+            }
+            paths.addAll(routePaths);
+        }
+
+        Set<String> methods = new LinkedHashSet<>();
+        for (String method : policy.getMethods()) {
+            if (StringUtils.hasText(method)) {
+                methods.add(method.trim().toUpperCase(Locale.ROOT));
+            }
+        }
+        Set<String> roles = new LinkedHashSet<>();
+        addAll(roles, policy.getRoles());
+
+        PathPatternParser parser = PathPatternParser.defaultInstance;
+        List<PathPattern> patterns = paths.stream().map(parser::parse).toList();
+        return new CompiledPolicy(compiled, List.copyOf(paths), patterns, Set.copyOf(methods), Set.copyOf(roles));
+    }
+
+    private static void addAll(Collection<String> target, Iterable<String> values) {
+        if (values == null) {
+            return;
+        }
+        for (String value : values) {
+            if (StringUtils.hasText(value)) {
+                target.add(value.trim());
+            }
+        }
+    }
+
+    /**
+     * Whether a role or method selector matches the value. An empty selector matches everything, including the
+     * bucket that stands for values no policy names.
+     */
+    private static boolean selects(Set<String> selector, String value) {
+        return selector.isEmpty() || selector.contains(value);
+    }
+
+    private record CompiledPolicy(
+            RateLimitPolicy policy,
+            List<String> paths,
+            List<PathPattern> patterns,
+            Set<String> methods,
+            Set<String> roles
+    ) {
+
+        /**
+         * The candidate restricted to the patterns that can match paths starting with {@code segment}, or
+         * {@code null} when none can. A {@code null} segment stands for first segments no pattern names.
+         */
+        private Candidate candidateFor(String segment) {
+            if (paths.isEmpty()) {
+                return new Candidate(policy, ANY_PATH);
+            }
+            List<PathPattern> matching = new ArrayList<>();
+            for (int i = 0; i < paths.size(); i++) {
+                String literal = PathClassifier.literalFirstSegment(paths.get(i));
+                if (literal == null || literal.equals(segment)) {
+                    matching.add(patterns.get(i));
+                }
+            }
+            return matching.isEmpty() ? null : new Candidate(policy, matching.toArray(ANY_PATH));
+        }
+    }
+
+    private record Candidate(RateLimitPolicy policy, PathPattern[] patterns) {
+    }
+
+    /**
+     * Candidates per literal first segment, plus the candidates for every other first segment.
+     */
+    private record SegmentTable(Map<String, Candidate[]> bySegment, Candidate[] otherSegments) {
+
+        private static SegmentTable of(List<CompiledPolicy> policies) {
+            Set<String> segments = new LinkedHashSet<>();
+            for (CompiledPolicy policy : policies) {
+                policy.paths().stream()
+                        .map(PathClassifier::literalFirstSegment)
+                        .filter(Objects::nonNull)
+                        .forEach(segments::add);
+            }
+            Map<String, Candidate[]> bySegment = new HashMap<>();
+            for (String segment : segments) {
+                bySegment.put(segment, candidates(policies, segment));
+            }
+            return new SegmentTable(Map.copyOf(bySegment), candidates(policies, null));
+        }
+
+        private static Candidate[] candidates(List<CompiledPolicy> policies, String segment) {
+            return policies.stream()
+                    .map(policy -> policy.candidateFor(segment))
+                    .filter(Objects::nonNull)
+                    .toArray(Candidate[]::new);
+        }
+
+        private Candidate[] candidates(String path) {
+            if (path == null) {
+                return otherSegments;
+            }
+            Candidate[] candidates = bySegment.get(PathClassifier.firstSegment(path));
+            return candidates != null ? candidates : otherSegments;
+        }
+    }
+}
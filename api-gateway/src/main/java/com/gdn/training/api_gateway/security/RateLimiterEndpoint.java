@@ -0,0 +1,24 @@
+package com.gdn.training.api_gateway.security;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@code /actuator/ratelimiter}: reports whether rate limits are currently enforced through Redis or by the
+ * in-memory fallback, and the state of the Redis circuit breaker.
+ */
+@Component
+@Endpoint(id = "ratelimiter")
+@RequiredArgsConstructor
+public class RateLimiterEndpoint {
+
+    private final RateLimiterService rateLimiterService;
+
+    @ReadOperation
+    public RateLimiterService.Status status() {
+        return rateLimiterService.status();
+    }
+}
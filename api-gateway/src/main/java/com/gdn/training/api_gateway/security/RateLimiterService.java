@@ -1,45 +1,128 @@
 package com.gdn.training.api_gateway.security;
 
-import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import com.gdn.training.api_gateway.config.RateLimiterProperties;
+import com.gdn.training.api_gateway.config.RateLimiterProperties.Algorithm;
+import com.gdn.training.api_gateway.config.RateLimiterProperties.Mode;
 
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Redis-backed rate limiter. Each decision is a single script call that updates the key, sets its expiry and
+ * returns {@code {allowed, remaining, resetMillis}}, so a request costs one round trip and a key can never be left
+ * without a TTL. Scripts are sent by SHA ({@code EVALSHA}); the full body is only sent once per Redis node, when
+ * it answers {@code NOSCRIPT}.
+ * <p>
+ * In {@code hybrid} mode decisions are made locally by a {@link HybridRateLimiter} that syncs with the same
+ * fixed-window counters in batches, trading a bounded overshoot for far fewer round trips.
+ * <p>
+ * In {@code exact} mode, repeated Redis failures open a {@link RedisCircuitBreaker}: requests are then limited by a
+ * {@link LocalTokenBucketLimiter} without touching Redis until a background probe sees Redis answer again. Keys Redis
+ * refused are kept in {@link BlockedKeys}, so a client over its limit is refused in memory until its block ends.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class RateLimiterService {
 
     private static final String KEY_PREFIX = "ratelimit:";
-    private static final Duration WINDOW = Duration.ofMinutes(1);
+    private static final String SINGLE_COST = "1";
 
     private final RateLimiterProperties properties;
     private final StringRedisTemplate redisTemplate;
+    private final Map<Algorithm, LimiterScript> scripts;
+    private final HybridRateLimiter hybridLimiter;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final LocalTokenBucketLimiter fallbackLimiter;
+    private final BlockedKeys blockedKeys;
 
+    public RateLimiterService(RateLimiterProperties properties, StringRedisTemplate redisTemplate) {
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        Map<Algorithm, LimiterScript> byAlgorithm = new EnumMap<>(Algorithm.class);
+        // Each algorithm stores a different Redis type, so switching algorithms must not reuse the old keys.
+        byAlgorithm.put(Algorithm.FIXED_WINDOW, new LimiterScript(load("fixed-window.lua"), KEY_PREFIX));
+        byAlgorithm.put(Algorithm.SLIDING_WINDOW_LOG, new LimiterScript(load("sliding-window-log.lua"), KEY_PREFIX + "log:"));
+        byAlgorithm.put(Algorithm.TOKEN_BUCKET, new LimiterScript(load("token-bucket.lua"), KEY_PREFIX + "gcra:"));
+        this.scripts = byAlgorithm;
+        this.circuitBreaker = new RedisCircuitBreaker(redisTemplate, properties.getFallback());
+        this.hybridLimiter = properties.getMode() == Mode.HYBRID
+                ? new HybridRateLimiter(redisTemplate, load("hybrid-sync.lua"), properties.getHybrid(), circuitBreaker)
+                : null;
+        this.fallbackLimiter = new LocalTokenBucketLimiter(Math.max(1, properties.getFallback().getMaxKeys()));
+        this.blockedKeys = new BlockedKeys(Math.max(1, properties.getMaxBlockedKeys()));
+    }
+
+    /**
+     * Consumes one token from the global {@code requests-per-minute} budget.
+     */
     public RateLimitResult consume(String key) {
-        long limit = Math.max(1, properties.getRequestsPerMinute());
-        String redisKey = buildKey(StringUtils.hasText(key) ? key : "anonymous");
+        return consume(key, RateLimitPolicy.global(getConfiguredLimit()), 1);
+    }
 
-        Long currentCount = increment(redisKey);
-        if (currentCount == null) {
-            return RateLimitResult.allowed(limit);
+    /**
+     * Consumes {@code cost} tokens from the caller's budget under the given policy. Each policy keeps its own
+     * counters, so the same caller has independent budgets per policy.
+     */
+    public RateLimitResult consume(String key, RateLimitPolicy policy, int cost) {
+        return consume("", key, policy, cost);
+    }
+
+    /**
+     * Same as {@link #consume(String, RateLimitPolicy, int)} for the key {@code callerType + callerId}; the key is
+     * assembled from its parts here rather than by the caller.
+     */
+    public RateLimitResult consume(String callerType, String callerId, RateLimitPolicy policy, int cost) {
+        long limit = policy.limit();
+        String id = StringUtils.hasText(callerId) ? callerId : "anonymous";
+        if (hybridLimiter != null) {
+            return hybridLimiter.consume(KEY_PREFIX + policy.keyScope() + callerType + id, policy, cost);
         }
 
-        long nanosToReset = remainingNanos(redisKey);
-        if (currentCount <= limit) {
-            long remaining = Math.max(0, limit - currentCount);
-            return RateLimitResult.allowed(remaining, nanosToReset);
+        String localKey = policy.keyScope() + callerType + id;
+        if (!circuitBreaker.allowsRedis()) {
+            return fallbackLimiter.consume(localKey, limit, policy.window(), cost);
+        }
+        long blockedNanos = blockedKeys.remainingNanos(localKey, cost);
+        if (blockedNanos > 0) {
+            return RateLimitResult.blocked(blockedNanos);
+        }
+
+        LimiterScript limiter = scripts.get(algorithm());
+        String redisKey = limiter.keyPrefix() + localKey;
+
+        List<Long> reply;
+        try {
+            reply = redisTemplate.execute(limiter.script(), List.of(redisKey), policy.limitArgument(),
+                    policy.windowArgument(), cost == 1 ? SINGLE_COST : String.valueOf(cost));
+        } catch (DataAccessException ex) {
+            log.warn("Unable to evaluate rate limit for key {}, using in-memory limit: {}", redisKey, ex.getMessage());
+            circuitBreaker.recordFailure(ex);
+            return fallbackLimiter.consume(localKey, limit, policy.window(), cost);
+        }
+        circuitBreaker.recordSuccess();
+        if (reply == null || reply.size() < 3) {
+            return RateLimitResult.allowed(limit);
         }
 
+        long nanosToReset = TimeUnit.MILLISECONDS.toNanos(reply.get(2));
+        if (reply.get(0) == 1L) {
+            return RateLimitResult.allowed(reply.get(1), nanosToReset);
+        }
+        blockedKeys.block(localKey, cost, nanosToReset);
         return RateLimitResult.blocked(nanosToReset);
     }
 
@@ -47,34 +130,55 @@ public class RateLimiterService {
         return Math.max(1, properties.getRequestsPerMinute());
     }
 
-    private Long increment(String key) {
-        try {
-            ValueOperations<String, String> ops = redisTemplate.opsForValue();
-            Long current = ops.increment(key);
-            if (current != null && current == 1L) {
-                redisTemplate.expire(key, WINDOW);
-            }
-            return current;
-        } catch (DataAccessException ex) {
-            log.warn("Unable to increment rate limit key {}: {}", key, ex.getMessage());
-            return null;
-        }
+    public Status status() {
+        boolean redis = circuitBreaker.allowsRedis();
+        return new Status(
+                redis ? "redis" : "in-memory",
+                properties.getMode() == Mode.HYBRID ? "hybrid" : "exact",
+                circuitBreaker.state().name().toLowerCase(),
+                circuitBreaker.consecutiveFailures(),
+                circuitBreaker.openedAt(),
+                fallbackLimiter.trackedKeys(),
+                blockedKeys.trackedKeys(),
+                hybridLimiter == null ? 0 : hybridLimiter.trackedKeys());
     }
 
-    private long remainingNanos(String key) {
-        try {
-            Long expireMillis = redisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
-            if (expireMillis == null || expireMillis < 0) {
-                return WINDOW.toNanos();
-            }
-            return TimeUnit.MILLISECONDS.toNanos(expireMillis);
-        } catch (DataAccessException ex) {
-            log.warn("Unable to fetch TTL for rate limit key {}: {}", key, ex.getMessage());
-            return WINDOW.toNanos();
+    @PreDestroy
+    void shutdown() {
+        if (hybridLimiter != null) {
+            hybridLimiter.close();
         }
+        circuitBreaker.close();
+    }
+
+    private Algorithm algorithm() {
+        Algorithm algorithm = properties.getAlgorithm();
+        return algorithm == null ? Algorithm.FIXED_WINDOW : algorithm;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static RedisScript<List<Long>> load(String name) {
+        DefaultRedisScript script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource("scripts/rate-limit/" + name));
+        script.setResultType(List.class);
+        return script;
+    }
+
+    /**
+     * Snapshot of where rate-limit decisions are currently made, exposed through the {@code ratelimiter} endpoint.
+     */
+    public record Status(
+            String backend,
+            String mode,
+            String circuit,
+            int consecutiveFailures,
+            Instant openedAt,
+            long fallbackKeys,
+            long blockedKeys,
+            long hybridKeys
+    ) {
     }
 
-    private String buildKey(String identifier) {
-        return KEY_PREFIX + identifier;
+    private record LimiterScript(RedisScript<List<Long>> script, String keyPrefix) {
     }
 }
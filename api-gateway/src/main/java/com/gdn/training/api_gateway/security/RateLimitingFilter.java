@@ -2,20 +2,23 @@ package com.gdn.training.api_gateway.security;
 
 import java.io.IOException;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 import jakarta.servlet.http.Cookie;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
-import org.springframework.util.PathMatcher;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.gdn.training.api_gateway.config.RateLimiterProperties;
+import com.gdn.training.api_gateway.metrics.StageLatency;
+
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -30,11 +33,24 @@ public class RateLimitingFilter extends OncePerRequestFilter {
 
     private static final String HEADER_LIMIT = "X-RateLimit-Limit";
     private static final String HEADER_REMAINING = "X-RateLimit-Remaining";
+    private static final String HEADER_RESET = "X-RateLimit-Reset";
+    private static final String HEADER_POLICY = "X-RateLimit-Policy";
     private static final String ANON_COOKIE_NAME = "ANON_CLIENT_ID";
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final String USER_KEY_TYPE = "user:";
+    private static final String ANONYMOUS_KEY_TYPE = "anon:";
+    private static final String ALREADY_FILTERED_ATTRIBUTE =
+            RateLimitingFilter.class.getName() + ALREADY_FILTERED_SUFFIX;
+    // Remaining tokens and reset seconds are almost always small, so their header values are shared.
+    private static final String[] HEADER_VALUES =
+            IntStream.rangeClosed(0, 1_024).mapToObj(String::valueOf).toArray(String[]::new);
 
     private final RateLimiterProperties properties;
     private final RateLimiterService rateLimiterService;
-    private final PathMatcher pathMatcher = new AntPathMatcher();
+    private final PathClassifier pathClassifier;
+    private final RateLimitPolicyResolver policyResolver;
+    private final AnonymousClientResolver anonymousClientResolver;
+    private final StageLatency stageLatency;
 
     @Override
     protected void doFilterInternal(
@@ -45,15 +61,23 @@ public class RateLimitingFilter extends OncePerRequestFilter {
 
         if (!properties.isEnabled()
                 || properties.getRequestsPerMinute() <= 0
-                || isIgnoredPath(request.getRequestURI())) {
+                || pathClassifier.classify(request).rateLimitExempt()) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        String key = resolveKey(request, response);
-
-        RateLimitResult result = rateLimiterService.consume(key);
-        addHeaders(response, result);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        boolean authenticated = isAuthenticatedUser(authentication);
+        String callerType = authenticated ? USER_KEY_TYPE : ANONYMOUS_KEY_TYPE;
+        String callerId = authenticated
+                ? (String) authentication.getPrincipal()
+                : resolveAnonymousId(request, response);
+        RateLimitPolicy policy = policyResolver.resolve(request,
+                authenticated ? resolveRole(authentication) : RateLimitPolicyResolver.ANONYMOUS);
+        int cost = policy.costOf(request.getQueryString());
+
+        RateLimitResult result = consume(request, callerType, callerId, policy, cost);
+        addHeaders(response, policy, result);
 
         if (!result.allowed()) {
             long retryAfterSeconds = TimeUnit.NANOSECONDS.toSeconds(Math.max(0, result.nanosToReset()));
@@ -64,60 +88,88 @@ public class RateLimitingFilter extends OncePerRequestFilter {
             response.setContentType(MediaType.APPLICATION_JSON_VALUE);
             response.getWriter().write("{\"message\":\"Rate limit exceeded\"}");
             response.getWriter().flush();
-            log.warn("Rate limit exceeded for key={} path={}", key, request.getRequestURI());
+            log.warn("Rate limit exceeded for key={}{} policy={} path={}",
+                    callerType, callerId, policy.name(), request.getRequestURI());
             return;
         }
 
         filterChain.doFilter(request, response);
     }
 
-    private void addHeaders(HttpServletResponse response, RateLimitResult result) {
-        response.setHeader(HEADER_LIMIT, String.valueOf(rateLimiterService.getConfiguredLimit()));
+    private RateLimitResult consume(HttpServletRequest request, String callerType, String callerId,
+                                    RateLimitPolicy policy, int cost) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            RateLimitResult result = rateLimiterService.consume(callerType, callerId, policy, cost);
+            outcome = result.allowed() ? "allowed" : "blocked";
+            return result;
+        } finally {
+            stageLatency.record(StageLatency.Stage.RATE_LIMIT, stageLatency.routeOf(request), outcome,
+                    System.nanoTime() - start);
+        }
+    }
+
+    private void addHeaders(HttpServletResponse response, RateLimitPolicy policy, RateLimitResult result) {
+        response.setHeader(HEADER_LIMIT, policy.limitArgument());
         long remaining = Math.max(0, result.remainingTokens());
-        response.setHeader(HEADER_REMAINING, String.valueOf(remaining));
+        response.setHeader(HEADER_REMAINING, headerValue(remaining));
+        long resetSeconds = (Math.max(0, result.nanosToReset()) + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND;
+        response.setHeader(HEADER_RESET, headerValue(resetSeconds));
+        response.setHeader(HEADER_POLICY, policy.policyHeader());
     }
 
-    private boolean isIgnoredPath(String path) {
-        if (properties.getIgnoredPaths() == null || properties.getIgnoredPaths().isEmpty()) {
-            return false;
-        }
-        return properties.getIgnoredPaths().stream()
-                .filter(StringUtils::hasText)
-                .anyMatch(pattern -> pathMatcher.match(pattern, path));
+    @Override
+    protected String getAlreadyFilteredAttributeName() {
+        return ALREADY_FILTERED_ATTRIBUTE;
     }
 
-    private String resolveKey(HttpServletRequest request, HttpServletResponse response) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    private static String headerValue(long value) {
+        return value >= 0 && value < HEADER_VALUES.length ? HEADER_VALUES[(int) value] : String.valueOf(value);
+    }
 
-        if (authentication != null && authentication.isAuthenticated()) {
-            Object principal = authentication.getPrincipal();
-            if (principal instanceof String stringPrincipal && StringUtils.hasText(stringPrincipal)) {
-                String key = "user:" + stringPrincipal;
-                log.debug("RateLimiter using authenticated key={}", key);
-                return key;
-            }
+    /**
+     * The caller's role as set by {@link JwtAuthenticationFilter}.
+     */
+    private String resolveRole(Authentication authentication) {
+        if (authentication instanceof JwtAuthentication jwt) {
+            return jwt.role() != null ? jwt.role() : RateLimitPolicyResolver.ANONYMOUS;
+        }
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            return authority.getAuthority();
         }
+        return RateLimitPolicyResolver.ANONYMOUS;
+    }
+
+    private boolean isAuthenticatedUser(Authentication authentication) {
+        return authentication != null
+                && !(authentication instanceof AnonymousAuthenticationToken)
+                && authentication.isAuthenticated()
+                && authentication.getPrincipal() instanceof String principal
+                && StringUtils.hasText(principal);
+    }
 
+    /**
+     * Anonymous callers are limited by network (see {@link AnonymousClientResolver}). The {@code ANON_CLIENT_ID}
+     * cookie is still handed out so browsers sharing an address are told apart on later requests, but a request
+     * without one is counted against its network's own budget rather than a fresh one.
+     */
+    private String resolveAnonymousId(HttpServletRequest request, HttpServletResponse response) {
         String clientId = getCookieValue(request, ANON_COOKIE_NAME);
 
         if (!StringUtils.hasText(clientId)) {
-            clientId = java.util.UUID.randomUUID().toString();
-
-            Cookie cookie = new Cookie(ANON_COOKIE_NAME, clientId);
+            Cookie cookie = new Cookie(ANON_COOKIE_NAME, java.util.UUID.randomUUID().toString());
             cookie.setPath("/");
             cookie.setHttpOnly(true);
             cookie.setSecure(true);
             cookie.setMaxAge(60 * 60 * 24 * 7);
 
             response.addCookie(cookie);
-            log.debug("RateLimiter generated new anonymous clientId={} and set cookie", clientId);
-        } else {
-            log.debug("RateLimiter found existing anonymous clientId={} from cookie", clientId);
         }
 
-        String key = "anon:" + clientId;
-        log.debug("RateLimiter using anonymous key={}", key);
-        return key;
+        String callerId = anonymousClientResolver.resolve(request, clientId);
+        log.debug("RateLimiter identified anonymous caller as {}", callerId);
+        return callerId;
     }
 
     private String getCookieValue(HttpServletRequest request, String name) {
@@ -0,0 +1,122 @@
+package com.gdn.training.api_gateway.security;
+
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.gdn.training.api_gateway.config.RateLimiterProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stops rate-limit traffic to Redis after repeated failures. While open, callers skip Redis entirely and a
+ * background probe pings it every {@code probeInterval}; the first successful {@code PING} closes the circuit.
+ */
+@Slf4j
+final class RedisCircuitBreaker implements AutoCloseable {
+
+    enum State {
+        CLOSED,
+        OPEN
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final int failureThreshold;
+    private final long probeIntervalMillis;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final ScheduledExecutorService scheduler;
+
+    private volatile State state = State.CLOSED;
+    private volatile Instant openedAt;
+    private ScheduledFuture<?> probe;
+
+    RedisCircuitBreaker(StringRedisTemplate redisTemplate, RateLimiterProperties.Fallback properties) {
+        this.redisTemplate = redisTemplate;
+        this.failureThreshold = Math.max(1, properties.getFailureThreshold());
+        this.probeIntervalMillis = Math.max(1, properties.getProbeInterval().toMillis());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("rate-limit-probe")
+                .daemon()
+                .factory());
+    }
+
+    boolean allowsRedis() {
+        return state == State.CLOSED;
+    }
+
+    void recordSuccess() {
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+    }
+
+    void recordFailure(DataAccessException ex) {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            open(ex);
+        }
+    }
+
+    State state() {
+        return state;
+    }
+
+    Instant openedAt() {
+        return openedAt;
+    }
+
+    int consecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    /**
+     * Pings Redis and closes the circuit if it answers.
+     */
+    void probe() {
+        try {
+            redisTemplate.execute((RedisCallback<String>) RedisConnection::ping);
+        } catch (DataAccessException ex) {
+            log.debug("Redis rate limit probe failed: {}", ex.getMessage());
+            return;
+        }
+        reset();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private synchronized void open(DataAccessException ex) {
+        if (state == State.OPEN) {
+            return;
+        }
+        state = State.OPEN;
+        openedAt = Instant.now();
+        log.warn("Redis rate limiting failed {} times in a row, switching to in-memory limits: {}",
+                failureThreshold, ex.getMessage());
+        probe = scheduler.scheduleWithFixedDelay(this::probe, probeIntervalMillis, probeIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void reset() {
+        if (state == State.CLOSED) {
+            return;
+        }
+        if (probe != null) {
+            probe.cancel(false);
+            probe = null;
+        }
+        consecutiveFailures.set(0);
+        openedAt = null;
+        state = State.CLOSED;
+        log.info("Redis reachable again, resuming Redis rate limiting");
+    }
+}
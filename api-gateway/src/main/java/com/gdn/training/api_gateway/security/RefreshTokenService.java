@@ -0,0 +1,244 @@
+package com.gdn.training.api_gateway.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import com.gdn.training.api_gateway.config.RefreshTokenProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rotating refresh tokens kept in Redis, so a client can renew its short-lived access token without logging in
+ * again through the member service.
+ * <p>
+ * A login starts a token family: one Redis hash holding the user's subject and claims and the SHA-256 of the only
+ * refresh token currently valid for it. A refresh token is {@code <familyId>.<secret>}; presenting it replaces the
+ * stored hash with a new token's in a single script call and returns the claims for the new access token. Presenting
+ * a token that was already rotated means it leaked, so the whole family is revoked and every holder has to log in
+ * again. The family's TTL is set once at login and never extended.
+ * <p>
+ * Outcomes are counted in {@code gateway.auth.refresh}, tagged {@code outcome=rotated|unknown|reused}.
+ */
+@Service
+@Slf4j
+public class RefreshTokenService {
+
+    static final String KEY_PREFIX = "auth:refresh:";
+
+    private static final String CLAIM_PREFIX = "claim:";
+    private static final char SEPARATOR = '.';
+    private static final int FAMILY_ID_BYTES = 16;
+    private static final int SECRET_BYTES = 32;
+    private static final int FAMILY_ID_LENGTH = 22;
+    private static final int SECRET_LENGTH = 43;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final StringRedisTemplate redisTemplate;
+    private final RefreshTokenProperties properties;
+    private final SecureRandom random = new SecureRandom();
+    private final RedisScript<Long> issueScript;
+    private final RedisScript<List<String>> rotateScript;
+    private final Counter rotated;
+    private final Counter unknown;
+    private final Counter reused;
+
+    public RefreshTokenService(
+            StringRedisTemplate redisTemplate,
+            RefreshTokenProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.issueScript = load("refresh-issue.lua", Long.class);
+        this.rotateScript = load("refresh-rotate.lua", List.class);
+        this.rotated = outcome(meterRegistry, "rotated");
+        this.unknown = outcome(meterRegistry, "unknown");
+        this.reused = outcome(meterRegistry, "reused");
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("gateway.auth.refresh")
+                .description("Refresh token presentations by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts a new token family for a login and returns its first refresh token.
+     */
+    public String issue(String subject, Map<String, ?> claims) {
+        String familyId = randomToken(FAMILY_ID_BYTES);
+        String secret = randomToken(SECRET_BYTES);
+
+        List<String> args = new ArrayList<>(3 + claims.size() * 2);
+        args.add(hash(secret));
+        args.add(String.valueOf(properties.getTtl().toMillis()));
+        args.add(subject);
+        claims.forEach((name, value) -> {
+            args.add(name);
+            args.add(String.valueOf(value));
+        });
+
+        try {
+            redisTemplate.execute(issueScript, List.of(buildKey(familyId)), args.toArray());
+        } catch (DataAccessException ex) {
+            throw new IllegalStateException("Unable to start a session right now", ex);
+        }
+        return familyId + SEPARATOR + secret;
+    }
+
+    /**
+     * Exchanges a refresh token for its replacement and the session it belongs to. Empty when the token is malformed,
+     * expired, revoked or already used.
+     */
+    public Optional<Session> rotate(String refreshToken) {
+        String[] parts = split(refreshToken);
+        if (parts == null) {
+            unknown.increment();
+            return Optional.empty();
+        }
+        String familyId = parts[0];
+        String secret = randomToken(SECRET_BYTES);
+
+        List<String> reply;
+        try {
+            reply = redisTemplate.execute(rotateScript, List.of(buildKey(familyId)), hash(parts[1]), hash(secret));
+        } catch (DataAccessException ex) {
+            throw new IllegalStateException("Unable to refresh the session right now", ex);
+        }
+
+        String outcome = reply == null || reply.isEmpty() ? "unknown" : reply.get(0);
+        switch (outcome) {
+            case "rotated" -> {
+                rotated.increment();
+                return Optional.of(toSession(reply, familyId + SEPARATOR + secret));
+            }
+            case "reused" -> {
+                reused.increment();
+                log.warn("Refresh token reuse detected, revoked token family {}", familyId);
+                return Optional.empty();
+            }
+            default -> {
+                unknown.increment();
+                return Optional.empty();
+            }
+        }
+    }
+
+    /**
+     * Ends the token family of a refresh token, for logout. Malformed tokens are ignored.
+     */
+    public void revoke(String refreshToken) {
+        String[] parts = split(refreshToken);
+        if (parts == null) {
+            return;
+        }
+        redisTemplate.delete(buildKey(parts[0]));
+    }
+
+    public Duration getTtl() {
+        return properties.getTtl();
+    }
+
+    public String getCookiePath() {
+        return properties.getCookiePath();
+    }
+
+    private static Session toSession(List<String> reply, String refreshToken) {
+        String subject = null;
+        Map<String, Object> claims = new LinkedHashMap<>();
+        for (int i = 1; i + 1 < reply.size(); i += 2) {
+            String field = reply.get(i);
+            if ("subject".equals(field)) {
+                subject = reply.get(i + 1);
+            } else if (field.startsWith(CLAIM_PREFIX)) {
+                claims.put(field.substring(CLAIM_PREFIX.length()), reply.get(i + 1));
+            }
+        }
+        return new Session(subject, claims, refreshToken);
+    }
+
+    private static String[] split(String refreshToken) {
+        if (!StringUtils.hasText(refreshToken)) {
+            return null;
+        }
+        int separator = refreshToken.indexOf(SEPARATOR);
+        if (separator != FAMILY_ID_LENGTH || refreshToken.length() != FAMILY_ID_LENGTH + 1 + SECRET_LENGTH) {
+            return null;
+        }
+        String familyId = refreshToken.substring(0, separator);
+        String secret = refreshToken.substring(separator + 1);
+        if (!isBase64Url(familyId) || !isBase64Url(secret)) {
+            return null;
+        }
+        return new String[] {familyId, secret};
+    }
+
+    private static boolean isBase64Url(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            boolean valid = (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_';
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String randomToken(int bytes) {
+        byte[] value = new byte[bytes];
+        random.nextBytes(value);
+        return ENCODER.encodeToString(value);
+    }
+
+    /**
+     * Only hashes are stored, so a Redis snapshot does not hand out usable refresh tokens. The secret is 256 random
+     * bits, so a plain SHA-256 is enough.
+     */
+    private static String hash(String secret) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.US_ASCII));
+            return ENCODER.encodeToString(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    private static String buildKey(String familyId) {
+        return KEY_PREFIX + familyId;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> RedisScript<T> load(String name, Class resultType) {
+        DefaultRedisScript script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource("scripts/auth/" + name));
+        script.setResultType(resultType);
+        return script;
+    }
+
+    /**
+     * The user a refresh token was issued to, and the token that replaces it.
+     */
+    public record Session(String subject, Map<String, Object> claims, String refreshToken) {
+    }
+}
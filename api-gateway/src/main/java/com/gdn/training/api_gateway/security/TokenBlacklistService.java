@@ -1,35 +1,309 @@
 package com.gdn.training.api_gateway.security;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Revoked-token registry backed by Redis with an in-process near-cache.
+ * <p>
+ * Tokens are normally revoked per user: {@link #revokeIssuedBefore} raises the user's revocation epoch, and every
+ * token of that user issued at or before the epoch is rejected. Epochs are in milliseconds, like the issue times of
+ * the tokens, so a login right after a logout is not caught by it. All epochs live in the single hash
+ * {@link #EPOCH_KEY}, one field per user, so revocations cost no new keys and a logout storm does not grow the
+ * keyspace. An epoch only matters while tokens issued before it can still be unexpired, so epochs older than the
+ * access token lifetime are dropped. Single tokens can still be revoked by jti with {@link #blacklist}.
+ * <p>
+ * Every revocation is written to Redis and broadcast on {@link #CHANNEL}; each gateway instance applies the
+ * broadcast to its local maps. While the subscription is live (and the local maps have been seeded from Redis),
+ * lookups are answered locally. Before that, or after the subscription drops, lookups go to Redis, and if Redis
+ * is unreachable the configured {@code security.jwt.blacklist.fail-open} policy decides the answer.
+ */
 @Service
-@RequiredArgsConstructor
-public class TokenBlacklistService {
+@Slf4j
+public class TokenBlacklistService implements MessageListener, SubscriptionListener {
 
-    private static final String KEY_PREFIX = "jwt:blacklist:";
+    static final String KEY_PREFIX = "jwt:blacklist:";
+    static final String CHANNEL = "jwt:blacklist:events";
+    static final String EPOCH_KEY = "jwt:revoked-before";
+
+    private static final String EPOCH_EVENT_PREFIX = "user:";
+
+    private static final String LEGACY_MARKER = "1";
+    private static final char MESSAGE_SEPARATOR = '|';
+    private static final int SNAPSHOT_BATCH_SIZE = 500;
 
     private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final boolean failOpen;
+    private final long tokenTtlSeconds;
+    private final RedisScript<Long> revokeBeforeScript;
+    private final Map<String, Long> revokedUntil = new ConcurrentHashMap<>();
+    private final Map<String, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    private volatile boolean synced;
+
+    public TokenBlacklistService(
+            StringRedisTemplate redisTemplate,
+            RedisMessageListenerContainer listenerContainer,
+            @Value("${security.jwt.blacklist.fail-open:true}") boolean failOpen,
+            @Value("${security.jwt.expiration-minutes}") long expirationMinutes
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.failOpen = failOpen;
+        this.tokenTtlSeconds = Duration.ofMinutes(expirationMinutes).toSeconds();
+        this.revokeBeforeScript = RedisScript.of(new ClassPathResource("scripts/auth/revoke-before.lua"), Long.class);
+    }
+
+    @PostConstruct
+    void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
 
     public void blacklist(String jwtId, Duration ttl) {
         if (!StringUtils.hasText(jwtId) || ttl == null || ttl.isZero() || ttl.isNegative()) {
             return;
         }
-        redisTemplate.opsForValue().set(buildKey(jwtId), "1", ttl);
+        long expiresAt = System.currentTimeMillis() + ttl.toMillis();
+        revokedUntil.merge(jwtId, expiresAt, Math::max);
+
+        redisTemplate.opsForValue().set(buildKey(jwtId), String.valueOf(expiresAt), ttl);
+        redisTemplate.convertAndSend(CHANNEL, jwtId + MESSAGE_SEPARATOR + expiresAt);
+    }
+
+    /**
+     * Revokes every token of {@code userId} issued at or before {@code revokedAt}, to the millisecond. Tokens
+     * carrying only {@code iat} count as issued at the start of their second.
+     */
+    public void revokeIssuedBefore(String userId, Instant revokedAt) {
+        if (!StringUtils.hasText(userId) || revokedAt == null) {
+            return;
+        }
+        long epoch = revokedAt.toEpochMilli();
+        revokedBefore.merge(userId, epoch, Math::max);
+
+        Long stored = redisTemplate.execute(revokeBeforeScript, List.of(EPOCH_KEY), userId, String.valueOf(epoch));
+        long latest = stored == null ? epoch : Math.max(stored, epoch);
+        redisTemplate.convertAndSend(CHANNEL, EPOCH_EVENT_PREFIX + userId + MESSAGE_SEPARATOR + latest);
+    }
+
+    /**
+     * Whether a verified token was revoked, either through its user's revocation epoch or by its jti.
+     */
+    public boolean isRevoked(VerifiedClaims claims) {
+        return isRevokedByEpoch(claims.subject(), claims.issuedAt()) || isBlacklisted(claims.jwtId());
     }
 
     public boolean isBlacklisted(String jwtId) {
-        return StringUtils.hasText(jwtId)
-                && Boolean.TRUE.equals(redisTemplate.hasKey(buildKey(jwtId)));
+        if (!StringUtils.hasText(jwtId)) {
+            return false;
+        }
+
+        Long expiresAt = revokedUntil.get(jwtId);
+        if (expiresAt != null) {
+            if (expiresAt > System.currentTimeMillis()) {
+                return true;
+            }
+            revokedUntil.remove(jwtId, expiresAt);
+        }
+
+        return !synced && isBlacklistedInRedis(jwtId);
+    }
+
+    boolean isSynced() {
+        return synced;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.lastIndexOf(MESSAGE_SEPARATOR);
+        if (separator <= 0) {
+            log.warn("Ignoring malformed blacklist event '{}'", body);
+            return;
+        }
+        try {
+            long value = Long.parseLong(body.substring(separator + 1));
+            if (body.startsWith(EPOCH_EVENT_PREFIX)) {
+                revokedBefore.merge(body.substring(EPOCH_EVENT_PREFIX.length(), separator), value, Math::max);
+            } else {
+                revokedUntil.merge(body.substring(0, separator), value, Math::max);
+            }
+        } catch (NumberFormatException ex) {
+            log.warn("Ignoring malformed blacklist event '{}'", body);
+        }
+        purgeExpired();
+    }
+
+    @Override
+    public void onChannelSubscribed(byte[] channel, long count) {
+        try {
+            loadSnapshot();
+            synced = true;
+            log.info("Token blacklist near-cache synced with {} revoked tokens and {} user revocation epochs",
+                    revokedUntil.size(), revokedBefore.size());
+        } catch (DataAccessException ex) {
+            log.warn("Unable to seed token blacklist near-cache, falling back to Redis lookups: {}", ex.getMessage());
+        }
+    }
+
+    @Override
+    public void onChannelUnsubscribed(byte[] channel, long count) {
+        synced = false;
+        log.warn("Token blacklist subscription lost, falling back to Redis lookups");
+    }
+
+    private boolean isRevokedByEpoch(String userId, Instant issuedAt) {
+        if (!StringUtils.hasText(userId)) {
+            return false;
+        }
+        long issuedAtMillis = issuedAt == null ? 0 : issuedAt.toEpochMilli();
+
+        Long epoch = revokedBefore.get(userId);
+        if (epoch != null && issuedAtMillis <= epoch) {
+            return true;
+        }
+        return !synced && isRevokedByEpochInRedis(userId, issuedAtMillis);
+    }
+
+    private boolean isRevokedByEpochInRedis(String userId, long issuedAtMillis) {
+        try {
+            Object epoch = redisTemplate.opsForHash().get(EPOCH_KEY, userId);
+            return epoch != null && issuedAtMillis <= Long.parseLong(epoch.toString());
+        } catch (DataAccessException ex) {
+            log.warn("Unable to check revocation epoch for userId={}, treating the token as {}: {}",
+                    userId, failOpen ? "valid" : "revoked", ex.getMessage());
+            return !failOpen;
+        } catch (NumberFormatException ex) {
+            log.warn("Ignoring malformed revocation epoch for userId={}", userId);
+            return false;
+        }
+    }
+
+    private boolean isBlacklistedInRedis(String jwtId) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(buildKey(jwtId)));
+        } catch (DataAccessException ex) {
+            log.warn("Unable to check blacklist for jwtId={}, treating it as {}: {}",
+                    jwtId, failOpen ? "valid" : "revoked", ex.getMessage());
+            return !failOpen;
+        }
+    }
+
+    private void loadSnapshot() {
+        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(SNAPSHOT_BATCH_SIZE).build();
+        List<String> batch = new ArrayList<>(SNAPSHOT_BATCH_SIZE);
+        try (Cursor<String> keys = redisTemplate.scan(options)) {
+            while (keys.hasNext()) {
+                batch.add(keys.next());
+                if (batch.size() == SNAPSHOT_BATCH_SIZE) {
+                    loadBatch(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            loadBatch(batch);
+        }
+        loadEpochs();
+        purgeExpired();
+    }
+
+    /**
+     * Seeds the local epochs from {@link #EPOCH_KEY}, removing the fields that can no longer revoke an unexpired
+     * token on the way.
+     */
+    private void loadEpochs() {
+        long oldestUseful = oldestUsefulEpoch();
+        ScanOptions options = ScanOptions.scanOptions().count(SNAPSHOT_BATCH_SIZE).build();
+        List<Object> stale = new ArrayList<>();
+        try (Cursor<Map.Entry<Object, Object>> entries = redisTemplate.opsForHash().scan(EPOCH_KEY, options)) {
+            while (entries.hasNext()) {
+                Map.Entry<Object, Object> entry = entries.next();
+                long epoch = parseEpoch(entry.getValue());
+                if (epoch < oldestUseful) {
+                    stale.add(entry.getKey());
+                } else {
+                    revokedBefore.merge(entry.getKey().toString(), epoch, Math::max);
+                }
+            }
+        }
+        for (int from = 0; from < stale.size(); from += SNAPSHOT_BATCH_SIZE) {
+            redisTemplate.opsForHash().delete(EPOCH_KEY,
+                    stale.subList(from, Math.min(stale.size(), from + SNAPSHOT_BATCH_SIZE)).toArray());
+        }
+    }
+
+    private static long parseEpoch(Object value) {
+        try {
+            return Long.parseLong(value.toString());
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * Epochs before this millisecond only cover tokens that have expired anyway.
+     */
+    private long oldestUsefulEpoch() {
+        return System.currentTimeMillis() - tokenTtlSeconds * 1000;
+    }
+
+    private void loadBatch(List<String> keys) {
+        List<String> values = redisTemplate.opsForValue().multiGet(keys);
+        for (int i = 0; i < keys.size(); i++) {
+            String value = values == null ? null : values.get(i);
+            if (value != null) {
+                revokedUntil.merge(keys.get(i).substring(KEY_PREFIX.length()), resolveExpiry(keys.get(i), value), Math::max);
+            }
+        }
+    }
+
+    private long resolveExpiry(String key, String value) {
+        if (!LEGACY_MARKER.equals(value)) {
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException ex) {
+                log.debug("Blacklist key {} holds no expiry, reading its TTL instead", key);
+            }
+        }
+        // Entries written before expiries were stored as values only carry a Redis TTL.
+        Long ttlMillis = redisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
+        return System.currentTimeMillis() + (ttlMillis == null || ttlMillis < 0 ? 0 : ttlMillis);
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        revokedUntil.values().removeIf(expiresAt -> expiresAt <= now);
+        long oldestUseful = oldestUsefulEpoch();
+        revokedBefore.values().removeIf(epoch -> epoch < oldestUseful);
     }
 
     private String buildKey(String jwtId) {
         return KEY_PREFIX + jwtId;
     }
 }
-
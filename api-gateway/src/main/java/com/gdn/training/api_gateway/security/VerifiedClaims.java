@@ -0,0 +1,30 @@
+package com.gdn.training.api_gateway.security;
+
+import java.time.Instant;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * The subset of JWT claims the gateway needs once a token's signature and expiry have been verified. The issue time
+ * comes from {@link JwtService#ISSUED_AT_MILLIS}, or from {@code iat} for tokens issued without it. A token with
+ * neither counts as issued at the epoch, so any revocation of its user covers it.
+ */
+public record VerifiedClaims(String subject, String role, String jwtId, Instant issuedAt, Instant expiresAt) {
+
+    public static VerifiedClaims from(Claims claims) {
+        return new VerifiedClaims(
+                claims.getSubject(),
+                claims.get("role", String.class),
+                claims.getId(),
+                issuedAt(claims),
+                claims.getExpiration().toInstant()
+        );
+    }
+
+    private static Instant issuedAt(Claims claims) {
+        if (claims.get(JwtService.ISSUED_AT_MILLIS) instanceof Number millis) {
+            return Instant.ofEpochMilli(millis.longValue());
+        }
+        return claims.getIssuedAt() == null ? Instant.EPOCH : claims.getIssuedAt().toInstant();
+    }
+}
@@ -0,0 +1,116 @@
+package com.gdn.training.api_gateway.security;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded cache of tokens whose signature has already been verified, keyed by the SHA-256 digest of the
+ * raw token so bearer credentials are never retained on the heap. Entries expire at the token's {@code exp}.
+ */
+@Component
+public class VerifiedClaimsCache {
+
+    static final String CACHE_NAME = "jwt.claims";
+
+    private final JwtService jwtService;
+    private final Cache<TokenDigest, VerifiedClaims> cache;
+
+    @Autowired
+    public VerifiedClaimsCache(
+            JwtService jwtService,
+            MeterRegistry meterRegistry,
+            @Value("${security.jwt.claims-cache.maximum-size:10000}") long maximumSize
+    ) {
+        this(jwtService, meterRegistry, maximumSize, Ticker.systemTicker(), Clock.systemUTC());
+    }
+
+    /**
+     * {@code clock} is read once, to place the ticker's readings on the wall-clock time line of {@code exp}; from
+     * then on the cache's own ticker decides when a token has expired.
+     */
+    VerifiedClaimsCache(JwtService jwtService, MeterRegistry meterRegistry, long maximumSize, Ticker ticker,
+            Clock clock) {
+        this.jwtService = jwtService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ExpireAtTokenExpiry(clock.instant(), ticker.read()))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the verified claims for {@code token}, parsing and verifying it only when it has not been seen
+     * before. Invalid or expired tokens propagate the {@link JwtService#parseToken} exception and are not cached.
+     */
+    public VerifiedClaims verify(String token) {
+        return cache.get(TokenDigest.of(token), digest -> VerifiedClaims.from(jwtService.parseToken(token)));
+    }
+
+    long estimatedSize() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    private record TokenDigest(long d0, long d1, long d2, long d3) {
+
+        static TokenDigest of(String token) {
+            ByteBuffer digest = ByteBuffer.wrap(sha256().digest(token.getBytes(StandardCharsets.US_ASCII)));
+            return new TokenDigest(digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong());
+        }
+
+        private static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException("SHA-256 is not available", ex);
+            }
+        }
+    }
+
+    private static final class ExpireAtTokenExpiry implements Expiry<TokenDigest, VerifiedClaims> {
+
+        private final Instant origin;
+        private final long originTicks;
+
+        ExpireAtTokenExpiry(Instant origin, long originTicks) {
+            this.origin = origin;
+            this.originTicks = originTicks;
+        }
+
+        @Override
+        public long expireAfterCreate(TokenDigest key, VerifiedClaims value, long currentTime) {
+            Instant now = origin.plusNanos(currentTime - originTicks);
+            Duration remaining = Duration.between(now, value.expiresAt());
+            return remaining.isNegative() ? 0 : remaining.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenDigest key, VerifiedClaims value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(TokenDigest key, VerifiedClaims value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+-- Starts a refresh token family.
+-- KEYS[1] family key
+-- ARGV[1] hash of the current token, ARGV[2] family lifetime in ms, ARGV[3] subject,
+-- ARGV[4..] claim name/value pairs
+-- Returns 1
+redis.call('DEL', KEYS[1])
+redis.call('HSET', KEYS[1], 'current', ARGV[1], 'subject', ARGV[3])
+for i = 4, #ARGV, 2 do
+    redis.call('HSET', KEYS[1], 'claim:' .. ARGV[i], ARGV[i + 1])
+end
+redis.call('PEXPIRE', KEYS[1], ARGV[2])
+return 1
@@ -0,0 +1,18 @@
+-- Rotates the current token of a refresh token family. The family keeps its TTL.
+-- KEYS[1] family key
+-- ARGV[1] hash of the presented token, ARGV[2] hash of its replacement
+-- Returns {'rotated', field, value, ...} with the family's subject and claims,
+-- {'unknown'} when the family expired or was revoked, or
+-- {'reused'} when an already rotated token was presented; the family is then revoked
+local current = redis.call('HGET', KEYS[1], 'current')
+if not current then
+    return {'unknown'}
+end
+if current ~= ARGV[1] then
+    redis.call('DEL', KEYS[1])
+    return {'reused'}
+end
+redis.call('HSET', KEYS[1], 'current', ARGV[2])
+local session = redis.call('HGETALL', KEYS[1])
+table.insert(session, 1, 'rotated')
+return session
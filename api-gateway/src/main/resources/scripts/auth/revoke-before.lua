@@ -0,0 +1,11 @@
+-- Raises a user's revocation epoch. The epoch never moves back, so concurrent revocations keep the latest.
+-- KEYS[1] epoch hash
+-- ARGV[1] user id, ARGV[2] epoch in milliseconds
+-- Returns the user's epoch after the update
+local current = tonumber(redis.call('HGET', KEYS[1], ARGV[1]) or '0')
+local epoch = tonumber(ARGV[2])
+if epoch > current then
+    redis.call('HSET', KEYS[1], ARGV[1], ARGV[2])
+    return epoch
+end
+return current
@@ -0,0 +1,19 @@
+-- Fixed-window counter.
+-- KEYS[1] counter key
+-- ARGV[1] limit, ARGV[2] window length in ms, ARGV[3] cost of this request
+-- Returns {allowed (1/0), remaining, ms until the window resets}
+local limit = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local cost = tonumber(ARGV[3])
+
+local current = redis.call('INCRBY', KEYS[1], cost)
+local ttl = redis.call('PTTL', KEYS[1])
+if ttl < 0 then
+    redis.call('PEXPIRE', KEYS[1], window)
+    ttl = window
+end
+
+if current > limit then
+    return {0, 0, ttl}
+end
+return {1, limit - current, ttl}
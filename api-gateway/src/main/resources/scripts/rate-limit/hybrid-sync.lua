@@ -0,0 +1,31 @@
+-- Batched sync for hybrid rate limiting: adds each instance-local delta to its fixed-window counter and
+-- returns the global totals, all in one round trip. Counters are compatible with fixed-window.lua.
+-- KEYS[i] counter key
+-- ARGV[2i - 1] window length in ms for KEYS[i], ARGV[2i] tokens admitted locally for KEYS[i] since the last sync
+-- (may be 0)
+-- Returns a flat list {count1, resetMillis1, count2, resetMillis2, ...}
+local reply = {}
+
+for i, key in ipairs(KEYS) do
+    local window = tonumber(ARGV[2 * i - 1])
+    local delta = tonumber(ARGV[2 * i])
+    local count
+    if delta > 0 then
+        count = redis.call('INCRBY', key, delta)
+    else
+        count = tonumber(redis.call('GET', key) or '0')
+    end
+
+    local ttl = redis.call('PTTL', key)
+    if ttl == -1 then
+        redis.call('PEXPIRE', key, window)
+        ttl = window
+    elseif ttl == -2 then
+        ttl = window
+    end
+
+    reply[#reply + 1] = count
+    reply[#reply + 1] = ttl
+end
+
+return reply
@@ -0,0 +1,32 @@
+-- Sliding-window log: one sorted-set member per admitted request, scored by its admission time.
+-- KEYS[1] log key
+-- ARGV[1] limit, ARGV[2] window length in ms, ARGV[3] cost of this request
+-- Returns {allowed (1/0), remaining, ms until the oldest admitted request leaves the window}
+local limit = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local cost = tonumber(ARGV[3])
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - window)
+local count = redis.call('ZCARD', KEYS[1])
+
+local function reset_after()
+    local oldest = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES')
+    if oldest[2] == nil then
+        return window
+    end
+    return tonumber(oldest[2]) + window - now
+end
+
+if count + cost > limit then
+    return {0, math.max(limit - count, 0), reset_after()}
+end
+
+-- Members only need to be unique: within one millisecond the count only grows, so now-count is never reused.
+for i = 1, cost do
+    redis.call('ZADD', KEYS[1], now, now .. '-' .. (count + i))
+end
+redis.call('PEXPIRE', KEYS[1], window)
+return {1, limit - count - cost, reset_after()}
@@ -0,0 +1,27 @@
+-- Token bucket expressed as GCRA (generic cell rate algorithm): only the theoretical arrival time (TAT) is stored.
+-- A bucket of `limit` tokens refills at limit/window, so a full bucket admits a burst of `limit` requests.
+-- KEYS[1] TAT key
+-- ARGV[1] limit, ARGV[2] window length in ms, ARGV[3] cost of this request
+-- Returns {allowed (1/0), remaining tokens, ms until the next token (blocked) or until the bucket is full (allowed)}
+local limit = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local cost = tonumber(ARGV[3])
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + tonumber(time[2]) / 1000
+
+local interval = window / limit
+local tat = tonumber(redis.call('GET', KEYS[1]))
+if tat == nil or tat < now then
+    tat = now
+end
+
+local new_tat = tat + interval * cost
+local allow_at = new_tat - window
+if allow_at > now then
+    local remaining = math.floor((window - (tat - now)) / interval)
+    return {0, math.max(remaining, 0), math.ceil(allow_at - now)}
+end
+
+redis.call('SET', KEYS[1], string.format('%.3f', new_tat), 'PX', math.ceil(new_tat - now))
+return {1, math.floor((window - (new_tat - now)) / interval), math.ceil(new_tat - now)}
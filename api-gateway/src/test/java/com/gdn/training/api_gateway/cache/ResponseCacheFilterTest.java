@@ -0,0 +1,353 @@
+package com.gdn.training.api_gateway.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.server.mvc.config.GatewayMvcProperties;
+import org.springframework.cloud.gateway.server.mvc.config.PredicateProperties;
+import org.springframework.cloud.gateway.server.mvc.config.RouteProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import com.gdn.training.api_gateway.config.ResponseCacheProperties;
+import com.gdn.training.api_gateway.security.AccessTokenResolver;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+class ResponseCacheFilterTest {
+
+    private static final String PRODUCT_JSON = "{\"id\":42,\"name\":\"Phone\",\"description\":\""
+            + "A phone. ".repeat(60) + "\"}";
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final List<HttpServletRequest> upstreamRequests = new ArrayList<>();
+    private SimpleMeterRegistry meterRegistry;
+    private ResponseCacheProperties properties;
+    private ResponseCache responseCache;
+    private ResponseCacheFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new ResponseCacheProperties();
+        properties.setEnabled(true);
+        properties.setRouteIds(List.of("product-service"));
+        properties.setDefaultTtl(Duration.ofSeconds(30));
+        rebuild();
+    }
+
+    private void rebuild() {
+        responseCache = new ResponseCache(properties, gateway(), new AccessTokenResolver(), meterRegistry,
+                nanos::get);
+        filter = new ResponseCacheFilter(responseCache);
+    }
+
+    @Test
+    void servesRepeatedGetsFromTheCacheUntilTheyExpire() throws Exception {
+        FilterChain upstream = upstream(response -> ok(response, PRODUCT_JSON));
+
+        MockHttpServletResponse miss = get("/products/42", upstream);
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        MockHttpServletResponse hit = get("/products/42", upstream);
+
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(miss.getHeader(ResponseCacheFilter.CACHE_STATUS_HEADER)).isEqualTo("MISS");
+        assertThat(hit.getHeader(ResponseCacheFilter.CACHE_STATUS_HEADER)).isEqualTo("HIT");
+        assertThat(hit.getHeader(HttpHeaders.AGE)).isEqualTo("5");
+        assertThat(hit.getContentType()).isEqualTo("application/json");
+        assertThat(hit.getContentAsString()).isEqualTo(PRODUCT_JSON);
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        get("/products/42", upstream);
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void keepsBodiesCompressedAndServesThemToClientsThatAcceptGzip() throws Exception {
+        FilterChain upstream = upstream(response -> ok(response, PRODUCT_JSON));
+        get("/products/42", upstream);
+
+        MockHttpServletRequest request = request("/products/42");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8");
+        MockHttpServletResponse gzipped = execute(request, upstream);
+
+        assertThat(gzipped.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gzipped.getHeaders(HttpHeaders.VARY)).contains(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(gzipped.getContentLength()).isLessThan(PRODUCT_JSON.length() / 4);
+        assertThat(gunzip(gzipped.getContentAsByteArray())).isEqualTo(PRODUCT_JSON);
+        assertThat(responseCache.status().sizeBytes()).isLessThan(PRODUCT_JSON.length());
+        assertThat(responseCache.status().bytesSaved()).isEqualTo(PRODUCT_JSON.length());
+    }
+
+    @Test
+    void honoursResponseDirectivesAndMaxAge() throws Exception {
+        get("/products/1", upstream(response -> {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+            ok(response, PRODUCT_JSON);
+        }));
+        get("/products/1", upstream(response -> ok(response, PRODUCT_JSON)));
+        assertThat(upstreamCalls).hasValue(2);
+
+        FilterChain privateResponse = upstream(response -> {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=60");
+            ok(response, PRODUCT_JSON);
+        });
+        get("/products/2", privateResponse);
+        get("/products/2", privateResponse);
+        assertThat(upstreamCalls).hasValue(4);
+
+        FilterChain shortLived = upstream(response -> {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=2");
+            ok(response, PRODUCT_JSON);
+        });
+        get("/products/3", shortLived);
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        get("/products/3", shortLived);
+        assertThat(upstreamCalls).hasValue(5);
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        get("/products/3", shortLived);
+        assertThat(upstreamCalls).hasValue(6);
+    }
+
+    @Test
+    void neverStoresAuthenticatedCookieSettingOrOversizedResponses() throws Exception {
+        FilterChain upstream = upstream(response -> ok(response, PRODUCT_JSON));
+        MockHttpServletRequest authenticated = request("/products/42");
+        authenticated.addHeader(HttpHeaders.AUTHORIZATION, "Bearer token");
+        execute(authenticated, upstream);
+        execute(request("/products/42"), upstream(response -> {
+            response.addCookie(new jakarta.servlet.http.Cookie("session", "abc"));
+            ok(response, PRODUCT_JSON);
+        }));
+        get("/cart/items", upstream);
+
+        properties.setMaxEntrySize(DataSize.ofBytes(100));
+        rebuild();
+        MockHttpServletResponse oversized = get("/products/7", upstream);
+        get("/products/7", upstream);
+
+        assertThat(upstreamCalls).hasValue(5);
+        assertThat(oversized.getContentAsString()).isEqualTo(PRODUCT_JSON);
+        assertThat(oversized.getContentType()).isEqualTo("application/json");
+        assertThat(responseCache.status().entries()).isZero();
+    }
+
+    @Test
+    void treatsRequestsWithAnAccessTokenCookieAsAuthenticated() throws Exception {
+        FilterChain upstream = upstream(response -> ok(response, PRODUCT_JSON));
+        get("/products/42", upstream);
+
+        MockHttpServletRequest authenticated = request("/products/42");
+        authenticated.setCookies(new jakarta.servlet.http.Cookie("ACCESS_TOKEN", "token"));
+        MockHttpServletResponse personal = execute(authenticated, upstream);
+        execute(authenticated, upstream);
+
+        assertThat(upstreamCalls).hasValue(3);
+        assertThat(personal.getHeader(ResponseCacheFilter.CACHE_STATUS_HEADER)).isNull();
+        assertThat(responseCache.status().entries()).isEqualTo(1);
+    }
+
+    @Test
+    void storesOneVariantPerVaryingRequestHeader() throws Exception {
+        FilterChain upstream = upstream(response -> {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_LANGUAGE);
+            ok(response, "{\"lang\":\"" + upstreamCalls.get() + "\"}");
+        });
+
+        MockHttpServletResponse english = execute(withLanguage("en"), upstream);
+        MockHttpServletResponse indonesian = execute(withLanguage("id"), upstream);
+        MockHttpServletResponse englishAgain = execute(withLanguage("en"), upstream);
+        MockHttpServletResponse indonesianAgain = execute(withLanguage("id"), upstream);
+
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(englishAgain.getContentAsString()).isEqualTo(english.getContentAsString());
+        assertThat(indonesianAgain.getContentAsString()).isEqualTo(indonesian.getContentAsString());
+        assertThat(english.getContentAsString()).isNotEqualTo(indonesian.getContentAsString());
+    }
+
+    @Test
+    void answersMatchingConditionalRequestsWithNotModified() throws Exception {
+        FilterChain upstream = upstream(response -> {
+            response.setHeader(HttpHeaders.ETAG, "\"v1\"");
+            ok(response, PRODUCT_JSON);
+        });
+        get("/products/42", upstream);
+
+        MockHttpServletRequest conditional = request("/products/42");
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, "\"v0\", W/\"v1\"");
+        MockHttpServletResponse notModified = execute(conditional, upstream);
+
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(notModified.getStatus()).isEqualTo(HttpServletResponse.SC_NOT_MODIFIED);
+        assertThat(notModified.getHeader(HttpHeaders.ETAG)).isEqualTo("\"v1\"");
+        assertThat(notModified.getContentLength()).isZero();
+    }
+
+    @Test
+    void revalidatesStaleEntriesWithTheirEtag() throws Exception {
+        FilterChain upstream = upstream(response -> {
+            HttpServletRequest request = upstreamRequests.getLast();
+            if ("\"v1\"".equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                response.setHeader(HttpHeaders.ETAG, "\"v1\"");
+                response.setHeader(HttpHeaders.CACHE_CONTROL, "max-age=60");
+                return;
+            }
+            response.setHeader(HttpHeaders.ETAG, "\"v1\"");
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "max-age=10");
+            ok(response, PRODUCT_JSON);
+        });
+        get("/products/42", upstream);
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(11));
+
+        MockHttpServletResponse revalidated = get("/products/42", upstream);
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        MockHttpServletResponse hit = get("/products/42", upstream);
+
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(revalidated.getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(revalidated.getHeader(ResponseCacheFilter.CACHE_STATUS_HEADER)).isEqualTo("REVALIDATED");
+        assertThat(revalidated.getContentAsString()).isEqualTo(PRODUCT_JSON);
+        assertThat(revalidated.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("max-age=60");
+        assertThat(hit.getHeader(ResponseCacheFilter.CACHE_STATUS_HEADER)).isEqualTo("HIT");
+        assertThat(meterRegistry.get("gateway.response.cache.requests").tag("result", "revalidated").counter()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void requestNoCacheGoesUpstreamAndRefreshesTheEntry() throws Exception {
+        FilterChain upstream = upstream(response -> ok(response, "{\"version\":" + upstreamCalls.get() + "}"));
+        get("/products/42", upstream);
+
+        MockHttpServletRequest refresh = request("/products/42");
+        refresh.addHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        execute(refresh, upstream);
+        MockHttpServletResponse hit = get("/products/42", upstream);
+
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(hit.getContentAsString()).isEqualTo("{\"version\":2}");
+    }
+
+    @Test
+    void coalescesConcurrentIdenticalMissesIntoOneUpstreamCall() throws Exception {
+        int callers = 8;
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slowUpstream = upstream(response -> {
+            await(release);
+            ok(response, PRODUCT_JSON);
+        });
+
+        List<Future<MockHttpServletResponse>> responses = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(callers)) {
+            for (int i = 0; i < callers; i++) {
+                responses.add(executor.submit(() -> get("/products/42?page=1", slowUpstream)));
+            }
+            while (upstreamCalls.get() == 0) {
+                Thread.onSpinWait();
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<MockHttpServletResponse> response : responses) {
+                assertThat(response.get(5, TimeUnit.SECONDS).getContentAsString()).isEqualTo(PRODUCT_JSON);
+            }
+        }
+
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(meterRegistry.get("gateway.response.cache.requests").tag("result", "coalesced").counter()
+                .count()).isEqualTo(callers - 1);
+        assertThat(responseCache.status().hitRatio()).isEqualTo((double) (callers - 1) / callers);
+    }
+
+    private MockHttpServletResponse get(String uri, FilterChain upstream) throws Exception {
+        return execute(request(uri), upstream);
+    }
+
+    private MockHttpServletResponse execute(MockHttpServletRequest request, FilterChain upstream) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, upstream);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String uri) {
+        int query = uri.indexOf('?');
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", query < 0 ? uri : uri.substring(0, query));
+        if (query >= 0) {
+            request.setQueryString(uri.substring(query + 1));
+        }
+        return request;
+    }
+
+    private static MockHttpServletRequest withLanguage(String language) {
+        MockHttpServletRequest request = request("/products/42");
+        request.addHeader(HttpHeaders.ACCEPT_LANGUAGE, language);
+        return request;
+    }
+
+    private FilterChain upstream(Consumer<HttpServletResponse> handler) {
+        return (request, response) -> {
+            synchronized (upstreamRequests) {
+                upstreamRequests.add((HttpServletRequest) request);
+                upstreamCalls.incrementAndGet();
+            }
+            handler.accept((HttpServletResponse) response);
+        };
+    }
+
+    private static void ok(HttpServletResponse response, String body) {
+        try {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType("application/json");
+            response.setContentLength(bytes.length);
+            response.getOutputStream().write(bytes);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static GatewayMvcProperties gateway() {
+        RouteProperties route = new RouteProperties();
+        route.setId("product-service");
+        route.setPredicates(List.of(new PredicateProperties("Path=/products/**")));
+        GatewayMvcProperties gateway = new GatewayMvcProperties();
+        gateway.setRoutes(List.of(route));
+        return gateway;
+    }
+}
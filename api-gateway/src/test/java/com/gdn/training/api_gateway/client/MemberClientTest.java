@@ -0,0 +1,270 @@
+package com.gdn.training.api_gateway.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.gateway.server.mvc.config.GatewayMvcProperties;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import com.gdn.training.api_gateway.config.ServiceClientConfig;
+import com.gdn.training.api_gateway.config.ServiceClientsProperties;
+import com.gdn.training.api_gateway.config.StageLatencyProperties;
+import com.gdn.training.api_gateway.dto.LoginRequest;
+import com.gdn.training.api_gateway.metrics.StageLatency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Runs {@link MemberClient} against a local stub of the member service that charges a fixed setup cost for every
+ * new TCP connection, standing in for the handshake and TLS cost of a real network hop.
+ */
+class MemberClientTest {
+
+    private static final long CONNECTION_SETUP_MILLIS = 100;
+    // Kept low so the comparison measures connection setup rather than CPU queueing on small CI runners.
+    private static final int BURST_CONCURRENCY = 4;
+    private static final String VALIDATE_PATH = "/members/internal/auth/validate-credentials";
+    private static final String USER_JSON =
+            "{\"success\":true,\"message\":\"Success\",\"data\":{\"id\":7,\"email\":\"user@example.com\","
+                    + "\"name\":\"User\",\"role\":\"ROLE_USER\"}}";
+
+    private StubMemberService memberService;
+    private SimpleMeterRegistry meterRegistry;
+    private StageLatency stageLatency;
+    private MemberClient memberClient;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws IOException {
+        memberService = new StubMemberService();
+        meterRegistry = new SimpleMeterRegistry();
+
+        ServiceClientConfig config = new ServiceClientConfig();
+        config.setBaseUrl("http://localhost:" + memberService.port());
+        config.getEndpoints().put("validate-credentials", VALIDATE_PATH);
+        config.getEndpoints().put("register", "/members/internal/auth/register");
+        config.setMaxConnectionsPerRoute(32);
+        ServiceClientsProperties properties = new ServiceClientsProperties();
+        properties.getClients().put("member", config);
+
+        ObjectProvider<GatewayMvcProperties> noGateway = mock(ObjectProvider.class);
+        stageLatency = new StageLatency(new StageLatencyProperties(), noGateway);
+        memberClient = new MemberClient(new RestTemplateBuilder(), properties, meterRegistry, stageLatency);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        memberClient.close();
+        memberService.close();
+    }
+
+    @Test
+    void reusesPooledConnectionsAndPublishesPoolMetrics() {
+        for (int i = 0; i < 20; i++) {
+            assertThat(memberClient.validateCredentials(login()).getEmail()).isEqualTo("user@example.com");
+        }
+
+        assertThat(memberService.connectionsOpened()).isEqualTo(1);
+        assertThat(meterRegistry.get("httpcomponents.httpclient.pool.lease").tag("httpclient", "member").timer()
+                .count()).isEqualTo(20);
+        assertThat(meterRegistry.get("httpcomponents.httpclient.pool.total.max").tag("httpclient", "member").gauge()
+                .value()).isEqualTo(32);
+        assertThat(meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+                .tags("httpclient", "member", "state", "available").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void mapsRejectedCredentialsToIllegalArgument() {
+        memberService.respondWith(401, "{\"success\":false,\"message\":\"Invalid\"}");
+
+        assertThatThrownBy(() -> memberClient.validateCredentials(login()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid credentials");
+        assertThat(stageLatency.snapshot().series())
+                .extracting(StageLatency.SeriesSnapshot::stage, StageLatency.SeriesSnapshot::route,
+                        StageLatency.SeriesSnapshot::outcome, StageLatency.SeriesSnapshot::count)
+                .containsExactly(tuple("member_client", "validate-credentials", "rejected", 1L));
+    }
+
+    /**
+     * A login burst with a connection per call pays the setup cost on every request; the pool pays it once per
+     * connection and then only on the burst's first wave, which the warm-up absorbs.
+     */
+    @Test
+    void pooledTransportLowersLoginTailLatencyUnderABurst() throws Exception {
+        RestTemplate connectionPerCall = new RestTemplateBuilder()
+                .rootUri("http://localhost:" + memberService.port())
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(HttpClients.custom()
+                        .setConnectionReuseStrategy((request, response, context) -> false)
+                        .build()))
+                .build();
+
+        burst(BURST_CONCURRENCY, 400, () -> memberClient.validateCredentials(login()));
+        long pooledP99 = p99(burst(BURST_CONCURRENCY, 100, () -> memberClient.validateCredentials(login())));
+        long connectionPerCallP99 = p99(burst(BURST_CONCURRENCY, 100,
+                () -> connectionPerCall.postForObject(VALIDATE_PATH, login(), String.class)));
+
+        assertThat(connectionPerCallP99).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(CONNECTION_SETUP_MILLIS));
+        assertThat(pooledP99).isLessThan(connectionPerCallP99);
+    }
+
+    private static List<Long> burst(int concurrency, int requests, Callable<?> call) throws Exception {
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        try (ExecutorService executor = Executors.newFixedThreadPool(concurrency)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                futures.add(executor.submit(() -> {
+                    long start = System.nanoTime();
+                    call.call();
+                    latencies.add(System.nanoTime() - start);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }
+        return latencies;
+    }
+
+    private static long p99(List<Long> latencies) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1);
+    }
+
+    private static LoginRequest login() {
+        LoginRequest request = new LoginRequest();
+        request.setEmail("user@example.com");
+        request.setPassword("Secret123!");
+        return request;
+    }
+
+    /**
+     * Minimal HTTP/1.1 server with keep-alive: every accepted connection first sleeps for the setup cost, then
+     * answers any number of requests with the configured response.
+     */
+    private static final class StubMemberService implements AutoCloseable {
+
+        private final ServerSocket serverSocket = new ServerSocket(0);
+        private final AtomicInteger connectionsOpened = new AtomicInteger();
+        private final Thread acceptor;
+        private volatile int status = 200;
+        private volatile String body = USER_JSON;
+
+        private StubMemberService() throws IOException {
+            acceptor = Thread.ofPlatform().daemon().start(this::acceptLoop);
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        int connectionsOpened() {
+            return connectionsOpened.get();
+        }
+
+        void respondWith(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            acceptor.interrupt();
+        }
+
+        private void acceptLoop() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connectionsOpened.incrementAndGet();
+                    Thread.ofPlatform().daemon().start(() -> serve(socket));
+                } catch (IOException ex) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            try (socket;
+                 InputStream in = new BufferedInputStream(socket.getInputStream());
+                 OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+                Thread.sleep(CONNECTION_SETUP_MILLIS);
+                while (true) {
+                    int contentLength = readHeaders(in);
+                    if (contentLength < 0) {
+                        return;
+                    }
+                    in.readNBytes(contentLength);
+                    byte[] payload = body.getBytes(StandardCharsets.UTF_8);
+                    out.write(("HTTP/1.1 " + status + " Stub\r\nContent-Type: application/json\r\nContent-Length: "
+                            + payload.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                    out.write(payload);
+                    out.flush();
+                }
+            } catch (IOException | InterruptedException ex) {
+                // The client closed the connection.
+            }
+        }
+
+        /**
+         * Reads one request head and returns its {@code Content-Length}, or -1 at end of stream.
+         */
+        private static int readHeaders(InputStream in) throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int contentLength = 0;
+            boolean sawRequestLine = false;
+            int next;
+            while ((next = in.read()) >= 0) {
+                if (next == '\r') {
+                    continue;
+                }
+                if (next != '\n') {
+                    line.write(next);
+                    continue;
+                }
+                String header = line.toString(StandardCharsets.US_ASCII);
+                line.reset();
+                if (header.isEmpty()) {
+                    return contentLength;
+                }
+                if (sawRequestLine && header.toLowerCase(Locale.ROOT).startsWith("content-length:")) {
+                    contentLength = Integer.parseInt(header.substring("content-length:".length()).trim());
+                }
+                sawRequestLine = true;
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.gdn.training.api_gateway.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.gdn.training.api_gateway.metrics.StageLatency;
+import com.gdn.training.api_gateway.security.JwtService;
+import com.sun.net.httpserver.HttpServer;
+
+import redis.embedded.RedisServer;
+
+/**
+ * Runs requests through the whole gateway security filter chain, against a stub upstream service.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(metrics = false)
+@ActiveProfiles("test")
+class SecurityConfigIntegrationTest {
+
+    private static final HttpServer downstream = startDownstream();
+    private static final RedisServer redisServer = startRedis();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private StageLatency stageLatency;
+
+    @DynamicPropertySource
+    static void routes(DynamicPropertyRegistry registry) {
+        registry.add("gateway.routes.cart.uri", () -> "http://localhost:" + downstream.getAddress().getPort());
+        registry.add("spring.data.redis.port", () -> redisServer.ports().getFirst());
+    }
+
+    @AfterAll
+    static void stopServers() throws IOException {
+        downstream.stop(0);
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        stageLatency.reset();
+    }
+
+    @Test
+    void unauthenticatedRequestsNeverReachRouteIsolation() throws Exception {
+        mockMvc.perform(get("/cart/items")).andExpect(status().isUnauthorized());
+
+        assertThat(proxiedCartCalls()).isZero();
+
+        mockMvc.perform(get("/cart/items").header(HttpHeaders.AUTHORIZATION, bearer("ROLE_USER")))
+                .andExpect(status().isOk());
+
+        assertThat(proxiedCartCalls()).isEqualTo(1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ratelimiter", "responsecache", "routeisolation", "latency", "traces"})
+    void gatewayActuatorEndpointsRequireAnAdmin(String endpoint) throws Exception {
+        mockMvc.perform(get("/actuator/" + endpoint)).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/" + endpoint).header(HttpHeaders.AUTHORIZATION, bearer("ROLE_USER")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/" + endpoint).header(HttpHeaders.AUTHORIZATION, bearer("ROLE_ADMIN")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void onlyAnAdminCanResetTheLatencyHistograms() throws Exception {
+        mockMvc.perform(delete("/actuator/latency")).andExpect(status().isUnauthorized());
+        mockMvc.perform(delete("/actuator/latency").header(HttpHeaders.AUTHORIZATION, bearer("ROLE_USER")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/actuator/latency").header(HttpHeaders.AUTHORIZATION, bearer("ROLE_ADMIN")))
+                .andExpect(status().is2xxSuccessful());
+    }
+
+    @Test
+    void healthStaysPublicAndServiceActuatorsAreNotProxied() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/products/actuator/traces")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/cart/actuator/traces").header(HttpHeaders.AUTHORIZATION, bearer("ROLE_ADMIN")))
+                .andExpect(status().isForbidden());
+    }
+
+    private String bearer(String role) {
+        return "Bearer " + jwtService.generateToken("42", Map.of("role", role));
+    }
+
+    private long proxiedCartCalls() {
+        return stageLatency.snapshot().series().stream()
+                .filter(series -> series.stage().equals(StageLatency.Stage.PROXY.tag()))
+                .filter(series -> series.route().equals("cart-service"))
+                .mapToLong(StageLatency.SeriesSnapshot::count)
+                .sum();
+    }
+
+    private static HttpServer startDownstream() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/", exchange -> {
+                byte[] body = "{\"success\":true}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static RedisServer startRedis() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            RedisServer server = new RedisServer(socket.getLocalPort());
+            socket.close();
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -21,6 +21,7 @@ import java.util.UUID;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
@@ -87,7 +88,7 @@ class AuthControllerIntegrationTest {
     }
 
     @Test
-    void logoutEndpointBlacklistsToken() throws Exception {
+    void logoutEndpointRevokesUsersTokens() throws Exception {
         when(memberClient.validateCredentials(any(LoginRequest.class))).thenReturn(UserInfoDTO.builder()
                 .id(123456789L)
                 .email("user@example.com")
@@ -109,7 +110,7 @@ class AuthControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(header().string("Set-Cookie", containsString("ACCESS_TOKEN=")));
 
-        verify(tokenBlacklistService).blacklist(any(), any());
+        verify(tokenBlacklistService).revokeIssuedBefore(eq("123456789"), any());
     }
 }
 
@@ -1,13 +1,19 @@
 package com.gdn.training.api_gateway.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gdn.training.api_gateway.cache.ResponseCacheFilter;
 import com.gdn.training.api_gateway.client.MemberClient;
 import com.gdn.training.api_gateway.dto.LoginRequest;
+import com.gdn.training.api_gateway.dto.RefreshRequest;
 import com.gdn.training.api_gateway.dto.RegisterRequest;
 import com.gdn.training.api_gateway.dto.UserInfoDTO;
+import com.gdn.training.api_gateway.resilience.RouteIsolationFilter;
 import com.gdn.training.api_gateway.security.AccessTokenResolver;
 import com.gdn.training.api_gateway.security.JwtService;
+import com.gdn.training.api_gateway.security.RateLimitingFilter;
+import com.gdn.training.api_gateway.security.RefreshTokenService;
 import com.gdn.training.api_gateway.security.TokenBlacklistService;
+import jakarta.servlet.http.Cookie;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,11 +23,18 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -48,13 +61,27 @@ class AuthControllerTest {
     @MockitoBean
     private TokenBlacklistService tokenBlacklistService;
 
+    @MockitoBean
+    private RefreshTokenService refreshTokenService;
+
     @MockitoBean
     private com.gdn.training.api_gateway.security.JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @MockitoBean
+    private RateLimitingFilter rateLimitingFilter;
+
+    @MockitoBean
+    private ResponseCacheFilter responseCacheFilter;
+
+    @MockitoBean
+    private RouteIsolationFilter routeIsolationFilter;
+
     @BeforeEach
     void setUp() {
-        when(jwtService.getExpirationSeconds()).thenReturn(3600L);
+        when(jwtService.getExpirationSeconds()).thenReturn(900L);
         when(jwtService.generateToken(any(), any())).thenReturn("signed-token");
+        when(refreshTokenService.getTtl()).thenReturn(Duration.ofDays(7));
+        when(refreshTokenService.getCookiePath()).thenReturn("/auth");
     }
 
     @Test
@@ -96,6 +123,86 @@ class AuthControllerTest {
         verify(jwtService).generateToken(any(), any());
     }
 
+    @Test
+    void loginIssuesRefreshTokenCookieScopedToAuth() throws Exception {
+        when(memberClient.validateCredentials(any(LoginRequest.class))).thenReturn(UserInfoDTO.builder()
+                .id(123456789L)
+                .email("user@example.com")
+                .name("User")
+                .role("ROLE_USER")
+                .build());
+        when(refreshTokenService.issue(eq("123456789"), any())).thenReturn("refresh-1");
+
+        mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(new LoginRequest("user@example.com", "Secret123!"))))
+                .andExpect(status().isOk())
+                .andExpect(cookie().value("REFRESH_TOKEN", "refresh-1"))
+                .andExpect(cookie().path("REFRESH_TOKEN", "/auth"))
+                .andExpect(cookie().httpOnly("REFRESH_TOKEN", true))
+                .andExpect(cookie().maxAge("REFRESH_TOKEN", (int) Duration.ofDays(7).toSeconds()))
+                .andExpect(jsonPath("$.refreshToken").value("refresh-1"));
+    }
+
+    @Test
+    void loginSucceedsWithoutRefreshTokenWhenRedisIsDown() throws Exception {
+        when(memberClient.validateCredentials(any(LoginRequest.class))).thenReturn(UserInfoDTO.builder()
+                .id(123456789L)
+                .email("user@example.com")
+                .name("User")
+                .role("ROLE_USER")
+                .build());
+        when(refreshTokenService.issue(any(), any())).thenThrow(new IllegalStateException("Redis is down"));
+
+        mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(new LoginRequest("user@example.com", "Secret123!"))))
+                .andExpect(status().isOk())
+                .andExpect(cookie().value("ACCESS_TOKEN", "signed-token"))
+                .andExpect(cookie().doesNotExist("REFRESH_TOKEN"));
+    }
+
+    @Test
+    void refreshRotatesTheCookieWithoutCallingTheMemberService() throws Exception {
+        when(refreshTokenService.rotate("refresh-1")).thenReturn(Optional.of(new RefreshTokenService.Session(
+                "123456789", Map.of("email", "user@example.com", "role", "ROLE_USER"), "refresh-2")));
+
+        mockMvc.perform(post("/auth/refresh").cookie(new Cookie("REFRESH_TOKEN", "refresh-1")))
+                .andExpect(status().isOk())
+                .andExpect(cookie().value("ACCESS_TOKEN", "signed-token"))
+                .andExpect(cookie().value("REFRESH_TOKEN", "refresh-2"))
+                .andExpect(jsonPath("$.token").value("signed-token"))
+                .andExpect(jsonPath("$.refreshToken").value("refresh-2"));
+
+        verify(jwtService).generateToken(eq("123456789"), eq(Map.of("email", "user@example.com", "role", "ROLE_USER")));
+        verifyNoInteractions(memberClient);
+    }
+
+    @Test
+    void refreshAcceptsTokenFromRequestBody() throws Exception {
+        when(refreshTokenService.rotate("refresh-1")).thenReturn(Optional.of(new RefreshTokenService.Session(
+                "123456789", Map.of("role", "ROLE_USER"), "refresh-2")));
+        RefreshRequest request = new RefreshRequest();
+        request.setRefreshToken("refresh-1");
+
+        mockMvc.perform(post("/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.refreshToken").value("refresh-2"));
+    }
+
+    @Test
+    void refreshRejectsUnknownOrReusedTokenAndClearsCookie() throws Exception {
+        when(refreshTokenService.rotate(anyString())).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/auth/refresh").cookie(new Cookie("REFRESH_TOKEN", "refresh-1")))
+                .andExpect(status().isUnauthorized())
+                .andExpect(cookie().maxAge("REFRESH_TOKEN", 0));
+
+        verify(jwtService, never()).generateToken(any(), any());
+    }
+
     @Test
     void logoutBlacklistsTokenWhenPresent() throws Exception {
         when(accessTokenResolver.resolve(any())).thenReturn("token");
@@ -106,5 +213,15 @@ class AuthControllerTest {
 
         verify(accessTokenResolver).resolve(any());
     }
+
+    @Test
+    void logoutRevokesRefreshTokenFamily() throws Exception {
+        mockMvc.perform(post("/auth/logout").cookie(new Cookie("REFRESH_TOKEN", "refresh-1")))
+                .andExpect(status().isOk())
+                .andExpect(cookie().maxAge("ACCESS_TOKEN", 0))
+                .andExpect(cookie().maxAge("REFRESH_TOKEN", 0));
+
+        verify(refreshTokenService).revoke("refresh-1");
+    }
 }
 
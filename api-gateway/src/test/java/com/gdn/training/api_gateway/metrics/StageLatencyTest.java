@@ -0,0 +1,132 @@
+package com.gdn.training.api_gateway.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.server.mvc.config.GatewayMvcProperties;
+import org.springframework.cloud.gateway.server.mvc.config.PredicateProperties;
+import org.springframework.cloud.gateway.server.mvc.config.RouteProperties;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.gdn.training.api_gateway.config.StageLatencyProperties;
+import com.gdn.training.api_gateway.metrics.StageLatency.Stage;
+
+class StageLatencyTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private StageLatencyProperties properties;
+    private StageLatency stageLatency;
+
+    @BeforeEach
+    void setUp() {
+        properties = new StageLatencyProperties();
+        properties.setWindow(Duration.ofMinutes(1));
+        stageLatency = new StageLatency(properties, gateway(), nanos::get);
+    }
+
+    @Test
+    void resolvesTheRouteOncePerRequest() {
+        MockHttpServletRequest cart = new MockHttpServletRequest("GET", "/cart/items");
+
+        assertThat(stageLatency.routeOf(cart)).isEqualTo("cart-service");
+        cart.setRequestURI("/products/1");
+        assertThat(stageLatency.routeOf(cart)).isEqualTo("cart-service");
+        assertThat(stageLatency.routeOf(new MockHttpServletRequest("POST", "/auth/login")))
+                .isEqualTo(StageLatency.NO_ROUTE);
+    }
+
+    @Test
+    void reportsPercentilesPerStageRouteAndOutcome() {
+        for (int micros = 1; micros <= 1_000; micros++) {
+            stageLatency.record(Stage.PROXY, "cart-service", "2xx", TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+        stageLatency.record(Stage.PROXY, "cart-service", "5xx", TimeUnit.MILLISECONDS.toNanos(30));
+        stageLatency.record(Stage.JWT, "cart-service", "valid", 800);
+
+        List<StageLatency.SeriesSnapshot> series = stageLatency.snapshot().series();
+
+        assertThat(series).extracting(StageLatency.SeriesSnapshot::stage, StageLatency.SeriesSnapshot::outcome)
+                .containsExactly(
+                        tuple("jwt", "valid"),
+                        tuple("proxy", "2xx"),
+                        tuple("proxy", "5xx"));
+        StageLatency.SeriesSnapshot proxy = series.get(1);
+        assertThat(proxy.count()).isEqualTo(1_000);
+        assertThat(proxy.p50Micros()).isCloseTo(500, within(5.0));
+        assertThat(proxy.p99Micros()).isCloseTo(990, within(10.0));
+        assertThat(proxy.p999Micros()).isCloseTo(999, within(10.0));
+        assertThat(series.get(0).maxMicros()).isCloseTo(0.8, within(0.01));
+        assertThat(series.get(2).p50Micros()).isCloseTo(30_000, within(300.0));
+    }
+
+    @Test
+    void snapshotsCoverTheLastClosedWindowAndTheCurrentOne() {
+        stageLatency.record(Stage.RATE_LIMIT, "cart-service", "allowed", 1_000);
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        assertThat(stageLatency.snapshot().series()).singleElement()
+                .extracting(StageLatency.SeriesSnapshot::count).isEqualTo(1L);
+
+        stageLatency.record(Stage.RATE_LIMIT, "cart-service", "allowed", 1_000);
+        stageLatency.record(Stage.RATE_LIMIT, "cart-service", "blocked", 1_000);
+        assertThat(stageLatency.snapshot().series())
+                .extracting(StageLatency.SeriesSnapshot::outcome, StageLatency.SeriesSnapshot::count)
+                .containsExactly(
+                        tuple("allowed", 2L),
+                        tuple("blocked", 1L));
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        assertThat(stageLatency.snapshot().series())
+                .extracting(StageLatency.SeriesSnapshot::outcome, StageLatency.SeriesSnapshot::count)
+                .containsExactly(
+                        tuple("allowed", 1L),
+                        tuple("blocked", 1L));
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        assertThat(stageLatency.snapshot().series()).isEmpty();
+    }
+
+    @Test
+    void resetStartsAFreshWindow() {
+        stageLatency.record(Stage.BLACKLIST, "cart-service", "valid", 1_000);
+        stageLatency.snapshot();
+        stageLatency.record(Stage.BLACKLIST, "cart-service", "valid", 1_000);
+
+        stageLatency.reset();
+
+        assertThat(stageLatency.snapshot().series()).isEmpty();
+    }
+
+    @Test
+    void recordsNothingWhenDisabled() {
+        properties.setEnabled(false);
+        StageLatency disabled = new StageLatency(properties, gateway(), nanos::get);
+
+        disabled.record(Stage.MEMBER_CLIENT, "register", "success", 1_000);
+
+        assertThat(disabled.snapshot().series()).isEmpty();
+    }
+
+    static GatewayMvcProperties gateway() {
+        GatewayMvcProperties gateway = new GatewayMvcProperties();
+        gateway.setRoutes(List.of(
+                route("member-service", "/members/**"),
+                route("product-service", "/products/**"),
+                route("cart-service", "/cart/**")));
+        return gateway;
+    }
+
+    private static RouteProperties route(String id, String path) {
+        RouteProperties route = new RouteProperties();
+        route.setId(id);
+        route.setPredicates(List.of(new PredicateProperties("Path=" + path)));
+        return route;
+    }
+}
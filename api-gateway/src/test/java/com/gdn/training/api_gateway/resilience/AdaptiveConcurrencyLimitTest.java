@@ -0,0 +1,176 @@
+package com.gdn.training.api_gateway.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.gdn.training.api_gateway.config.RouteIsolationProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int DOWNSTREAM_CAPACITY = 4;
+    private static final int CLIENTS = 24;
+    private static final long PHASE_MILLIS = 2000;
+
+    @Test
+    void growsWhileLatencyStaysFlatAndTheLimitIsUsed() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(adaptive(10), 100);
+
+        for (int i = 0; i < 20; i++) {
+            saturatedWindow(limit, 10 * MILLIS);
+        }
+
+        assertThat(limit.limit()).isGreaterThan(30);
+    }
+
+    @Test
+    void doesNotGrowWhileMostOfTheLimitIsUnused() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(adaptive(10), 100);
+
+        for (int i = 0; i < 50; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+            limit.onComplete(10 * MILLIS, false);
+        }
+
+        assertThat(limit.limit()).isEqualTo(10);
+    }
+
+    @Test
+    void shrinksOnceLatencyRisesAboveTheTolerance() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(adaptive(40), 100);
+        saturatedWindow(limit, 10 * MILLIS);
+        int before = limit.limit();
+
+        for (int i = 0; i < 10; i++) {
+            saturatedWindow(limit, 40 * MILLIS);
+        }
+
+        assertThat(limit.limit()).isLessThan(before / 2).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void backsOffWhenAWindowContainsAFailure() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(adaptive(50), 100);
+
+        for (int i = 0; i < AdaptiveConcurrencyLimit.SAMPLES_PER_UPDATE; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+            limit.onComplete(10 * MILLIS, i == 0);
+        }
+
+        assertThat(limit.limit()).isEqualTo((int) (50 * AdaptiveConcurrencyLimit.BACKOFF_RATIO));
+    }
+
+    @Test
+    void rejectsBeyondTheLimitAndCancelledCallsFreeTheirSlot() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(adaptive(2), 100);
+
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isFalse();
+        limit.cancel();
+
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.inFlight()).isEqualTo(2);
+    }
+
+    /**
+     * A downstream that serves four requests at a time and queues the rest, hammered by closed-loop clients, slows
+     * from 10ms to 30ms per request. Without a limit every queued request waits behind the others; with one, the
+     * excess is shed and the requests that are let through stay close to the service time.
+     */
+    @Test
+    void keepsP99StableWhileTheDownstreamSlowsDown() throws Exception {
+        Scenario unlimited = runScenario(false);
+        Scenario limited = runScenario(true);
+
+        assertThat(unlimited.shed()).isZero();
+        assertThat(limited.shed()).isPositive();
+        assertThat(limited.p99Millis()).isLessThan(unlimited.p99Millis() * 3 / 4);
+    }
+
+    private record Scenario(long p99Millis, long shed) {
+    }
+
+    private static Scenario runScenario(boolean adaptive) throws Exception {
+        RouteIsolationProperties.Route settings = new RouteIsolationProperties.Route();
+        settings.setMaxConcurrentCalls(100);
+        settings.setSlowCallDuration(Duration.ofSeconds(10));
+        settings.getAdaptive().setEnabled(adaptive);
+        settings.getAdaptive().setInitialLimit(DOWNSTREAM_CAPACITY);
+        RouteGuard guard = new RouteGuard("cart-service", List.of(PathPatternParser.defaultInstance.parse("/cart/**")),
+                settings, new SimpleMeterRegistry(), System::nanoTime);
+
+        Semaphore downstream = new Semaphore(DOWNSTREAM_CAPACITY, true);
+        AtomicLong serviceMillis = new AtomicLong(10);
+        ConcurrentLinkedQueue<Long> slowPhaseLatencies = new ConcurrentLinkedQueue<>();
+        long slowdownAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PHASE_MILLIS);
+        long endAt = slowdownAt + TimeUnit.MILLISECONDS.toNanos(PHASE_MILLIS);
+
+        try (ExecutorService clients = Executors.newFixedThreadPool(CLIENTS)) {
+            for (int i = 0; i < CLIENTS; i++) {
+                clients.submit(() -> {
+                    while (System.nanoTime() < endAt) {
+                        if (guard.tryEnter() != null) {
+                            Thread.sleep(5);
+                            continue;
+                        }
+                        long start = System.nanoTime();
+                        downstream.acquire();
+                        try {
+                            Thread.sleep(serviceMillis.get());
+                        } finally {
+                            downstream.release();
+                        }
+                        long duration = System.nanoTime() - start;
+                        guard.complete(duration, false);
+                        if (start >= slowdownAt) {
+                            slowPhaseLatencies.add(duration);
+                        }
+                    }
+                    return null;
+                });
+            }
+            Thread.sleep(PHASE_MILLIS);
+            serviceMillis.set(30);
+        }
+
+        List<Long> sorted = new ArrayList<>(slowPhaseLatencies);
+        sorted.sort(null);
+        long p99 = sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1);
+        return new Scenario(TimeUnit.NANOSECONDS.toMillis(p99), guard.status().limitRejections());
+    }
+
+    /**
+     * Fills the limit and completes every admitted call with the same RTT, as a route running at its limit would.
+     */
+    private static void saturatedWindow(AdaptiveConcurrencyLimit limit, long rttNanos) {
+        int admitted = 0;
+        while (limit.tryAcquire()) {
+            admitted++;
+        }
+        for (int i = 0; i < admitted; i++) {
+            limit.onComplete(rttNanos, false);
+        }
+    }
+
+    private static RouteIsolationProperties.Adaptive adaptive(int initialLimit) {
+        RouteIsolationProperties.Adaptive adaptive = new RouteIsolationProperties.Adaptive();
+        adaptive.setEnabled(true);
+        adaptive.setInitialLimit(initialLimit);
+        return adaptive;
+    }
+}
@@ -0,0 +1,278 @@
+package com.gdn.training.api_gateway.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.server.mvc.config.GatewayMvcProperties;
+import org.springframework.cloud.gateway.server.mvc.config.PredicateProperties;
+import org.springframework.cloud.gateway.server.mvc.config.RouteProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.gdn.training.api_gateway.config.RouteIsolationProperties;
+import com.gdn.training.api_gateway.config.StageLatencyProperties;
+import com.gdn.training.api_gateway.metrics.StageLatency;
+import com.gdn.training.common.model.ErrorResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Drives {@link RouteIsolationFilter} against a deliberately slow stub of the cart service next to a healthy
+ * product service.
+ */
+class RouteIsolationFilterTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger cartCalls = new AtomicInteger();
+    private SimpleMeterRegistry meterRegistry;
+    private RouteIsolation routeIsolation;
+    private StageLatency stageLatency;
+    private RouteIsolationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RouteIsolationProperties.Route cart = new RouteIsolationProperties.Route();
+        cart.setMaxConcurrentCalls(2);
+        cart.setSlidingWindowSize(4);
+        cart.setMinimumCalls(4);
+        cart.setFailureRateThreshold(50);
+        cart.setSlowCallDuration(Duration.ofMillis(50));
+        cart.setOpenDuration(Duration.ofSeconds(10));
+        cart.setHalfOpenCalls(2);
+        RouteIsolationProperties properties = new RouteIsolationProperties();
+        properties.getRoutes().put("cart-service", cart);
+        RouteIsolationProperties.Route product = new RouteIsolationProperties.Route();
+        product.getAdaptive().setEnabled(true);
+        product.getAdaptive().setInitialLimit(1);
+        product.getAdaptive().setMinLimit(1);
+        properties.getRoutes().put("product-service", product);
+
+        meterRegistry = new SimpleMeterRegistry();
+        routeIsolation = new RouteIsolation(properties, gateway(), meterRegistry, nanos::get);
+        stageLatency = new StageLatency(new StageLatencyProperties(), noGateway());
+        filter = new RouteIsolationFilter(routeIsolation, objectMapper, stageLatency);
+    }
+
+    @Test
+    void rejectsCallsBeyondTheBulkheadWithoutTouchingOtherRoutes() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch bothInFlight = new CountDownLatch(2);
+        FilterChain slowCart = (request, response) -> {
+            cartCalls.incrementAndGet();
+            bothInFlight.countDown();
+            await(release);
+        };
+
+        List<Future<MockHttpServletResponse>> inFlight = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            for (int i = 0; i < 2; i++) {
+                inFlight.add(executor.submit(() -> call("/cart/items", slowCart)));
+            }
+            assertThat(bothInFlight.await(5, TimeUnit.SECONDS)).isTrue();
+
+            MockHttpServletResponse rejected = call("/cart/items", slowCart);
+            MockHttpServletResponse product = call("/products/42", (request, response) -> { });
+
+            assertThat(rejected.getStatus()).isEqualTo(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+            ErrorResponse error = objectMapper.readValue(rejected.getContentAsByteArray(), ErrorResponse.class);
+            assertThat(error.isSuccess()).isFalse();
+            assertThat(error.getStatus()).isEqualTo(503);
+            assertThat(error.getError()).isEqualTo("Service Unavailable");
+            assertThat(error.getMessage()).contains("cart-service", "at capacity");
+            assertThat(error.getPath()).isEqualTo("/cart/items");
+            assertThat(product.getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+            assertThat(routeIsolation.status().get("cart-service").activeCalls()).isEqualTo(2);
+
+            release.countDown();
+            for (Future<MockHttpServletResponse> call : inFlight) {
+                assertThat(call.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+            }
+        }
+
+        assertThat(cartCalls).hasValue(2);
+        RouteIsolation.RouteStatus cart = routeIsolation.status().get("cart-service");
+        assertThat(cart.activeCalls()).isZero();
+        assertThat(cart.bulkheadRejections()).isEqualTo(1);
+        assertThat(meterRegistry.get("gateway.route.rejections")
+                .tags("route", "cart-service", "reason", "bulkhead_full").counter().count()).isEqualTo(1);
+        assertThat(routeIsolation.status().get("product-service").bulkheadRejections()).isZero();
+        assertThat(stageLatency.snapshot().series())
+                .filteredOn(series -> series.stage().equals("proxy"))
+                .extracting(StageLatency.SeriesSnapshot::route, StageLatency.SeriesSnapshot::outcome,
+                        StageLatency.SeriesSnapshot::count)
+                .containsExactlyInAnyOrder(
+                        tuple("cart-service", "2xx", 2L),
+                        tuple("product-service", "2xx", 1L));
+    }
+
+    @Test
+    void slowCallsOpenTheCircuitAndLaterRequestsFailFast() throws Exception {
+        FilterChain slowCart = (request, response) -> {
+            cartCalls.incrementAndGet();
+            sleep(80);
+        };
+        FilterChain fastCart = (request, response) -> cartCalls.incrementAndGet();
+
+        call("/cart/items", fastCart);
+        call("/cart/items", fastCart);
+        call("/cart/items", slowCart);
+        call("/cart/items", slowCart);
+        assertThat(routeIsolation.status().get("cart-service").circuitState()).isEqualTo("OPEN");
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        MockHttpServletResponse rejected = call("/cart/items", fastCart);
+
+        assertThat(cartCalls).hasValue(4);
+        assertThat(rejected.getStatus()).isEqualTo(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("7");
+        assertThat(objectMapper.readValue(rejected.getContentAsByteArray(), ErrorResponse.class).getMessage())
+                .contains("cart-service", "temporarily unavailable");
+        assertThat(meterRegistry.get("gateway.route.circuit.state").tag("route", "cart-service").gauge().value())
+                .isEqualTo(1);
+        assertThat(routeIsolation.status().get("cart-service").circuitOpenRejections()).isEqualTo(1);
+    }
+
+    @Test
+    void serverErrorsOpenTheCircuitAndSuccessfulProbesCloseIt() throws Exception {
+        FilterChain failingCart = (request, response) -> {
+            cartCalls.incrementAndGet();
+            ((HttpServletResponse) response).setStatus(HttpServletResponse.SC_BAD_GATEWAY);
+        };
+        FilterChain healthyCart = (request, response) -> cartCalls.incrementAndGet();
+
+        for (int i = 0; i < 4; i++) {
+            call("/cart/items", failingCart);
+        }
+        assertThat(routeIsolation.status().get("cart-service").circuitState()).isEqualTo("OPEN");
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        call("/cart/items", healthyCart);
+        assertThat(routeIsolation.status().get("cart-service").circuitState()).isEqualTo("HALF_OPEN");
+        call("/cart/items", healthyCart);
+
+        assertThat(routeIsolation.status().get("cart-service").circuitState()).isEqualTo("CLOSED");
+        assertThat(cartCalls).hasValue(6);
+    }
+
+    @Test
+    void aFailedProbeReopensTheCircuit() throws Exception {
+        FilterChain failingCart = (request, response) ->
+                ((HttpServletResponse) response).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        for (int i = 0; i < 4; i++) {
+            call("/cart/items", failingCart);
+        }
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        call("/cart/items", failingCart);
+
+        assertThat(routeIsolation.status().get("cart-service").circuitState()).isEqualTo("OPEN");
+        assertThat(call("/cart/items", failingCart).getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("10");
+    }
+
+    @Test
+    void shedsRequestsBeyondTheAdaptiveLimit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch inFlight = new CountDownLatch(1);
+        FilterChain slowProduct = (request, response) -> {
+            inFlight.countDown();
+            await(release);
+        };
+
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            Future<MockHttpServletResponse> admitted = executor.submit(() -> call("/products/1", slowProduct));
+            assertThat(inFlight.await(5, TimeUnit.SECONDS)).isTrue();
+
+            MockHttpServletResponse shed = call("/products/2", slowProduct);
+
+            assertThat(shed.getStatus()).isEqualTo(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            assertThat(shed.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+            assertThat(objectMapper.readValue(shed.getContentAsByteArray(), ErrorResponse.class).getMessage())
+                    .contains("product-service", "overloaded");
+            release.countDown();
+            assertThat(admitted.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+        }
+
+        RouteIsolation.RouteStatus product = routeIsolation.status().get("product-service");
+        assertThat(product.concurrencyLimit()).isEqualTo(1);
+        assertThat(product.limitRejections()).isEqualTo(1);
+        assertThat(product.bulkheadRejections()).isZero();
+        assertThat(meterRegistry.get("gateway.route.concurrency.limit").tag("route", "product-service").gauge().value())
+                .isEqualTo(1);
+        assertThat(routeIsolation.status().get("cart-service").concurrencyLimit()).isEqualTo(-1);
+    }
+
+    @Test
+    void leavesRequestsOutsideTheRoutesAlone() throws Exception {
+        MockHttpServletResponse response = call("/auth/login", (request, res) -> { });
+
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(routeIsolation.status()).containsOnlyKeys("member-service", "product-service", "cart-service");
+    }
+
+    private MockHttpServletResponse call(String uri, FilterChain upstream) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", uri), response, upstream);
+        return response;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<GatewayMvcProperties> noGateway() {
+        return mock(ObjectProvider.class);
+    }
+
+    private static GatewayMvcProperties gateway() {
+        GatewayMvcProperties gateway = new GatewayMvcProperties();
+        gateway.setRoutes(List.of(
+                route("member-service", "/members/**"),
+                route("product-service", "/products/**"),
+                route("cart-service", "/cart/**")));
+        return gateway;
+    }
+
+    private static RouteProperties route(String id, String path) {
+        RouteProperties route = new RouteProperties();
+        route.setId(id);
+        route.setPredicates(List.of(new PredicateProperties("Path=" + path)));
+        return route;
+    }
+}
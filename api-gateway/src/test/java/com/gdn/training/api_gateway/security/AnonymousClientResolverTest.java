@@ -0,0 +1,124 @@
+package com.gdn.training.api_gateway.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.gdn.training.api_gateway.config.RateLimiterProperties;
+
+class AnonymousClientResolverTest {
+
+    private RateLimiterProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimiterProperties();
+    }
+
+    @Test
+    void forwardedForIsIgnoredWithoutTrustedProxies() {
+        AnonymousClientResolver resolver = new AnonymousClientResolver(properties);
+
+        assertThat(resolver.resolve(request("203.0.113.7", "198.51.100.1"), null)).isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    void usesTheNearestHopThatIsNotATrustedProxy() {
+        properties.getAnonymous().setTrustedProxies(List.of("10.0.0.0/8"));
+        AnonymousClientResolver resolver = new AnonymousClientResolver(properties);
+
+        assertThat(resolver.resolve(request("10.0.0.2", "198.51.100.1, 203.0.113.7, 10.1.1.1"), null))
+                .isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    void readsHopsAcrossRepeatedHeaders() {
+        properties.getAnonymous().setTrustedProxies(List.of("10.0.0.2", "10.0.0.3"));
+        AnonymousClientResolver resolver = new AnonymousClientResolver(properties);
+
+        assertThat(resolver.resolve(request("10.0.0.2", "203.0.113.7", "10.0.0.3"), null)).isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    void malformedHopStopsTheWalk() {
+        properties.getAnonymous().setTrustedProxies(List.of("10.0.0.0/8"));
+        AnonymousClientResolver resolver = new AnonymousClientResolver(properties);
+
+        assertThat(resolver.resolve(request("10.0.0.2", "203.0.113.7, evil.example, 10.1.1.1"), null))
+                .isEqualTo("10.1.1.1");
+    }
+
+    @Test
+    void acceptsPortsAndBracketsButNotHostnames() {
+        assertThat(AnonymousClientResolver.parseAddress("203.0.113.7:5123").getHostAddress()).isEqualTo("203.0.113.7");
+        assertThat(AnonymousClientResolver.parseAddress("[2001:db8::1]:443").getHostAddress())
+                .isEqualTo("2001:db8:0:0:0:0:0:1");
+        assertThat(AnonymousClientResolver.parseAddress("localhost")).isNull();
+        assertThat(AnonymousClientResolver.parseAddress("1.2.3")).isNull();
+        assertThat(AnonymousClientResolver.parseAddress("")).isNull();
+    }
+
+    @Test
+    void groupsAddressesByPrefix() {
+        properties.getAnonymous().setIpv4PrefixLength(24);
+        AnonymousClientResolver resolver = new AnonymousClientResolver(properties);
+
+        assertThat(resolver.resolve(request("203.0.113.7"), null)).isEqualTo("203.0.113.0/24");
+        assertThat(resolver.resolve(request("203.0.113.200"), null)).isEqualTo("203.0.113.0/24");
+        assertThat(resolver.resolve(request("2001:db8:1:2:aaaa::1"), null)).isEqualTo("2001:db8:1:2:0:0:0:0/64");
+        assertThat(resolver.resolve(request("2001:db8:1:2:bbbb::9"), null)).isEqualTo("2001:db8:1:2:0:0:0:0/64");
+    }
+
+    @Test
+    void cookiesSpreadOneAddressOverABoundedNumberOfKeys() {
+        AnonymousClientResolver resolver = new AnonymousClientResolver(properties);
+        MockHttpServletRequest request = request("203.0.113.7");
+
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < 1_000; i++) {
+            keys.add(resolver.resolve(request, UUID.randomUUID().toString()));
+        }
+
+        assertThat(keys).hasSize(properties.getAnonymous().getClientsPerAddress())
+                .allMatch(key -> key.startsWith("203.0.113.7#"));
+        assertThat(resolver.resolve(request, "same")).isEqualTo(resolver.resolve(request, "same"));
+    }
+
+    @Test
+    void cookiesAreIgnoredWhenRefinementIsOff() {
+        properties.getAnonymous().setClientsPerAddress(0);
+        AnonymousClientResolver resolver = new AnonymousClientResolver(properties);
+
+        assertThat(resolver.resolve(request("203.0.113.7"), "cookie")).isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        properties.getAnonymous().setTrustedProxies(List.of("proxy.internal"));
+        assertThatThrownBy(() -> new AnonymousClientResolver(properties)).isInstanceOf(IllegalArgumentException.class);
+
+        properties.getAnonymous().setTrustedProxies(List.of("10.0.0.0/33"));
+        assertThatThrownBy(() -> new AnonymousClientResolver(properties)).isInstanceOf(IllegalArgumentException.class);
+
+        properties.getAnonymous().setTrustedProxies(List.of());
+        properties.getAnonymous().setIpv6PrefixLength(129);
+        assertThatThrownBy(() -> new AnonymousClientResolver(properties)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr, String... forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products");
+        request.setRemoteAddr(remoteAddr);
+        for (String value : forwardedFor) {
+            request.addHeader(AnonymousClientResolver.FORWARDED_FOR, value);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,195 @@
+package com.gdn.training.api_gateway.security;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.server.mvc.config.GatewayMvcProperties;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.gdn.training.api_gateway.config.RateLimiterProperties;
+import com.gdn.training.api_gateway.config.SecurityProperties;
+import com.gdn.training.api_gateway.config.StageLatencyProperties;
+import com.gdn.training.api_gateway.metrics.StageLatency;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Allocation per authenticated request through {@link JwtAuthenticationFilter} and {@link RateLimitingFilter},
+ * ending in a handler that reads the headers the way the proxy does when forwarding. Redis answers instantly from a
+ * stub so only the gateway's own work is measured. Run {@link #main} and read {@code gc.alloc.rate.norm} (bytes/op).
+ * <p>
+ * Baseline with a per-request header map, authority list and details source: about 4,900 B/op. Target: below
+ * 3,600 B/op. Most of what remains is the mock request and response themselves, the token digest and the Redis key.
+ * <p>
+ * {@code stageLatency} toggles the per-stage latency histograms, so the two runs also show their end-to-end cost.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GatewayFilterChainBenchmark {
+
+    private static final String SECRET = "ZmFrZXNlY3JldGtleWZha2VzZWNyZXRrZXkzMjMyMzIzMjMyMzIzMjMy";
+    private static final List<Long> ALLOWED = List.of(1L, 100L, 30_000L);
+
+    @Param({"false", "true"})
+    public boolean stageLatency;
+
+    private JwtAuthenticationFilter jwtFilter;
+    private RateLimitingFilter rateLimitingFilter;
+    private RateLimiterService rateLimiterService;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+    private Blackhole blackhole;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        // Match the application's INFO default; logback alone would log every request at DEBUG.
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+        SecurityProperties securityProperties = new SecurityProperties();
+        securityProperties.setPublicPaths(List.of("/actuator/**", "/auth/**"));
+        RateLimiterProperties rateLimiterProperties = new RateLimiterProperties();
+        rateLimiterProperties.setRequestsPerMinute(1_000_000);
+        PathClassifier pathClassifier = new PathClassifier(securityProperties, rateLimiterProperties);
+
+        StringRedisTemplate redisTemplate = new StubRedisTemplate();
+        TokenBlacklistService blacklist =
+                new TokenBlacklistService(redisTemplate, mock(RedisMessageListenerContainer.class), true, 60);
+        blacklist.onChannelSubscribed(new byte[0], 1);
+
+        JwtService jwtService = new JwtService(SECRET, 60);
+        VerifiedClaimsCache claimsCache = new VerifiedClaimsCache(jwtService, new SimpleMeterRegistry(), 10_000);
+        ObjectProvider<GatewayMvcProperties> noGateway = mock(ObjectProvider.class);
+        StageLatencyProperties stageLatencyProperties = new StageLatencyProperties();
+        stageLatencyProperties.setEnabled(stageLatency);
+        StageLatency latency = new StageLatency(stageLatencyProperties, noGateway);
+        jwtFilter = new JwtAuthenticationFilter(claimsCache, pathClassifier, new AccessTokenResolver(), blacklist,
+                latency);
+
+        rateLimiterService = new RateLimiterService(rateLimiterProperties, redisTemplate);
+        rateLimitingFilter = new RateLimitingFilter(rateLimiterProperties, rateLimiterService, pathClassifier,
+                new RateLimitPolicyResolver(rateLimiterProperties, noGateway),
+                new AnonymousClientResolver(rateLimiterProperties), latency);
+
+        String token = jwtService.generateToken("123456789", Map.of("email", "user@example.com", "role", "ROLE_USER"));
+        request = new MockHttpServletRequest("GET", "/cart/items");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        request.addHeader(HttpHeaders.ACCEPT, "application/json");
+        request.addHeader(HttpHeaders.USER_AGENT, "benchmark");
+        response = new MockHttpServletResponse();
+
+        FilterChain handler = this::forward;
+        chain = (req, res) -> rateLimitingFilter.doFilter(req, res, handler);
+    }
+
+    @TearDown
+    public void tearDown() {
+        rateLimiterService.shutdown();
+    }
+
+    @Benchmark
+    public int authenticatedRequest() throws ServletException, IOException {
+        request.removeAttribute(PathClassifier.REQUEST_ATTRIBUTE);
+        request.removeAttribute(StageLatency.ROUTE_ATTRIBUTE);
+        response.reset();
+        SecurityContextHolder.clearContext();
+
+        jwtFilter.doFilter(request, response, chain);
+        return response.getStatus();
+    }
+
+    /**
+     * Reads what the proxy reads when it copies the request: the injected user id and every header.
+     */
+    private void forward(ServletRequest servletRequest, ServletResponse servletResponse) {
+        HttpServletRequest forwarded = (HttpServletRequest) servletRequest;
+        blackhole.consume(forwarded.getHeader("X-User-Id"));
+        Enumeration<String> names = forwarded.getHeaderNames();
+        while (names.hasMoreElements()) {
+            Enumeration<String> values = forwarded.getHeaders(names.nextElement());
+            while (values.hasMoreElements()) {
+                blackhole.consume(values.nextElement());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GatewayFilterChainBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    /**
+     * Answers every rate-limit script call with "allowed" and has no revoked tokens, without a connection.
+     */
+    private static final class StubRedisTemplate extends StringRedisTemplate {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+            return (T) ALLOWED;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Cursor<String> scan(ScanOptions options) {
+            return mock(Cursor.class);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <HK, HV> HashOperations<String, HK, HV> opsForHash() {
+            HashOperations<String, HK, HV> hashOperations = mock(HashOperations.class);
+            when(hashOperations.scan(any(), any())).thenReturn(mock(Cursor.class));
+            return hashOperations;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.gdn.training.api_gateway.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.gdn.training.api_gateway.config.RateLimiterProperties;
+import com.gdn.training.api_gateway.config.SecurityProperties;
+import com.gdn.training.api_gateway.metrics.StageLatency;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    private static final String TOKEN = "header.payload.signature";
+
+    @Mock
+    private VerifiedClaimsCache verifiedClaimsCache;
+
+    @Mock
+    private TokenBlacklistService tokenBlacklistService;
+
+    @Mock
+    private StageLatency stageLatency;
+
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        SecurityProperties securityProperties = new SecurityProperties();
+        securityProperties.setPublicPaths(List.of("/auth/**"));
+        PathClassifier pathClassifier = new PathClassifier(securityProperties, new RateLimiterProperties());
+        filter = new JwtAuthenticationFilter(verifiedClaimsCache, pathClassifier, new AccessTokenResolver(),
+                tokenBlacklistService, stageLatency);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void replacesClientSuppliedUserIdHeader() throws Exception {
+        when(verifiedClaimsCache.verify(TOKEN)).thenReturn(
+                new VerifiedClaims("user-1", "ROLE_USER", "jti-1", Instant.now(), Instant.now().plusSeconds(60)));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cart");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + TOKEN);
+        request.addHeader("x-user-id", "spoofed");
+        AtomicReference<HttpServletRequest> forwarded = new AtomicReference<>();
+
+        filter.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> forwarded.set((HttpServletRequest) req));
+
+        HttpServletRequest downstream = forwarded.get();
+        assertThat(downstream.getHeader("X-User-Id")).isEqualTo("user-1");
+        assertThat(Collections.list(downstream.getHeaders("X-User-Id"))).containsExactly("user-1");
+        assertThat(Collections.list(downstream.getHeaderNames()))
+                .containsExactly(HttpHeaders.AUTHORIZATION, "X-User-Id");
+        assertThat(downstream.getHeader(HttpHeaders.AUTHORIZATION)).isEqualTo("Bearer " + TOKEN);
+    }
+
+    @Test
+    void sharesAuthoritiesAcrossRequestsWithTheSameRole() throws Exception {
+        when(verifiedClaimsCache.verify(TOKEN)).thenReturn(
+                new VerifiedClaims("user-1", "ROLE_USER", "jti-1", Instant.now(), Instant.now().plusSeconds(60)));
+
+        Authentication first = authenticate();
+        Authentication second = authenticate();
+
+        assertThat(first.getPrincipal()).isEqualTo("user-1");
+        assertThat(first.isAuthenticated()).isTrue();
+        assertThat(first.getAuthorities()).extracting("authority").containsExactly("ROLE_USER");
+        assertThat(second.getAuthorities()).isSameAs(first.getAuthorities());
+    }
+
+    @Test
+    void leavesRevokedTokensUnauthenticated() throws Exception {
+        VerifiedClaims claims =
+                new VerifiedClaims("user-1", "ROLE_USER", "jti-1", Instant.now(), Instant.now().plusSeconds(60));
+        when(verifiedClaimsCache.verify(TOKEN)).thenReturn(claims);
+        when(tokenBlacklistService.isRevoked(claims)).thenReturn(true);
+
+        assertThat(authenticate()).isNull();
+    }
+
+    private Authentication authenticate() throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cart");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + TOKEN);
+        AtomicReference<Authentication> authentication = new AtomicReference<>();
+
+        filter.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> authentication.set(SecurityContextHolder.getContext().getAuthentication()));
+        return authentication.get();
+    }
+}
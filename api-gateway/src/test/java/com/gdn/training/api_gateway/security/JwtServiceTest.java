@@ -1,13 +1,16 @@
 package com.gdn.training.api_gateway.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.security.SignatureException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.util.Map;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class JwtServiceTest {
 
@@ -32,6 +35,16 @@ class JwtServiceTest {
         assertThat(claims.getExpiration()).isAfter(claims.getIssuedAt());
     }
 
+    @Test
+    void verifiedClaimsKeepTheIssueTimeToTheMillisecond() {
+        long before = System.currentTimeMillis();
+        Claims claims = jwtService.parseToken(jwtService.generateToken("123", Map.of()));
+        long after = System.currentTimeMillis();
+
+        assertThat(VerifiedClaims.from(claims).issuedAt().toEpochMilli()).isBetween(before, after);
+        assertThat(claims.getIssuedAt().getTime() % 1000).isZero();
+    }
+
     @Test
     void remainingTtlNeverReturnsNegative() {
         String token = jwtService.generateToken("123", Map.of());
@@ -41,5 +54,21 @@ class JwtServiceTest {
                 .isLessThanOrEqualTo(Duration.ofMinutes(10))
                 .isGreaterThan(Duration.ZERO);
     }
-}
 
+    @Test
+    void generateTokenAssignsDistinctVersion4Ids() {
+        Claims first = jwtService.parseToken(jwtService.generateToken("123", Map.of()));
+        Claims second = jwtService.parseToken(jwtService.generateToken("123", Map.of()));
+
+        assertThat(first.getId()).isNotEqualTo(second.getId());
+        assertThat(UUID.fromString(first.getId()).version()).isEqualTo(4);
+    }
+
+    @Test
+    void parseTokenRejectsTokenSignedWithAnotherKey() {
+        JwtService otherService = new JwtService("b3RoZXJzZWNyZXRvdGhlcnNlY3JldG90aGVyc2VjcmV0MzIzMjMyMzI=", 10);
+        String foreignToken = otherService.generateToken("123", Map.of());
+
+        assertThatThrownBy(() -> jwtService.parseToken(foreignToken)).isInstanceOf(SignatureException.class);
+    }
+}
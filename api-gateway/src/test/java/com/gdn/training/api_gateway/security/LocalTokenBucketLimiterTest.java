@@ -0,0 +1,66 @@
+package com.gdn.training.api_gateway.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class LocalTokenBucketLimiterTest {
+
+    private static final Duration MINUTE = Duration.ofMinutes(1);
+
+    @Test
+    void admitsABurstOfTheLimitThenBlocksUntilATokenRefills() {
+        LocalTokenBucketLimiter limiter = new LocalTokenBucketLimiter(100);
+
+        for (long remaining = 2; remaining >= 0; remaining--) {
+            RateLimitResult result = limiter.consume("client", 3, MINUTE, 1);
+            assertThat(result.allowed()).isTrue();
+            assertThat(result.remainingTokens()).isEqualTo(remaining);
+        }
+        RateLimitResult blocked = limiter.consume("client", 3, MINUTE, 1);
+
+        assertThat(blocked.allowed()).isFalse();
+        assertThat(blocked.nanosToReset()).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(20).toNanos());
+    }
+
+    @Test
+    void refillsAtTheConfiguredRate() throws InterruptedException {
+        LocalTokenBucketLimiter limiter = new LocalTokenBucketLimiter(100);
+
+        assertThat(limiter.consume("client", 2, Duration.ofSeconds(2), 1).allowed()).isTrue();
+        assertThat(limiter.consume("client", 2, Duration.ofSeconds(2), 1).allowed()).isTrue();
+        assertThat(limiter.consume("client", 2, Duration.ofSeconds(2), 1).allowed()).isFalse();
+
+        Thread.sleep(1_100);
+
+        assertThat(limiter.consume("client", 2, Duration.ofSeconds(2), 1).allowed()).isTrue();
+    }
+
+    @Test
+    void tracksKeysIndependentlyWithinABoundedCache() {
+        LocalTokenBucketLimiter limiter = new LocalTokenBucketLimiter(2);
+
+        assertThat(limiter.consume("noisy", 1, MINUTE, 1).allowed()).isTrue();
+        assertThat(limiter.consume("noisy", 1, MINUTE, 1).allowed()).isFalse();
+        assertThat(limiter.consume("quiet", 1, MINUTE, 1).allowed()).isTrue();
+
+        for (int i = 0; i < 50; i++) {
+            limiter.consume("client-" + i, 1, MINUTE, 1);
+        }
+        assertThat(limiter.trackedKeys()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void weighsRequestsByCost() {
+        LocalTokenBucketLimiter limiter = new LocalTokenBucketLimiter(100);
+
+        RateLimitResult search = limiter.consume("client", 10, MINUTE, 5);
+        RateLimitResult secondSearch = limiter.consume("client", 10, MINUTE, 5);
+
+        assertThat(search.remainingTokens()).isEqualTo(5);
+        assertThat(secondSearch.allowed()).isTrue();
+        assertThat(limiter.consume("client", 10, MINUTE, 1).allowed()).isFalse();
+    }
+}
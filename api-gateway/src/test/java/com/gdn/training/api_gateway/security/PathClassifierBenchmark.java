@@ -0,0 +1,92 @@
+package com.gdn.training.api_gateway.security;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.AntPathMatcher;
+
+import com.gdn.training.api_gateway.config.RateLimiterProperties;
+import com.gdn.training.api_gateway.config.SecurityProperties;
+
+/**
+ * Public/exempt path classification against a 60-pattern route table: the previous per-request
+ * {@link AntPathMatcher} scan versus the compiled {@link PathClassifier}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathClassifierBenchmark {
+
+    private static final int SERVICES = 30;
+
+    @Param({"/cart/items/42", "/products/123e4567-e89b-12d3-a456-426614174000", "/service29/v1/orders/7"})
+    public String path;
+
+    private List<String> publicPaths;
+    private List<String> ignoredPaths;
+    private AntPathMatcher antPathMatcher;
+    private PathClassifier pathClassifier;
+
+    @Setup
+    public void setUp() {
+        publicPaths = new ArrayList<>(List.of("/actuator/**", "/auth/**", "/products/**"));
+        ignoredPaths = new ArrayList<>(List.of("/actuator/**"));
+        for (int i = 0; i < SERVICES; i++) {
+            publicPaths.add("/service" + i + "/public/**");
+            ignoredPaths.add("/service" + i + "/v1/health");
+        }
+
+        SecurityProperties securityProperties = new SecurityProperties();
+        securityProperties.setPublicPaths(publicPaths);
+        RateLimiterProperties rateLimiterProperties = new RateLimiterProperties();
+        rateLimiterProperties.setIgnoredPaths(ignoredPaths);
+
+        antPathMatcher = new AntPathMatcher();
+        pathClassifier = new PathClassifier(securityProperties, rateLimiterProperties);
+    }
+
+    @Benchmark
+    public void antPathMatcherScan(Blackhole blackhole) {
+        boolean publicPath = false;
+        for (String pattern : publicPaths) {
+            if (antPathMatcher.match(pattern, path)) {
+                publicPath = true;
+                break;
+            }
+        }
+        blackhole.consume(publicPath);
+        blackhole.consume(ignoredPaths.stream().anyMatch(pattern -> antPathMatcher.match(pattern, path)));
+    }
+
+    @Benchmark
+    public PathClassifier.PathClassification compiledClassifier() {
+        return pathClassifier.classify(path);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PathClassifierBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,70 @@
+package com.gdn.training.api_gateway.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.gdn.training.api_gateway.config.RateLimiterProperties;
+import com.gdn.training.api_gateway.config.SecurityProperties;
+import com.gdn.training.api_gateway.security.PathClassifier.PathClassification;
+
+class PathClassifierTest {
+
+    private PathClassifier pathClassifier;
+
+    @BeforeEach
+    void setUp() {
+        SecurityProperties securityProperties = new SecurityProperties();
+        securityProperties.setPublicPaths(List.of("/actuator/**", "/auth/**", "/products/**", "/*/public/{id}"));
+
+        RateLimiterProperties rateLimiterProperties = new RateLimiterProperties();
+        rateLimiterProperties.setIgnoredPaths(List.of("/actuator/**", "", "/internal/health"));
+
+        pathClassifier = new PathClassifier(securityProperties, rateLimiterProperties);
+    }
+
+    @Test
+    void classifiesPublicAndExemptPathsInOneLookup() {
+        assertThat(pathClassifier.classify("/actuator/health"))
+                .isEqualTo(new PathClassification(true, true));
+        assertThat(pathClassifier.classify("/products/123"))
+                .isEqualTo(new PathClassification(true, false));
+        assertThat(pathClassifier.classify("/internal/health"))
+                .isEqualTo(new PathClassification(false, true));
+        assertThat(pathClassifier.classify("/cart/items"))
+                .isEqualTo(new PathClassification(false, false));
+    }
+
+    @Test
+    void matchesDirectoryRootAndWildcardLeadingPatterns() {
+        assertThat(pathClassifier.classify("/auth").publicPath()).isTrue();
+        assertThat(pathClassifier.classify("/members/public/7").publicPath()).isTrue();
+        assertThat(pathClassifier.classify("/members/private/7").publicPath()).isFalse();
+        assertThat(pathClassifier.classify("/authx/login").publicPath()).isFalse();
+    }
+
+    @Test
+    void memoisesClassificationOnRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products/42");
+
+        PathClassification first = pathClassifier.classify(request);
+        request.setRequestURI("/cart");
+        PathClassification second = pathClassifier.classify(request);
+
+        assertThat(second).isSameAs(first);
+        assertThat(request.getAttribute(PathClassifier.REQUEST_ATTRIBUTE)).isSameAs(first);
+    }
+
+    @Test
+    void classifiesNothingWhenNoPatternsConfigured() {
+        SecurityProperties securityProperties = new SecurityProperties();
+        securityProperties.setPublicPaths(null);
+        PathClassifier empty = new PathClassifier(securityProperties, new RateLimiterProperties());
+
+        assertThat(empty.classify("/anything")).isEqualTo(new PathClassification(false, false));
+    }
+}
@@ -0,0 +1,146 @@
+package com.gdn.training.api_gateway.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.server.mvc.config.GatewayMvcProperties;
+import org.springframework.cloud.gateway.server.mvc.config.PredicateProperties;
+import org.springframework.cloud.gateway.server.mvc.config.RouteProperties;
+
+import com.gdn.training.api_gateway.config.RateLimiterProperties;
+
+class RateLimitPolicyResolverTest {
+
+    @Test
+    void fallsBackToTheGlobalPolicyWhenNothingMatches() {
+        RateLimitPolicyResolver resolver = resolver(properties(policy("search", 30, List.of("/products/search/**"))));
+
+        RateLimitPolicy policy = resolver.resolve("GET", "/cart/items", "ROLE_USER");
+
+        assertThat(policy.name()).isEqualTo("global");
+        assertThat(policy.limit()).isEqualTo(120);
+        assertThat(policy.keyScope()).isEmpty();
+    }
+
+    @Test
+    void firstMatchingPolicyWinsInDeclarationOrder() {
+        RateLimiterProperties properties = properties(
+                policy("search", 30, List.of("/products/search/**")),
+                policy("products", 300, List.of("/products/**")),
+                policy("everything", 1_000, List.of("/**")));
+        RateLimitPolicyResolver resolver = resolver(properties);
+
+        assertThat(resolver.resolve("GET", "/products/search/phones", "ROLE_USER").name()).isEqualTo("search");
+        assertThat(resolver.resolve("GET", "/products/42", "ROLE_USER").name()).isEqualTo("products");
+        assertThat(resolver.resolve("GET", "/members/me", "ROLE_USER").name()).isEqualTo("everything");
+    }
+
+    @Test
+    void selectsByMethodAndRole() {
+        RateLimiterProperties.Policy writes = policy("cart-writes", 20, List.of("/cart/**"));
+        writes.setMethods(List.of("post", "DELETE"));
+        RateLimiterProperties.Policy admins = policy("admins", 5_000, List.of());
+        admins.setRoles(List.of("ROLE_ADMIN"));
+        RateLimiterProperties.Policy anonymous = policy("anonymous", 10, List.of());
+        anonymous.setRoles(List.of(RateLimitPolicyResolver.ANONYMOUS));
+        RateLimitPolicyResolver resolver = resolver(properties(admins, writes, anonymous));
+
+        assertThat(resolver.resolve("POST", "/cart/items", "ROLE_USER").name()).isEqualTo("cart-writes");
+        assertThat(resolver.resolve("GET", "/cart/items", "ROLE_USER").name()).isEqualTo("global");
+        assertThat(resolver.resolve("POST", "/cart/items", "ROLE_ADMIN").name()).isEqualTo("admins");
+        assertThat(resolver.resolve("GET", "/products", RateLimitPolicyResolver.ANONYMOUS).name())
+                .isEqualTo("anonymous");
+        assertThat(resolver.resolve("PATCH", "/cart/items", "ROLE_SELLER").name()).isEqualTo("global");
+    }
+
+    @Test
+    void expandsRouteIdsToTheRoutePathPredicates() {
+        RateLimiterProperties.Policy members = policy("members", 50, List.of());
+        members.setRouteId("member-service");
+        RateLimitPolicyResolver resolver = resolver(properties(members), gateway("member-service", "/members/**"));
+
+        assertThat(resolver.resolve("GET", "/members/me", "ROLE_USER").name()).isEqualTo("members");
+        assertThat(resolver.resolve("GET", "/products", "ROLE_USER").name()).isEqualTo("global");
+    }
+
+    @Test
+    void rejectsPoliciesForUnknownRoutes() {
+        RateLimiterProperties.Policy policy = policy("missing", 50, List.of());
+        policy.setRouteId("unknown-service");
+        RateLimiterProperties properties = properties(policy);
+        GatewayMvcProperties gateway = gateway("member-service", "/members/**");
+
+        assertThatThrownBy(() -> resolver(properties, gateway))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("unknown-service");
+    }
+
+    @Test
+    void chargesTheHighestMatchingQueryCost() {
+        RateLimiterProperties.Policy search = policy("products", 100, List.of("/products/**"));
+        search.setQueryCosts(Map.of("query", 5, "sort", 2));
+        RateLimitPolicy policy = resolver(properties(search)).resolve("GET", "/products", "ROLE_USER");
+
+        assertThat(policy.costOf(null)).isEqualTo(1);
+        assertThat(policy.costOf("page=2")).isEqualTo(1);
+        assertThat(policy.costOf("sort=name&page=2")).isEqualTo(2);
+        assertThat(policy.costOf("page=1&query=phone&sort=name")).isEqualTo(5);
+        assertThat(policy.costOf("queryId=7")).isEqualTo(1);
+        assertThat(policy.costOf("query")).isEqualTo(5);
+    }
+
+    @Test
+    void precomputesHeaderValues() {
+        RateLimiterProperties.Policy search = policy("search", 30, List.of("/products/**"));
+        search.setWindow(Duration.ofSeconds(10));
+        RateLimitPolicy policy = resolver(properties(search)).resolve("GET", "/products", null);
+
+        assertThat(policy.limitArgument()).isEqualTo("30");
+        assertThat(policy.windowArgument()).isEqualTo("10000");
+        assertThat(policy.policyHeader()).isEqualTo("search;w=10");
+        assertThat(policy.keyScope()).isEqualTo("search:");
+    }
+
+    private static RateLimiterProperties properties(RateLimiterProperties.Policy... policies) {
+        RateLimiterProperties properties = new RateLimiterProperties();
+        properties.setRequestsPerMinute(120);
+        properties.setPolicies(List.of(policies));
+        return properties;
+    }
+
+    private static RateLimiterProperties.Policy policy(String name, long limit, List<String> paths) {
+        RateLimiterProperties.Policy policy = new RateLimiterProperties.Policy();
+        policy.setName(name);
+        policy.setLimit(limit);
+        policy.setPaths(paths);
+        return policy;
+    }
+
+    private static GatewayMvcProperties gateway(String routeId, String path) {
+        RouteProperties route = new RouteProperties();
+        route.setId(routeId);
+        route.setPredicates(List.of(new PredicateProperties("Path=" + path)));
+        GatewayMvcProperties gateway = new GatewayMvcProperties();
+        gateway.setRoutes(List.of(route));
+        return gateway;
+    }
+
+    private static RateLimitPolicyResolver resolver(RateLimiterProperties properties) {
+        return resolver(properties, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RateLimitPolicyResolver resolver(RateLimiterProperties properties, GatewayMvcProperties gateway) {
+        ObjectProvider<GatewayMvcProperties> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(gateway);
+        return new RateLimitPolicyResolver(properties, provider);
+    }
+}
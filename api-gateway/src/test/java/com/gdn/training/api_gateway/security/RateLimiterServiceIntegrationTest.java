@@ -0,0 +1,307 @@
+package com.gdn.training.api_gateway.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.gdn.training.api_gateway.config.RateLimiterProperties;
+import com.gdn.training.api_gateway.config.RateLimiterProperties.Algorithm;
+import com.gdn.training.api_gateway.config.RateLimiterProperties.Mode;
+
+import redis.embedded.RedisServer;
+
+/**
+ * Runs the limiter scripts against a real Redis so the Lua itself is exercised, not just the reply mapping.
+ */
+class RateLimiterServiceIntegrationTest {
+
+    private static final long LIMIT = 5;
+    private static final List<String> SCRIPTS =
+            List.of("fixed-window.lua", "sliding-window-log.lua", "token-bucket.lua", "hybrid-sync.lua");
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private RateLimiterProperties properties;
+    private RateLimiterService rateLimiterService;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            for (String script : SCRIPTS) {
+                connection.scriptingCommands().scriptLoad(read(script));
+            }
+            connection.serverCommands().resetConfigStats();
+            return null;
+        }, true);
+        properties = new RateLimiterProperties();
+        properties.setRequestsPerMinute(LIMIT);
+        rateLimiterService = new RateLimiterService(properties, redisTemplate);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Algorithm.class)
+    void admitsExactlyTheLimitThenBlocks(Algorithm algorithm) {
+        properties.setAlgorithm(algorithm);
+
+        List<RateLimitResult> results = IntStream.range(0, (int) LIMIT + 1)
+                .mapToObj(i -> rateLimiterService.consume("client"))
+                .toList();
+
+        assertThat(results.subList(0, (int) LIMIT)).allMatch(RateLimitResult::allowed);
+        assertThat(results.subList(0, (int) LIMIT)).extracting(RateLimitResult::remainingTokens)
+                .containsExactly(4L, 3L, 2L, 1L, 0L);
+
+        RateLimitResult blocked = results.get((int) LIMIT);
+        assertThat(blocked.allowed()).isFalse();
+        assertThat(blocked.nanosToReset()).isPositive().isLessThanOrEqualTo(Duration.ofMinutes(1).toNanos());
+    }
+
+    @ParameterizedTest
+    @EnumSource(Algorithm.class)
+    void everyKeyIsWrittenWithAnExpiry(Algorithm algorithm) {
+        properties.setAlgorithm(algorithm);
+
+        rateLimiterService.consume("client");
+
+        String key = redisTemplate.keys("ratelimit:*").iterator().next();
+        assertThat(redisTemplate.getExpire(key, TimeUnit.MILLISECONDS)).isPositive();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Algorithm.class)
+    void limitsKeysIndependently(Algorithm algorithm) {
+        properties.setAlgorithm(algorithm);
+
+        for (int i = 0; i < LIMIT; i++) {
+            rateLimiterService.consume("noisy");
+        }
+
+        assertThat(rateLimiterService.consume("noisy").allowed()).isFalse();
+        assertThat(rateLimiterService.consume("quiet").allowed()).isTrue();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Algorithm.class)
+    void blockedKeysAreRefusedWithoutARoundTrip(Algorithm algorithm) {
+        properties.setAlgorithm(algorithm);
+        for (int i = 0; i <= LIMIT; i++) {
+            rateLimiterService.consume("noisy");
+        }
+        long roundTrips = scriptCalls();
+
+        RateLimitResult blocked = rateLimiterService.consume("noisy");
+
+        assertThat(blocked.allowed()).isFalse();
+        assertThat(blocked.nanosToReset()).isPositive();
+        assertThat(scriptCalls()).isEqualTo(roundTrips);
+        assertThat(rateLimiterService.status().blockedKeys()).isEqualTo(1);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Mode.class)
+    void weighsRequestsByCostUnderTheirPolicy(Mode mode) {
+        properties.setMode(mode);
+        properties.getHybrid().setMaxUnsyncedHits(5);
+        RateLimiterProperties.Policy search = new RateLimiterProperties.Policy();
+        search.setName("search");
+        search.setLimit(10);
+        search.setWindow(Duration.ofSeconds(30));
+        RateLimitPolicy policy = RateLimitPolicy.of(search);
+        RateLimiterService service = new RateLimiterService(properties, redisTemplate);
+        try {
+            assertThat(service.consume("client", policy, 5).remainingTokens()).isEqualTo(5);
+            assertThat(service.consume("client", policy, 5).remainingTokens()).isZero();
+            assertThat(service.consume("client", policy, 1).allowed()).isFalse();
+
+            assertThat(service.consume("client").allowed()).isTrue();
+            assertThat(redisTemplate.getExpire("ratelimit:search:client", TimeUnit.MILLISECONDS))
+                    .isPositive().isLessThanOrEqualTo(Duration.ofSeconds(30).toMillis());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void hybridModeAnswersLocallyBetweenSyncs() {
+        properties.setRequestsPerMinute(100);
+        properties.setMode(Mode.HYBRID);
+        properties.getHybrid().setSyncInterval(Duration.ofHours(1));
+        properties.getHybrid().setMaxUnsyncedHits(10);
+        RateLimiterService hybrid = new RateLimiterService(properties, redisTemplate);
+        try {
+            for (int i = 0; i < 9; i++) {
+                assertThat(hybrid.consume("client").allowed()).isTrue();
+            }
+            assertThat(scriptCalls()).isEqualTo(1);
+            assertThat(redisTemplate.opsForValue().get("ratelimit:client")).isNull();
+
+            RateLimitResult tenth = hybrid.consume("client");
+
+            assertThat(tenth.remainingTokens()).isEqualTo(90);
+            assertThat(scriptCalls()).isEqualTo(2);
+            assertThat(redisTemplate.opsForValue().get("ratelimit:client")).isEqualTo("10");
+            assertThat(redisTemplate.getExpire("ratelimit:client", TimeUnit.MILLISECONDS)).isPositive();
+        } finally {
+            hybrid.shutdown();
+        }
+    }
+
+    @Test
+    void hybridModeFlushesUnsyncedHitsInTheBackground() throws InterruptedException {
+        properties.setMode(Mode.HYBRID);
+        properties.getHybrid().setSyncInterval(Duration.ofMillis(20));
+        RateLimiterService hybrid = new RateLimiterService(properties, redisTemplate);
+        try {
+            hybrid.consume("client");
+            hybrid.consume("client");
+            hybrid.consume("client");
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!"3".equals(redisTemplate.opsForValue().get("ratelimit:client")) && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(redisTemplate.opsForValue().get("ratelimit:client")).isEqualTo("3");
+        } finally {
+            hybrid.shutdown();
+        }
+    }
+
+    /**
+     * Four simulated gateway instances share one budget. Exact mode never overshoots but pays a round trip per
+     * admitted request, plus the refusal each instance then remembers; hybrid mode overshoots by at most
+     * {@code maxUnsyncedHits} per instance for a fraction of the traffic.
+     */
+    @Test
+    void hybridModeTradesBoundedOvershootForFewerRoundTrips() throws Exception {
+        int instances = 4;
+        int attemptsPerInstance = 500;
+        long limit = 1_000;
+        int maxUnsyncedHits = 20;
+        properties.setRequestsPerMinute(limit);
+        properties.getHybrid().setMaxUnsyncedHits(maxUnsyncedHits);
+
+        properties.setMode(Mode.EXACT);
+        long exactAdmitted = runInstances(instances, attemptsPerInstance);
+        long exactRoundTrips = scriptCalls();
+
+        setUp();
+        properties.setRequestsPerMinute(limit);
+        properties.getHybrid().setMaxUnsyncedHits(maxUnsyncedHits);
+        properties.setMode(Mode.HYBRID);
+        long hybridAdmitted = runInstances(instances, attemptsPerInstance);
+        long hybridRoundTrips = scriptCalls();
+
+        assertThat(exactAdmitted).isEqualTo(limit);
+        assertThat(exactRoundTrips).isBetween(limit + 1, limit + instances);
+        assertThat(hybridAdmitted).isBetween(limit, limit + (long) instances * maxUnsyncedHits);
+        assertThat(hybridRoundTrips).isLessThan((long) instances * attemptsPerInstance / 10);
+    }
+
+    private long runInstances(int instances, int attemptsPerInstance) throws Exception {
+        List<RateLimiterService> gateways = new ArrayList<>();
+        for (int i = 0; i < instances; i++) {
+            gateways.add(new RateLimiterService(properties, redisTemplate));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(instances);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Long>> admitted = new ArrayList<>();
+            for (RateLimiterService gateway : gateways) {
+                admitted.add(executor.submit(() -> {
+                    start.await();
+                    long count = 0;
+                    for (int i = 0; i < attemptsPerInstance; i++) {
+                        if (gateway.consume("shared").allowed()) {
+                            count++;
+                        }
+                    }
+                    return count;
+                }));
+            }
+            start.countDown();
+            long total = 0;
+            for (Future<Long> future : admitted) {
+                total += future.get(30, TimeUnit.SECONDS);
+            }
+            return total;
+        } finally {
+            executor.shutdownNow();
+            gateways.forEach(RateLimiterService::shutdown);
+        }
+    }
+
+    private static byte[] read(String script) {
+        try {
+            return new ClassPathResource("scripts/rate-limit/" + script).getContentAsByteArray();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Script round trips since the last reset. Scripts are preloaded in {@link #setUp()}, so every call is one
+     * {@code EVALSHA} and none is a {@code NOSCRIPT} retry.
+     */
+    private static long scriptCalls() {
+        Properties stats = redisTemplate.execute(
+                (RedisCallback<Properties>) connection -> connection.serverCommands().info("commandstats"));
+        return calls(stats, "cmdstat_evalsha") + calls(stats, "cmdstat_eval");
+    }
+
+    private static long calls(Properties stats, String command) {
+        String value = stats == null ? null : stats.getProperty(command);
+        if (value == null) {
+            return 0;
+        }
+        String calls = value.substring(value.indexOf("calls=") + 6);
+        return Long.parseLong(calls.substring(0, calls.indexOf(',')));
+    }
+}
@@ -1,25 +1,30 @@
 package com.gdn.training.api_gateway.security;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import java.time.Duration;
-import java.util.concurrent.TimeUnit;
+import java.util.List;
 
 import com.gdn.training.api_gateway.config.RateLimiterProperties;
+import com.gdn.training.api_gateway.config.RateLimiterProperties.Algorithm;
+import com.gdn.training.api_gateway.config.RateLimiterProperties.Mode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.dao.DataAccessException;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 
 @ExtendWith(MockitoExtension.class)
 class RateLimiterServiceTest {
@@ -30,85 +35,158 @@ class RateLimiterServiceTest {
     @Mock
     private StringRedisTemplate redisTemplate;
 
-    @Mock
-    private ValueOperations<String, String> valueOperations;
-
+    private RateLimiterProperties properties;
     private RateLimiterService rateLimiterService;
 
     @BeforeEach
     void setUp() {
-        RateLimiterProperties properties = new RateLimiterProperties();
+        properties = new RateLimiterProperties();
         properties.setRequestsPerMinute(2);
 
-        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
-
         rateLimiterService = new RateLimiterService(properties, redisTemplate);
     }
 
     @Test
     void consumesTokensWhileWithinLimit() {
-        when(valueOperations.increment(REDIS_KEY)).thenReturn(1L, 2L);
-        when(redisTemplate.getExpire(eq(REDIS_KEY), eq(TimeUnit.MILLISECONDS)))
-                .thenReturn(50_000L, 40_000L);
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of(REDIS_KEY)), eq("2"), eq("60000"), eq("1")))
+                .thenReturn(List.of(1L, 1L, 50_000L), List.of(1L, 0L, 40_000L));
 
         RateLimitResult first = rateLimiterService.consume(CLIENT_KEY);
         RateLimitResult second = rateLimiterService.consume(CLIENT_KEY);
 
         assertThat(first.allowed()).isTrue();
         assertThat(first.remainingTokens()).isEqualTo(1);
-        assertThat(first.nanosToReset()).isGreaterThan(0);
+        assertThat(first.nanosToReset()).isEqualTo(Duration.ofSeconds(50).toNanos());
 
         assertThat(second.allowed()).isTrue();
         assertThat(second.remainingTokens()).isZero();
-        assertThat(second.nanosToReset()).isGreaterThan(0);
-
-        verify(redisTemplate, times(1)).expire(eq(REDIS_KEY), eq(Duration.ofMinutes(1)));
+        assertThat(second.nanosToReset()).isEqualTo(Duration.ofSeconds(40).toNanos());
     }
 
     @Test
-    void rejectsWhenLimitExceeded() {
-        when(valueOperations.increment(REDIS_KEY)).thenReturn(1L, 2L, 3L);
-        when(redisTemplate.getExpire(eq(REDIS_KEY), eq(TimeUnit.MILLISECONDS)))
-                .thenReturn(50_000L);
+    void rejectsWhenLimitExceededInASingleRoundTrip() {
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of(REDIS_KEY)), anyString(), anyString(), anyString()))
+                .thenReturn(List.of(0L, 0L, 30_000L));
 
-        rateLimiterService.consume(CLIENT_KEY);
-        rateLimiterService.consume(CLIENT_KEY);
         RateLimitResult blocked = rateLimiterService.consume(CLIENT_KEY);
 
         assertThat(blocked.allowed()).isFalse();
         assertThat(blocked.remainingTokens()).isZero();
-        assertThat(blocked.nanosToReset()).isGreaterThan(0);
+        assertThat(blocked.nanosToReset()).isEqualTo(Duration.ofSeconds(30).toNanos());
 
-        verify(redisTemplate, times(3))
-                .getExpire(eq(REDIS_KEY), eq(TimeUnit.MILLISECONDS));
-        verify(redisTemplate, times(1))
-                .expire(eq(REDIS_KEY), eq(Duration.ofMinutes(1)));
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), eq(List.of(REDIS_KEY)), anyString(), anyString(), anyString());
+        verifyNoMoreInteractions(redisTemplate);
     }
 
     @Test
-    void fallsBackToFullWindowWhenTtlNotAvailable() {
-        when(valueOperations.increment(REDIS_KEY)).thenReturn(1L);
-        when(redisTemplate.getExpire(eq(REDIS_KEY), eq(TimeUnit.MILLISECONDS)))
-                .thenReturn(null);
+    void usesSeparateKeysAndScriptsPerAlgorithm() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyString(), anyString(), anyString()))
+                .thenReturn(List.of(1L, 1L, 1_000L));
+
+        rateLimiterService.consume(CLIENT_KEY);
+        properties.setAlgorithm(Algorithm.SLIDING_WINDOW_LOG);
+        rateLimiterService.consume(CLIENT_KEY);
+        properties.setAlgorithm(Algorithm.TOKEN_BUCKET);
+        rateLimiterService.consume(CLIENT_KEY);
 
-        RateLimitResult result = rateLimiterService.consume(CLIENT_KEY);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<RedisScript<List<Long>>> scripts = ArgumentCaptor.forClass(RedisScript.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        verify(redisTemplate, times(3)).execute(scripts.capture(), keys.capture(), anyString(), anyString(), anyString());
+
+        assertThat(keys.getAllValues()).containsExactly(
+                List.of(REDIS_KEY), List.of("ratelimit:log:" + CLIENT_KEY), List.of("ratelimit:gcra:" + CLIENT_KEY));
+        assertThat(scripts.getAllValues()).extracting(RedisScript::getSha1).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void passesPolicyWindowAndCostToTheScriptUnderAPolicyScopedKey() {
+        RateLimiterProperties.Policy search = new RateLimiterProperties.Policy();
+        search.setName("search");
+        search.setLimit(30);
+        search.setWindow(Duration.ofSeconds(10));
+        RateLimitPolicy policy = RateLimitPolicy.of(search);
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of("ratelimit:search:" + CLIENT_KEY)), eq("30"),
+                eq("10000"), eq("5")))
+                .thenReturn(List.of(1L, 25L, 10_000L));
+
+        RateLimitResult result = rateLimiterService.consume(CLIENT_KEY, policy, 5);
 
         assertThat(result.allowed()).isTrue();
-        assertThat(result.remainingTokens()).isEqualTo(1);
-        assertThat(result.nanosToReset())
-                .isEqualTo(Duration.ofMinutes(1).toNanos());
+        assertThat(result.remainingTokens()).isEqualTo(25);
+    }
 
-        verify(redisTemplate, times(1)).expire(eq(REDIS_KEY), eq(Duration.ofMinutes(1)));
+    @Test
+    void fallsBackToInMemoryLimitWhenRedisThrows() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyString(), anyString(), anyString()))
+                .thenThrow(new RedisSystemException("Redis down", new RuntimeException()));
+
+        RateLimitResult first = rateLimiterService.consume(CLIENT_KEY);
+        RateLimitResult second = rateLimiterService.consume(CLIENT_KEY);
+        RateLimitResult third = rateLimiterService.consume(CLIENT_KEY);
+
+        assertThat(first.allowed()).isTrue();
+        assertThat(first.remainingTokens()).isEqualTo(1);
+        assertThat(second.allowed()).isTrue();
+        assertThat(third.allowed()).isFalse();
+        assertThat(third.nanosToReset()).isPositive();
     }
 
     @Test
-    void failsOpenWhenRedisThrowsException() {
-        when(redisTemplate.opsForValue())
+    void skipsRedisOnceCircuitOpens() {
+        properties.getFallback().setFailureThreshold(2);
+        RateLimiterService service = new RateLimiterService(properties, redisTemplate);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyString(), anyString(), anyString()))
                 .thenThrow(new RedisSystemException("Redis down", new RuntimeException()));
 
-        RateLimitResult result = rateLimiterService.consume(CLIENT_KEY);
+        assertThat(service.status().backend()).isEqualTo("redis");
+        service.consume("a");
+        service.consume("b");
+        service.consume("c");
+        service.consume("d");
+
+        verify(redisTemplate, times(2)).execute(any(RedisScript.class), anyList(), anyString(), anyString(), anyString());
+        assertThat(service.status().backend()).isEqualTo("in-memory");
+        assertThat(service.status().circuit()).isEqualTo("open");
+        assertThat(service.status().openedAt()).isNotNull();
+        service.shutdown();
+    }
 
-        assertThat(result.allowed()).isTrue();
-        assertThat(result.remainingTokens()).isEqualTo(2);
+    @Test
+    void hybridModeStopsSyncingOnceCircuitOpens() {
+        properties.setMode(Mode.HYBRID);
+        properties.getHybrid().setSyncInterval(Duration.ofHours(1));
+        properties.getFallback().setFailureThreshold(2);
+        RateLimiterService service = new RateLimiterService(properties, redisTemplate);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyString(), anyString()))
+                .thenThrow(new RedisSystemException("Redis down", new RuntimeException()));
+
+        service.consume("a");
+        service.consume("b");
+        RateLimitResult afterOpening = service.consume("c");
+        service.consume("d");
+
+        assertThat(afterOpening.allowed()).isTrue();
+        verify(redisTemplate, times(2)).execute(any(RedisScript.class), anyList(), anyString(), anyString());
+        assertThat(service.status().circuit()).isEqualTo("open");
+        service.shutdown();
+    }
+
+    @Test
+    void hybridModeBoundsTheKeysItCounts() {
+        properties.setMode(Mode.HYBRID);
+        properties.getHybrid().setSyncInterval(Duration.ofHours(1));
+        properties.getHybrid().setMaxKeys(10);
+        RateLimiterService service = new RateLimiterService(properties, redisTemplate);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyString(), anyString()))
+                .thenReturn(List.of(1L, 60_000L));
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(service.consume("client-" + i).allowed()).isTrue();
+        }
+
+        assertThat(service.status().hybridKeys()).isPositive().isLessThanOrEqualTo(10);
+        service.shutdown();
     }
 }
@@ -0,0 +1,167 @@
+package com.gdn.training.api_gateway.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.server.mvc.config.GatewayMvcProperties;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.gdn.training.api_gateway.config.RateLimiterProperties;
+import com.gdn.training.api_gateway.config.SecurityProperties;
+import com.gdn.training.api_gateway.config.StageLatencyProperties;
+import com.gdn.training.api_gateway.metrics.StageLatency;
+
+import jakarta.servlet.http.Cookie;
+import redis.embedded.RedisServer;
+
+/**
+ * Drives anonymous traffic through the filter into a real Redis, to show what it costs the limiter.
+ */
+class RateLimitingFilterIntegrationTest {
+
+    private static final long LIMIT = 60;
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private RateLimiterProperties properties;
+    private RateLimiterService rateLimiterService;
+    private RateLimitingFilter filter;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            connection.serverCommands().resetConfigStats();
+            return null;
+        }, true);
+        SecurityContextHolder.clearContext();
+
+        properties = new RateLimiterProperties();
+        properties.setRequestsPerMinute(LIMIT);
+        properties.getAnonymous().setTrustedProxies(List.of("10.0.0.0/8"));
+        ObjectProvider<GatewayMvcProperties> noGateway = mock(ObjectProvider.class);
+        StageLatencyProperties stageLatencyProperties = new StageLatencyProperties();
+        stageLatencyProperties.setEnabled(false);
+
+        rateLimiterService = new RateLimiterService(properties, redisTemplate);
+        filter = new RateLimitingFilter(properties, rateLimiterService,
+                new PathClassifier(new SecurityProperties(), properties),
+                new RateLimitPolicyResolver(properties, noGateway),
+                new AnonymousClientResolver(properties),
+                new StageLatency(stageLatencyProperties, noGateway));
+    }
+
+    @AfterEach
+    void tearDown() {
+        rateLimiterService.shutdown();
+    }
+
+    /**
+     * Clients that never send the cookie back used to get a fresh key, and a fresh budget, on every request. They are
+     * now counted by address: the keyspace stays at one key per client, and once a client is over its limit the
+     * gateway refuses it without asking Redis again.
+     */
+    @Test
+    void cookielessFloodIsBoundedByClientAddresses() throws Exception {
+        int clients = 100;
+        int requests = 100_000;
+
+        long admitted = 0;
+        for (int i = 0; i < requests; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products");
+            request.setRemoteAddr("10.0.0.2");
+            request.addHeader(AnonymousClientResolver.FORWARDED_FOR, "198.51.100." + (i % clients));
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            filter.doFilter(request, response, (req, res) -> { });
+
+            if (response.getStatus() == 200) {
+                admitted++;
+            }
+        }
+
+        assertThat(redisTemplate.keys("ratelimit:*")).hasSize(clients);
+        assertThat(admitted).isEqualTo(clients * LIMIT);
+        assertThat(scriptCalls()).isLessThan(requests / 10);
+        assertThat(rateLimiterService.status().blockedKeys()).isEqualTo(clients);
+    }
+
+    @Test
+    void cookieRefinesTheAddressBudget() throws Exception {
+        int limited = 0;
+        for (int i = 0; i < LIMIT + 1; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products");
+            request.setRemoteAddr("203.0.113.7");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, (req, res) -> { });
+            if (response.getStatus() == 429) {
+                limited++;
+            }
+        }
+        MockHttpServletRequest withCookie = new MockHttpServletRequest("GET", "/products");
+        withCookie.setRemoteAddr("203.0.113.7");
+        withCookie.setCookies(new Cookie("ANON_CLIENT_ID", "browser-1"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(withCookie, response, (req, res) -> { });
+
+        assertThat(limited).isEqualTo(1);
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getCookie("ANON_CLIENT_ID")).isNull();
+    }
+
+    private static long scriptCalls() {
+        Properties stats = redisTemplate.execute(
+                (RedisCallback<Properties>) connection -> connection.serverCommands().info("commandstats"));
+        return calls(stats, "cmdstat_evalsha") + calls(stats, "cmdstat_eval");
+    }
+
+    private static long calls(Properties stats, String command) {
+        String value = stats == null ? null : stats.getProperty(command);
+        if (value == null) {
+            return 0;
+        }
+        String calls = value.substring(value.indexOf("calls=") + 6);
+        return Long.parseLong(calls.substring(0, calls.indexOf(',')));
+    }
+}
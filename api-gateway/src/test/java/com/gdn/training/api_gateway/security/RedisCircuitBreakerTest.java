@@ -0,0 +1,101 @@
+package com.gdn.training.api_gateway.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.gdn.training.api_gateway.config.RateLimiterProperties;
+import com.gdn.training.api_gateway.security.RedisCircuitBreaker.State;
+
+@ExtendWith(MockitoExtension.class)
+class RedisCircuitBreakerTest {
+
+    private static final RedisConnectionFailureException FAILURE = new RedisConnectionFailureException("Redis down");
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private RedisCircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        RateLimiterProperties.Fallback properties = new RateLimiterProperties.Fallback();
+        properties.setFailureThreshold(2);
+        properties.setProbeInterval(Duration.ofHours(1));
+        circuitBreaker = new RedisCircuitBreaker(redisTemplate, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        circuitBreaker.close();
+    }
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        circuitBreaker.recordFailure(FAILURE);
+        assertThat(circuitBreaker.allowsRedis()).isTrue();
+
+        circuitBreaker.recordFailure(FAILURE);
+
+        assertThat(circuitBreaker.allowsRedis()).isFalse();
+        assertThat(circuitBreaker.state()).isEqualTo(State.OPEN);
+        assertThat(circuitBreaker.openedAt()).isNotNull();
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        circuitBreaker.recordFailure(FAILURE);
+        circuitBreaker.recordSuccess();
+        circuitBreaker.recordFailure(FAILURE);
+
+        assertThat(circuitBreaker.allowsRedis()).isTrue();
+        assertThat(circuitBreaker.consecutiveFailures()).isEqualTo(1);
+    }
+
+    @Test
+    void staysOpenUntilAProbeSucceeds() {
+        circuitBreaker.recordFailure(FAILURE);
+        circuitBreaker.recordFailure(FAILURE);
+        when(redisTemplate.execute(any(RedisCallback.class))).thenThrow(FAILURE).thenReturn("PONG");
+
+        circuitBreaker.probe();
+        assertThat(circuitBreaker.state()).isEqualTo(State.OPEN);
+
+        circuitBreaker.probe();
+        assertThat(circuitBreaker.state()).isEqualTo(State.CLOSED);
+        assertThat(circuitBreaker.consecutiveFailures()).isZero();
+        assertThat(circuitBreaker.openedAt()).isNull();
+    }
+
+    @Test
+    void probesInTheBackgroundWhileOpen() throws InterruptedException {
+        RateLimiterProperties.Fallback properties = new RateLimiterProperties.Fallback();
+        properties.setFailureThreshold(1);
+        properties.setProbeInterval(Duration.ofMillis(10));
+        RedisCircuitBreaker fastProbing = new RedisCircuitBreaker(redisTemplate, properties);
+        when(redisTemplate.execute(any(RedisCallback.class))).thenReturn("PONG");
+        try {
+            fastProbing.recordFailure(FAILURE);
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (!fastProbing.allowsRedis() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(fastProbing.allowsRedis()).isTrue();
+        } finally {
+            fastProbing.close();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.gdn.training.api_gateway.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.gdn.training.api_gateway.config.RefreshTokenProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import redis.embedded.RedisServer;
+
+/**
+ * Runs the refresh token scripts against a real Redis so rotation and reuse detection are exercised end to end.
+ */
+class RefreshTokenServiceIntegrationTest {
+
+    private static final Map<String, Object> CLAIMS = Map.of("email", "user@example.com", "role", "ROLE_USER");
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+        meterRegistry = new SimpleMeterRegistry();
+        RefreshTokenProperties properties = new RefreshTokenProperties();
+        properties.setTtl(Duration.ofHours(1));
+        refreshTokenService = new RefreshTokenService(redisTemplate, properties, meterRegistry);
+    }
+
+    @Test
+    void rotationReturnsTheSessionAndANewToken() {
+        String issued = refreshTokenService.issue("42", CLAIMS);
+
+        RefreshTokenService.Session session = refreshTokenService.rotate(issued).orElseThrow();
+
+        assertThat(session.subject()).isEqualTo("42");
+        assertThat(session.claims()).isEqualTo(CLAIMS);
+        assertThat(session.refreshToken()).isNotEqualTo(issued);
+        assertThat(refreshTokenService.rotate(session.refreshToken())).isPresent();
+        assertThat(outcome("rotated")).isEqualTo(2);
+    }
+
+    @Test
+    void reusingARotatedTokenRevokesTheWholeFamily() {
+        String stolen = refreshTokenService.issue("42", CLAIMS);
+        String current = refreshTokenService.rotate(stolen).orElseThrow().refreshToken();
+
+        assertThat(refreshTokenService.rotate(stolen)).isEmpty();
+        assertThat(refreshTokenService.rotate(current)).isEmpty();
+        assertThat(outcome("reused")).isEqualTo(1);
+        assertThat(outcome("unknown")).isEqualTo(1);
+    }
+
+    @Test
+    void familiesAreIndependent() {
+        String first = refreshTokenService.issue("42", CLAIMS);
+        String second = refreshTokenService.issue("42", CLAIMS);
+
+        refreshTokenService.rotate(first);
+        refreshTokenService.rotate(first);
+
+        assertThat(refreshTokenService.rotate(second)).isPresent();
+    }
+
+    @Test
+    void familyKeepsTheLoginTtlAcrossRotations() throws InterruptedException {
+        String issued = refreshTokenService.issue("42", CLAIMS);
+        String key = redisTemplate.keys(RefreshTokenService.KEY_PREFIX + "*").iterator().next();
+        long ttlAtLogin = redisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
+
+        Thread.sleep(20);
+        refreshTokenService.rotate(issued);
+
+        assertThat(ttlAtLogin).isPositive().isLessThanOrEqualTo(Duration.ofHours(1).toMillis());
+        assertThat(redisTemplate.getExpire(key, TimeUnit.MILLISECONDS)).isPositive().isLessThan(ttlAtLogin);
+    }
+
+    @Test
+    void storesOnlyTheHashOfTheToken() {
+        String issued = refreshTokenService.issue("42", CLAIMS);
+        String key = redisTemplate.keys(RefreshTokenService.KEY_PREFIX + "*").iterator().next();
+
+        assertThat(redisTemplate.opsForHash().values(key)).doesNotContain(issued.substring(issued.indexOf('.') + 1));
+    }
+
+    @Test
+    void revokeEndsTheFamily() {
+        String issued = refreshTokenService.issue("42", CLAIMS);
+
+        refreshTokenService.revoke(issued);
+
+        assertThat(refreshTokenService.rotate(issued)).isEmpty();
+    }
+
+    @Test
+    void malformedTokensAreRejectedWithoutTouchingRedis() {
+        assertThat(refreshTokenService.rotate(null)).isEmpty();
+        assertThat(refreshTokenService.rotate("not-a-token")).isEmpty();
+        assertThat(refreshTokenService.rotate("a".repeat(22) + "." + "*".repeat(43))).isEmpty();
+        assertThat(redisTemplate.keys("*")).isEmpty();
+        assertThat(outcome("unknown")).isEqualTo(3);
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.get("gateway.auth.refresh").tag("outcome", outcome).counter().count();
+    }
+}
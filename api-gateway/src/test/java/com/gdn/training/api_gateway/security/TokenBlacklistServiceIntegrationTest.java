@@ -0,0 +1,118 @@
+package com.gdn.training.api_gateway.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import redis.embedded.RedisServer;
+
+/**
+ * Runs the revocation epoch script against a real Redis; the near-cache is left unsynced so every lookup reads Redis.
+ */
+class TokenBlacklistServiceIntegrationTest {
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private TokenBlacklistService tokenBlacklistService;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+        tokenBlacklistService = new TokenBlacklistService(
+                redisTemplate, mock(RedisMessageListenerContainer.class), true, 15);
+    }
+
+    @Test
+    void epochsShareOneHashAndNeverMoveBack() {
+        Instant now = Instant.now();
+
+        tokenBlacklistService.revokeIssuedBefore("user-1", now);
+        tokenBlacklistService.revokeIssuedBefore("user-1", now.minusSeconds(60));
+        tokenBlacklistService.revokeIssuedBefore("user-2", now);
+
+        assertThat(redisTemplate.keys("*")).containsExactly(TokenBlacklistService.EPOCH_KEY);
+        assertThat(redisTemplate.opsForHash().get(TokenBlacklistService.EPOCH_KEY, "user-1"))
+                .isEqualTo(String.valueOf(now.toEpochMilli()));
+    }
+
+    @Test
+    void loggingInAgainInTheSecondOfALogoutIsNotRevoked() {
+        JwtService jwtService = new JwtService("ZmFrZXNlY3JldGtleWZha2VzZWNyZXRrZXkzMjMyMzIzMjMyMzIzMjMy", 15);
+        while (System.currentTimeMillis() % 1000 > 900) {
+            Thread.onSpinWait();
+        }
+        VerifiedClaims beforeLogout = issue(jwtService);
+        Instant loggedOutAt = Instant.now();
+        tokenBlacklistService.revokeIssuedBefore("user-1", loggedOutAt);
+        while (System.currentTimeMillis() <= loggedOutAt.toEpochMilli()) {
+            Thread.onSpinWait();
+        }
+        VerifiedClaims afterLogin = issue(jwtService);
+
+        assertThat(afterLogin.issuedAt().getEpochSecond()).isEqualTo(loggedOutAt.getEpochSecond());
+        assertThat(tokenBlacklistService.isRevoked(beforeLogout)).isTrue();
+        assertThat(tokenBlacklistService.isRevoked(afterLogin)).isFalse();
+    }
+
+    private static VerifiedClaims issue(JwtService jwtService) {
+        return VerifiedClaims.from(jwtService.parseToken(jwtService.generateToken("user-1", Map.of())));
+    }
+
+    @Test
+    void otherInstancesSeeTheEpochInRedis() {
+        Instant now = Instant.now();
+        tokenBlacklistService.revokeIssuedBefore("user-1", now);
+
+        TokenBlacklistService otherInstance = new TokenBlacklistService(
+                redisTemplate, mock(RedisMessageListenerContainer.class), true, 15);
+
+        assertThat(otherInstance.isRevoked(claims("user-1", now.minusSeconds(30)))).isTrue();
+        assertThat(otherInstance.isRevoked(claims("user-1", now.plusSeconds(1)))).isFalse();
+        assertThat(otherInstance.isRevoked(claims("user-2", now.minusSeconds(30)))).isFalse();
+    }
+
+    private static VerifiedClaims claims(String userId, Instant issuedAt) {
+        return new VerifiedClaims(userId, "ROLE_USER", "jti-" + issuedAt, issuedAt,
+                issuedAt.plus(Duration.ofMinutes(15)));
+    }
+}
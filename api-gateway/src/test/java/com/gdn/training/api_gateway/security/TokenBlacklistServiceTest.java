@@ -3,16 +3,27 @@ package com.gdn.training.api_gateway.security;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,21 +35,36 @@ class TokenBlacklistServiceTest {
     @Mock
     private ValueOperations<String, String> valueOperations;
 
-    @InjectMocks
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private Cursor<String> cursor;
+
+    @Mock
+    private Cursor<Map.Entry<Object, Object>> epochCursor;
+
     private TokenBlacklistService tokenBlacklistService;
 
     @BeforeEach
     void setUp() {
         lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+        lenient().when(hashOperations.scan(eq(TokenBlacklistService.EPOCH_KEY), any())).thenReturn(epochCursor);
+        tokenBlacklistService = new TokenBlacklistService(redisTemplate, listenerContainer, true, 15);
     }
 
     @Test
-    void blacklistStoresKeyWhenTtlPositive() {
+    void blacklistStoresKeyAndBroadcastsRevocation() {
         Duration ttl = Duration.ofMinutes(5);
 
         tokenBlacklistService.blacklist("jwt-123", ttl);
 
-        verify(valueOperations).set(eq("jwt:blacklist:jwt-123"), eq("1"), eq(ttl));
+        verify(valueOperations).set(eq("jwt:blacklist:jwt-123"), any(), eq(ttl));
+        verify(redisTemplate).convertAndSend(eq(TokenBlacklistService.CHANNEL), startsWith("jwt-123|"));
     }
 
     @Test
@@ -47,20 +73,204 @@ class TokenBlacklistServiceTest {
         tokenBlacklistService.blacklist("id", Duration.ZERO);
 
         verify(valueOperations, never()).set(any(), any(), any());
+        verify(redisTemplate, never()).convertAndSend(any(), any());
     }
 
     @Test
-    void isBlacklistedReturnsTrueWhenKeyExists() {
-        when(redisTemplate.hasKey("jwt:blacklist:jwt-1")).thenReturn(true);
+    void isBlacklistedAnswersLocallyForKnownRevocation() {
+        tokenBlacklistService.blacklist("jwt-1", Duration.ofMinutes(5));
 
         assertThat(tokenBlacklistService.isBlacklisted("jwt-1")).isTrue();
+        verify(redisTemplate, never()).hasKey(any());
     }
 
     @Test
-    void isBlacklistedReturnsFalseWhenKeyMissing() {
+    void isBlacklistedFallsBackToRedisBeforeSync() {
+        when(redisTemplate.hasKey("jwt:blacklist:jwt-1")).thenReturn(true);
         when(redisTemplate.hasKey("jwt:blacklist:jwt-2")).thenReturn(false);
 
+        assertThat(tokenBlacklistService.isSynced()).isFalse();
+        assertThat(tokenBlacklistService.isBlacklisted("jwt-1")).isTrue();
         assertThat(tokenBlacklistService.isBlacklisted("jwt-2")).isFalse();
     }
-}
 
+    @Test
+    void isBlacklistedSkipsRedisOnceSynced() {
+        seedSnapshot("jwt:blacklist:jwt-old", String.valueOf(System.currentTimeMillis() + 60_000));
+
+        tokenBlacklistService.onChannelSubscribed(TokenBlacklistService.CHANNEL.getBytes(StandardCharsets.UTF_8), 1);
+
+        assertThat(tokenBlacklistService.isSynced()).isTrue();
+        assertThat(tokenBlacklistService.isBlacklisted("jwt-old")).isTrue();
+        assertThat(tokenBlacklistService.isBlacklisted("jwt-unknown")).isFalse();
+        verify(redisTemplate, never()).hasKey(any());
+    }
+
+    @Test
+    void appliesRevocationsBroadcastByOtherInstances() {
+        long expiresAt = System.currentTimeMillis() + 60_000;
+
+        tokenBlacklistService.onMessage(message("jwt-remote|" + expiresAt), null);
+
+        assertThat(tokenBlacklistService.isBlacklisted("jwt-remote")).isTrue();
+        verify(redisTemplate, never()).hasKey(any());
+    }
+
+    @Test
+    void seedsLegacyEntriesFromTheirRedisTtl() {
+        seedSnapshot("jwt:blacklist:jwt-legacy", "1");
+        when(redisTemplate.getExpire(eq("jwt:blacklist:jwt-legacy"), eq(TimeUnit.MILLISECONDS))).thenReturn(60_000L);
+
+        tokenBlacklistService.onChannelSubscribed(TokenBlacklistService.CHANNEL.getBytes(StandardCharsets.UTF_8), 1);
+
+        assertThat(tokenBlacklistService.isBlacklisted("jwt-legacy")).isTrue();
+    }
+
+    @Test
+    void ignoresExpiredRevocations() {
+        seedSnapshot("jwt:blacklist:jwt-old", String.valueOf(System.currentTimeMillis() - 1));
+        tokenBlacklistService.onChannelSubscribed(TokenBlacklistService.CHANNEL.getBytes(StandardCharsets.UTF_8), 1);
+
+        tokenBlacklistService.onMessage(message("jwt-expired|" + (System.currentTimeMillis() - 1)), null);
+
+        assertThat(tokenBlacklistService.isBlacklisted("jwt-expired")).isFalse();
+        assertThat(tokenBlacklistService.isBlacklisted("jwt-old")).isFalse();
+    }
+
+    @Test
+    void fallsBackToRedisAfterSubscriptionLost() {
+        seedSnapshot("jwt:blacklist:jwt-old", String.valueOf(System.currentTimeMillis() + 60_000));
+        tokenBlacklistService.onChannelSubscribed(TokenBlacklistService.CHANNEL.getBytes(StandardCharsets.UTF_8), 1);
+
+        tokenBlacklistService.onChannelUnsubscribed(TokenBlacklistService.CHANNEL.getBytes(StandardCharsets.UTF_8), 0);
+        when(redisTemplate.hasKey("jwt:blacklist:jwt-2")).thenReturn(true);
+
+        assertThat(tokenBlacklistService.isSynced()).isFalse();
+        assertThat(tokenBlacklistService.isBlacklisted("jwt-2")).isTrue();
+    }
+
+    @Test
+    void failsOpenWhenRedisUnreachable() {
+        when(redisTemplate.hasKey(any())).thenThrow(new RedisConnectionFailureException("Redis down"));
+
+        assertThat(tokenBlacklistService.isBlacklisted("jwt-1")).isFalse();
+    }
+
+    @Test
+    void failsClosedWhenConfigured() {
+        TokenBlacklistService failClosed = new TokenBlacklistService(redisTemplate, listenerContainer, false, 15);
+        when(redisTemplate.hasKey(any())).thenThrow(new RedisConnectionFailureException("Redis down"));
+
+        assertThat(failClosed.isBlacklisted("jwt-1")).isTrue();
+    }
+
+    @Test
+    void revokeIssuedBeforeRaisesEpochAndBroadcastsIt() {
+        Instant revokedAt = Instant.now();
+
+        tokenBlacklistService.revokeIssuedBefore("user-1", revokedAt);
+
+        verify(redisTemplate).execute(any(), eq(List.of(TokenBlacklistService.EPOCH_KEY)),
+                eq("user-1"), eq(String.valueOf(revokedAt.toEpochMilli())));
+        verify(redisTemplate).convertAndSend(TokenBlacklistService.CHANNEL,
+                "user:user-1|" + revokedAt.toEpochMilli());
+    }
+
+    @Test
+    void epochRevokesTokensIssuedUpToItOnly() {
+        seedSnapshot();
+        tokenBlacklistService.onChannelSubscribed(TokenBlacklistService.CHANNEL.getBytes(StandardCharsets.UTF_8), 1);
+        Instant revokedAt = Instant.now();
+        tokenBlacklistService.revokeIssuedBefore("user-1", revokedAt);
+
+        assertThat(tokenBlacklistService.isRevoked(claims("user-1", "jti-old", revokedAt.minusSeconds(60)))).isTrue();
+        assertThat(tokenBlacklistService.isRevoked(claims("user-1", "jti-same", revokedAt))).isTrue();
+        assertThat(tokenBlacklistService.isRevoked(claims("user-1", "jti-new", revokedAt.plusMillis(1)))).isFalse();
+        verify(hashOperations, never()).get(any(), eq("user-1"));
+    }
+
+    @Test
+    void epochOfOneUserDoesNotRevokeOthers() {
+        seedSnapshot();
+        tokenBlacklistService.onChannelSubscribed(TokenBlacklistService.CHANNEL.getBytes(StandardCharsets.UTF_8), 1);
+        Instant revokedAt = Instant.now();
+
+        tokenBlacklistService.revokeIssuedBefore("user-1", revokedAt);
+
+        assertThat(tokenBlacklistService.isRevoked(claims("user-2", "jti-2", revokedAt.minusSeconds(60)))).isFalse();
+    }
+
+    @Test
+    void appliesEpochsBroadcastByOtherInstances() {
+        long epoch = Instant.now().toEpochMilli();
+
+        tokenBlacklistService.onMessage(message("user:user-1|" + epoch), null);
+
+        assertThat(tokenBlacklistService.isRevoked(claims("user-1", "jti-1", Instant.ofEpochMilli(epoch)))).isTrue();
+        assertThat(tokenBlacklistService.isRevoked(claims("user-1", "jti-2", Instant.ofEpochMilli(epoch + 1))))
+                .isFalse();
+        assertThat(tokenBlacklistService.isBlacklisted("user:user-1")).isFalse();
+    }
+
+    @Test
+    void isRevokedFallsBackToRedisEpochBeforeSync() {
+        long epoch = Instant.now().toEpochMilli();
+        when(hashOperations.get(TokenBlacklistService.EPOCH_KEY, "user-1")).thenReturn(String.valueOf(epoch));
+
+        assertThat(tokenBlacklistService.isRevoked(claims("user-1", "jti-1", Instant.ofEpochMilli(epoch)))).isTrue();
+        assertThat(tokenBlacklistService.isRevoked(claims("user-1", "jti-2", Instant.ofEpochMilli(epoch + 1))))
+                .isFalse();
+    }
+
+    @Test
+    void seedsEpochsAndDropsThoseOlderThanTheTokenLifetime() {
+        Instant now = Instant.now();
+        seedSnapshot();
+        when(epochCursor.hasNext()).thenReturn(true, true, false);
+        when(epochCursor.next()).thenReturn(
+                Map.entry("user-1", String.valueOf(now.minusSeconds(60).toEpochMilli())),
+                Map.entry("user-stale", String.valueOf(now.minus(Duration.ofMinutes(16)).toEpochMilli())));
+
+        tokenBlacklistService.onChannelSubscribed(TokenBlacklistService.CHANNEL.getBytes(StandardCharsets.UTF_8), 1);
+
+        assertThat(tokenBlacklistService.isRevoked(claims("user-1", "jti-1", now.minusSeconds(120)))).isTrue();
+        verify(hashOperations).delete(TokenBlacklistService.EPOCH_KEY, "user-stale");
+        verify(hashOperations, never()).get(any(), any());
+    }
+
+    @Test
+    void isRevokedStillHonoursJtiBlacklist() {
+        tokenBlacklistService.blacklist("jwt-1", Duration.ofMinutes(5));
+
+        assertThat(tokenBlacklistService.isRevoked(claims("user-1", "jwt-1", Instant.now()))).isTrue();
+    }
+
+    @Test
+    void epochLookupFailsClosedWhenConfigured() {
+        TokenBlacklistService failClosed = new TokenBlacklistService(redisTemplate, listenerContainer, false, 15);
+        when(hashOperations.get(any(), any())).thenThrow(new RedisConnectionFailureException("Redis down"));
+
+        assertThat(failClosed.isRevoked(claims("user-1", "jwt-1", Instant.now()))).isTrue();
+    }
+
+    private static VerifiedClaims claims(String userId, String jwtId, Instant issuedAt) {
+        return new VerifiedClaims(userId, "ROLE_USER", jwtId, issuedAt, issuedAt.plus(Duration.ofMinutes(15)));
+    }
+
+    private void seedSnapshot() {
+        when(redisTemplate.scan(any())).thenReturn(cursor);
+    }
+
+    private void seedSnapshot(String key, String value) {
+        when(redisTemplate.scan(any())).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, false);
+        when(cursor.next()).thenReturn(key);
+        when(valueOperations.multiGet(List.of(key))).thenReturn(List.of(value));
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(
+                TokenBlacklistService.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
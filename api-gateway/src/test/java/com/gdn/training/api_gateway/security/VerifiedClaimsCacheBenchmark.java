@@ -0,0 +1,63 @@
+package com.gdn.training.api_gateway.security;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Per-request authentication cost with and without {@link VerifiedClaimsCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VerifiedClaimsCacheBenchmark {
+
+    private static final String SECRET = "ZmFrZXNlY3JldGtleWZha2VzZWNyZXRrZXkzMjMyMzIzMjMyMzIzMjMy";
+
+    private JwtService jwtService;
+    private VerifiedClaimsCache cache;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(SECRET, 60);
+        cache = new VerifiedClaimsCache(jwtService, new SimpleMeterRegistry(), 10_000);
+        token = jwtService.generateToken("123456789", Map.of("email", "user@example.com", "role", "ROLE_USER"));
+    }
+
+    @Benchmark
+    public VerifiedClaims uncached() {
+        return VerifiedClaims.from(jwtService.parseToken(token));
+    }
+
+    @Benchmark
+    public VerifiedClaims cached() {
+        return cache.verify(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VerifiedClaimsCacheBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
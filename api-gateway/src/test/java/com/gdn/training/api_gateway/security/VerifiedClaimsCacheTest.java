@@ -0,0 +1,113 @@
+package com.gdn.training.api_gateway.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class VerifiedClaimsCacheTest {
+
+    private static final String SECRET = "ZmFrZXNlY3JldGtleWZha2VzZWNyZXRrZXkzMjMyMzIzMjMyMzIzMjMy";
+
+    private final AtomicLong ticker = new AtomicLong();
+    private final Clock clock = Clock.fixed(Instant.now(), ZoneOffset.UTC);
+
+    private JwtService jwtService;
+    private SimpleMeterRegistry meterRegistry;
+    private VerifiedClaimsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = spy(new JwtService(SECRET, 10));
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new VerifiedClaimsCache(jwtService, meterRegistry, 100, ticker::get, clock);
+    }
+
+    @Test
+    void verifiesTokenOnceAndServesRepeatsFromCache() {
+        String token = jwtService.generateToken("42", Map.of("role", "ROLE_USER"));
+
+        VerifiedClaims first = cache.verify(token);
+        VerifiedClaims second = cache.verify(token);
+
+        assertThat(first.subject()).isEqualTo("42");
+        assertThat(first.role()).isEqualTo("ROLE_USER");
+        assertThat(first.jwtId()).isNotBlank();
+        assertThat(second).isSameAs(first);
+        verify(jwtService, times(1)).parseToken(token);
+
+        assertThat(cacheGets("hit")).isEqualTo(1);
+        assertThat(cacheGets("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotCacheInvalidTokens() {
+        String token = jwtService.generateToken("42", Map.of());
+        String tampered = token.substring(0, token.length() - 2) + "xx";
+
+        assertThatThrownBy(() -> cache.verify(tampered)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> cache.verify(tampered)).isInstanceOf(JwtException.class);
+
+        verify(jwtService, times(2)).parseToken(tampered);
+        assertThat(cache.estimatedSize()).isZero();
+    }
+
+    @Test
+    void expiresEntriesAtTokenExpiry() {
+        String token = jwtService.generateToken("42", Map.of());
+        cache.verify(token);
+
+        ticker.addAndGet(Duration.ofMinutes(11).toNanos());
+        cache.verify(token);
+
+        verify(jwtService, times(2)).parseToken(token);
+    }
+
+    @Test
+    void tokenExpiryFollowsTheCacheTicker() {
+        String token = jwtService.generateToken("42", Map.of());
+        Instant expiresAt = cache.verify(token).expiresAt();
+        Duration lifetime = Duration.between(clock.instant(), expiresAt);
+
+        ticker.addAndGet(lifetime.minusSeconds(1).toNanos());
+        cache.verify(token);
+        verify(jwtService, times(1)).parseToken(token);
+
+        ticker.addAndGet(Duration.ofSeconds(2).toNanos());
+        cache.verify(token);
+        verify(jwtService, times(2)).parseToken(token);
+    }
+
+    @Test
+    void evictsBeyondMaximumSize() {
+        VerifiedClaimsCache small = new VerifiedClaimsCache(jwtService, new SimpleMeterRegistry(), 2, ticker::get, clock);
+
+        for (int i = 0; i < 10; i++) {
+            small.verify(jwtService.generateToken(String.valueOf(i), Map.of()));
+        }
+
+        assertThat(small.estimatedSize()).isLessThanOrEqualTo(2);
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", VerifiedClaimsCache.CACHE_NAME)
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+}
@@ -0,0 +1,157 @@
+package com.gdn.training.api_gateway.tracing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.gdn.training.common.tracing.RecentTraces;
+import com.sun.net.httpserver.HttpServer;
+
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import redis.embedded.RedisServer;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(metrics = false)
+@ActiveProfiles("test")
+class TracePropagationIntegrationTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String PARENT_SPAN_ID = "00f067aa0ba902b7";
+
+    private static final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    private static final HttpServer downstream = startDownstream();
+    private static final RedisServer redisServer = startRedis();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RecentTraces recentTraces;
+
+    @Autowired
+    private SdkTracerProvider tracerProvider;
+
+    @DynamicPropertySource
+    static void routes(DynamicPropertyRegistry registry) {
+        String uri = "http://localhost:" + downstream.getAddress().getPort();
+        registry.add("gateway.routes.product.uri", () -> uri);
+        registry.add("gateway.routes.member.uri", () -> uri);
+        registry.add("management.tracing.sampling.probability", () -> "0.0");
+        registry.add("spring.data.redis.port", () -> redisServer.ports().getFirst());
+    }
+
+    @AfterAll
+    static void stopServers() throws IOException {
+        downstream.stop(0);
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        tracerProvider.forceFlush().join(5, TimeUnit.SECONDS);
+        received.clear();
+        recentTraces.clear();
+    }
+
+    @Test
+    void proxyContinuesIncomingSampledTrace() throws Exception {
+        mockMvc.perform(get("/products/sampled").header("traceparent", traceparent("01")))
+                .andExpect(status().isOk());
+
+        String forwarded = received.poll(5, TimeUnit.SECONDS);
+        assertThat(forwarded).startsWith("00-" + TRACE_ID + "-").endsWith("-01");
+        assertThat(forwarded).doesNotContain(PARENT_SPAN_ID);
+
+        tracerProvider.forceFlush().join(5, TimeUnit.SECONDS);
+        assertThat(recentTraces.trace(TRACE_ID)).hasValueSatisfying(trace -> {
+            assertThat(trace.sampled()).isTrue();
+            assertThat(trace.spans()).extracting(RecentTraces.Span::kind).contains("SERVER", "CLIENT");
+        });
+    }
+
+    @Test
+    void proxyForwardsTheUnsampledDecision() throws Exception {
+        mockMvc.perform(get("/products/unsampled").header("traceparent", traceparent("00")))
+                .andExpect(status().isOk());
+
+        assertThat(received.poll(5, TimeUnit.SECONDS)).startsWith("00-" + TRACE_ID + "-").endsWith("-00");
+
+        tracerProvider.forceFlush().join(5, TimeUnit.SECONDS);
+        assertThat(recentTraces.trace(TRACE_ID)).as("fast unsampled traces are not retained").isEmpty();
+    }
+
+    @Test
+    void proxyStartsTraceWhenNoneIsIncoming() throws Exception {
+        mockMvc.perform(get("/products/untraced")).andExpect(status().isOk());
+
+        assertThat(received.poll(5, TimeUnit.SECONDS)).matches("00-[0-9a-f]{32}-[0-9a-f]{16}-00");
+    }
+
+    @Test
+    void memberClientContinuesTheRequestTrace() throws Exception {
+        mockMvc.perform(post("/auth/login")
+                .header("traceparent", traceparent("01"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"user@example.com\",\"password\":\"Secret123!\"}"));
+
+        assertThat(received.poll(5, TimeUnit.SECONDS)).startsWith("00-" + TRACE_ID + "-").endsWith("-01");
+    }
+
+    private static String traceparent(String flags) {
+        return "00-" + TRACE_ID + "-" + PARENT_SPAN_ID + "-" + flags;
+    }
+
+    private static HttpServer startDownstream() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/", exchange -> {
+                String traceparent = exchange.getRequestHeaders().getFirst("traceparent");
+                received.add(traceparent == null ? "" : traceparent);
+                byte[] body = "{\"success\":true}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static RedisServer startRedis() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            RedisServer server = new RedisServer(socket.getLocalPort());
+            socket.close();
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
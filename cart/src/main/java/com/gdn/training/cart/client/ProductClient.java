@@ -34,15 +34,17 @@ public class ProductClient {
     public ProductDTO getProductById(String productId) {
         ServiceClientConfig config = serviceClientsProperties.getRequired("product");
         String detailEndpoint = config.getEndpoints().get("detail");
-        String url = config.getBaseUrl() + detailEndpoint.replace("{id}", productId);
+        // Expanded by the RestTemplate so client spans and metrics are named after the template, not the product id.
+        String url = config.getBaseUrl() + detailEndpoint;
 
-        log.debug("Calling Product Service URL: {}", url);
+        log.debug("Calling Product Service URL: {} for product {}", url, productId);
 
         ResponseEntity<BaseResponse<ProductDTO>> response = restTemplate.exchange(
                 url,
                 HttpMethod.GET,
                 null,
-                new ParameterizedTypeReference<BaseResponse<ProductDTO>>() {}
+                new ParameterizedTypeReference<BaseResponse<ProductDTO>>() {},
+                productId
         );
 
         log.debug("Response received from Product Service: status={}, body={}",
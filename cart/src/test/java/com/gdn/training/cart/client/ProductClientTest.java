@@ -72,7 +72,8 @@ class ProductClientTest {
                 anyString(),
                 eq(HttpMethod.GET),
                 isNull(),
-                any(ParameterizedTypeReference.class)
+                any(ParameterizedTypeReference.class),
+                eq("product-1")
         )).thenReturn(response);
 
         ProductDTO result = productClient.getProductById("product-1");
@@ -87,9 +88,10 @@ class ProductClientTest {
                 urlCaptor.capture(),
                 eq(HttpMethod.GET),
                 isNull(),
-                any(ParameterizedTypeReference.class)
+                any(ParameterizedTypeReference.class),
+                eq("product-1")
         );
-        assertThat(urlCaptor.getValue()).contains("/products/product-1");
+        assertThat(urlCaptor.getValue()).isEqualTo("http://localhost:8082/products/{id}");
     }
 
     @Test
@@ -100,7 +102,8 @@ class ProductClientTest {
                 anyString(),
                 eq(HttpMethod.GET),
                 isNull(),
-                any(ParameterizedTypeReference.class)
+                any(ParameterizedTypeReference.class),
+                eq("product-1")
         )).thenReturn(response);
 
         assertThatThrownBy(() -> productClient.getProductById("product-1"))
@@ -117,7 +120,8 @@ class ProductClientTest {
                 anyString(),
                 eq(HttpMethod.GET),
                 isNull(),
-                any(ParameterizedTypeReference.class)
+                any(ParameterizedTypeReference.class),
+                eq("product-1")
         )).thenReturn(response);
 
         assertThatThrownBy(() -> productClient.getProductById("product-1"))
@@ -134,7 +138,8 @@ class ProductClientTest {
                 anyString(),
                 eq(HttpMethod.GET),
                 isNull(),
-                any(ParameterizedTypeReference.class)
+                any(ParameterizedTypeReference.class),
+                eq("product-1")
         )).thenReturn(response);
 
         assertThatThrownBy(() -> productClient.getProductById("product-1"))
@@ -153,7 +158,8 @@ class ProductClientTest {
                 anyString(),
                 eq(HttpMethod.GET),
                 isNull(),
-                any(ParameterizedTypeReference.class)
+                any(ParameterizedTypeReference.class),
+                eq("product-1")
         )).thenReturn(response);
 
         assertThatThrownBy(() -> productClient.getProductById("product-1"))
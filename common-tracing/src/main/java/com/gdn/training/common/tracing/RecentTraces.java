@@ -0,0 +1,177 @@
+package com.gdn.training.common.tracing;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+/**
+ * In-process span exporter: keeps the spans of the most recently exported traces so they can be read from
+ * {@code /actuator/traces} without running a collector.
+ * <p>
+ * Traces are evicted oldest first once more than {@code maxTraces} are held. Each service keeps only its own spans;
+ * a request crossing services is stitched together by looking up the same trace id on each of them.
+ */
+public final class RecentTraces implements SpanExporter {
+
+    private final int maxSpansPerTrace;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, List<SpanData>> traces;
+
+    public RecentTraces(int maxTraces, int maxSpansPerTrace) {
+        if (maxTraces < 1 || maxSpansPerTrace < 1) {
+            throw new IllegalArgumentException("maxTraces and maxSpansPerTrace must be positive");
+        }
+        this.maxSpansPerTrace = maxSpansPerTrace;
+        this.traces = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<SpanData>> eldest) {
+                return size() > maxTraces;
+            }
+        };
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+        lock.lock();
+        try {
+            for (SpanData span : spans) {
+                List<SpanData> trace = traces.computeIfAbsent(span.getTraceId(), id -> new ArrayList<>());
+                if (trace.size() < maxSpansPerTrace) {
+                    trace.add(span);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    /**
+     * Every kept trace, slowest first.
+     */
+    public List<Trace> traces() {
+        List<List<SpanData>> copies = new ArrayList<>();
+        lock.lock();
+        try {
+            traces.values().forEach(spans -> copies.add(List.copyOf(spans)));
+        } finally {
+            lock.unlock();
+        }
+        return copies.stream()
+                .map(RecentTraces::toTrace)
+                .sorted(Comparator.comparingLong(Trace::durationMicros).reversed())
+                .toList();
+    }
+
+    public Optional<Trace> trace(String traceId) {
+        List<SpanData> copy;
+        lock.lock();
+        try {
+            List<SpanData> spans = traces.get(traceId);
+            copy = spans == null ? null : List.copyOf(spans);
+        } finally {
+            lock.unlock();
+        }
+        return Optional.ofNullable(copy).map(RecentTraces::toTrace);
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            traces.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Trace toTrace(List<SpanData> spans) {
+        Set<String> spanIds = spans.stream().map(SpanData::getSpanId).collect(Collectors.toSet());
+        long start = spans.stream().mapToLong(SpanData::getStartEpochNanos).min().orElse(0);
+        long end = spans.stream().mapToLong(SpanData::getEndEpochNanos).max().orElse(start);
+        // The local root is the span whose parent lives in another service, or nowhere.
+        String root = spans.stream()
+                .filter(span -> !spanIds.contains(span.getParentSpanId()))
+                .min(Comparator.comparingLong(SpanData::getStartEpochNanos))
+                .map(SpanData::getName)
+                .orElse(null);
+        List<Span> views = spans.stream()
+                .sorted(Comparator.comparingLong(SpanData::getStartEpochNanos))
+                .map(RecentTraces::toSpan)
+                .toList();
+        return new Trace(
+                spans.getFirst().getTraceId(),
+                root,
+                spans.stream().anyMatch(span -> span.getSpanContext().isSampled()),
+                toInstant(start),
+                TimeUnit.NANOSECONDS.toMicros(end - start),
+                views
+        );
+    }
+
+    private static Span toSpan(SpanData span) {
+        Map<String, String> attributes = new LinkedHashMap<>();
+        span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), String.valueOf(value)));
+        return new Span(
+                span.getSpanId(),
+                span.getParentSpanContext().isValid() ? span.getParentSpanId() : null,
+                span.getName(),
+                span.getKind().name(),
+                toInstant(span.getStartEpochNanos()),
+                TimeUnit.NANOSECONDS.toMicros(span.getEndEpochNanos() - span.getStartEpochNanos()),
+                span.getStatus().getStatusCode().name(),
+                attributes
+        );
+    }
+
+    private static Instant toInstant(long epochNanos) {
+        return Instant.ofEpochSecond(0, epochNanos);
+    }
+
+    /**
+     * This service's part of a trace. {@code sampled} is false for traces kept by tail-latency retention.
+     */
+    public record Trace(
+            String traceId,
+            String root,
+            boolean sampled,
+            Instant start,
+            long durationMicros,
+            List<Span> spans
+    ) {
+    }
+
+    public record Span(
+            String spanId,
+            String parentSpanId,
+            String name,
+            String kind,
+            Instant start,
+            long durationMicros,
+            String status,
+            Map<String, String> attributes
+    ) {
+    }
+}
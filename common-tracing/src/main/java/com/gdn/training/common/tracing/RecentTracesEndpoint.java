@@ -0,0 +1,36 @@
+package com.gdn.training.common.tracing;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@code /actuator/traces}: this service's spans of the recently exported traces, slowest first;
+ * {@code /actuator/traces/{traceId}} for one trace and {@code DELETE} to clear them.
+ */
+@Endpoint(id = "traces")
+@RequiredArgsConstructor
+public class RecentTracesEndpoint {
+
+    private final RecentTraces recentTraces;
+
+    @ReadOperation
+    public List<RecentTraces.Trace> traces() {
+        return recentTraces.traces();
+    }
+
+    @ReadOperation
+    public RecentTraces.Trace trace(@Selector String traceId) {
+        return recentTraces.trace(traceId).orElse(null);
+    }
+
+    @DeleteOperation
+    public void clear() {
+        recentTraces.clear();
+    }
+}
@@ -0,0 +1,51 @@
+package com.gdn.training.common.tracing;
+
+import java.util.List;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+
+/**
+ * Head sampling that still records what it does not sample.
+ * <p>
+ * The delegate makes the usual parent-based, trace-id-ratio decision, and that decision is what goes downstream in
+ * the {@code traceparent} flags. Spans it would drop are recorded without the sampled flag instead, so
+ * {@link TailLatencySpanProcessor} can keep the traces that turn out to be slow.
+ */
+final class RecordUnsampledSampler implements Sampler {
+
+    private static final SamplingResult RECORD_ONLY = SamplingResult.recordOnly();
+
+    private final Sampler delegate;
+
+    RecordUnsampledSampler(Sampler delegate) {
+        this.delegate = delegate;
+    }
+
+    static Sampler headSampling(double probability) {
+        return new RecordUnsampledSampler(Sampler.parentBased(Sampler.traceIdRatioBased(probability)));
+    }
+
+    @Override
+    public SamplingResult shouldSample(
+            Context parentContext,
+            String traceId,
+            String name,
+            SpanKind spanKind,
+            Attributes attributes,
+            List<LinkData> parentLinks
+    ) {
+        SamplingResult result = delegate.shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+        return result.getDecision() == SamplingDecision.DROP ? RECORD_ONLY : result;
+    }
+
+    @Override
+    public String getDescription() {
+        return "RecordUnsampled{" + delegate.getDescription() + "}";
+    }
+}
@@ -0,0 +1,59 @@
+package com.gdn.training.common.tracing;
+
+import java.lang.reflect.Method;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.util.function.SingletonSupplier;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Wraps every Spring Data repository call in a {@code data.repository} observation named after the repository
+ * interface and method, such as {@code CartRepository.findByUserId}, and timed with {@code repository} and
+ * {@code method} tags. The OpenTelemetry bridge exports it as the span {@code cart-repository.find-by-user-id}.
+ */
+public class RepositoryObservations implements BeanPostProcessor {
+
+    private final SingletonSupplier<ObservationRegistry> registry;
+
+    public RepositoryObservations(ObjectProvider<ObservationRegistry> registry) {
+        this.registry = SingletonSupplier.of(() -> registry.getIfAvailable(() -> ObservationRegistry.NOOP));
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxyFactory, repository) -> proxyFactory.addAdvice(
+                            new ObservingInterceptor(repository.getRepositoryInterface().getSimpleName()))));
+        }
+        return bean;
+    }
+
+    private final class ObservingInterceptor implements MethodInterceptor {
+
+        private final String repository;
+
+        ObservingInterceptor(String repository) {
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Method method = invocation.getMethod();
+            if (method.getDeclaringClass() == Object.class) {
+                return invocation.proceed();
+            }
+            return Observation.createNotStarted("data.repository", registry.obtain())
+                    .contextualName(repository + "." + method.getName())
+                    .lowCardinalityKeyValue("repository", repository)
+                    .lowCardinalityKeyValue("method", method.getName())
+                    .observeChecked(invocation::proceed);
+        }
+    }
+}
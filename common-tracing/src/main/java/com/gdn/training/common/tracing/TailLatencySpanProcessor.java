@@ -0,0 +1,189 @@
+package com.gdn.training.common.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+
+/**
+ * Exports unsampled traces that turn out to be slow.
+ * <p>
+ * Sampled spans are left to the regular batch processor. Spans recorded without the sampled flag (see
+ * {@link RecordUnsampledSampler}) are buffered per trace until the trace's local root span ends: when the root took
+ * at least {@link TraceRetentionProperties#getTailLatencyThreshold()} the whole buffer is handed to {@code exporting},
+ * otherwise it is dropped. The decision is local to this service, so a slow downstream hop is kept by the service it
+ * happened in, not necessarily by its callers.
+ * <p>
+ * Outcomes are counted in {@code tracing.tail.traces}, tagged {@code outcome=retained|discarded|overflow}.
+ */
+public final class TailLatencySpanProcessor implements SpanProcessor {
+
+    private final SpanProcessor exporting;
+    private final long thresholdNanos;
+    private final int maxTraces;
+    private final int maxSpansPerTrace;
+    private final long maxAgeNanos;
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<String, PendingTrace> pending = new ConcurrentHashMap<>();
+    private final Counter retained;
+    private final Counter discarded;
+    private final Counter overflow;
+
+    public TailLatencySpanProcessor(
+            SpanProcessor exporting,
+            TraceRetentionProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this(exporting, properties, meterRegistry, System::nanoTime);
+    }
+
+    TailLatencySpanProcessor(
+            SpanProcessor exporting,
+            TraceRetentionProperties properties,
+            MeterRegistry meterRegistry,
+            LongSupplier nanoClock
+    ) {
+        if (properties.getMaxBufferedTraces() < 1 || properties.getMaxSpansPerTrace() < 1) {
+            throw new IllegalArgumentException("tracing.max-buffered-traces and tracing.max-spans-per-trace must be positive");
+        }
+        this.exporting = exporting;
+        this.thresholdNanos = properties.getTailLatencyThreshold().toNanos();
+        this.maxTraces = properties.getMaxBufferedTraces();
+        this.maxSpansPerTrace = properties.getMaxSpansPerTrace();
+        this.maxAgeNanos = properties.getMaxTraceAge().toNanos();
+        this.nanoClock = nanoClock;
+        this.retained = outcome(meterRegistry, "retained");
+        this.discarded = outcome(meterRegistry, "discarded");
+        this.overflow = outcome(meterRegistry, "overflow");
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("tracing.tail.traces")
+                .description("Unsampled traces by tail-latency retention outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        SpanContext spanContext = span.getSpanContext();
+        if (spanContext.isSampled()) {
+            return;
+        }
+        String traceId = spanContext.getTraceId();
+        if (!isLocalRoot(span)) {
+            buffer(traceId, span);
+            return;
+        }
+
+        PendingTrace trace = pending.remove(traceId);
+        if (span.getLatencyNanos() < thresholdNanos) {
+            discarded.increment();
+            return;
+        }
+        if (trace != null) {
+            trace.drainTo(exporting);
+        }
+        exporting.onEnd(span);
+        retained.increment();
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    /**
+     * Traces waiting for their local root span to end.
+     */
+    int pendingTraces() {
+        return pending.size();
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        return exporting.forceFlush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        pending.clear();
+        return exporting.shutdown();
+    }
+
+    private void buffer(String traceId, ReadableSpan span) {
+        PendingTrace trace = pending.get(traceId);
+        if (trace == null) {
+            if (pending.size() >= maxTraces && !evictExpired()) {
+                overflow.increment();
+                return;
+            }
+            trace = pending.computeIfAbsent(traceId, id -> new PendingTrace(nanoClock.getAsLong()));
+        }
+        trace.add(span, maxSpansPerTrace);
+    }
+
+    /**
+     * Drops traces whose root never ended here, e.g. because it was cancelled; true when room was made.
+     */
+    private boolean evictExpired() {
+        long now = nanoClock.getAsLong();
+        return pending.values().removeIf(trace -> now - trace.createdNanos > maxAgeNanos);
+    }
+
+    private static boolean isLocalRoot(ReadableSpan span) {
+        SpanContext parent = span.getParentSpanContext();
+        return !parent.isValid() || parent.isRemote();
+    }
+
+    private static final class PendingTrace {
+
+        private final long createdNanos;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final List<ReadableSpan> spans = new ArrayList<>();
+
+        PendingTrace(long createdNanos) {
+            this.createdNanos = createdNanos;
+        }
+
+        void add(ReadableSpan span, int maxSpans) {
+            lock.lock();
+            try {
+                if (spans.size() < maxSpans) {
+                    spans.add(span);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void drainTo(SpanProcessor processor) {
+            lock.lock();
+            try {
+                spans.forEach(processor::onEnd);
+                spans.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.gdn.training.common.tracing;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Tail-latency retention for traces that head sampling ({@code management.tracing.sampling.probability}) skipped.
+ * Bound by {@link TracingAutoConfiguration}.
+ */
+@Data
+@ConfigurationProperties(prefix = "tracing")
+public class TraceRetentionProperties {
+
+    /**
+     * Unsampled traces whose local root span takes at least this long are exported anyway.
+     */
+    private Duration tailLatencyThreshold = Duration.ofMillis(500);
+
+    /**
+     * In-flight unsampled traces buffered until their local root ends; spans of further traces are not retained.
+     */
+    private int maxBufferedTraces = 1000;
+
+    private int maxSpansPerTrace = 128;
+
+    /**
+     * Buffered traces whose local root has not ended after this long are discarded to make room.
+     */
+    private Duration maxTraceAge = Duration.ofMinutes(1);
+
+    /**
+     * Most recently exported traces kept in memory for {@code /actuator/traces}.
+     */
+    private int keptTraces = 200;
+}
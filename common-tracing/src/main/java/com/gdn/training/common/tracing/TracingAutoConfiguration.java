@@ -0,0 +1,72 @@
+package com.gdn.training.common.tracing;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.tracing.ConditionalOnEnabledTracing;
+import org.springframework.boot.actuate.autoconfigure.tracing.OpenTelemetryTracingAutoConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+
+/**
+ * Head sampling with tail-latency retention on top of Spring Boot's OpenTelemetry tracing, for every service that
+ * has this module on its classpath.
+ * <p>
+ * Boot propagates W3C {@code traceparent} on incoming requests and on every client built from its
+ * {@code RestTemplateBuilder}/{@code RestClient.Builder}. Sampled spans reach {@link RecentTraces} through Boot's
+ * batch processor; {@link TailLatencySpanProcessor} adds the slow unsampled ones, and
+ * {@link RepositoryObservations} adds a span per Spring Data repository call. Runs before Boot's tracing
+ * configuration so that its sampler replaces Boot's.
+ */
+@AutoConfiguration(before = OpenTelemetryTracingAutoConfiguration.class)
+@ConditionalOnClass(SdkTracerProvider.class)
+@ConditionalOnEnabledTracing
+@EnableConfigurationProperties(TraceRetentionProperties.class)
+public class TracingAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public Sampler otelSampler(@Value("${management.tracing.sampling.probability:0.1}") double probability) {
+        return RecordUnsampledSampler.headSampling(probability);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RecentTraces recentTraces(TraceRetentionProperties properties) {
+        return new RecentTraces(properties.getKeptTraces(), properties.getMaxSpansPerTrace());
+    }
+
+    @Bean
+    public TailLatencySpanProcessor tailLatencySpanProcessor(
+            ObjectProvider<SpanExporter> spanExporters,
+            TraceRetentionProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        SpanExporter exporter = SpanExporter.composite(spanExporters.orderedStream().toList());
+        BatchSpanProcessor exporting = BatchSpanProcessor.builder(exporter)
+                .setExportUnsampledSpans(true)
+                .build();
+        return new TailLatencySpanProcessor(exporting, properties, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnClass(name = "org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport")
+    public static RepositoryObservations repositoryObservations(ObjectProvider<ObservationRegistry> registry) {
+        return new RepositoryObservations(registry);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RecentTracesEndpoint recentTracesEndpoint(RecentTraces recentTraces) {
+        return new RecentTracesEndpoint(recentTraces);
+    }
+}
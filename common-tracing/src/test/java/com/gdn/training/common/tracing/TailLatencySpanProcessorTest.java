@@ -0,0 +1,143 @@
+package com.gdn.training.common.tracing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+
+class TailLatencySpanProcessorTest {
+
+    private static final String REMOTE_TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String REMOTE_SPAN_ID = "00f067aa0ba902b7";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RecentTraces exported = new RecentTraces(10, 10);
+    private final AtomicLong clock = new AtomicLong();
+    private TailLatencySpanProcessor processor;
+    private SdkTracerProvider tracerProvider;
+
+    @AfterEach
+    void tearDown() {
+        tracerProvider.close();
+    }
+
+    @Test
+    void retainsSlowUnsampledTraceWithItsChildren() {
+        Tracer tracer = tracer(0.0, properties());
+
+        Span root = tracer.spanBuilder("GET /cart").setStartTimestamp(1, TimeUnit.SECONDS).startSpan();
+        Span child = tracer.spanBuilder("http get").setParent(Context.root().with(root))
+                .setStartTimestamp(1010, TimeUnit.MILLISECONDS).startSpan();
+        child.end(1590, TimeUnit.MILLISECONDS);
+        root.end(1600, TimeUnit.MILLISECONDS);
+
+        assertThat(exported.traces()).singleElement().satisfies(trace -> {
+            assertThat(trace.sampled()).isFalse();
+            assertThat(trace.root()).isEqualTo("GET /cart");
+            assertThat(trace.durationMicros()).isEqualTo(600_000);
+            assertThat(trace.spans()).extracting(RecentTraces.Span::name).containsExactly("GET /cart", "http get");
+        });
+        assertThat(processor.pendingTraces()).isZero();
+        assertThat(outcome("retained")).isEqualTo(1);
+    }
+
+    @Test
+    void discardsFastUnsampledTrace() {
+        Tracer tracer = tracer(0.0, properties());
+
+        Span root = tracer.spanBuilder("GET /cart").setStartTimestamp(1, TimeUnit.SECONDS).startSpan();
+        tracer.spanBuilder("http get").setParent(Context.root().with(root)).startSpan().end();
+        root.end(1020, TimeUnit.MILLISECONDS);
+
+        assertThat(exported.traces()).isEmpty();
+        assertThat(processor.pendingTraces()).isZero();
+        assertThat(outcome("discarded")).isEqualTo(1);
+    }
+
+    @Test
+    void leavesHeadSampledSpansToTheRegularExporter() {
+        Tracer tracer = tracer(1.0, properties());
+
+        Span root = tracer.spanBuilder("GET /cart").setStartTimestamp(1, TimeUnit.SECONDS).startSpan();
+        tracer.spanBuilder("http get").setParent(Context.root().with(root)).startSpan().end();
+        root.end(1600, TimeUnit.MILLISECONDS);
+
+        assertThat(exported.traces()).isEmpty();
+        assertThat(processor.pendingTraces()).isZero();
+    }
+
+    @Test
+    void treatsSpanWithUnsampledRemoteParentAsLocalRoot() {
+        Tracer tracer = tracer(1.0, properties());
+        SpanContext remote = SpanContext.createFromRemoteParent(
+                REMOTE_TRACE_ID, REMOTE_SPAN_ID, TraceFlags.getDefault(), TraceState.getDefault());
+
+        Span server = tracer.spanBuilder("GET /products/{id}").setParent(Context.root().with(Span.wrap(remote)))
+                .setStartTimestamp(1, TimeUnit.SECONDS).startSpan();
+
+        assertThat(server.getSpanContext().isSampled()).as("the caller's decision wins").isFalse();
+        server.end(1800, TimeUnit.MILLISECONDS);
+
+        assertThat(exported.trace(REMOTE_TRACE_ID)).hasValueSatisfying(trace ->
+                assertThat(trace.spans()).singleElement().satisfies(span ->
+                        assertThat(span.parentSpanId()).isEqualTo(REMOTE_SPAN_ID)));
+    }
+
+    @Test
+    void stopsBufferingWhenFullUntilStaleTracesExpire() {
+        TraceRetentionProperties properties = properties();
+        properties.setMaxBufferedTraces(1);
+        Tracer tracer = tracer(0.0, properties);
+
+        Span abandoned = tracer.spanBuilder("abandoned").startSpan();
+        tracer.spanBuilder("child").setParent(Context.root().with(abandoned)).startSpan().end();
+        Span second = tracer.spanBuilder("second").startSpan();
+        tracer.spanBuilder("child").setParent(Context.root().with(second)).startSpan().end();
+
+        assertThat(processor.pendingTraces()).isEqualTo(1);
+        assertThat(outcome("overflow")).isEqualTo(1);
+
+        clock.addAndGet(properties.getMaxTraceAge().toNanos() + 1);
+        Span third = tracer.spanBuilder("third").setStartTimestamp(1, TimeUnit.SECONDS).startSpan();
+        tracer.spanBuilder("child").setParent(Context.root().with(third)).startSpan().end();
+        third.end(2, TimeUnit.SECONDS);
+
+        assertThat(exported.traces()).singleElement().satisfies(trace ->
+                assertThat(trace.spans()).extracting(RecentTraces.Span::name).containsExactly("third", "child"));
+        assertThat(processor.pendingTraces()).isZero();
+    }
+
+    private Tracer tracer(double probability, TraceRetentionProperties properties) {
+        SimpleSpanProcessor exporting = SimpleSpanProcessor.builder(exported).setExportUnsampledSpans(true).build();
+        processor = new TailLatencySpanProcessor(exporting, properties, meterRegistry, clock::get);
+        tracerProvider = SdkTracerProvider.builder()
+                .setSampler(RecordUnsampledSampler.headSampling(probability))
+                .addSpanProcessor(processor)
+                .build();
+        return tracerProvider.get("test");
+    }
+
+    private static TraceRetentionProperties properties() {
+        TraceRetentionProperties properties = new TraceRetentionProperties();
+        properties.setTailLatencyThreshold(Duration.ofMillis(500));
+        return properties;
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.get("tracing.tail.traces").tag("outcome", outcome).counter().count();
+    }
+}
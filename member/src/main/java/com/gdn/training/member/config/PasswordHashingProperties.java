@@ -0,0 +1,34 @@
+package com.gdn.training.member.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "password-hashing")
+public class PasswordHashingProperties {
+
+    /**
+     * Platform threads hashing and matching passwords; 0 means one per available core.
+     */
+    private int threads = 0;
+
+    /**
+     * Requests waiting for a hashing thread; beyond this they are rejected with 503 immediately.
+     */
+    private int queueCapacity = 64;
+
+    /**
+     * Queued requests that waited longer than this are rejected instead of hashed, since their caller (the
+     * gateway's member client) is likely to have timed out already.
+     */
+    private Duration maxQueueWait = Duration.ofSeconds(2);
+
+    public int resolvedThreads() {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+}
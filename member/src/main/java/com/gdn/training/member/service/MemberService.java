@@ -1,8 +1,7 @@
 package com.gdn.training.member.service;
 
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import com.gdn.training.member.dto.LoginRequest;
 import com.gdn.training.member.dto.RegisterRequest;
@@ -19,10 +18,14 @@ import lombok.extern.slf4j.Slf4j;
 public class MemberService {
 
     private final MemberRepository memberRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private static final String DEFAULT_ROLE_USER = "ROLE_USER";
 
-    @Transactional
+    /**
+     * Not transactional, so no database connection is held while the password waits for and runs on the hashing
+     * pool. A duplicate registered concurrently slips past the existence check and is rejected by the unique email
+     * constraint on save, which is reported the same way.
+     */
     public void register(RegisterRequest request) {
         if (memberRepository.existsByEmail(request.getEmail())) {
             log.warn("Registration rejected, email already registered: {}", request.getEmail());
@@ -32,20 +35,25 @@ public class MemberService {
         Member member = Member.builder()
                 .name(request.getName())
                 .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .password(passwordHasher.encode(request.getPassword()))
                 .role(DEFAULT_ROLE_USER)
                 .build();
 
-        Member saved = memberRepository.save(member);
+        Member saved;
+        try {
+            saved = memberRepository.save(member);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Registration rejected, email registered concurrently: {}", request.getEmail());
+            throw new IllegalArgumentException("Email already registered");
+        }
         log.info("New member registered with id {} and email {}", saved.getId(), saved.getEmail());
     }
 
-    @Transactional(readOnly = true)
     public UserInfoResponse validateCredentials(LoginRequest request) {
         Member member = memberRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new IllegalArgumentException("Invalid credentials"));
 
-        if (!passwordEncoder.matches(request.getPassword(), member.getPassword())) {
+        if (!passwordHasher.matches(request.getPassword(), member.getPassword())) {
             log.warn("Invalid password attempt for {}", request.getEmail());
             throw new IllegalArgumentException("Invalid credentials");
         }
@@ -0,0 +1,152 @@
+package com.gdn.training.member.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import com.gdn.training.member.config.PasswordHashingProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs BCrypt on a small pool of platform threads instead of the request's virtual thread.
+ * <p>
+ * A BCrypt hash is 50-100 ms of uninterrupted CPU. Run on a virtual thread it occupies its carrier for that long, so a
+ * burst of logins takes every carrier and stalls all other requests. Here the pool has one thread per core, so hashing
+ * competes for the CPU through the OS scheduler like any other platform thread, and the waiting virtual thread
+ * unmounts. At most {@link PasswordHashingProperties#getQueueCapacity()} calls wait; further ones, and ones that
+ * waited longer than {@link PasswordHashingProperties#getMaxQueueWait()}, fail fast with
+ * {@link RejectedExecutionException}, which the API maps to 503.
+ * <p>
+ * Published as the {@code member.password.queue.wait} and {@code member.password.hash} timers (tagged
+ * {@code operation=encode|matches}), the {@code member.password.rejected} counter (tagged
+ * {@code reason=queue_full|expired}) and the {@code executor.*} meters of the {@code password-hashing} pool.
+ */
+@Component
+@Slf4j
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long maxQueueWaitNanos;
+    private final Timer encodeWait;
+    private final Timer matchesWait;
+    private final Timer encodeTime;
+    private final Timer matchesTime;
+    private final Counter queueFull;
+    private final Counter expired;
+
+    public PasswordHasher(
+            PasswordEncoder passwordEncoder,
+            PasswordHashingProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        if (properties.getQueueCapacity() < 1) {
+            throw new IllegalArgumentException("password-hashing.queue-capacity must be positive");
+        }
+        int threads = properties.resolvedThreads();
+        this.passwordEncoder = passwordEncoder;
+        this.maxQueueWaitNanos = properties.getMaxQueueWait().toNanos();
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                Thread.ofPlatform().name("password-hash-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        executor.prestartAllCoreThreads();
+        new ExecutorServiceMetrics(executor, "password-hashing", Tags.empty()).bindTo(meterRegistry);
+
+        this.encodeWait = queueWait(meterRegistry, "encode");
+        this.matchesWait = queueWait(meterRegistry, "matches");
+        this.encodeTime = hashTime(meterRegistry, "encode");
+        this.matchesTime = hashTime(meterRegistry, "matches");
+        this.queueFull = rejected(meterRegistry, "queue_full");
+        this.expired = rejected(meterRegistry, "expired");
+        log.info("Password hashing runs on {} platform threads with {} queued calls at most",
+                threads, properties.getQueueCapacity());
+    }
+
+    private static Timer queueWait(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("member.password.queue.wait")
+                .description("Time a password hash waited for a hashing thread")
+                .tag("operation", operation)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    private static Timer hashTime(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("member.password.hash")
+                .description("Time spent hashing or matching a password")
+                .tag("operation", operation)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    private static Counter rejected(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("member.password.rejected")
+                .description("Password hashes rejected because the hashing pool was saturated")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return run(encodeWait, encodeTime, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesWait, matchesTime, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    private <T> T run(Timer waitTimer, Timer hashTimer, Callable<T> hash) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long waited = System.nanoTime() - submitted;
+                waitTimer.record(waited, TimeUnit.NANOSECONDS);
+                if (waited > maxQueueWaitNanos) {
+                    expired.increment();
+                    throw new RejectedExecutionException("Password hashing is overloaded, queued for too long");
+                }
+                return hashTimer.recordCallable(hash);
+            });
+        } catch (RejectedExecutionException e) {
+            queueFull.increment();
+            throw new RejectedExecutionException("Password hashing is overloaded, queue is full", e);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
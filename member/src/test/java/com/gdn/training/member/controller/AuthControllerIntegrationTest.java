@@ -13,10 +13,12 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.doReturn;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -32,7 +34,7 @@ class AuthControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
-    @Autowired
+    @MockitoSpyBean
     private MemberRepository memberRepository;
 
     @Autowired
@@ -105,6 +107,31 @@ class AuthControllerIntegrationTest {
                 .andExpect(jsonPath("$.message", org.hamcrest.Matchers.containsString("Email already registered")));
     }
 
+    @Test
+    void registerEndpointRejectsDuplicateEmailRegisteredConcurrently() throws Exception {
+        Member existing = Member.builder()
+                .name("Dave")
+                .email("dave@example.com")
+                .password(passwordEncoder.encode("Password123!"))
+                .role("ROLE_USER")
+                .build();
+        memberRepository.save(existing);
+        // the other registration commits after this one's existence check
+        doReturn(false).when(memberRepository).existsByEmail("dave@example.com");
+
+        RegisterRequest request = new RegisterRequest();
+        request.setName("Dave Duplicate");
+        request.setEmail("dave@example.com");
+        request.setPassword("Different123!");
+
+        mockMvc.perform(post("/internal/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success", is(false)))
+                .andExpect(jsonPath("$.message", org.hamcrest.Matchers.containsString("Email already registered")));
+    }
+
     @Test
     void validateCredentialsRejectsInvalidPassword() throws Exception {
         Member member = Member.builder()
@@ -9,6 +9,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -16,6 +17,7 @@ import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
@@ -56,6 +58,20 @@ class GlobalExceptionHandlerTest {
         assertThat(response.getBody().getTimestamp()).isNotNull();
     }
 
+    @Test
+    void handleOverloadReturnsServiceUnavailableWithRetryAfter() {
+        RejectedExecutionException ex = new RejectedExecutionException("Password hashing is overloaded, queue is full");
+
+        ResponseEntity<ErrorResponse> response = exceptionHandler.handleOverload(ex, request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getStatus()).isEqualTo(503);
+        assertThat(response.getBody().getError()).isEqualTo("Service Busy");
+        assertThat(response.getBody().getPath()).isEqualTo("/test-path");
+    }
+
     @Test
     void handleValidationErrorsReturnsBadRequest() {
         FieldError fieldError1 = new FieldError("object", "field1", "must not be null");
@@ -0,0 +1,202 @@
+package com.gdn.training.member.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.gdn.training.member.config.PasswordHashingProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PasswordHasherTest {
+
+    private static final int STORM_CLIENTS = 2 * Runtime.getRuntime().availableProcessors() + 4;
+    private static final Duration STORM_DURATION = Duration.ofSeconds(2);
+    private static final long PROBE_INTERVAL_MILLIS = 20;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<PasswordHasher> hashers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        hashers.forEach(PasswordHasher::shutdown);
+    }
+
+    @Test
+    void hashesAndMatchesOnThePoolAndRecordsTimings() {
+        PasswordHasher hasher = hasher(new BCryptPasswordEncoder(4), properties(1, 4, Duration.ofSeconds(2)));
+
+        String encoded = hasher.encode("Secret123!");
+
+        assertThat(hasher.matches("Secret123!", encoded)).isTrue();
+        assertThat(hasher.matches("wrong", encoded)).isFalse();
+        assertThat(meterRegistry.get("member.password.hash").tag("operation", "encode").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("member.password.hash").tag("operation", "matches").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("member.password.queue.wait").tag("operation", "matches").timer().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void rejectsImmediatelyWhenTheQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordHasher hasher = hasher(blockingEncoder(release), properties(1, 1, Duration.ofSeconds(10)));
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hasher.encode("a"));
+        awaitActive(1);
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hasher.encode("b"));
+        awaitQueued(1);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> hasher.encode("c")).isInstanceOf(RejectedExecutionException.class);
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(meterRegistry.get("member.password.rejected").tag("reason", "queue_full").counter().count())
+                .isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hashed");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("hashed");
+    }
+
+    @Test
+    void rejectsCallsThatWaitedLongerThanTheMaxQueueWait() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordHasher hasher = hasher(blockingEncoder(release), properties(1, 4, Duration.ofMillis(100)));
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hasher.encode("a"));
+        awaitActive(1);
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hasher.encode("b"));
+        awaitQueued(1);
+        Thread.sleep(300);
+        release.countDown();
+
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hashed");
+        assertThat(queued).failsWithin(5, TimeUnit.SECONDS)
+                .withThrowableThat().havingCause().isInstanceOf(RejectedExecutionException.class);
+        assertThat(meterRegistry.get("member.password.rejected").tag("reason", "expired").counter().count())
+                .isEqualTo(1);
+    }
+
+    /**
+     * A login storm of real cost-10 BCrypt checks on virtual threads, with a cheap request arriving every 20 ms.
+     * Hashed on the request threads, the storm holds every carrier and the cheap requests queue behind it; hashed on
+     * the pool, the waiting virtual threads unmount and the cheap requests only share the CPU.
+     */
+    @Test
+    void cheapRequestsKeepLowLatencyDuringALoginStorm() throws Exception {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(10);
+        String encoded = encoder.encode("Secret123!");
+        PasswordHasher hasher = hasher(encoder, properties(0, 1024, Duration.ofMinutes(1)));
+
+        long direct = probeP99DuringStorm(encoder::matches, encoded);
+        long pooled = probeP99DuringStorm(hasher::matches, encoded);
+
+        assertThat(pooled)
+                .as("p99 of cheap requests: pooled %d ms, hashed on virtual threads %d ms",
+                        TimeUnit.NANOSECONDS.toMillis(pooled), TimeUnit.NANOSECONDS.toMillis(direct))
+                .isLessThan(direct / 4);
+    }
+
+    private long probeP99DuringStorm(BiPredicate<String, String> matches, String encoded) throws Exception {
+        long deadline = System.nanoTime() + STORM_DURATION.toNanos();
+        List<Thread> storm = new ArrayList<>();
+        for (int i = 0; i < STORM_CLIENTS; i++) {
+            storm.add(Thread.ofVirtual().start(() -> {
+                while (System.nanoTime() < deadline) {
+                    matches.test("Secret123!", encoded);
+                    try {
+                        // Reading the next request off the socket.
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }));
+        }
+
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        List<Thread> probes = new ArrayList<>();
+        Thread.sleep(PROBE_INTERVAL_MILLIS * 5);
+        while (System.nanoTime() < deadline) {
+            long arrived = System.nanoTime();
+            probes.add(Thread.ofVirtual().start(() -> {
+                Math.sqrt(arrived);
+                latencies.add(System.nanoTime() - arrived);
+            }));
+            Thread.sleep(PROBE_INTERVAL_MILLIS);
+        }
+        for (Thread thread : storm) {
+            thread.join();
+        }
+        for (Thread thread : probes) {
+            thread.join();
+        }
+
+        List<Long> sorted = latencies.stream().sorted().toList();
+        return sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1);
+    }
+
+    private PasswordHasher hasher(PasswordEncoder encoder, PasswordHashingProperties properties) {
+        PasswordHasher hasher = new PasswordHasher(encoder, properties, meterRegistry);
+        hashers.add(hasher);
+        return hasher;
+    }
+
+    private static PasswordHashingProperties properties(int threads, int queueCapacity, Duration maxQueueWait) {
+        PasswordHashingProperties properties = new PasswordHashingProperties();
+        properties.setThreads(threads);
+        properties.setQueueCapacity(queueCapacity);
+        properties.setMaxQueueWait(maxQueueWait);
+        return properties;
+    }
+
+    private static PasswordEncoder blockingEncoder(CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hashed";
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return false;
+            }
+        };
+    }
+
+    private void awaitActive(int active) throws InterruptedException {
+        awaitGauge("executor.active", active);
+    }
+
+    private void awaitQueued(int queued) throws InterruptedException {
+        awaitGauge("executor.queued", queued);
+    }
+
+    private void awaitGauge(String name, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get(name).tag("name", "password-hashing").gauge().value() < expected) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError(name + " never reached " + expected);
+            }
+            Thread.sleep(1);
+        }
+    }
+}
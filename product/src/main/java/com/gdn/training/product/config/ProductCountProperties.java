@@ -0,0 +1,31 @@
+package com.gdn.training.product.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import com.gdn.training.product.service.CountStrategy;
+
+import lombok.Data;
+
+/**
+ * How {@code totalElements} is worked out for search pages the database answers; requests can pick another strategy
+ * with the {@code count} parameter.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "product-search.count")
+public class ProductCountProperties {
+
+    /**
+     * Used when a request does not name one.
+     */
+    private CountStrategy strategy = CountStrategy.EXACT;
+
+    /**
+     * How long a {@link CountStrategy#CACHED cached} count is reused. Product writes made through JPA retire cached
+     * counts as they commit; rows written outside this service are counted once this has passed.
+     */
+    private Duration cacheTtl = Duration.ofSeconds(30);
+}
@@ -0,0 +1,39 @@
+package com.gdn.training.product.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Search pages kept as the ids of their products and their total, so repeated searches skip the index and the
+ * database; see {@code ProductSearchCache}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "product-search.cache")
+public class ProductSearchCacheProperties {
+
+    /**
+     * When disabled every search is answered afresh.
+     */
+    private boolean enabled = true;
+
+    /**
+     * How long a page is kept. Product writes made through JPA retire cached pages as they commit; rows written
+     * outside this service show up in cached searches once this has passed.
+     */
+    private Duration ttl = Duration.ofMinutes(1);
+
+    /**
+     * Only pages numbered below this are cached; deeper pages are rarely requested twice.
+     */
+    private int maxPages = 10;
+
+    /**
+     * Pages larger than this are not cached, which bounds the size of an entry.
+     */
+    private int maxPageSize = 100;
+}
@@ -0,0 +1,28 @@
+package com.gdn.training.product.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * In-memory trigram index answering product name searches instead of a {@code LIKE} scan of the products table.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "product-search.index")
+public class ProductSearchProperties {
+
+    /**
+     * When disabled every search goes to the database.
+     */
+    private boolean enabled = true;
+
+    /**
+     * How often the index is rebuilt from the database, which picks up rows written outside this service and drops
+     * superseded entries. Writes made through JPA are indexed as they commit.
+     */
+    private Duration rebuildInterval = Duration.ofMinutes(10);
+}
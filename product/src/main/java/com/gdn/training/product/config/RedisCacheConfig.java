@@ -13,6 +13,7 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 
 @Configuration
@@ -23,7 +24,9 @@ public class RedisCacheConfig {
     @Bean
     public RedisCacheManager redisCacheManager(
             RedisConnectionFactory connectionFactory,
-            CacheProperties cacheProperties) {
+            CacheProperties cacheProperties,
+            ProductCountProperties countProperties,
+            ProductSearchCacheProperties searchCacheProperties) {
 
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(resolveTtl(cacheProperties))
@@ -35,6 +38,13 @@ public class RedisCacheConfig {
         Map<String, RedisCacheConfiguration> cacheConfigs = new HashMap<>();
 
         cacheConfigs.put("productById", defaultConfig.entryTtl(Duration.ofMinutes(2)));
+        // Stored as plain numbers: through JSON a small count would read back as an Integer.
+        cacheConfigs.put("productSearchCount", defaultConfig.entryTtl(countProperties.getCacheTtl())
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                        new GenericToStringSerializer<>(Long.class))));
+        cacheConfigs.put("productSearchPage", defaultConfig.entryTtl(searchCacheProperties.getTtl()));
+        // Never expires, so pages are only retired by writes or their own TTL.
+        cacheConfigs.put("productSearchGeneration", defaultConfig.entryTtl(Duration.ZERO));
 
         return RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(defaultConfig)
@@ -13,10 +13,13 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.gdn.training.common.model.BaseResponse;
+import com.gdn.training.product.dto.ProductScrollResponse;
 import com.gdn.training.product.entity.Product;
+import com.gdn.training.product.service.CountStrategy;
 import com.gdn.training.product.service.ProductService;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -33,10 +36,26 @@ public class ProductController {
     @Operation(summary = "Search products", description = "Search and list products with pagination")
     public ResponseEntity<BaseResponse<Page<Product>>> searchProducts(
             @RequestParam(required = false) String query,
-            @ParameterObject Pageable pageable
+            @ParameterObject Pageable pageable,
+            @Parameter(description = "How totalElements is counted: exact, cached, estimated, none or parallel")
+            @RequestParam(required = false) String count
     ) {
         log.info("Incoming product search query='{}', page={}, size={}", query, pageable.getPageNumber(), pageable.getPageSize());
-        return ResponseEntity.ok(BaseResponse.success(productService.searchProducts(query, pageable)));
+        CountStrategy countStrategy = count == null ? null : CountStrategy.of(count);
+        return ResponseEntity.ok(BaseResponse.success(productService.searchProducts(query, pageable, countStrategy)));
+    }
+
+    @GetMapping("/scroll")
+    @Operation(summary = "Scroll products",
+            description = "List and search products by name or price, passing each response's nextCursor to get the next slice")
+    public ResponseEntity<BaseResponse<ProductScrollResponse>> scrollProducts(
+            @RequestParam(required = false) String query,
+            @RequestParam(defaultValue = "name") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        log.info("Incoming product scroll query='{}', sort={}, size={}, continued={}", query, sort, size, cursor != null);
+        return ResponseEntity.ok(BaseResponse.success(productService.scrollProducts(query, sort, cursor, size)));
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,25 @@
+package com.gdn.training.product.dto;
+
+import java.util.List;
+
+import com.gdn.training.product.entity.Product;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One slice of a keyset product listing. There is no total: counting every match is what makes deep pages slow.
+ * {@code nextCursor} is {@code null} on the last slice.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductScrollResponse {
+    private List<Product> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+}
@@ -1,5 +1,7 @@
 package com.gdn.training.product.entity;
 
+import com.gdn.training.product.service.ProductWriteListener;
+
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -10,7 +12,11 @@ import java.math.BigDecimal;
 import java.util.UUID;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_name_id", columnList = "name, id"),
+        @Index(name = "idx_products_price_id", columnList = "price, id")
+})
+@EntityListeners(ProductWriteListener.class)
 @Data
 @Builder
 @NoArgsConstructor
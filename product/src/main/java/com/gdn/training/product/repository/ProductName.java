@@ -0,0 +1,13 @@
+package com.gdn.training.product.repository;
+
+import java.util.UUID;
+
+/**
+ * The columns the search index needs from a product.
+ */
+public interface ProductName {
+
+    UUID getId();
+
+    String getName();
+}
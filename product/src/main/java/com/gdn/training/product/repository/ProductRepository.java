@@ -1,16 +1,46 @@
 package com.gdn.training.product.repository;
 
 import java.util.UUID;
+import java.util.stream.Stream;
 
-import org.springframework.data.domain.Page;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.gdn.training.product.entity.Product;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
-public interface ProductRepository extends JpaRepository<Product, UUID> {
-    Page<Product> findByNameContainingIgnoreCase(String name, Pageable pageable);
-    Page<Product> findByNameLikeIgnoreCase(String pattern, Pageable pageable);
+public interface ProductRepository extends JpaRepository<Product, UUID>, JpaSpecificationExecutor<Product> {
+
+    /**
+     * One page of the products whose name matches the {@code LIKE} pattern, ignoring case, with {@code \} as the
+     * escape character; no count is run. Compares {@code lower(name)} so that PostgreSQL can answer it from the trigram
+     * index created by {@code db/schema-postgresql.sql}; the derived {@code IgnoreCase} queries compare
+     * {@code upper(name)}, which no index covers.
+     */
+    @Query("select p from Product p where lower(p.name) like lower(:pattern) escape '\\'")
+    Slice<Product> searchByName(@Param("pattern") String pattern, Pageable pageable);
+
+    @Query("select count(p) from Product p where lower(p.name) like lower(:pattern) escape '\\'")
+    long countMatchingName(@Param("pattern") String pattern);
+
+    /**
+     * One page of all products; unlike {@link #findAll(Pageable)} no count is run.
+     */
+    Slice<Product> findAllBy(Pageable pageable);
+
+    /**
+     * Every product's id and name, read in batches; must be consumed inside a transaction.
+     */
+    @Query("select p.id as id, p.name as name from Product p")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<ProductName> streamAllNames();
 }
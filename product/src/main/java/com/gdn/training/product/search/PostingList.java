@@ -0,0 +1,89 @@
+package com.gdn.training.product.search;
+
+import java.util.Arrays;
+
+/**
+ * Ascending document ids of one trigram, stored as variable-length deltas. Ids are only ever appended, so adding a
+ * document never rewrites the list; a name of twenty characters costs about one byte per trigram.
+ */
+final class PostingList {
+
+    private byte[] bytes = new byte[4];
+    private int length;
+    private int size;
+    private int last = -1;
+
+    /**
+     * Appends {@code docId}, which must not be lower than the last one added; adding the last one again is a no-op.
+     */
+    void add(int docId) {
+        if (docId == last) {
+            return;
+        }
+        if (docId < last) {
+            throw new IllegalArgumentException("Document ids must be added in ascending order");
+        }
+        int delta = docId - last;
+        if (length + 5 > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + 5));
+        }
+        while ((delta & ~0x7F) != 0) {
+            bytes[length++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        bytes[length++] = (byte) delta;
+        last = docId;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Reads the list front to back. Only valid while the list is not modified.
+     */
+    final class Cursor {
+
+        private int position;
+        private int current = -1;
+
+        /**
+         * The next id, or {@code -1} past the end.
+         */
+        int next() {
+            if (position >= length) {
+                current = -1;
+                return -1;
+            }
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            current += delta;
+            return current;
+        }
+
+        /**
+         * The first id not lower than {@code target}, or {@code -1} if there is none.
+         */
+        int advance(int target) {
+            int id = current;
+            while (id < target) {
+                id = next();
+                if (id < 0) {
+                    return -1;
+                }
+            }
+            return id;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.gdn.training.product.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.gdn.training.product.config.ProductSearchProperties;
+import com.gdn.training.product.repository.ProductName;
+import com.gdn.training.product.repository.ProductRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps a {@link TrigramIndex} of all product names for {@code ProductService} to search.
+ * <p>
+ * The index is built in the background once the application is ready and rebuilt every
+ * {@code product-search.index.rebuild-interval}; until the first build completes {@link #search} is empty and callers
+ * query the database. Writes made through JPA are applied as they commit (see {@code ProductWriteListener}); writes
+ * that commit while a rebuild is reading the table are applied to both the old and the new index, so none is lost
+ * when the new one replaces it.
+ */
+@Component
+@Slf4j
+public class ProductSearchIndex {
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ProductSearchProperties properties;
+    private final ScheduledExecutorService rebuilds;
+    private final Object writeLock = new Object();
+
+    private volatile TrigramIndex index;
+    private List<Consumer<TrigramIndex>> pendingWrites;
+
+    public ProductSearchIndex(
+            ProductRepository productRepository,
+            PlatformTransactionManager transactionManager,
+            ProductSearchProperties properties
+    ) {
+        this.productRepository = productRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.properties = properties;
+        this.rebuilds = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-search-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleRebuilds() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long interval = properties.getRebuildInterval().toMillis();
+        if (interval > 0) {
+            rebuilds.scheduleWithFixedDelay(this::rebuildQuietly, 0, interval, TimeUnit.MILLISECONDS);
+        } else {
+            rebuilds.execute(this::rebuildQuietly);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilds.shutdownNow();
+    }
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    /**
+     * One page of product ids matching {@code query}, best first, or empty when the database has to answer: the
+     * index is disabled or not built yet, or the page asks for a sort order, which only the database knows.
+     */
+    public Optional<TrigramIndex.Hits> search(SearchQuery query, Pageable pageable) {
+        TrigramIndex current = index;
+        if (current == null || !properties.isEnabled() || pageable.getSort().isSorted()) {
+            return Optional.empty();
+        }
+        if (pageable.isUnpaged()) {
+            return Optional.of(current.search(query, 0, Integer.MAX_VALUE));
+        }
+        return Optional.of(current.search(query, pageable.getOffset(), pageable.getPageSize()));
+    }
+
+    public void saved(UUID id, String name) {
+        apply(target -> target.put(id, name));
+    }
+
+    public void deleted(UUID id) {
+        apply(target -> target.remove(id));
+    }
+
+    private void apply(Consumer<TrigramIndex> write) {
+        synchronized (writeLock) {
+            TrigramIndex current = index;
+            if (current != null) {
+                write.accept(current);
+            }
+            if (pendingWrites != null) {
+                pendingWrites.add(write);
+            }
+        }
+    }
+
+    /**
+     * Reads every product name into a new index and swaps it in.
+     */
+    public void rebuild() {
+        synchronized (writeLock) {
+            pendingWrites = new ArrayList<>();
+        }
+        long start = System.nanoTime();
+        TrigramIndex fresh = new TrigramIndex();
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<ProductName> names = productRepository.streamAllNames()) {
+                    names.forEach(product -> fresh.put(product.getId(), product.getName()));
+                }
+            });
+        } catch (RuntimeException ex) {
+            synchronized (writeLock) {
+                pendingWrites = null;
+            }
+            throw ex;
+        }
+        synchronized (writeLock) {
+            pendingWrites.forEach(write -> write.accept(fresh));
+            pendingWrites = null;
+            index = fresh;
+        }
+        log.info("Indexed {} product names in {} ms", fresh.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException ex) {
+            log.warn("Rebuilding the product search index failed, {}", isReady()
+                    ? "keeping the previous one" : "searches keep using the database", ex);
+        }
+    }
+}
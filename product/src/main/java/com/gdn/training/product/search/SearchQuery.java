@@ -0,0 +1,103 @@
+package com.gdn.training.product.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * A product name search in one of the two modes {@code ProductService} offers, evaluated the way the database
+ * evaluates the equivalent query so both paths return the same products.
+ * <ul>
+ * <li>Substring: the name contains the query, ignoring case. {@code %} and {@code _} are ordinary characters.</li>
+ * <li>Wildcard: the whole name matches the pattern, ignoring case. {@code *} and {@code %} match any run of
+ * characters, {@code ?} and {@code _} one character, and {@code \} makes the next character literal.</li>
+ * </ul>
+ */
+public final class SearchQuery {
+
+    private final String text;
+    private final Pattern pattern;
+    private final List<String> literals;
+
+    private SearchQuery(String text, Pattern pattern, List<String> literals) {
+        this.text = text;
+        this.pattern = pattern;
+        this.literals = literals;
+    }
+
+    public static SearchQuery substring(String query) {
+        String text = normalize(query);
+        return new SearchQuery(text, null, List.of(text));
+    }
+
+    public static SearchQuery wildcard(String query) {
+        String text = normalize(query);
+        StringBuilder regex = new StringBuilder(text.length() + 8);
+        List<String> literals = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                c = text.charAt(++i);
+            } else if (c == '*' || c == '%' || c == '?' || c == '_') {
+                regex.append(c == '*' || c == '%' ? ".*" : ".");
+                flush(literal, literals);
+                continue;
+            }
+            regex.append(Pattern.quote(String.valueOf(c)));
+            literal.append(c);
+        }
+        flush(literal, literals);
+        return new SearchQuery(text, Pattern.compile(regex.toString(), Pattern.DOTALL), List.copyOf(literals));
+    }
+
+    /**
+     * Names are compared in lower case on both sides.
+     */
+    static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static void flush(StringBuilder literal, List<String> literals) {
+        if (!literal.isEmpty()) {
+            literals.add(literal.toString());
+            literal.setLength(0);
+        }
+    }
+
+    /**
+     * Runs of characters every matching name contains; their trigrams select the candidates.
+     */
+    List<String> literals() {
+        return literals;
+    }
+
+    boolean matches(String normalizedName) {
+        return pattern == null ? normalizedName.contains(text) : pattern.matcher(normalizedName).matches();
+    }
+
+    /**
+     * Lower ranks first: an exact match, then names starting with the query, then names with the query at the start
+     * of a word, then anywhere; earlier and in shorter names within each. Wildcard matches rank by length only.
+     */
+    long rank(String normalizedName) {
+        long length = Math.min(normalizedName.length(), 0xFFFFF);
+        if (pattern != null) {
+            return length;
+        }
+        int position = normalizedName.indexOf(text);
+        long kind;
+        if (position == 0) {
+            kind = normalizedName.length() == text.length() ? 0 : 1;
+        } else {
+            kind = Character.isLetterOrDigit(normalizedName.charAt(position - 1)) ? 3 : 2;
+        }
+        return kind << 40 | (long) Math.min(position, 0xFFFFF) << 20 | length;
+    }
+
+    @Override
+    public String toString() {
+        return (pattern == null ? "substring:" : "wildcard:") + text;
+    }
+}
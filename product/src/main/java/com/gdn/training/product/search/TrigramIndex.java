@@ -0,0 +1,221 @@
+package com.gdn.training.product.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index from the trigrams of product names to the products containing them.
+ * <p>
+ * Every indexed name gets a document id, in the order names are added. A search takes the trigrams of the query's
+ * literal text, intersects their posting lists starting from the shortest, and checks the name of every remaining
+ * candidate against the query, so results and totals are exact. Queries with no literal run of three characters have
+ * no trigrams to narrow by and check every name.
+ * <p>
+ * Renaming a product adds it again under a new document id and marks the old one deleted; deleted ids are skipped by
+ * searches and dropped the next time the index is rebuilt. Searches share a read lock and writes take the write lock,
+ * so a search always sees a consistent index.
+ */
+public final class TrigramIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private final Map<UUID, Integer> documents = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private UUID[] ids = new UUID[1024];
+    private String[] names = new String[1024];
+    private int nextDocId;
+
+    /**
+     * Indexes {@code name} under {@code id}, replacing the name it had.
+     */
+    public void put(UUID id, String name) {
+        String normalized = SearchQuery.normalize(name);
+        lock.writeLock().lock();
+        try {
+            Integer previous = documents.get(id);
+            if (previous != null) {
+                if (names[previous].equals(normalized)) {
+                    return;
+                }
+                deleted.set(previous);
+            }
+            int docId = nextDocId++;
+            if (docId == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+                names = Arrays.copyOf(names, names.length * 2);
+            }
+            ids[docId] = id;
+            names[docId] = normalized;
+            documents.put(id, docId);
+            for (int i = 0; i + 3 <= normalized.length(); i++) {
+                postings.computeIfAbsent(trigram(normalized, i), key -> new PostingList()).add(docId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            Integer docId = documents.remove(id);
+            if (docId != null) {
+                deleted.set(docId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The products matching {@code query}, best ranked first (see {@link SearchQuery#rank}, then by name), skipping
+     * {@code offset} and returning at most {@code limit}, with the total number of matches.
+     */
+    public Hits search(SearchQuery query, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            Matches matches = match(query);
+            int total = matches.size;
+            if (offset >= total || limit <= 0) {
+                return new Hits(List.of(), total);
+            }
+            int end = (int) Math.min(total, offset + limit);
+            int[] ranked = top(matches, end);
+            List<UUID> page = new ArrayList<>(end - (int) offset);
+            for (int i = (int) offset; i < end; i++) {
+                page.add(ids[ranked[i]]);
+            }
+            return new Hits(page, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Matches match(SearchQuery query) {
+        Matches matches = new Matches();
+        List<PostingList.Cursor> cursors = cursors(query);
+        if (cursors == null) {
+            return matches;
+        }
+        if (cursors.isEmpty()) {
+            for (int docId = deleted.nextClearBit(0); docId < nextDocId; docId = deleted.nextClearBit(docId + 1)) {
+                matches.offer(docId, query);
+            }
+            return matches;
+        }
+
+        PostingList.Cursor lead = cursors.get(0);
+        for (int docId = lead.next(); docId >= 0; docId = lead.next()) {
+            if (deleted.get(docId) || !inAll(cursors, docId)) {
+                continue;
+            }
+            matches.offer(docId, query);
+        }
+        return matches;
+    }
+
+    private boolean inAll(List<PostingList.Cursor> cursors, int docId) {
+        for (int i = 1; i < cursors.size(); i++) {
+            if (cursors.get(i).advance(docId) != docId) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cursors over the posting lists of every trigram in the query, shortest first; empty when the query has no
+     * trigrams and {@code null} when one of them occurs in no name.
+     */
+    private List<PostingList.Cursor> cursors(SearchQuery query) {
+        Map<Long, PostingList> lists = new HashMap<>();
+        for (String literal : query.literals()) {
+            for (int i = 0; i + 3 <= literal.length(); i++) {
+                long trigram = trigram(literal, i);
+                PostingList list = postings.get(trigram);
+                if (list == null) {
+                    return null;
+                }
+                lists.put(trigram, list);
+            }
+        }
+        return lists.values().stream()
+                .sorted(Comparator.comparingInt(PostingList::size))
+                .map(PostingList::cursor)
+                .toList();
+    }
+
+    /**
+     * Document ids of the best {@code count} matches in rank order. Only a heap of {@code count} ids is kept while
+     * scanning, so the first pages of a broad query do not sort every match.
+     */
+    private int[] top(Matches matches, int count) {
+        Comparator<Integer> best = Comparator.<Integer>comparingLong(i -> matches.ranks[i])
+                .thenComparing(i -> names[matches.docIds[i]])
+                .thenComparingInt(i -> matches.docIds[i]);
+        PriorityQueue<Integer> heap = new PriorityQueue<>(count + 1, best.reversed());
+        for (int i = 0; i < matches.size; i++) {
+            heap.offer(i);
+            if (heap.size() > count) {
+                heap.poll();
+            }
+        }
+        int[] ranked = new int[heap.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = matches.docIds[heap.poll()];
+        }
+        return ranked;
+    }
+
+    private static long trigram(String value, int start) {
+        return (long) value.charAt(start) << 32 | (long) value.charAt(start + 1) << 16 | value.charAt(start + 2);
+    }
+
+    /**
+     * Verified matches and their ranks.
+     */
+    private final class Matches {
+
+        private int[] docIds = new int[64];
+        private long[] ranks = new long[64];
+        private int size;
+
+        void offer(int docId, SearchQuery query) {
+            String name = names[docId];
+            if (!query.matches(name)) {
+                return;
+            }
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size * 2);
+                ranks = Arrays.copyOf(ranks, size * 2);
+            }
+            docIds[size] = docId;
+            ranks[size] = query.rank(name);
+            size++;
+        }
+    }
+
+    /**
+     * One page of matching product ids and the total number of matches.
+     */
+    public record Hits(List<UUID> ids, long total) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.gdn.training.product.service;
+
+import java.util.Locale;
+
+/**
+ * How a search page's total is worked out when the database answers the search. Pages from the search index always
+ * carry its exact total, and a page that is not full needs no count at all: its total is everything before it plus
+ * what it holds.
+ */
+public enum CountStrategy {
+
+    /**
+     * A count query after the content query.
+     */
+    EXACT,
+
+    /**
+     * An exact count, reused for the same query until {@code product-search.count.cache-ttl} passes.
+     */
+    CACHED,
+
+    /**
+     * PostgreSQL's row estimate from planner statistics when listing every product; filtered searches use a cached
+     * count, as no statistic covers them.
+     */
+    ESTIMATED,
+
+    /**
+     * No count: the total is a lower bound that only says whether a next page exists.
+     */
+    NONE,
+
+    /**
+     * An exact count run on a virtual thread at the same time as the content query, on a second connection.
+     */
+    PARALLEL;
+
+    public static CountStrategy of(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unsupported count strategy: " + name);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.gdn.training.product.service;
+
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.gdn.training.product.repository.ProductRepository;
+
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Counts the products matching a name {@code LIKE} pattern, or every product when the pattern is {@code null}, for
+ * the {@link CountStrategy count strategies} of {@code ProductService}.
+ */
+@Component
+public class ProductCounter {
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService counts;
+
+    private volatile Boolean postgres;
+
+    public ProductCounter(ProductRepository productRepository, JdbcTemplate jdbcTemplate) {
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        // Carries the caller's trace into the count, so its repository span joins the request's trace.
+        this.counts = ContextExecutorService.wrap(Executors.newVirtualThreadPerTaskExecutor(),
+                ContextSnapshotFactory.builder().build()::captureAll);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        counts.shutdownNow();
+    }
+
+    public long count(String pattern) {
+        return pattern == null ? productRepository.count() : productRepository.countMatchingName(pattern);
+    }
+
+    /**
+     * {@link #count} through the {@code productSearchCount} cache. Patterns are lower-cased by the caller, so
+     * searches differing only in case share an entry. Keys start with the {@link ProductSearchCache#generation()
+     * search generation}, so product writes retire cached counts along with cached pages.
+     */
+    @Cacheable(value = "productSearchCount", key = "@productSearchCache.generation() + ':' + (#pattern ?: '')")
+    public long cachedCount(String pattern) {
+        return count(pattern);
+    }
+
+    /**
+     * {@link #count} on a virtual thread of its own, outside the caller's transaction.
+     */
+    public CompletableFuture<Long> countAsync(String pattern) {
+        return CompletableFuture.supplyAsync(() -> count(pattern), counts);
+    }
+
+    /**
+     * PostgreSQL's estimate of the number of products, as of the last {@code ANALYZE} or autovacuum; empty on other
+     * databases and before the table has been analyzed.
+     */
+    public OptionalLong estimateAll() {
+        if (!isPostgres()) {
+            return OptionalLong.empty();
+        }
+        Long estimate = jdbcTemplate.queryForObject(
+                "select cast(reltuples as bigint) from pg_class where oid = to_regclass('products')", Long.class);
+        return estimate == null || estimate < 0 ? OptionalLong.empty() : OptionalLong.of(estimate);
+    }
+
+    private boolean isPostgres() {
+        Boolean current = postgres;
+        if (current == null) {
+            current = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+            postgres = current;
+        }
+        return Boolean.TRUE.equals(current);
+    }
+}
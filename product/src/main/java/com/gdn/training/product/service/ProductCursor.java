@@ -0,0 +1,138 @@
+package com.gdn.training.product.service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.gdn.training.product.entity.Product;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+
+/**
+ * Position in a keyset listing of products: the order of the listing and the sort key and id of the last product
+ * returned, {@code null} before the first page. Clients only ever see it {@link #encode() encoded} as an opaque token.
+ * <p>
+ * The id breaks ties between equal sort keys, so the order is total and a product is never skipped or repeated
+ * between pages, even when products are added or removed in between.
+ */
+record ProductCursor(Key key, Sort.Direction direction, Comparable<?> lastKey, UUID lastId) {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * The first page of the listing ordered by {@code sort}: {@code name} or {@code price}, optionally followed by
+     * {@code ,asc} or {@code ,desc}.
+     */
+    static ProductCursor first(String sort) {
+        String[] parts = sort.split(",", -1);
+        if (parts.length > 2) {
+            throw new IllegalArgumentException("Unsupported sort: " + sort);
+        }
+        Sort.Direction direction = parts.length == 2
+                ? Sort.Direction.fromOptionalString(parts[1].trim()).orElseThrow(
+                        () -> new IllegalArgumentException("Unsupported sort: " + sort))
+                : Sort.Direction.ASC;
+        return new ProductCursor(Key.of(parts[0].trim()), direction, null, null);
+    }
+
+    static ProductCursor decode(String token) {
+        try {
+            String[] parts = new String(DECODER.decode(token), StandardCharsets.UTF_8).split(",", 4);
+            Key key = Key.of(parts[0]);
+            return new ProductCursor(key, Sort.Direction.fromString(parts[1]), key.parse(parts[3]),
+                    UUID.fromString(parts[2]));
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    ProductCursor after(Product last) {
+        return new ProductCursor(key, direction, key.valueOf(last), last.getId());
+    }
+
+    String encode() {
+        String value = key.property + "," + direction + "," + lastId + "," + key.format(lastKey);
+        return ENCODER.encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    Sort sort() {
+        return Sort.by(direction, key.property, "id");
+    }
+
+    /**
+     * Products after the cursor in its order; none are excluded before the first page.
+     * <p>
+     * The redundant leading bound ({@code key >= :lastKey} ascending) is what lets the database seek into the
+     * {@code (key, id)} index; from the {@code or} alone it would read the index from the start and filter.
+     */
+    Specification<Product> seek() {
+        return (root, query, cb) -> {
+            if (lastId == null) {
+                return null;
+            }
+            Path<Comparable<Object>> sortKey = root.get(key.property);
+            Path<UUID> id = root.get("id");
+            Predicate sameKeyLaterId = direction.isAscending()
+                    ? cb.and(cb.equal(sortKey, lastKey), cb.greaterThan(id, lastId))
+                    : cb.and(cb.equal(sortKey, lastKey), cb.lessThan(id, lastId));
+            return cb.and(bound(cb, sortKey, true), cb.or(bound(cb, sortKey, false), sameKeyLaterId));
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private Predicate bound(CriteriaBuilder cb, Path<Comparable<Object>> sortKey, boolean inclusive) {
+        Comparable<Object> value = (Comparable<Object>) lastKey;
+        if (direction.isAscending()) {
+            return inclusive ? cb.greaterThanOrEqualTo(sortKey, value) : cb.greaterThan(sortKey, value);
+        }
+        return inclusive ? cb.lessThanOrEqualTo(sortKey, value) : cb.lessThan(sortKey, value);
+    }
+
+    /**
+     * The product attributes a keyset listing can be ordered by.
+     */
+    enum Key {
+        NAME("name", Product::getName, value -> value),
+        PRICE("price", Product::getPrice, BigDecimal::new);
+
+        private final String property;
+        private final Function<Product, Comparable<?>> getter;
+        private final Function<String, Comparable<?>> parser;
+
+        Key(String property, Function<Product, Comparable<?>> getter, Function<String, Comparable<?>> parser) {
+            this.property = property;
+            this.getter = getter;
+            this.parser = parser;
+        }
+
+        static Key of(String property) {
+            for (Key key : values()) {
+                if (key.property.equals(property.toLowerCase(Locale.ROOT))) {
+                    return key;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported sort: " + property);
+        }
+
+        Comparable<?> valueOf(Product product) {
+            return getter.apply(product);
+        }
+
+        Comparable<?> parse(String value) {
+            return parser.apply(value);
+        }
+
+        String format(Comparable<?> value) {
+            return value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.gdn.training.product.service;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.util.ByteUtils;
+import org.springframework.stereotype.Component;
+
+import com.gdn.training.product.config.ProductSearchCacheProperties;
+import com.gdn.training.product.dto.CountedPage;
+import com.gdn.training.product.entity.Product;
+import com.gdn.training.product.repository.ProductRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pages of {@link ProductService#searchProducts} kept in the {@code productSearchPage} cache as the ordered ids of
+ * their products plus the total. The products themselves are read from {@code productById}, so a product cached for
+ * its detail page is not stored again for every search it appears in. On Redis they are read with one {@code MGET},
+ * so a cached page costs two round trips however many products it lists; those missing from the cache are loaded in
+ * one query and cached there.
+ * <p>
+ * Keys start with the catalog's current generation, a random token in {@code productSearchGeneration} that every
+ * product write committed through JPA replaces. Pages of earlier generations are never read again and expire with
+ * their TTL, so a write costs one cache put however many pages it affects, and every instance sharing the cache sees
+ * it at once. {@code ProductCounter} keys its cached counts by the generation too.
+ */
+@Component
+@Slf4j
+public class ProductSearchCache {
+
+    static final String PAGES = "productSearchPage";
+    static final String GENERATION = "productSearchGeneration";
+    static final String PRODUCTS = "productById";
+
+    private static final String CURRENT_GENERATION = "current";
+
+    private final CacheManager cacheManager;
+    private final ProductRepository productRepository;
+    private final ProductSearchCacheProperties properties;
+    private final ObjectProvider<RedisConnectionFactory> redisConnectionFactory;
+
+    public ProductSearchCache(CacheManager cacheManager, ProductRepository productRepository,
+            ProductSearchCacheProperties properties, ObjectProvider<RedisConnectionFactory> redisConnectionFactory) {
+        this.cacheManager = cacheManager;
+        this.productRepository = productRepository;
+        this.properties = properties;
+        this.redisConnectionFactory = redisConnectionFactory;
+    }
+
+    /**
+     * The key of a search page in the current generation, or empty when the page is not cached: the cache is
+     * disabled, the page is unpaged, or it lies beyond {@code max-pages} or {@code max-page-size}. Queries are
+     * trimmed and lower-cased, as searches ignore case.
+     * <p>
+     * Read the key before searching: a page searched while a write commits is then stored under the generation the
+     * write retires.
+     */
+    public Optional<String> key(String query, Pageable pageable, CountStrategy strategy) {
+        if (!properties.isEnabled() || pageable.isUnpaged()
+                || pageable.getPageNumber() >= properties.getMaxPages()
+                || pageable.getPageSize() > properties.getMaxPageSize()) {
+            return Optional.empty();
+        }
+        String normalized = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        return Optional.of(generation() + ":" + strategy + ":" + pageable.getPageNumber() + ":"
+                + pageable.getPageSize() + ":" + pageable.getSort() + ":" + normalized);
+    }
+
+    /**
+     * The page cached under {@code key}, its products in their cached order; empty when there is none, or when one
+     * of its products no longer exists.
+     */
+    public Optional<CountedPage<Product>> get(String key, Pageable pageable) {
+        CachedPage page = cache(PAGES).get(key, CachedPage.class);
+        if (page == null) {
+            return Optional.empty();
+        }
+
+        Cache productCache = cache(PRODUCTS);
+        Map<UUID, Product> products = cachedProducts(productCache, page.ids());
+        List<UUID> missing = page.ids().stream().filter(id -> !products.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            for (Product product : productRepository.findAllById(missing)) {
+                productCache.put(product.getId(), product);
+                products.put(product.getId(), product);
+            }
+        }
+        if (products.size() < page.ids().size()) {
+            log.debug("Cached search page {} lists deleted products", key);
+            return Optional.empty();
+        }
+
+        List<Product> content = page.ids().stream().map(products::get).toList();
+        return Optional.of(new CountedPage<>(content, pageable, page.total(), page.totalExact()));
+    }
+
+    public void put(String key, CountedPage<Product> page) {
+        List<UUID> ids = page.getContent().stream().map(Product::getId).toList();
+        cache(PAGES).put(key, new CachedPage(ids, page.getTotalElements(), page.isTotalExact()));
+    }
+
+    /**
+     * Retires every cached search page and the cached copy of the product with {@code id}.
+     */
+    public void productChanged(UUID id) {
+        cache(PRODUCTS).evict(id);
+        cache(GENERATION).put(CURRENT_GENERATION, UUID.randomUUID().toString());
+    }
+
+    /**
+     * The products with {@code ids} found in {@code productCache}, read in one {@code MGET} when it is a Redis cache.
+     */
+    private Map<UUID, Product> cachedProducts(Cache productCache, List<UUID> ids) {
+        Map<UUID, Product> products = new HashMap<>();
+        RedisConnectionFactory connectionFactory = redisConnectionFactory.getIfAvailable();
+        if (!(productCache instanceof RedisCache redisCache) || connectionFactory == null) {
+            for (UUID id : ids) {
+                Product product = productCache.get(id, Product.class);
+                if (product != null) {
+                    products.put(id, product);
+                }
+            }
+            return products;
+        }
+
+        // The keys and values @Cacheable writes: the cache's prefix before the id, both through its serializers.
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        String prefix = config.usePrefix() ? config.getKeyPrefixFor(redisCache.getName()) : "";
+        byte[][] keys = ids.stream()
+                .map(id -> ByteUtils.getBytes(config.getKeySerializationPair().write(prefix + id)))
+                .toArray(byte[][]::new);
+        List<byte[]> values;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            values = connection.stringCommands().mGet(keys);
+        }
+        for (int i = 0; values != null && i < ids.size(); i++) {
+            byte[] value = values.get(i);
+            Object cached = value == null ? null : config.getValueSerializationPair().read(ByteBuffer.wrap(value));
+            if (cached instanceof Product product) {
+                products.put(ids.get(i), product);
+            }
+        }
+        return products;
+    }
+
+    /**
+     * The current generation, replaced by every product write committed through JPA.
+     */
+    public String generation() {
+        Cache generations = cache(GENERATION);
+        String current = generations.get(CURRENT_GENERATION, String.class);
+        if (current != null) {
+            return current;
+        }
+        // Expired or evicted: whichever instance starts the next generation first, the others join it.
+        String started = UUID.randomUUID().toString();
+        Cache.ValueWrapper existing = generations.putIfAbsent(CURRENT_GENERATION, started);
+        return existing == null || existing.get() == null ? started : (String) existing.get();
+    }
+
+    private Cache cache(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache == null) {
+            throw new IllegalStateException("No cache named " + name);
+        }
+        return cache;
+    }
+
+    /**
+     * What is stored for a page; a mutable list, so that the JSON written to Redis reads back.
+     */
+    record CachedPage(List<UUID> ids, long total, boolean totalExact) {
+
+        CachedPage {
+            ids = new ArrayList<>(ids);
+        }
+    }
+}
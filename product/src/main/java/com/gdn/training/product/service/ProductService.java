@@ -1,15 +1,32 @@
 package com.gdn.training.product.service;
 
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.gdn.training.product.config.ProductCountProperties;
+import com.gdn.training.product.dto.CountedPage;
+import com.gdn.training.product.dto.ProductScrollResponse;
 import com.gdn.training.product.entity.Product;
 import com.gdn.training.product.repository.ProductRepository;
+import com.gdn.training.product.search.ProductSearchIndex;
+import com.gdn.training.product.search.SearchQuery;
+import com.gdn.training.product.search.TrigramIndex;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -19,24 +36,84 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ProductService {
 
+    private static final int MAX_SCROLL_SIZE = 2000;
+
     private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductCounter productCounter;
+    private final ProductCountProperties countProperties;
+    private final ProductSearchCache searchCache;
 
+    /**
+     * Name searches are answered from {@link ProductSearchIndex} when it is ready and the page is unsorted, ranked by
+     * relevance; otherwise by a {@code LIKE} query on the lower-cased name, in the requested order, with a total
+     * worked out by {@code countStrategy}, or {@code product-search.count.strategy} when {@code null}. Leading pages
+     * are served from {@link ProductSearchCache} until a product changes.
+     */
     @Transactional(readOnly = true)
-    public Page<Product> searchProducts(String query, Pageable pageable) {
+    public CountedPage<Product> searchProducts(String query, Pageable pageable, CountStrategy countStrategy) {
+        CountStrategy strategy = countStrategy == null ? countProperties.getStrategy() : countStrategy;
+        Optional<String> cacheKey = searchCache.key(query, pageable, strategy);
+        Optional<CountedPage<Product>> cached = cacheKey.flatMap(key -> searchCache.get(key, pageable));
+        if (cached.isPresent()) {
+            log.debug("Serving cached search page {}", cacheKey.get());
+            return cached.get();
+        }
+        CountedPage<Product> page = search(query, pageable, strategy);
+        cacheKey.ifPresent(key -> searchCache.put(key, page));
+        return page;
+    }
+
+    private CountedPage<Product> search(String query, Pageable pageable, CountStrategy strategy) {
         if (query == null || query.isBlank()) {
             log.debug("Listing all products - page {}", pageable.getPageNumber());
-            return productRepository.findAll(pageable);
+            return countedPage(null, pageable, strategy);
         }
 
         String trimmed = query.trim();
-        if (containsWildcard(trimmed)) {
+        boolean wildcard = containsWildcard(trimmed);
+        SearchQuery searchQuery = wildcard ? SearchQuery.wildcard(trimmed) : SearchQuery.substring(trimmed);
+        Optional<TrigramIndex.Hits> hits = productSearchIndex.search(searchQuery, pageable);
+        if (hits.isPresent()) {
+            log.info("Searching products in the index for {}", searchQuery);
+            return loadPage(hits.get(), pageable);
+        }
+
+        if (wildcard) {
             String pattern = toLikePattern(trimmed);
             log.info("Searching products with wildcard pattern {}", pattern);
-            return productRepository.findByNameLikeIgnoreCase(pattern, pageable);
+            return countedPage(pattern.toLowerCase(Locale.ROOT), pageable, strategy);
         }
 
         log.info("Searching products with keyword '{}'", trimmed);
-        return productRepository.findByNameContainingIgnoreCase(trimmed, pageable);
+        return countedPage(toContainsPattern(trimmed).toLowerCase(Locale.ROOT), pageable, strategy);
+    }
+
+    /**
+     * One slice of products in {@code sort} order, or in the order {@code cursor} was issued for, following the
+     * cursor and filtered by {@code query} as {@link #searchProducts} filters. Each slice seeks to where the previous
+     * one ended, so deep slices cost the same as the first, and no total is counted.
+     */
+    @Transactional(readOnly = true)
+    public ProductScrollResponse scrollProducts(String query, String sort, String cursor, int size) {
+        if (size < 1 || size > MAX_SCROLL_SIZE) {
+            throw new IllegalArgumentException("Size must be between 1 and " + MAX_SCROLL_SIZE);
+        }
+        ProductCursor position = cursor == null || cursor.isBlank()
+                ? ProductCursor.first(sort)
+                : ProductCursor.decode(cursor);
+        log.debug("Scrolling products by {} {} after {}", position.key(), position.direction(), position.lastId());
+
+        List<Product> products = productRepository.findBy(position.seek().and(nameMatches(query)),
+                slice -> slice.sortBy(position.sort()).limit(size + 1).all());
+        boolean hasNext = products.size() > size;
+        List<Product> content = hasNext ? products.subList(0, size) : products;
+        return ProductScrollResponse.builder()
+                .content(content)
+                .size(content.size())
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? position.after(content.get(size - 1)).encode() : null)
+                .build();
     }
 
     @Transactional(readOnly = true)
@@ -53,10 +130,108 @@ public class ProductService {
                 });
     }
 
+    /**
+     * Loads the products of one page of index hits by primary key, keeping the index's order. A product deleted since
+     * it was indexed is left out of the page.
+     */
+    private CountedPage<Product> loadPage(TrigramIndex.Hits hits, Pageable pageable) {
+        Map<UUID, Product> products = productRepository.findAllById(hits.ids()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Product> content = hits.ids().stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new CountedPage<>(content, pageable, hits.total(), true);
+    }
+
+    /**
+     * One page of the products matching {@code pattern}, or of all products when it is {@code null}. The content
+     * query reads one row past the page, so the last page knows its total without a count; other pages get theirs
+     * from {@code strategy}.
+     */
+    private CountedPage<Product> countedPage(String pattern, Pageable pageable, CountStrategy strategy) {
+        CompletableFuture<Long> parallelCount = strategy == CountStrategy.PARALLEL
+                ? productCounter.countAsync(pattern)
+                : null;
+        Slice<Product> slice;
+        try {
+            slice = pattern == null
+                    ? productRepository.findAllBy(pageable)
+                    : productRepository.searchByName(pattern, pageable);
+        } catch (RuntimeException ex) {
+            cancel(parallelCount);
+            throw ex;
+        }
+
+        List<Product> content = slice.getContent();
+        long seen = (pageable.isPaged() ? pageable.getOffset() : 0) + content.size();
+        if (!slice.hasNext() && (!content.isEmpty() || pageable.isUnpaged() || pageable.getOffset() == 0)) {
+            cancel(parallelCount);
+            return new CountedPage<>(content, pageable, seen, true);
+        }
+
+        log.debug("Counting products matching {} with {}", pattern, strategy);
+        return switch (strategy) {
+            case EXACT -> new CountedPage<>(content, pageable, productCounter.count(pattern), true);
+            case CACHED -> new CountedPage<>(content, pageable, productCounter.cachedCount(pattern), true);
+            case ESTIMATED -> estimatedPage(pattern, content, pageable, seen);
+            case NONE -> new CountedPage<>(content, pageable, seen + 1, false);
+            case PARALLEL -> new CountedPage<>(content, pageable, await(parallelCount), true);
+        };
+    }
+
+    private CountedPage<Product> estimatedPage(String pattern, List<Product> content, Pageable pageable, long seen) {
+        OptionalLong estimate = pattern == null ? productCounter.estimateAll() : OptionalLong.empty();
+        if (estimate.isEmpty()) {
+            return new CountedPage<>(content, pageable, productCounter.cachedCount(pattern), true);
+        }
+        // Statistics lag behind writes; a next page exists, so there are more products than have been seen.
+        return new CountedPage<>(content, pageable, Math.max(estimate.getAsLong(), seen + 1), false);
+    }
+
+    private static long await(CompletableFuture<Long> count) {
+        try {
+            return count.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private static void cancel(CompletableFuture<Long> count) {
+        if (count != null) {
+            count.cancel(true);
+        }
+    }
+
+    private Specification<Product> nameMatches(String query) {
+        if (query == null || query.isBlank()) {
+            return (root, criteria, cb) -> null;
+        }
+        String trimmed = query.trim();
+        String pattern = (containsWildcard(trimmed) ? toLikePattern(trimmed) : toContainsPattern(trimmed))
+                .toLowerCase(Locale.ROOT);
+        return (root, criteria, cb) -> cb.like(cb.lower(root.get("name")), pattern, '\\');
+    }
+
     private boolean containsWildcard(String query) {
         return query.contains("*") || query.contains("?");
     }
 
+    /**
+     * A {@code LIKE} pattern matching names that contain {@code keyword}, with its {@code %} and {@code _} taken
+     * literally.
+     */
+    private String toContainsPattern(String keyword) {
+        String escaped = keyword
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+
     private String toLikePattern(String query) {
         String pattern = query
                 .replace('*', '%')
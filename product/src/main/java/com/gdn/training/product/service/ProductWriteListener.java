@@ -0,0 +1,76 @@
+package com.gdn.training.product.service;
+
+import java.util.UUID;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.gdn.training.product.entity.Product;
+import com.gdn.training.product.search.ProductSearchIndex;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies product writes made through JPA to the {@link ProductSearchIndex} and the {@link ProductSearchCache} once
+ * their transaction commits, so a rolled-back write is never searchable, and searches made before the commit cannot
+ * re-cache the old results under the new generation. The index is updated first, so pages cached in the new
+ * generation already see the write. A cache that cannot be reached is logged rather than failing the committed write;
+ * its pages expire with their TTL. Bulk JPQL updates and deletes bypass entity callbacks and are only picked up by the
+ * next index rebuild and cache expiry.
+ * <p>
+ * Hibernate creates this listener through Spring, while the entity manager factory is still being built; the index
+ * and the cache depend on the repository, so they are looked up lazily.
+ */
+@Slf4j
+public class ProductWriteListener {
+
+    private final ObjectProvider<ProductSearchIndex> searchIndex;
+    private final ObjectProvider<ProductSearchCache> searchCache;
+
+    public ProductWriteListener(ObjectProvider<ProductSearchIndex> searchIndex,
+            ObjectProvider<ProductSearchCache> searchCache) {
+        this.searchIndex = searchIndex;
+        this.searchCache = searchCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    void saved(Product product) {
+        UUID id = product.getId();
+        String name = product.getName();
+        afterCommit(id, () -> searchIndex.ifAvailable(index -> index.saved(id, name)));
+    }
+
+    @PostRemove
+    void removed(Product product) {
+        UUID id = product.getId();
+        afterCommit(id, () -> searchIndex.ifAvailable(index -> index.deleted(id)));
+    }
+
+    private void afterCommit(UUID id, Runnable indexWrite) {
+        Runnable action = () -> {
+            indexWrite.run();
+            searchCache.ifAvailable(cache -> {
+                try {
+                    cache.productChanged(id);
+                } catch (RuntimeException ex) {
+                    log.warn("Could not retire cached searches after product {} changed", id, ex);
+                }
+            });
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,150 @@
+package com.gdn.training.product.tracing;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.util.function.SingletonSupplier;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Wraps every {@link CacheManager} so its caches' lookups, writes and evictions run in a {@code data.cache}
+ * observation, which becomes a span such as {@code product-by-id get} and a timer tagged with {@code cache},
+ * {@code operation} and, for lookups, {@code result=hit|miss}.
+ * <p>
+ * Asynchronous {@code retrieve} calls are passed through unobserved; this service only caches synchronously.
+ */
+public class CacheObservations implements BeanPostProcessor {
+
+    private final SingletonSupplier<ObservationRegistry> registry;
+
+    public CacheObservations(ObjectProvider<ObservationRegistry> registry) {
+        this.registry = SingletonSupplier.of(() -> registry.getIfAvailable(() -> ObservationRegistry.NOOP));
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof CacheManager cacheManager && !(bean instanceof ObservedCacheManager)) {
+            return new ObservedCacheManager(cacheManager);
+        }
+        return bean;
+    }
+
+    private Observation observation(String cache, String operation) {
+        return Observation.createNotStarted("data.cache", registry.obtain())
+                .contextualName(cache + " " + operation)
+                .lowCardinalityKeyValue("cache", cache)
+                .lowCardinalityKeyValue("operation", operation);
+    }
+
+    private final class ObservedCacheManager implements CacheManager {
+
+        private final CacheManager delegate;
+
+        ObservedCacheManager(CacheManager delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Cache getCache(String name) {
+            Cache cache = delegate.getCache(name);
+            return cache == null ? null : new ObservedCache(cache);
+        }
+
+        @Override
+        public Collection<String> getCacheNames() {
+            return delegate.getCacheNames();
+        }
+    }
+
+    private final class ObservedCache implements Cache {
+
+        private final Cache delegate;
+
+        ObservedCache(Cache delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return delegate.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            Observation observation = observation(getName(), "get").start();
+            try (Observation.Scope scope = observation.openScope()) {
+                ValueWrapper value = delegate.get(key);
+                observation.lowCardinalityKeyValue("result", value != null ? "hit" : "miss");
+                return value;
+            } catch (RuntimeException e) {
+                observation.error(e);
+                throw e;
+            } finally {
+                observation.stop();
+            }
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            return observation(getName(), "get").observe(() -> delegate.get(key, type));
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            return observation(getName(), "get").observe(() -> delegate.get(key, valueLoader));
+        }
+
+        @Override
+        public CompletableFuture<?> retrieve(Object key) {
+            return delegate.retrieve(key);
+        }
+
+        @Override
+        public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+            return delegate.retrieve(key, valueLoader);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            observation(getName(), "put").observe(() -> delegate.put(key, value));
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            return observation(getName(), "put").observe(() -> delegate.putIfAbsent(key, value));
+        }
+
+        @Override
+        public void evict(Object key) {
+            observation(getName(), "evict").observe(() -> delegate.evict(key));
+        }
+
+        @Override
+        public boolean evictIfPresent(Object key) {
+            return observation(getName(), "evict").observe(() -> delegate.evictIfPresent(key));
+        }
+
+        @Override
+        public void clear() {
+            observation(getName(), "clear").observe(delegate::clear);
+        }
+
+        @Override
+        public boolean invalidate() {
+            return observation(getName(), "clear").observe(delegate::invalidate);
+        }
+    }
+}
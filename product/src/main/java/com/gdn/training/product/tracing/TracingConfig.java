@@ -0,0 +1,22 @@
+package com.gdn.training.product.tracing;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.tracing.ConditionalOnEnabledTracing;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * The product service's own spans: {@link CacheObservations} adds one per cache operation. Sampling, tail-latency
+ * retention, repository spans and {@code /actuator/traces} come from {@code common-tracing}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnEnabledTracing
+public class TracingConfig {
+
+    @Bean
+    public static CacheObservations cacheObservations(ObjectProvider<ObservationRegistry> registry) {
+        return new CacheObservations(registry);
+    }
+}
@@ -0,0 +1,8 @@
+-- Indexes Hibernate's ddl-auto cannot create. Runs after Hibernate has updated the schema, on every startup, so every
+-- statement must be idempotent.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Answers ProductRepository.searchByName: lower(name) LIKE '%...%' and wildcard patterns with at least one literal run
+-- of three characters.
+CREATE INDEX IF NOT EXISTS idx_products_name_trgm ON products USING gin (lower(name) gin_trgm_ops);
@@ -2,16 +2,26 @@ package com.gdn.training.product.controller;
 
 import com.gdn.training.product.entity.Product;
 import com.gdn.training.product.repository.ProductRepository;
+import com.gdn.training.product.search.ProductSearchIndex;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -28,6 +38,15 @@ class ProductControllerIntegrationTest {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @BeforeEach
     void setUp() {
         productRepository.deleteAll();
@@ -140,11 +159,155 @@ class ProductControllerIntegrationTest {
                 .andExpect(jsonPath("$.data.content[0].name", is("Widget Beta")));
     }
 
+    @Test
+    void searchIsRankedFromTheIndexOnceBuilt() throws Exception {
+        for (String name : new String[] {"Action Camera", "Camera"}) {
+            productRepository.save(Product.builder()
+                    .name(name)
+                    .price(BigDecimal.TEN)
+                    .quantity(Integer.MAX_VALUE)
+                    .build());
+        }
+        productSearchIndex.rebuild();
+        productRepository.save(Product.builder()
+                .name("Camera Bag")
+                .price(BigDecimal.TEN)
+                .quantity(Integer.MAX_VALUE)
+                .build());
+
+        mockMvc.perform(get("/").param("query", "camera").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[*].name", contains("Camera", "Camera Bag")))
+                .andExpect(jsonPath("$.data.totalElements", is(3)));
+    }
+
+    @Test
+    void sortedSearchesTakeLikeWildcardsInKeywordsLiterally() throws Exception {
+        for (String name : new String[] {"Charger 1000 Fast", "Charger 100% Fast", "Charger 100_ Slow"}) {
+            productRepository.save(Product.builder()
+                    .name(name)
+                    .price(BigDecimal.TEN)
+                    .quantity(Integer.MAX_VALUE)
+                    .build());
+        }
+
+        mockMvc.perform(get("/").param("query", "100%").param("sort", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[*].name", contains("Charger 100% Fast")));
+        mockMvc.perform(get("/").param("query", "CHARGER 100?*").param("sort", "name,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[*].name",
+                        contains("Charger 100_ Slow", "Charger 1000 Fast", "Charger 100% Fast")));
+    }
+
+    @Test
+    void countStrategiesSayWhetherTheTotalIsExact() throws Exception {
+        cacheManager.getCache("productSearchCount").clear();
+        for (int i = 0; i < 25; i++) {
+            saveLamp(i);
+        }
+
+        expectTotal("none", 0, 11, false);
+        expectTotal("none", 2, 25, true);
+        expectTotal("parallel", 0, 25, true);
+        expectTotal("estimated", 0, 25, true);
+        expectTotal("cached", 0, 25, true);
+        saveLamp(25);
+        expectTotal("cached", 0, 26, true);
+        expectTotal("exact", 0, 26, true);
+        expectTotal(null, 0, 26, true);
+    }
+
+    @Test
+    void searchPagesAreCachedUntilAProductChanges() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            saveLamp(i);
+        }
+        expectTotal("exact", 0, 20, true);
+
+        // Written behind JPA's back, so the cached page is not retired.
+        jdbcTemplate.update("insert into products (id, name, price, quantity) values (?, 'Lamp 99', 10, 1)",
+                UUID.randomUUID());
+        expectTotal("exact", 0, 20, true);
+        expectTotal("exact", 1, 21, true);
+
+        saveLamp(20);
+        expectTotal("exact", 0, 22, true);
+    }
+
+    @Test
+    void scrollVisitsEveryMatchOnceInPriceOrder() throws Exception {
+        for (int i = 0; i < 25; i++) {
+            productRepository.save(Product.builder()
+                    .name((i % 5 == 0 ? "Other " : "Lamp ") + i)
+                    .price(BigDecimal.valueOf(i % 4))
+                    .quantity(Integer.MAX_VALUE)
+                    .build());
+        }
+
+        List<String> names = new ArrayList<>();
+        List<BigDecimal> prices = new ArrayList<>();
+        String cursor = null;
+        int slices = 0;
+        do {
+            MvcResult result = mockMvc.perform(get("/scroll")
+                            .param("query", "lamp")
+                            .param("sort", "price,desc")
+                            .param("size", "7")
+                            .param("cursor", cursor))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.totalElements").doesNotExist())
+                    .andReturn();
+            String body = result.getResponse().getContentAsString();
+            names.addAll(JsonPath.read(body, "$.data.content[*].name"));
+            List<Number> slicePrices = JsonPath.read(body, "$.data.content[*].price");
+            slicePrices.forEach(price -> prices.add(new BigDecimal(price.toString())));
+            cursor = JsonPath.read(body, "$.data.nextCursor");
+            slices++;
+        } while (cursor != null);
+
+        assertThat(slices).isEqualTo(3);
+        assertThat(names).hasSize(20).doesNotHaveDuplicates().allMatch(name -> name.startsWith("Lamp "));
+        assertThat(prices).isSortedAccordingTo(Comparator.reverseOrder());
+    }
+
+    @Test
+    void scrollRejectsTamperedCursors() throws Exception {
+        mockMvc.perform(get("/scroll").param("cursor", "bm90LWEtY3Vyc29y"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Invalid cursor")));
+        mockMvc.perform(get("/scroll").param("sort", "quantity"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getProductByIdThrowsWhenMissing() throws Exception {
         mockMvc.perform(get("/{id}", java.util.UUID.randomUUID()))
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.message").value(containsString("Product not found")));
     }
-}
 
+    private void saveLamp(int i) {
+        productRepository.save(Product.builder()
+                .name("Lamp " + i)
+                .price(BigDecimal.TEN)
+                .quantity(Integer.MAX_VALUE)
+                .build());
+    }
+
+    /**
+     * Sorted, so that the database answers and the count strategy applies.
+     */
+    private void expectTotal(String count, int page, int total, boolean exact) throws Exception {
+        mockMvc.perform(get("/")
+                        .param("query", "LAMP")
+                        .param("sort", "name")
+                        .param("size", "10")
+                        .param("page", String.valueOf(page))
+                        .param("count", count))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content", hasSize(page == 2 ? 5 : 10)))
+                .andExpect(jsonPath("$.data.totalElements", is(total)))
+                .andExpect(jsonPath("$.data.totalExact", is(exact)));
+    }
+}
@@ -1,13 +1,13 @@
 package com.gdn.training.product.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gdn.training.product.dto.CountedPage;
 import com.gdn.training.product.entity.Product;
+import com.gdn.training.product.service.CountStrategy;
 import com.gdn.training.product.service.ProductService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
@@ -18,6 +18,7 @@ import java.util.UUID;
 
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -38,13 +39,26 @@ class ProductControllerTest {
     @Test
     void searchProductsReturnsPage() throws Exception {
         Product product = sampleProduct("Gadget Alpha");
-        Page<Product> page = new PageImpl<>(List.of(product), PageRequest.of(0, 20), 1);
-        when(productService.searchProducts(any(), any())).thenReturn(page);
+        CountedPage<Product> page = new CountedPage<>(List.of(product), PageRequest.of(0, 20), 1, true);
+        when(productService.searchProducts(any(), any(), any())).thenReturn(page);
 
         mockMvc.perform(get("/").param("query", "gadget").param("size", "20"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success", is(true)))
-                .andExpect(jsonPath("$.data.content[0].name", is("Gadget Alpha")));
+                .andExpect(jsonPath("$.data.content[0].name", is("Gadget Alpha")))
+                .andExpect(jsonPath("$.data.totalExact", is(true)));
+    }
+
+    @Test
+    void searchProductsPassesTheRequestedCountStrategy() throws Exception {
+        CountedPage<Product> page = new CountedPage<>(List.of(), PageRequest.of(0, 20), 0, true);
+        when(productService.searchProducts(eq("gadget"), any(), eq(CountStrategy.PARALLEL))).thenReturn(page);
+
+        mockMvc.perform(get("/").param("query", "gadget").param("count", "Parallel"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/").param("query", "gadget").param("count", "sometimes"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Unsupported count strategy: sometimes")));
     }
 
     @Test
@@ -0,0 +1,168 @@
+package com.gdn.training.product.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.gdn.training.product.entity.Product;
+
+/**
+ * Checks against a real PostgreSQL that {@link ProductRepository#searchByName} is planned on the trigram index created
+ * by {@code db/schema-postgresql.sql}, for both the page and the count query, rather than scanning the table.
+ * <p>
+ * Runs only when {@code PRODUCT_TEST_POSTGRES_URL} points at a PostgreSQL database, e.g. the one from
+ * {@code docker compose up postgres}:
+ * <pre>
+ * PRODUCT_TEST_POSTGRES_URL=jdbc:postgresql://localhost:5432/product mvn test -Dtest=ProductSearchPlanTest
+ * </pre>
+ * The test works in the schema {@value #SCHEMA} of that database, which it drops with everything in it and creates
+ * again before seeding 50,000 products; its tables are dropped again at the end. Other schemas, including the
+ * service's catalog in {@code public}, are left alone. {@code PRODUCT_TEST_POSTGRES_USERNAME} and
+ * {@code PRODUCT_TEST_POSTGRES_PASSWORD} default to the service's own; the user must be allowed to create schemas.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.cache.type=simple",
+        "product-search.index.enabled=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.gdn.training.product.repository.ProductSearchPlanTest$RecordingStatementInspector"
+})
+@EnabledIfEnvironmentVariable(named = "PRODUCT_TEST_POSTGRES_URL", matches = ".+")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ProductSearchPlanTest {
+
+    private static final String[] WORDS = {
+            "gadget", "widget", "pro", "max", "mini", "ultra", "camera", "phone", "case", "charger", "lamp", "desk"};
+    private static final int CATALOG_SIZE = 50_000;
+    private static final String TRIGRAM_INDEX = "idx_products_name_trgm";
+    private static final String SCHEMA = "product_plan_test";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) throws SQLException {
+        String url = System.getenv("PRODUCT_TEST_POSTGRES_URL");
+        String username = env("PRODUCT_TEST_POSTGRES_USERNAME", "product_user");
+        String password = env("PRODUCT_TEST_POSTGRES_PASSWORD", "product_pass");
+        // Before the context starts: Hibernate creates the tables in the schema as it does.
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+                Statement statement = connection.createStatement()) {
+            statement.execute("drop schema if exists " + SCHEMA + " cascade");
+            statement.execute("create schema " + SCHEMA);
+        }
+        // public stays on the search path, where pg_trgm's operator classes are when the extension is installed there.
+        String schemaUrl = url + (url.contains("?") ? "&" : "?") + "currentSchema=" + SCHEMA + ",public";
+        registry.add("spring.datasource.url", () -> schemaUrl);
+        registry.add("spring.datasource.username", () -> username);
+        registry.add("spring.datasource.password", () -> password);
+    }
+
+    @BeforeAll
+    void seedCatalog() {
+        List<Object[]> rows = new ArrayList<>(CATALOG_SIZE);
+        for (int i = 1; i <= CATALOG_SIZE; i++) {
+            rows.add(new Object[] {UUID.randomUUID(), name(i), BigDecimal.TEN, 1});
+        }
+        jdbcTemplate.batchUpdate("insert into products (id, name, price, quantity) values (?, ?, ?, ?)", rows);
+        jdbcTemplate.execute("analyze products");
+    }
+
+    @BeforeEach
+    void clearStatements() {
+        RecordingStatementInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void substringSearchUsesTheTrigramIndex() {
+        String pattern = "%" + name(4242).toUpperCase() + "%";
+
+        Slice<Product> page = productRepository.searchByName(pattern, PageRequest.of(0, 20));
+
+        assertThat(page.getContent()).extracting(Product::getName).containsExactly(name(4242));
+        assertThat(productRepository.countMatchingName(pattern)).isOne();
+        assertSearchStatementsUseTheIndex(pattern);
+    }
+
+    @Test
+    void wildcardSearchUsesTheTrigramIndex() {
+        Slice<Product> page = productRepository.searchByName("GADGET%12_4", PageRequest.of(0, 20, Sort.by("name")));
+
+        assertThat(page.getContent()).isNotEmpty()
+                .allSatisfy(product -> assertThat(product.getName()).matches("gadget .*12.4"));
+        assertThat(productRepository.countMatchingName("GADGET%12_4")).isPositive();
+        assertSearchStatementsUseTheIndex("GADGET%12_4");
+    }
+
+    /**
+     * {@code EXPLAIN}s every statement the search ran, binding the pattern and a page size, and expects each plan to
+     * read the trigram index and never scan the table.
+     */
+    private void assertSearchStatementsUseTheIndex(String pattern) {
+        List<String> statements = RecordingStatementInspector.STATEMENTS.stream()
+                .filter(sql -> sql.contains("products"))
+                .toList();
+        assertThat(statements).as("page and count queries").hasSize(2);
+
+        for (String sql : statements) {
+            Object[] parameters = new Object[(int) sql.chars().filter(c -> c == '?').count()];
+            parameters[0] = pattern;
+            for (int i = 1; i < parameters.length; i++) {
+                parameters[i] = 20;
+            }
+            String plan = String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class, parameters));
+
+            assertThat(plan).as(sql).contains(TRIGRAM_INDEX).doesNotContain("Seq Scan");
+        }
+    }
+
+    private static String name(int i) {
+        return WORDS[i % WORDS.length] + " " + WORDS[i / WORDS.length % WORDS.length] + " " + i;
+    }
+
+    private static String env(String name, String fallback) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? fallback : value;
+    }
+
+    /**
+     * Records the SQL Hibernate sends, so the plans checked are those of the statements the repository runs.
+     */
+    public static class RecordingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
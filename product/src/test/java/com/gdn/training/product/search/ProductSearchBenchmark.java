@@ -0,0 +1,157 @@
+package com.gdn.training.product.search;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * First page of a product name search as the catalog grows: the repository's {@code LIKE} query plus its count
+ * query, against the trigram index plus the primary key lookup of the page. Run {@link #main} and compare the
+ * {@code p0.99} rows; sample time mode reports the latency distribution per query.
+ * <p>
+ * H2 in memory stands in for PostgreSQL, with the SQL Hibernate generates for {@code ProductRepository.searchByName}.
+ * H2 scans the table for it; PostgreSQL reads the trigram index from {@code db/schema-postgresql.sql} instead, but
+ * still sends the matching rows over the network (see {@code ProductSearchPlanTest}).
+ * <p>
+ * Names mix a few words with a serial number, like the seeded catalog's {@code Product <n>} but with enough
+ * variety for trigrams to be selective.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class ProductSearchBenchmark {
+
+    private static final String[] WORDS = {
+            "gadget", "widget", "pro", "max", "mini", "ultra", "camera", "phone", "case", "charger", "lamp", "desk"};
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"50000", "250000", "1000000"})
+    public int catalogSize;
+
+    /**
+     * A broad substring, a selective one, and a wildcard pattern.
+     */
+    @Param({"camera", "lamp desk 4242", "gadget*12?4"})
+    public String query;
+
+    private Connection connection;
+    private PreparedStatement pageQuery;
+    private PreparedStatement countQuery;
+    private TrigramIndex index;
+    private SearchQuery searchQuery;
+    private String likePattern;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:search" + catalogSize + ";MODE=PostgreSQL");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table products (id uuid primary key, name varchar(255) not null, "
+                    + "description varchar(1000), price numeric(38, 2) not null, quantity int not null, "
+                    + "image_url varchar(255))");
+        }
+        index = new TrigramIndex();
+        Random random = new Random(42);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into products values (?, ?, 'description', 10, 1, 'https://cdn.example.com/p.jpg')")) {
+            for (int i = 1; i <= catalogSize; i++) {
+                UUID id = UUID.randomUUID();
+                String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+                insert.setObject(1, id);
+                insert.setString(2, name);
+                insert.addBatch();
+                if (i % 10_000 == 0) {
+                    insert.executeBatch();
+                }
+                index.put(id, name);
+            }
+            insert.executeBatch();
+        }
+
+        boolean wildcard = query.contains("*") || query.contains("?");
+        searchQuery = wildcard ? SearchQuery.wildcard(query) : SearchQuery.substring(query);
+        likePattern = wildcard ? query.replace('*', '%').replace('?', '_') : "%" + query + "%";
+        pageQuery = connection.prepareStatement("select p.id, p.name, p.description, p.price, p.quantity, p.image_url "
+                + "from products p where lower(p.name) like lower(?) escape '\\' offset 0 rows fetch first ? rows only");
+        countQuery = connection.prepareStatement(
+                "select count(p.id) from products p where lower(p.name) like lower(?) escape '\\'");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public long database() throws SQLException {
+        pageQuery.setString(1, likePattern);
+        pageQuery.setInt(2, PAGE_SIZE);
+        long rows = 0;
+        try (ResultSet page = pageQuery.executeQuery()) {
+            while (page.next()) {
+                rows++;
+            }
+        }
+        countQuery.setString(1, likePattern);
+        try (ResultSet count = countQuery.executeQuery()) {
+            count.next();
+            return rows + count.getLong(1);
+        }
+    }
+
+    @Benchmark
+    public long index() throws SQLException {
+        TrigramIndex.Hits hits = index.search(searchQuery, 0, PAGE_SIZE);
+        if (hits.ids().isEmpty()) {
+            return hits.total();
+        }
+        List<String> placeholders = new ArrayList<>(hits.ids().size());
+        hits.ids().forEach(id -> placeholders.add("?"));
+        try (PreparedStatement load = connection.prepareStatement(
+                "select p.id, p.name, p.description, p.price, p.quantity, p.image_url from products p where p.id in ("
+                        + String.join(",", placeholders) + ")")) {
+            for (int i = 0; i < hits.ids().size(); i++) {
+                load.setObject(i + 1, hits.ids().get(i));
+            }
+            long rows = 0;
+            try (ResultSet page = load.executeQuery()) {
+                while (page.next()) {
+                    rows++;
+                }
+            }
+            return rows + hits.total();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProductSearchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
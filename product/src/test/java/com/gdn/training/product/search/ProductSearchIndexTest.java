@@ -0,0 +1,107 @@
+package com.gdn.training.product.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.gdn.training.product.config.ProductSearchProperties;
+import com.gdn.training.product.repository.ProductName;
+import com.gdn.training.product.repository.ProductRepository;
+
+class ProductSearchIndexTest {
+
+    private static final SearchQuery CAMERA = SearchQuery.substring("camera");
+
+    private ProductRepository productRepository;
+    private ProductSearchProperties properties;
+    private ProductSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        properties = new ProductSearchProperties();
+        searchIndex = new ProductSearchIndex(productRepository, mock(PlatformTransactionManager.class), properties);
+    }
+
+    @Test
+    void databaseAnswersUntilTheFirstBuild() {
+        UUID camera = UUID.randomUUID();
+        when(productRepository.streamAllNames()).thenReturn(Stream.of(name(camera, "Camera Pro")));
+
+        assertThat(searchIndex.search(CAMERA, PageRequest.of(0, 10))).isEmpty();
+
+        searchIndex.rebuild();
+
+        assertThat(searchIndex.isReady()).isTrue();
+        assertThat(searchIndex.search(CAMERA, PageRequest.of(0, 10)))
+                .hasValueSatisfying(hits -> assertThat(hits.ids()).containsExactly(camera));
+    }
+
+    @Test
+    void sortedPagesAndDisabledIndexGoToTheDatabase() {
+        when(productRepository.streamAllNames()).thenReturn(Stream.empty());
+        searchIndex.rebuild();
+
+        assertThat(searchIndex.search(CAMERA, PageRequest.of(0, 10, Sort.by("price")))).isEmpty();
+
+        properties.setEnabled(false);
+        assertThat(searchIndex.search(CAMERA, PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    void writesCommittedDuringARebuildSurviveTheSwap() {
+        UUID existing = UUID.randomUUID();
+        UUID added = UUID.randomUUID();
+        when(productRepository.streamAllNames()).thenReturn(Stream.of(name(existing, "Camera Pro")))
+                .thenReturn(Stream.of(name(existing, "Camera Pro"))
+                        .peek(row -> {
+                            searchIndex.saved(added, "Camera Mini");
+                            searchIndex.deleted(existing);
+                        }));
+        searchIndex.rebuild();
+
+        searchIndex.rebuild();
+
+        assertThat(searchIndex.search(CAMERA, PageRequest.of(0, 10)))
+                .hasValueSatisfying(hits -> assertThat(hits.ids()).containsExactly(added));
+    }
+
+    @Test
+    void failedRebuildKeepsThePreviousIndex() {
+        UUID camera = UUID.randomUUID();
+        when(productRepository.streamAllNames()).thenReturn(Stream.of(name(camera, "Camera Pro")))
+                .thenThrow(new QueryTimeoutException("timeout"));
+        searchIndex.rebuild();
+
+        assertThatThrownBy(searchIndex::rebuild).isInstanceOf(QueryTimeoutException.class);
+        searchIndex.saved(UUID.randomUUID(), "Camera Mini");
+
+        assertThat(searchIndex.search(CAMERA, PageRequest.of(0, 10)))
+                .hasValueSatisfying(hits -> assertThat(hits.total()).isEqualTo(2));
+    }
+
+    private static ProductName name(UUID id, String name) {
+        return new ProductName() {
+            @Override
+            public UUID getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+        };
+    }
+}
@@ -0,0 +1,161 @@
+package com.gdn.training.product.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class TrigramIndexTest {
+
+    private static final String[] WORDS = {
+            "gadget", "widget", "pro", "max", "mini", "ultra", "camera", "phone", "case", "charger", "100%", "a_b"};
+
+    private final TrigramIndex index = new TrigramIndex();
+
+    @Test
+    void postingListsRoundTripLargeGaps() {
+        PostingList list = new PostingList();
+        int[] ids = {0, 1, 127, 128, 16_383, 16_384, 2_000_000, Integer.MAX_VALUE - 1};
+        for (int id : ids) {
+            list.add(id);
+            list.add(id);
+        }
+
+        PostingList.Cursor cursor = list.cursor();
+        assertThat(IntStream.generate(cursor::next).limit(ids.length + 1).toArray())
+                .containsExactly(0, 1, 127, 128, 16_383, 16_384, 2_000_000, Integer.MAX_VALUE - 1, -1);
+        assertThat(list.size()).isEqualTo(ids.length);
+        assertThat(list.cursor().advance(129)).isEqualTo(16_383);
+    }
+
+    @Test
+    void substringSearchMatchesContainsIgnoringCase() {
+        UUID alpha = put("Gadget Alpha");
+        put("Widget Beta");
+        UUID pro = put("Mini GADGET pro");
+
+        TrigramIndex.Hits hits = index.search(SearchQuery.substring("gadget"), 0, 10);
+
+        assertThat(hits.total()).isEqualTo(2);
+        assertThat(hits.ids()).containsExactly(alpha, pro);
+        assertThat(index.search(SearchQuery.substring("ad"), 0, 10).total()).isEqualTo(2);
+        assertThat(index.search(SearchQuery.substring("zzz"), 0, 10).total()).isZero();
+    }
+
+    @Test
+    void substringTreatsLikeWildcardsLiterally() {
+        UUID percent = put("Charger 100% fast");
+        put("Charger 1000 fast");
+
+        assertThat(index.search(SearchQuery.substring("100%"), 0, 10).ids()).containsExactly(percent);
+    }
+
+    @Test
+    void wildcardPatternsMatchTheWholeName() {
+        UUID gadgetPro = put("Gadget Pro");
+        put("Widget Pro");
+        put("Gadget Pro Max");
+        UUID gadgetPre = put("Gadget Pre");
+
+        assertThat(index.search(SearchQuery.wildcard("gadget*pro"), 0, 10).ids()).containsExactly(gadgetPro);
+        assertThat(index.search(SearchQuery.wildcard("Gadget Pr?"), 0, 10).ids())
+                .containsExactlyInAnyOrder(gadgetPro, gadgetPre);
+        assertThat(index.search(SearchQuery.wildcard("*pro*"), 0, 10).total()).isEqualTo(3);
+        assertThat(index.search(SearchQuery.wildcard("gadget pro\\*"), 0, 10).total()).isZero();
+    }
+
+    @Test
+    void ranksExactThenPrefixThenWordThenInfixMatches() {
+        UUID infix = put("Supercamera");
+        UUID word = put("Action Camera");
+        UUID prefix = put("Camera Bag");
+        UUID exact = put("camera");
+        UUID longerPrefix = put("Camera Bag Deluxe");
+
+        assertThat(index.search(SearchQuery.substring("Camera"), 0, 10).ids())
+                .containsExactly(exact, prefix, longerPrefix, word, infix);
+    }
+
+    @Test
+    void pagesThroughRankedMatchesWithExactTotals() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            ids.add(put("Product " + (char) ('a' + i)));
+        }
+
+        TrigramIndex.Hits second = index.search(SearchQuery.substring("product"), 10, 10);
+        TrigramIndex.Hits last = index.search(SearchQuery.substring("product"), 20, 10);
+
+        assertThat(second.total()).isEqualTo(25);
+        assertThat(second.ids()).isEqualTo(ids.subList(10, 20));
+        assertThat(last.ids()).isEqualTo(ids.subList(20, 25));
+        assertThat(index.search(SearchQuery.substring("product"), 30, 10).ids()).isEmpty();
+    }
+
+    @Test
+    void renamesAndRemovalsAreSearchableImmediately() {
+        UUID id = put("Old Camera");
+        UUID other = put("Camera Case");
+
+        index.put(id, "New Phone");
+        index.remove(other);
+
+        assertThat(index.search(SearchQuery.substring("camera"), 0, 10).total()).isZero();
+        assertThat(index.search(SearchQuery.substring("phone"), 0, 10).ids()).containsExactly(id);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void agreesWithScanningEveryName() {
+        Random random = new Random(42);
+        Map<UUID, String> catalog = new LinkedHashMap<>();
+        for (int i = 0; i < 2_000; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            catalog.put(put(name), name);
+        }
+        List<UUID> removed = catalog.keySet().stream().filter(id -> random.nextInt(10) == 0).toList();
+        removed.forEach(id -> {
+            index.remove(id);
+            catalog.remove(id);
+        });
+
+        List<SearchQuery> queries = List.of(
+                SearchQuery.substring("gad"), SearchQuery.substring("et w"), SearchQuery.substring("1"),
+                SearchQuery.substring("100%"), SearchQuery.substring("a_b"), SearchQuery.substring("ultra mini 1"),
+                SearchQuery.wildcard("gadget*"), SearchQuery.wildcard("*pro 1?"), SearchQuery.wildcard("*a_b*"),
+                SearchQuery.wildcard("m?x*case*"), SearchQuery.wildcard("*"), SearchQuery.wildcard("*%*12"));
+        for (SearchQuery query : queries) {
+            List<UUID> expected = catalog.entrySet().stream()
+                    .filter(entry -> query.matches(SearchQuery.normalize(entry.getValue())))
+                    .map(Map.Entry::getKey)
+                    .toList();
+
+            TrigramIndex.Hits hits = index.search(query, 0, Integer.MAX_VALUE);
+
+            assertThat(hits.total()).as(query.toString()).isEqualTo(expected.size());
+            assertThat(hits.ids()).as(query.toString()).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    @Test
+    void wildcardSemanticsFollowLike() {
+        assertThat(SearchQuery.wildcard("a_b").matches("axb")).isTrue();
+        assertThat(SearchQuery.wildcard("a\\_b").matches("axb")).isFalse();
+        assertThat(SearchQuery.wildcard("a\\_b").matches("a_b")).isTrue();
+        assertThat(SearchQuery.wildcard("100%").matches("100 watts")).isTrue();
+        assertThat(SearchQuery.wildcard("a.c*").matches("abc")).isFalse();
+    }
+
+    private UUID put(String name) {
+        UUID id = UUID.randomUUID();
+        index.put(id, name);
+        return id;
+    }
+}
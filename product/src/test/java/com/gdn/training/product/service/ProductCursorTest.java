@@ -0,0 +1,63 @@
+package com.gdn.training.product.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import com.gdn.training.product.entity.Product;
+
+class ProductCursorTest {
+
+    @Test
+    void firstPageParsesTheSortAndOrdersTiesById() {
+        ProductCursor byName = ProductCursor.first("name");
+        ProductCursor byPrice = ProductCursor.first("Price,DESC");
+
+        assertThat(byName.sort()).isEqualTo(Sort.by(Sort.Direction.ASC, "name", "id"));
+        assertThat(byPrice.sort()).isEqualTo(Sort.by(Sort.Direction.DESC, "price", "id"));
+        assertThat(byName.lastId()).isNull();
+    }
+
+    @Test
+    void unsupportedSortsAreRejected() {
+        assertThatThrownBy(() -> ProductCursor.first("quantity")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ProductCursor.first("name,sideways")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ProductCursor.first("name,asc,id")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void tokensRoundTripTheLastSortKeyAndId() {
+        Product last = Product.builder()
+                .id(UUID.randomUUID())
+                .name("Lamp, desk")
+                .price(new BigDecimal("1E+3"))
+                .build();
+
+        ProductCursor byName = ProductCursor.decode(ProductCursor.first("name,desc").after(last).encode());
+        ProductCursor byPrice = ProductCursor.decode(ProductCursor.first("price").after(last).encode());
+
+        assertThat(byName).isEqualTo(new ProductCursor(ProductCursor.Key.NAME, Sort.Direction.DESC, "Lamp, desk",
+                last.getId()));
+        assertThat(byPrice.lastKey()).isEqualTo(new BigDecimal("1000"));
+        assertThat(byPrice.lastId()).isEqualTo(last.getId());
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        String tampered = Base64.getUrlEncoder()
+                .encodeToString("price,ASC,not-a-uuid,10".getBytes(StandardCharsets.UTF_8));
+
+        for (String token : new String[] {"%%%", "bmFtZQ", tampered}) {
+            assertThatThrownBy(() -> ProductCursor.decode(token))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.gdn.training.product.service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Latency of one page of products ordered by name, by how deep into the listing the page is: {@code GET /products}
+ * ({@code OFFSET} plus the count query) against {@code GET /products/scroll} (a seek past the previous slice's last
+ * name and id, fetching one extra row to tell whether there is a next slice). Run {@link #main}; the offset page grows
+ * with {@code page} while the keyset slice stays flat.
+ * <p>
+ * H2 in memory stands in for PostgreSQL, with the statements Hibernate generates and the {@code (name, id)} index
+ * declared on {@code Product}. H2 would otherwise hand back the previous result of an identical query over unchanged
+ * data, hence {@code OPTIMIZE_REUSE_RESULTS=FALSE}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ProductScrollBenchmark {
+
+    private static final String[] WORDS = {
+            "gadget", "widget", "pro", "max", "mini", "ultra", "camera", "phone", "case", "charger", "lamp", "desk"};
+    private static final int CATALOG_SIZE = 200_000;
+    private static final int PAGE_SIZE = 10;
+    private static final String COLUMNS = "select p.id, p.name, p.description, p.price, p.quantity, p.image_url "
+            + "from products p ";
+
+    /**
+     * Zero-based page number; page 4000 is the 40 001st product on.
+     */
+    @Param({"0", "100", "4000", "19000"})
+    public int page;
+
+    private Connection connection;
+    private PreparedStatement offsetPage;
+    private PreparedStatement count;
+    private PreparedStatement firstSlice;
+    private PreparedStatement nextSlice;
+    private String lastName;
+    private UUID lastId;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:scroll;MODE=PostgreSQL;OPTIMIZE_REUSE_RESULTS=FALSE");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table products (id uuid primary key, name varchar(255) not null, "
+                    + "description varchar(1000), price numeric(38, 2) not null, quantity int not null, "
+                    + "image_url varchar(255))");
+            statement.execute("create index idx_products_name_id on products (name, id)");
+        }
+        Random random = new Random(42);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into products values (?, ?, 'description', ?, 1, 'https://cdn.example.com/p.jpg')")) {
+            for (int i = 1; i <= CATALOG_SIZE; i++) {
+                insert.setObject(1, UUID.randomUUID());
+                insert.setString(2, WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                        + " " + random.nextInt(CATALOG_SIZE / 10));
+                insert.setInt(3, 10 + random.nextInt(990));
+                insert.addBatch();
+                if (i % 10_000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("analyze");
+        }
+
+        offsetPage = connection.prepareStatement(
+                COLUMNS + "order by p.name, p.id offset ? rows fetch first ? rows only");
+        count = connection.prepareStatement("select count(p.id) from products p");
+        firstSlice = connection.prepareStatement(COLUMNS + "order by p.name, p.id fetch first ? rows only");
+        nextSlice = connection.prepareStatement(COLUMNS
+                + "where p.name >= ? and (p.name > ? or (p.name = ? and p.id > ?)) "
+                + "order by p.name, p.id fetch first ? rows only");
+
+        if (page > 0) {
+            try (PreparedStatement previous = connection.prepareStatement(
+                    "select p.name, p.id from products p order by p.name, p.id offset ? rows fetch first 1 rows only")) {
+                previous.setLong(1, (long) page * PAGE_SIZE - 1);
+                try (ResultSet row = previous.executeQuery()) {
+                    row.next();
+                    lastName = row.getString(1);
+                    lastId = row.getObject(2, UUID.class);
+                }
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public long offset() throws SQLException {
+        offsetPage.setLong(1, (long) page * PAGE_SIZE);
+        offsetPage.setInt(2, PAGE_SIZE);
+        long rows = drain(offsetPage);
+        try (ResultSet total = count.executeQuery()) {
+            total.next();
+            return rows + total.getLong(1);
+        }
+    }
+
+    @Benchmark
+    public long keyset() throws SQLException {
+        if (lastId == null) {
+            firstSlice.setInt(1, PAGE_SIZE + 1);
+            return drain(firstSlice);
+        }
+        nextSlice.setString(1, lastName);
+        nextSlice.setString(2, lastName);
+        nextSlice.setString(3, lastName);
+        nextSlice.setObject(4, lastId);
+        nextSlice.setInt(5, PAGE_SIZE + 1);
+        return drain(nextSlice);
+    }
+
+    private static long drain(PreparedStatement statement) throws SQLException {
+        long rows = 0;
+        try (ResultSet result = statement.executeQuery()) {
+            while (result.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProductScrollBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,153 @@
+package com.gdn.training.product.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.cache.Cache;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import com.gdn.training.product.config.ProductCountProperties;
+import com.gdn.training.product.config.ProductSearchCacheProperties;
+import com.gdn.training.product.config.RedisCacheConfig;
+import com.gdn.training.product.dto.CountedPage;
+import com.gdn.training.product.entity.Product;
+import com.gdn.training.product.repository.ProductRepository;
+
+import redis.embedded.RedisServer;
+
+/**
+ * Reads cached pages back through the service's own Redis cache configuration, counting the commands Redis receives.
+ */
+class ProductSearchCacheIntegrationTest {
+
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 20);
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+
+    private RedisCacheManager cacheManager;
+    private ProductRepository productRepository;
+    private ProductSearchCache searchCache;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.serverCommands().flushAll();
+        }
+        ProductSearchCacheProperties properties = new ProductSearchCacheProperties();
+        cacheManager = new RedisCacheConfig().redisCacheManager(
+                connectionFactory, new CacheProperties(), new ProductCountProperties(), properties);
+        cacheManager.afterPropertiesSet();
+        productRepository = mock(ProductRepository.class);
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("redisConnectionFactory", connectionFactory);
+        searchCache = new ProductSearchCache(cacheManager, productRepository, properties,
+                beans.getBeanProvider(RedisConnectionFactory.class));
+    }
+
+    @Test
+    void aCachedPageIsReadInTwoCommandsWhateverItsSize() {
+        List<Product> products = IntStream.range(0, 20).mapToObj(i -> product("Lamp " + i)).toList();
+        Cache productCache = cacheManager.getCache(ProductSearchCache.PRODUCTS);
+        products.forEach(product -> productCache.put(product.getId(), product));
+        String key = searchCache.key("lamp", FIRST_PAGE, CountStrategy.EXACT).orElseThrow();
+        searchCache.put(key, new CountedPage<>(products, FIRST_PAGE, 20, true));
+        resetCommandStats();
+
+        assertThat(searchCache.get(key, FIRST_PAGE)).hasValueSatisfying(page ->
+                assertThat(page.getContent()).containsExactlyElementsOf(products));
+
+        assertThat(calls("get")).isOne();
+        assertThat(calls("mget")).isOne();
+        verify(productRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void onlyProductsMissingFromTheCacheAreLoaded() {
+        Product cached = product("Lamp 1");
+        Product evicted = product("Lamp 2");
+        cacheManager.getCache(ProductSearchCache.PRODUCTS).put(cached.getId(), cached);
+        when(productRepository.findAllById(List.of(evicted.getId()))).thenReturn(List.of(evicted));
+        String key = searchCache.key("lamp", FIRST_PAGE, CountStrategy.EXACT).orElseThrow();
+        searchCache.put(key, new CountedPage<>(List.of(cached, evicted), FIRST_PAGE, 2, true));
+
+        assertThat(searchCache.get(key, FIRST_PAGE)).hasValueSatisfying(page ->
+                assertThat(page.getContent()).containsExactly(cached, evicted));
+        assertThat(cacheManager.getCache(ProductSearchCache.PRODUCTS).get(evicted.getId(), Product.class))
+                .isEqualTo(evicted);
+    }
+
+    private static void resetCommandStats() {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.serverCommands().resetConfigStats();
+        }
+    }
+
+    /**
+     * How often Redis ran {@code command} since the stats were reset.
+     */
+    private static long calls(String command) {
+        Properties stats;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            stats = connection.serverCommands().info("commandstats");
+        }
+        String line = stats == null ? null : stats.getProperty("cmdstat_" + command);
+        if (line == null) {
+            return 0;
+        }
+        return Long.parseLong(line.substring("calls=".length(), line.indexOf(',')));
+    }
+
+    private static Product product(String name) {
+        return Product.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .price(BigDecimal.TEN)
+                .quantity(1)
+                .build();
+    }
+}
@@ -0,0 +1,133 @@
+package com.gdn.training.product.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import com.gdn.training.product.config.ProductSearchCacheProperties;
+import com.gdn.training.product.dto.CountedPage;
+import com.gdn.training.product.entity.Product;
+import com.gdn.training.product.repository.ProductRepository;
+
+class ProductSearchCacheTest {
+
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 2, Sort.by("name"));
+
+    private ConcurrentMapCacheManager cacheManager;
+    private ProductRepository productRepository;
+    private ProductSearchCacheProperties properties;
+    private ProductSearchCache searchCache;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager();
+        productRepository = mock(ProductRepository.class);
+        properties = new ProductSearchCacheProperties();
+        searchCache = new ProductSearchCache(cacheManager, productRepository, properties,
+                new StaticListableBeanFactory().getBeanProvider(RedisConnectionFactory.class));
+    }
+
+    @Test
+    void queriesDifferingInCaseAndSpacingShareAKey() {
+        String key = searchCache.key("Camera ", FIRST_PAGE, CountStrategy.EXACT).orElseThrow();
+
+        assertThat(searchCache.key("  CAMERA", FIRST_PAGE, CountStrategy.EXACT)).contains(key);
+        assertThat(searchCache.key("camera", PageRequest.of(1, 2, Sort.by("name")), CountStrategy.EXACT))
+                .get().isNotEqualTo(key);
+        assertThat(searchCache.key("camera", PageRequest.of(0, 2), CountStrategy.EXACT)).get().isNotEqualTo(key);
+        assertThat(searchCache.key("camera", FIRST_PAGE, CountStrategy.NONE)).get().isNotEqualTo(key);
+    }
+
+    @Test
+    void onlyLeadingPagesOfBoundedSizeAreCached() {
+        properties.setMaxPages(2);
+        properties.setMaxPageSize(50);
+
+        assertThat(searchCache.key("camera", PageRequest.of(1, 50), CountStrategy.EXACT)).isPresent();
+        assertThat(searchCache.key("camera", PageRequest.of(2, 50), CountStrategy.EXACT)).isEmpty();
+        assertThat(searchCache.key("camera", PageRequest.of(0, 51), CountStrategy.EXACT)).isEmpty();
+        assertThat(searchCache.key("camera", Pageable.unpaged(), CountStrategy.EXACT)).isEmpty();
+
+        properties.setEnabled(false);
+        assertThat(searchCache.key("camera", PageRequest.of(0, 10), CountStrategy.EXACT)).isEmpty();
+    }
+
+    @Test
+    void pagesAreHydratedInOrderThroughTheProductCache() {
+        Product cameraBag = product("Camera Bag");
+        Product cameraPro = product("Camera Pro");
+        cacheManager.getCache(ProductSearchCache.PRODUCTS).put(cameraPro.getId(), cameraPro);
+        when(productRepository.findAllById(List.of(cameraBag.getId()))).thenReturn(List.of(cameraBag));
+        String key = searchCache.key("camera", FIRST_PAGE, CountStrategy.NONE).orElseThrow();
+
+        searchCache.put(key, new CountedPage<>(List.of(cameraBag, cameraPro), FIRST_PAGE, 3, false));
+
+        assertThat(searchCache.get(key, FIRST_PAGE)).hasValueSatisfying(page -> {
+            assertThat(page.getContent()).containsExactly(cameraBag, cameraPro);
+            assertThat(page.getTotalElements()).isEqualTo(3);
+            assertThat(page.isTotalExact()).isFalse();
+        });
+        assertThat(cacheManager.getCache(ProductSearchCache.PRODUCTS).get(cameraBag.getId(), Product.class))
+                .isEqualTo(cameraBag);
+    }
+
+    @Test
+    void aProductChangeRetiresEveryCachedPage() {
+        Product camera = product("Camera");
+        String key = searchCache.key("camera", FIRST_PAGE, CountStrategy.EXACT).orElseThrow();
+        searchCache.put(key, new CountedPage<>(List.of(camera), FIRST_PAGE, 1, true));
+        cacheManager.getCache(ProductSearchCache.PRODUCTS).put(camera.getId(), camera);
+
+        searchCache.productChanged(camera.getId());
+
+        assertThat(searchCache.key("camera", FIRST_PAGE, CountStrategy.EXACT)).get().isNotEqualTo(key);
+        assertThat(cacheManager.getCache(ProductSearchCache.PRODUCTS).get(camera.getId())).isNull();
+    }
+
+    @Test
+    void pagesListingDeletedProductsAreMisses() {
+        Product camera = product("Camera");
+        String key = searchCache.key("camera", FIRST_PAGE, CountStrategy.EXACT).orElseThrow();
+        searchCache.put(key, new CountedPage<>(List.of(camera), FIRST_PAGE, 1, true));
+        when(productRepository.findAllById(any())).thenReturn(List.of());
+
+        assertThat(searchCache.get(key, FIRST_PAGE)).isEmpty();
+        assertThat(searchCache.get("unknown", FIRST_PAGE)).isEmpty();
+        verify(productRepository, never()).findById(any());
+    }
+
+    @Test
+    void cachedPagesReadBackFromRedisJson() {
+        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+        ProductSearchCache.CachedPage page = new ProductSearchCache.CachedPage(
+                List.of(UUID.randomUUID(), UUID.randomUUID()), 42, true);
+
+        assertThat(serializer.deserialize(serializer.serialize(page))).isEqualTo(page);
+    }
+
+    private static Product product(String name) {
+        return Product.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .price(BigDecimal.TEN)
+                .quantity(1)
+                .build();
+    }
+}
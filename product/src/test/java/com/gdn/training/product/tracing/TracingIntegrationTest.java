@@ -0,0 +1,84 @@
+package com.gdn.training.product.tracing;
+
+import com.gdn.training.common.tracing.RecentTraces;
+import com.gdn.training.product.entity.Product;
+import com.gdn.training.product.repository.ProductRepository;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "management.tracing.sampling.probability=1.0")
+@AutoConfigureMockMvc
+@AutoConfigureObservability(metrics = false)
+@ActiveProfiles("test")
+class TracingIntegrationTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String CACHED_TRACE_ID = "5bf92f3577b34da6a3ce929d0e0e4736";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private RecentTraces recentTraces;
+
+    @Autowired
+    private SdkTracerProvider tracerProvider;
+
+    @BeforeEach
+    void setUp() {
+        tracerProvider.forceFlush().join(5, TimeUnit.SECONDS);
+        recentTraces.clear();
+    }
+
+    @Test
+    void productLookupRecordsCacheAndRepositorySpansInTheCallersTrace() throws Exception {
+        Product saved = productRepository.save(Product.builder()
+                .name("Camera Pro")
+                .description("High-end camera")
+                .price(BigDecimal.valueOf(899))
+                .quantity(Integer.MAX_VALUE)
+                .imageUrl("https://example.com/camera-pro")
+                .build());
+
+        mockMvc.perform(get("/{id}", saved.getId()).header("traceparent", traceparent(TRACE_ID)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/{id}", saved.getId()).header("traceparent", traceparent(CACHED_TRACE_ID)))
+                .andExpect(status().isOk());
+        tracerProvider.forceFlush().join(5, TimeUnit.SECONDS);
+
+        assertThat(recentTraces.trace(TRACE_ID)).hasValueSatisfying(trace -> {
+            assertThat(trace.spans()).extracting(RecentTraces.Span::name)
+                    .contains("product-by-id get", "product-repository.find-by-id", "product-by-id put");
+            assertThat(trace.spans()).filteredOn(span -> span.name().equals("product-by-id get"))
+                    .extracting(span -> span.attributes().get("result"))
+                    .containsExactly("miss");
+        });
+        assertThat(recentTraces.trace(CACHED_TRACE_ID)).hasValueSatisfying(trace -> {
+            assertThat(trace.spans()).extracting(RecentTraces.Span::name).doesNotContain("product-repository.find-by-id");
+            assertThat(trace.spans()).filteredOn(span -> span.name().equals("product-by-id get"))
+                    .extracting(span -> span.attributes().get("result"))
+                    .containsExactly("hit");
+        });
+    }
+
+    private static String traceparent(String traceId) {
+        return "00-" + traceId + "-00f067aa0ba902b7-01";
+    }
+}